@@ -1,14 +1,22 @@
 package org.paiz;
 
 import org.paiz.controller.GestorEquipos;
+import org.paiz.model.RepositorioEquipos;
 import org.paiz.view.InterfazConsola;
 
+import java.nio.file.Paths;
+
 /**
  * Clase Aplicacion (Main)
  * @author Franco Paiz
  * @version 1.0
  */
 public class Main {
+    // Catálogo de equipos que sobrevive entre ejecuciones
+    private static final String ARCHIVO_CATALOGO = "agromanager-equipos.cat";
+    // Segmentos de la bitácora de los equipos
+    private static final String DIRECTORIO_BITACORA = "agromanager-bitacora";
+
     /**
      * Método principal que inicia la aplicación
      * Demuestra el patrón MVC:
@@ -29,8 +37,9 @@ public class Main {
 
         try {
             // Patrón MVC: Inicialización
-            // 1. Crear el Controlador
-            GestorEquipos gestor = new GestorEquipos();
+            // 1. Crear el Controlador (con catálogo y bitácora persistentes)
+            GestorEquipos gestor = new GestorEquipos(new RepositorioEquipos(),
+                    Paths.get(ARCHIVO_CATALOGO), Paths.get(DIRECTORIO_BITACORA));
 
             // 2. Crear la Vista pasándole el Controlador
             InterfazConsola interfaz = new InterfazConsola(gestor);
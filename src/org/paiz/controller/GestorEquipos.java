@@ -1,12 +1,45 @@
 package org.paiz.controller;
 
-import org.paiz.interfaces.IAuditable;
-import org.paiz.interfaces.IEjecutable;
 import org.paiz.interfaces.IMedible;
+import org.paiz.model.AgregadorVentanas;
+import org.paiz.model.AlmacenSeries;
+import org.paiz.model.AvanceExportacion;
+import org.paiz.model.CanalTelemetria;
+import org.paiz.model.Capacidad;
+import org.paiz.model.CatalogoEquipos;
+import org.paiz.model.DiarioBitacora;
+import org.paiz.model.DetectorAnomalias;
+import org.paiz.model.Dimension;
 import org.paiz.model.Equipo;
+import org.paiz.model.EventoBitacora;
+import org.paiz.model.EstadisticasFlota;
+import org.paiz.model.ExportadorBitacora;
+import org.paiz.model.FiltroBitacora;
+import org.paiz.model.FormatoExportacion;
+import org.paiz.model.GeneradorFlota;
+import org.paiz.model.LecturaTelemetria;
+import org.paiz.model.MetricasSondeo;
+import org.paiz.model.MotorBitacora;
+import org.paiz.model.PaginaBitacora;
+import org.paiz.model.PlanificadorSondeo;
+import org.paiz.model.PoliticaRetencion;
+import org.paiz.model.PoliticaPresion;
+import org.paiz.model.ReceptorAlerta;
+import org.paiz.model.ReglaAlerta;
+import org.paiz.model.ReporteGeneracion;
 import org.paiz.model.RepositorioEquipos;
+import org.paiz.model.Resolucion;
+import org.paiz.model.ResumenGrupo;
+import org.paiz.model.ResumenVentana;
+import org.paiz.model.TipoAlerta;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Clase GestorEquipos (CONTROLADOR en patrón MVC)
@@ -15,7 +48,38 @@ import java.util.List;
  * @version 1.0
  */
 public class GestorEquipos {
+    // Cada cuánto el sondeo aplica la política de retención
+    private static final Duration PERIODO_RETENCION = Duration.ofMinutes(1);
+    // Ventana más corta a la que el presupuesto puede llevar series y minutos
+    private static final Duration VENTANA_MINIMA = Duration.ofMinutes(10);
+
     private RepositorioEquipos repositorio;
+    // Archivo del catálogo persistente; null si la flota vive solo en memoria
+    private Path rutaCatalogo;
+    private CatalogoEquipos catalogo;
+    // Directorio de la bitácora persistente; null si la bitácora vive solo en memoria
+    private Path directorioBitacora;
+    private DiarioBitacora diario;
+    // Historial comprimido de las lecturas de los equipos medibles
+    private final AlmacenSeries series = new AlmacenSeries();
+    // Mínimo, máximo, promedio y cantidad por minuto, hora y día
+    private final AgregadorVentanas agregados = new AgregadorVentanas();
+    // Umbrales y desvíos de humedad evaluados en cada lectura
+    private final DetectorAnomalias detector = new DetectorAnomalias(this::alertar,
+            new ReglaAlerta(CanalTelemetria.HUMEDAD_SUELO, 18.0, 38.0, 1.0, 4.0, 0.05, 30, 3),
+            new ReglaAlerta(CanalTelemetria.HUMEDAD_RELATIVA, 20.0, 95.0, 2.0, 4.0, 0.05, 30, 3));
+    // Destino adicional de las alertas; null si solo van a la bitácora
+    private volatile ReceptorAlerta receptorAlertas;
+    // Sondeo periódico de los equipos medibles; null si no está activo
+    private PlanificadorSondeo planificador;
+    // Cuánto se conserva de la telemetría; se aplica desde el sondeo
+    private volatile PoliticaRetencion retencion = PoliticaRetencion.porDefecto();
+    // Serializa las pasadas de retención; no se usa el monitor del gestor
+    // porque detenerSondeo lo retiene mientras espera a los hilos lectores
+    private final Object mantenimiento = new Object();
+    // Ventanas vigentes de series crudas y minutos, acortadas por el presupuesto
+    private volatile long ventanaSeriesNanos = -1;
+    private volatile long ventanaMinutosNanos = -1;
 
     /**
      * Constructor que inicializa el repositorio
@@ -24,6 +88,87 @@ public class GestorEquipos {
         this.repositorio = new RepositorioEquipos();
     }
 
+    /**
+     * Constructor que usa el repositorio indicado
+     * Permite, por ejemplo, usar RepositorioEquiposConcurrente cuando
+     * varios hilos registran equipos mientras la consola o los reportes leen
+     * @param repositorio repositorio a utilizar
+     */
+    public GestorEquipos(RepositorioEquipos repositorio) {
+        this.repositorio = repositorio;
+    }
+
+    /**
+     * Constructor que además persiste la flota en un catálogo binario
+     * @param repositorio repositorio a utilizar
+     * @param rutaCatalogo archivo del catálogo (se crea si no existe)
+     */
+    public GestorEquipos(RepositorioEquipos repositorio, Path rutaCatalogo) {
+        this.repositorio = repositorio;
+        this.rutaCatalogo = rutaCatalogo;
+    }
+
+    /**
+     * Constructor que persiste la flota y también la bitácora de los equipos
+     * @param repositorio repositorio a utilizar
+     * @param rutaCatalogo archivo del catálogo (se crea si no existe)
+     * @param directorioBitacora carpeta de los segmentos de bitácora
+     */
+    public GestorEquipos(RepositorioEquipos repositorio, Path rutaCatalogo, Path directorioBitacora) {
+        this.repositorio = repositorio;
+        this.rutaCatalogo = rutaCatalogo;
+        this.directorioBitacora = directorioBitacora;
+    }
+
+    /**
+     * Registra un equipo nuevo y, si hay catálogo, lo persiste
+     * Se persiste antes de incorporarlo, así un error de escritura no deja
+     * en memoria un equipo que se perdería al reiniciar
+     * @param equipo equipo a registrar
+     * @return boolean indicando si se registró
+     * @throws IOException si no se pudo persistir en el catálogo
+     */
+    public boolean registrarEquipo(Equipo equipo) throws IOException {
+        if (equipo == null || equipo.getCodigo() == null) {
+            return false;
+        }
+        return registrarEquipo(equipo.getCodigo(), () -> equipo);
+    }
+
+    /**
+     * Registra un equipo que solo se construye si su código está libre
+     * El código se reserva en el repositorio antes de construir el equipo,
+     * así un duplicado no llega a anotar su inicialización en la bitácora y
+     * varios hilos pueden registrar a la vez sin un candado común
+     * @param codigo código del equipo
+     * @param fabrica construye el equipo con ese código
+     * @return boolean false si el código ya existía
+     * @throws IOException si no se pudo persistir en el catálogo
+     * @throws IllegalArgumentException si la fábrica entrega otro código
+     */
+    public boolean registrarEquipo(String codigo, Supplier<? extends Equipo> fabrica) throws IOException {
+        if (codigo == null || !repositorio.reservarCodigo(codigo)) {
+            return false;
+        }
+        boolean registrado = false;
+        try {
+            Equipo equipo = fabrica.get();
+            if (equipo == null || !Equipo.normalizarCodigo(codigo).equals(equipo.getClaveCodigo())) {
+                throw new IllegalArgumentException("La fábrica no construyó el equipo " + codigo);
+            }
+            // Primero el catálogo: si falla, el equipo no queda solo en memoria
+            if (catalogo != null) {
+                catalogo.anexar(equipo);
+            }
+            registrado = repositorio.incorporarReservado(equipo);
+            return registrado;
+        } finally {
+            if (!registrado) {
+                repositorio.cancelarReserva(codigo);
+            }
+        }
+    }
+
     /**
      * Enumera todos los equipos del sistema
      * @return List con todos los equipos
@@ -50,6 +195,56 @@ public class GestorEquipos {
         return repositorio.localizarPorDenominacion(denominacion);
     }
 
+    /**
+     * Localiza los equipos ubicados en una zona
+     * @param zona zona a buscar
+     * @return List con equipos encontrados
+     */
+    public List<Equipo> localizarEquiposPorZona(String zona) {
+        return repositorio.localizarPorZona(zona);
+    }
+
+    /**
+     * Localiza los equipos de una categoría
+     * @param categoria categoría a buscar
+     * @return List con equipos encontrados
+     */
+    public List<Equipo> localizarEquiposPorCategoria(String categoria) {
+        return repositorio.localizarPorCategoria(categoria);
+    }
+
+    /**
+     * Localiza los equipos de una marca
+     * @param marca marca a buscar
+     * @return List con equipos encontrados
+     */
+    public List<Equipo> localizarEquiposPorMarca(String marca) {
+        return repositorio.localizarPorMarca(marca);
+    }
+
+    /**
+     * Localiza los equipos que tienen todas las capacidades indicadas
+     * @param capacidades capacidades requeridas
+     * @return List con equipos encontrados
+     */
+    public List<Equipo> localizarEquiposPorCapacidades(Capacidad... capacidades) {
+        return repositorio.filtrarEquipos(null, null, null, capacidades);
+    }
+
+    /**
+     * Consulta equipos combinando criterios; los criterios null no filtran
+     * Ejemplo: todos los medibles de "Invernadero 1"
+     * @param zona zona requerida o null
+     * @param categoria categoría requerida o null
+     * @param marca marca requerida o null
+     * @param capacidades capacidades requeridas
+     * @return List con equipos encontrados
+     */
+    public List<Equipo> consultarEquipos(String zona, String categoria, String marca,
+                                         Capacidad... capacidades) {
+        return repositorio.filtrarEquipos(zona, categoria, marca, capacidades);
+    }
+
     /**
      * Organiza equipos por consumo eléctrico
      * Utiliza polimorfismo: el método compareTo de cada equipo
@@ -59,26 +254,45 @@ public class GestorEquipos {
         return repositorio.organizarPorConsumo();
     }
 
+    /**
+     * Obtiene los equipos de mayor consumo eléctrico
+     * @param cantidad cantidad máxima de equipos
+     * @return List de mayor a menor consumo
+     */
+    public List<Equipo> obtenerEquiposMayorConsumo(int cantidad) {
+        return repositorio.obtenerMayorConsumo(cantidad);
+    }
+
+    /**
+     * Obtiene los equipos de menor consumo eléctrico
+     * @param cantidad cantidad máxima de equipos
+     * @return List de menor a mayor consumo
+     */
+    public List<Equipo> obtenerEquiposMenorConsumo(int cantidad) {
+        return repositorio.obtenerMenorConsumo(cantidad);
+    }
+
+    /**
+     * Localiza equipos cuyo consumo está entre dos valores
+     * @param minimoWatts consumo mínimo
+     * @param maximoWatts consumo máximo
+     * @return List de menor a mayor consumo
+     */
+    public List<Equipo> localizarEquiposPorRangoConsumo(double minimoWatts, double maximoWatts) {
+        return repositorio.localizarPorRangoConsumo(minimoWatts, maximoWatts);
+    }
+
     /**
      * Genera un reporte estadístico del sistema
      * @return String con estadísticas generales
      */
     public String generarReporteEstadistico() {
-        List<Equipo> equipos = repositorio.recuperarEquipos();
-        int totalEquipos = equipos.size();
-
-        // Contar por capacidades usando polimorfismo
-        int medibles = 0;
-        int ejecutables = 0;
-        int auditables = 0;
-        double consumoTotal = 0.0;
-
-        for (Equipo equipo : equipos) {
-            if (equipo instanceof IMedible) medibles++;
-            if (equipo instanceof IEjecutable) ejecutables++;
-            if (equipo instanceof IAuditable) auditables++;
-            consumoTotal += equipo.getConsumoWatts();
-        }
+        // Los agregados se mantienen en el repositorio: lectura en tiempo constante
+        EstadisticasFlota estadisticas = repositorio.obtenerEstadisticas();
+        int totalEquipos = estadisticas.getTotalEquipos();
+        int medibles = estadisticas.contarPorCapacidad(Capacidad.MEDIBLE);
+        int ejecutables = estadisticas.contarPorCapacidad(Capacidad.EJECUTABLE);
+        int auditables = estadisticas.contarPorCapacidad(Capacidad.AUDITABLE);
 
         StringBuilder reporte = new StringBuilder();
         reporte.append("========================================\n");
@@ -88,19 +302,370 @@ public class GestorEquipos {
         reporte.append(String.format("Equipos con medición: %d\n", medibles));
         reporte.append(String.format("Equipos accionables: %d\n", ejecutables));
         reporte.append(String.format("Equipos auditables: %d\n", auditables));
-        reporte.append(String.format("Consumo total: %.2f W\n", consumoTotal));
+        reporte.append(String.format("Equipos operativos: %d\n", estadisticas.getOperativos()));
+        reporte.append(String.format("Equipos inactivos: %d\n", estadisticas.getInactivos()));
+        reporte.append(String.format("Consumo total: %.2f W\n", estadisticas.getConsumoTotal()));
         reporte.append(String.format("Consumo promedio: %.2f W\n",
-                totalEquipos > 0 ? consumoTotal / totalEquipos : 0));
+                estadisticas.getConsumoPromedio()));
+        MotorBitacora motor = MotorBitacora.global();
+        long enMemoria = motor.contarRegistros();
+        reporte.append(String.format("Bitácora en memoria: %d registros, %.1f MB\n",
+                enMemoria, motor.estimarBytesEnMemoria() / (double) (1 << 20)));
+        if (diario != null) {
+            reporte.append(String.format("Bitácora en disco: %s\n", diario.resumirAlmacenamiento()));
+        }
+        reporte.append(String.format("Series de telemetría: %d series, %d lecturas, %.1f MB\n",
+                series.contarSeries(), series.contarPuntos(),
+                series.estimarBytesEnMemoria() / (double) (1 << 20)));
+        reporte.append(String.format("Agregados de telemetría: %.1f MB\n",
+                agregados.estimarBytesEnMemoria() / (double) (1 << 20)));
+        reporte.append(String.format("Retención: %s\n", resumirRetencion()));
+        MetricasSondeo sondeo = obtenerMetricasSondeo();
+        if (sondeo != null) {
+            reporte.append(String.format("Sondeo: %s\n", sondeo));
+        }
         reporte.append("========================================\n");
 
         return reporte.toString();
     }
 
+    /**
+     * Agrupa los equipos y resume consumo, cantidad y estado por grupo
+     * Por ejemplo: consumo por zona, equipos por marca o proporción de
+     * inactivos por categoría
+     * @param dimension atributo por el que se agrupa
+     * @return Map con el resumen de cada grupo, ordenado por nombre
+     */
+    public Map<String, ResumenGrupo> agruparEquiposPor(Dimension dimension) {
+        return repositorio.agruparPor(dimension);
+    }
+
+    /**
+     * Resume los equipos que tienen un valor en una dimensión
+     * Ejemplo: resumirEquiposPor(Dimension.ZONA, "Invernadero 1")
+     * @param dimension atributo a filtrar
+     * @param valor valor buscado
+     * @return ResumenGrupo con cantidad, consumo y estado
+     */
+    public ResumenGrupo resumirEquiposPor(Dimension dimension, String valor) {
+        return repositorio.resumirPor(dimension, valor);
+    }
+
+    /**
+     * Consulta la bitácora de la flota por tiempo, equipo, zona y evento
+     * Con bitácora persistente se consulta todo el historial en disco; si
+     * no, los registros que conserva el motor en memoria
+     * @param filtro criterios de la consulta
+     * @param cursor PaginaBitacora.INICIO o el cursor de la página anterior
+     * @param limite cantidad máxima de registros por página
+     * @return PaginaBitacora con los registros y el cursor siguiente
+     * @throws IOException si falla la lectura de la bitácora en disco
+     */
+    public PaginaBitacora consultarBitacora(FiltroBitacora filtro, long cursor, int limite)
+            throws IOException {
+        if (diario != null) {
+            MotorBitacora.global().esperarEscritura();
+            return diario.consultar(filtro, cursor, limite);
+        }
+        return MotorBitacora.global().consultar(filtro, cursor, limite);
+    }
+
+    /**
+     * Exporta la bitácora en disco a un canal sin cargarla completa en memoria
+     * @param formato CSV o binario
+     * @param filtro criterios de los registros a exportar
+     * @param cursor PaginaBitacora.INICIO o el último cursor informado por
+     *               una exportación interrumpida
+     * @param destino canal donde se escribe
+     * @param avance recibe el cursor y los bytes escritos tras cada lote; puede ser null
+     * @return long con la cantidad de registros exportados
+     * @throws IOException si falla la lectura de la bitácora o la escritura
+     */
+    public long exportarBitacora(FormatoExportacion formato, FiltroBitacora filtro, long cursor,
+                                 WritableByteChannel destino, AvanceExportacion avance) throws IOException {
+        if (diario == null) {
+            throw new IllegalStateException("La bitácora persistente no está activa");
+        }
+        MotorBitacora.global().esperarEscritura();
+        return new ExportadorBitacora(diario, formato).exportar(filtro, cursor, destino, avance);
+    }
+
+    /**
+     * Captura una lectura de un equipo medible y la guarda en sus series
+     * @param equipo equipo que debe implementar IMedible
+     * @return LecturaTelemetria con los valores capturados
+     */
+    public LecturaTelemetria capturarTelemetria(Equipo equipo) {
+        LecturaTelemetria lectura = new LecturaTelemetria();
+        ((IMedible) equipo).capturarDatos(lectura);
+        registrarLectura(equipo.getCodigo(), lectura);
+        return lectura;
+    }
+
+    /**
+     * Guarda una lectura en las series y en los agregados de su equipo y
+     * la pasa por el detector de anomalías
+     */
+    private void registrarLectura(String codigo, LecturaTelemetria lectura) {
+        series.registrar(codigo, lectura);
+        agregados.recibir(codigo, lectura);
+        detector.recibir(codigo, lectura);
+    }
+
+    /**
+     * Anota una alerta en la bitácora del equipo y la reenvía al receptor externo
+     */
+    private void alertar(String codigo, CanalTelemetria canal, TipoAlerta tipo, boolean activa,
+                         double valor, long instanteNanos) {
+        MotorBitacora.global().abrirCanal(codigo).registrar(
+                activa ? EventoBitacora.ALERTA_ACTIVADA : EventoBitacora.ALERTA_DESPEJADA,
+                String.format("%s %s (%.2f)", canal, tipo, valor));
+        ReceptorAlerta externo = receptorAlertas;
+        if (externo != null) {
+            externo.alertar(codigo, canal, tipo, activa, valor, instanteNanos);
+        }
+    }
+
+    /**
+     * Indica a quién avisar, además de la bitácora, cuando una alerta se
+     * activa o se despeja
+     * @param receptor receptor de alertas, o null para quitarlo
+     */
+    public void setReceptorAlertas(ReceptorAlerta receptor) {
+        this.receptorAlertas = receptor;
+    }
+
+    /**
+     * Detector de umbrales y desvíos de las lecturas capturadas
+     * @return DetectorAnomalias con el estado de alertas por equipo
+     */
+    public DetectorAnomalias getDetector() {
+        return detector;
+    }
+
+    /**
+     * Agrega a la flota equipos sintéticos para pruebas de escala
+     * Los números continúan después de la cantidad actual de equipos y se
+     * omiten los códigos que ya existen. Si hay catálogo, los equipos
+     * generados se persisten en él como los registrados a mano, así lo que
+     * anotan en la bitácora persistente corresponde a equipos que siguen
+     * existiendo al reiniciar.
+     * @param cantidad cantidad de equipos a generar
+     * @param semilla semilla de la flota; la misma semilla da la misma flota
+     * @param hilos hilos que generan
+     * @return ReporteGeneracion con equipos por segundo y heap usado
+     * @throws IOException si falla la escritura del catálogo
+     * @throws IllegalStateException si hay bitácora persistente pero no catálogo
+     */
+    public ReporteGeneracion generarFlota(long cantidad, long semilla, int hilos) throws IOException {
+        if (diario != null && catalogo == null) {
+            // Los registros de inicialización quedarían en disco sin sus equipos
+            throw new IllegalStateException("Con bitácora persistente la flota generada necesita catálogo");
+        }
+        long numeroInicial = repositorio.obtenerEstadisticas().getTotalEquipos() + 1;
+        return new GeneradorFlota(semilla).poblar(repositorio, catalogo, cantidad, numeroInicial, hilos);
+    }
+
+    /**
+     * Empieza a sondear periódicamente todos los equipos medibles de la flota
+     * Las lecturas se guardan en las series de cada equipo y la política
+     * de retención se aplica cada PERIODO_RETENCION
+     * @param periodo tiempo entre sondeos de cada equipo
+     * @param hilos cantidad de hilos lectores
+     * @return int con la cantidad de equipos programados
+     */
+    public synchronized int iniciarSondeo(Duration periodo, int hilos) {
+        if (planificador != null) {
+            throw new IllegalStateException("El sondeo ya está activo");
+        }
+        PlanificadorSondeo nuevo = new PlanificadorSondeo(this::registrarLectura, hilos);
+        nuevo.programarMantenimiento(this::aplicarRetencion, PERIODO_RETENCION);
+        for (Equipo equipo : localizarEquiposPorCapacidades(Capacidad.MEDIBLE)) {
+            nuevo.programar(equipo, periodo);
+        }
+        nuevo.iniciar();
+        planificador = nuevo;
+        return nuevo.contarProgramados();
+    }
+
+    /**
+     * Descarta la telemetría que excede la política de retención
+     * Primero recorta por tiempo. Si la telemetría sigue superando el
+     * presupuesto, acorta en la misma proporción las series crudas y los
+     * minutos hasta que quepan (con un margen del 10 %), sin bajar de
+     * VENTANA_MINIMA; mientras sobre más de un cuarto del presupuesto las
+     * ventanas vuelven a crecer de a poco hasta las configuradas.
+     * Las series se descartan por bloques sellados, así que una serie
+     * puede conservar algo más que su ventana.
+     */
+    public void aplicarRetencion() {
+        synchronized (mantenimiento) {
+            PoliticaRetencion politica = retencion;
+            long ahora = MotorBitacora.ahoraEpocaNanos();
+            long ventanaSeries = ventanaSeriesNanos < 0 ? politica.getSeries().toNanos()
+                    : Math.min(ventanaSeriesNanos, politica.getSeries().toNanos());
+            long ventanaMinutos = ventanaMinutosNanos < 0 ? politica.getMinutos().toNanos()
+                    : Math.min(ventanaMinutosNanos, politica.getMinutos().toNanos());
+            for (Resolucion resolucion : Resolucion.values()) {
+                if (resolucion != Resolucion.MINUTO) {
+                    agregados.descartarAnteriores(resolucion,
+                            ahora - politica.obtenerVentana(resolucion).toNanos());
+                }
+            }
+            series.descartarAnteriores(ahora - ventanaSeries);
+            agregados.descartarAnteriores(Resolucion.MINUTO, ahora - ventanaMinutos);
+
+            long crudas = series.estimarBytesEnMemoria();
+            long totalAgregados = agregados.estimarBytesEnMemoria();
+            long finos = crudas + agregados.estimarBytesEnMemoria(Resolucion.MINUTO);
+            long presupuesto = politica.getPresupuestoBytes();
+            if (crudas + totalAgregados > presupuesto && finos > 0) {
+                // Lo que no se acorta (horas, días y ventanas abiertas) queda fuera de la proporción
+                long disponible = Math.max(0, presupuesto - (crudas + totalAgregados - finos));
+                double proporcion = 0.9 * disponible / finos;
+                long minima = VENTANA_MINIMA.toNanos();
+                ventanaSeries = Math.max(minima, (long) (ventanaSeries * proporcion));
+                ventanaMinutos = Math.max(minima, (long) (ventanaMinutos * proporcion));
+                series.descartarAnteriores(ahora - ventanaSeries);
+                agregados.descartarAnteriores(Resolucion.MINUTO, ahora - ventanaMinutos);
+            } else if ((crudas + totalAgregados) * 4 < presupuesto * 3) {
+                ventanaSeries = Math.min(politica.getSeries().toNanos(), ventanaSeries / 4 * 5);
+                ventanaMinutos = Math.min(politica.getMinutos().toNanos(), ventanaMinutos / 4 * 5);
+            }
+            ventanaSeriesNanos = ventanaSeries;
+            ventanaMinutosNanos = ventanaMinutos;
+        }
+    }
+
+    /**
+     * Política de retención vigente
+     * @return PoliticaRetencion con ventanas y presupuesto
+     */
+    public PoliticaRetencion getRetencion() {
+        return retencion;
+    }
+
+    /**
+     * Cambia la política de retención; se aplica en la próxima pasada
+     * @param retencion nueva política
+     */
+    public void setRetencion(PoliticaRetencion retencion) {
+        synchronized (mantenimiento) {
+            this.retencion = retencion;
+            this.ventanaSeriesNanos = -1;
+            this.ventanaMinutosNanos = -1;
+        }
+    }
+
+    private String resumirRetencion() {
+        PoliticaRetencion politica = retencion;
+        long ventanaSeries = ventanaSeriesNanos;
+        if (ventanaSeries < 0 || ventanaSeries >= politica.getSeries().toNanos()) {
+            return politica.toString();
+        }
+        return String.format("%s; por presupuesto se conservan %s crudas y %s de minutos", politica,
+                PoliticaRetencion.describir(Duration.ofNanos(ventanaSeries)),
+                PoliticaRetencion.describir(Duration.ofNanos(ventanaMinutosNanos)));
+    }
+
+    /**
+     * Detiene el sondeo periódico si está activo
+     */
+    public synchronized void detenerSondeo() {
+        if (planificador != null) {
+            planificador.detener();
+            planificador = null;
+        }
+    }
+
+    /**
+     * Métricas del sondeo periódico
+     * @return MetricasSondeo con sondeos, tasa y retrasos, o null si no está activo
+     */
+    public synchronized MetricasSondeo obtenerMetricasSondeo() {
+        return planificador == null ? null : planificador.obtenerMetricas();
+    }
+
+    /**
+     * Resume un canal por zona en el período reciente usando solo los agregados
+     * Ejemplo: resumirTelemetriaPorZona(CanalTelemetria.HUMEDAD_SUELO, Duration.ofHours(24))
+     * @param canal magnitud a resumir
+     * @param periodo cuánto hacia atrás desde ahora; se redondea a ventanas
+     *                completas de hora (o de minuto si es menor a dos horas)
+     * @return Map con el resumen de cada zona, ordenado por nombre
+     */
+    public Map<String, ResumenVentana> resumirTelemetriaPorZona(CanalTelemetria canal, Duration periodo) {
+        Resolucion resolucion = periodo.compareTo(Duration.ofHours(2)) < 0 ? Resolucion.MINUTO : Resolucion.HORA;
+        long ahora = MotorBitacora.ahoraEpocaNanos();
+        long desde = resolucion.inicioVentana(ahora - periodo.toNanos());
+        return agregados.resumirPorZona(canal, resolucion, desde, Long.MAX_VALUE);
+    }
+
+    /**
+     * Agregados por ventana de las lecturas capturadas
+     * @return AgregadorVentanas con minuto, hora y día por equipo y canal
+     */
+    public AgregadorVentanas getAgregados() {
+        return agregados;
+    }
+
+    /**
+     * Series temporales de las lecturas capturadas
+     * @return AlmacenSeries con el historial por equipo y canal
+     */
+    public AlmacenSeries getSeries() {
+        return series;
+    }
+
     /**
      * Inicializa la plataforma cargando datos iniciales
      * Cumple con el requisito de carga inicial (init)
+     * Si hay bitácora persistente se abre primero, así los equipos recuperan
+     * sus registros anteriores y los nuevos quedan en disco; la escritura se
+     * hace en un hilo aparte para no demorar los comandos.
+     * Si hay catálogo y ya tiene equipos, el repositorio se vincula a él y
+     * cada equipo se construye al pedirlo; si está vacío se cargan los datos
+     * iniciales y se guardan en el catálogo
+     * @throws IOException si no se puede abrir o escribir el catálogo o la bitácora
+     */
+    public void inicializarPlataforma() throws IOException {
+        if (directorioBitacora != null) {
+            diario = DiarioBitacora.abrir(directorioBitacora);
+            MotorBitacora.global().adjuntarDiario(diario);
+            // Los comandos de los equipos solo encolan; la escritura en disco va en otro hilo
+            MotorBitacora.global().iniciarEscritor(PoliticaPresion.BLOQUEAR);
+        }
+        if (rutaCatalogo == null) {
+            repositorio.cargarDatosIniciales();
+            return;
+        }
+        catalogo = CatalogoEquipos.abrir(rutaCatalogo);
+        if (catalogo.contarEquipos() > 0) {
+            repositorio.vincularCatalogo(catalogo);
+        } else {
+            repositorio.cargarDatosIniciales();
+            catalogo.anexarTodos(repositorio.recuperarEquipos());
+        }
+    }
+
+    /**
+     * Libera los recursos de la plataforma (cierra el catálogo y la bitácora)
+     * @throws IOException si falla el cierre del catálogo o de la bitácora
      */
-    public void inicializarPlataforma() {
-        repositorio.cargarDatosIniciales();
+    public void finalizarPlataforma() throws IOException {
+        detenerSondeo();
+        try {
+            if (catalogo != null) {
+                catalogo.close();
+                catalogo = null;
+            }
+        } finally {
+            if (diario != null) {
+                MotorBitacora.global().detenerEscritor();
+                MotorBitacora.global().separarDiario();
+                diario.close();
+                diario = null;
+            }
+        }
     }
 }
@@ -17,7 +17,29 @@ public interface IAuditable {
 
     /**
      * Consulta el historial completo de registros
+     * Las implementaciones devuelven una lista inmutable acotada por la retención
      * @return List con todos los registros almacenados
      */
     List<String> consultarBitacora();
+
+    /**
+     * Consulta los registros más recientes como vista de la bitácora
+     * @param cantidad cantidad máxima de registros
+     * Las implementaciones respaldadas por el motor de bitácora solo arman
+     * el texto de esos registros
+     * @return List de solo lectura con los últimos registros, del más antiguo al más reciente
+     */
+    default List<String> consultarUltimosRegistros(int cantidad) {
+        List<String> bitacora = consultarBitacora();
+        int desde = Math.max(0, bitacora.size() - Math.max(0, cantidad));
+        return bitacora.subList(desde, bitacora.size());
+    }
+
+    /**
+     * Cantidad de registros almacenados, sin armar su texto
+     * @return int con la cantidad de registros que devolvería consultarBitacora
+     */
+    default int contarRegistros() {
+        return consultarBitacora().size();
+    }
 }
\ No newline at end of file
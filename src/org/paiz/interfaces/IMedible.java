@@ -1,5 +1,7 @@
 package org.paiz.interfaces;
 
+import org.paiz.model.LecturaTelemetria;
+
 /**
  * Interfaz IMedible
  * Define el contrato para dispositivos que capturan datos
@@ -7,9 +9,26 @@ package org.paiz.interfaces;
  * @version 1.0
  */
 public interface IMedible {
+    /**
+     * Captura una lectura en un búfer del llamador, sin crear objetos
+     * @param lectura búfer a llenar; se reinicia antes de anotar los valores
+     */
+    void capturarDatos(LecturaTelemetria lectura);
+
+    /**
+     * Arma el texto de una lectura capturada por este dispositivo
+     * @param lectura lectura llenada por capturarDatos
+     * @return String con los datos en el formato del dispositivo
+     */
+    String describirLectura(LecturaTelemetria lectura);
+
     /**
      * Captura y retorna datos del dispositivo
      * @return String con los datos capturados
      */
-    String capturarDatos();
-}
\ No newline at end of file
+    default String capturarDatos() {
+        LecturaTelemetria lectura = new LecturaTelemetria();
+        capturarDatos(lectura);
+        return describirLectura(lectura);
+    }
+}
@@ -0,0 +1,80 @@
+package org.paiz.model;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Clase AcumuladorEstadisticas
+ * Agregados de la flota que se actualizan al incorporar equipos y al
+ * cambiar su estado, para que el reporte se lea en tiempo constante
+ * @author Franco Paiz
+ * @version 1.0
+ */
+class AcumuladorEstadisticas implements ObservadorEstado {
+    private int totalEquipos;
+    private final int[] porCapacidad;
+    private double consumoTotal;
+    // El estado de un equipo puede cambiar desde cualquier hilo
+    private final LongAdder operativos;
+
+    /**
+     * Constructor que inicializa los agregados en cero
+     */
+    AcumuladorEstadisticas() {
+        this.porCapacidad = new int[Capacidad.values().length];
+        this.operativos = new LongAdder();
+    }
+
+    /**
+     * Suma un equipo nuevo a los agregados y se suscribe a su estado
+     * @param equipo equipo incorporado
+     */
+    void registrar(Equipo equipo) {
+        registrar(equipo.getClass(), equipo.getConsumoWatts(), equipo.vincularObservador(this));
+    }
+
+    /**
+     * Suma un equipo que todavía no se construyó (un registro del catálogo)
+     * Cuando se construya hay que suscribirse a su estado con seguir
+     * @param clase clase del equipo
+     * @param consumoWatts consumo del equipo
+     * @param enFuncionamiento estado del equipo
+     */
+    void registrar(Class<? extends Equipo> clase, double consumoWatts, boolean enFuncionamiento) {
+        totalEquipos++;
+        consumoTotal += consumoWatts;
+        for (Capacidad capacidad : Capacidad.values()) {
+            if (capacidad.presenteEn(clase)) {
+                porCapacidad[capacidad.ordinal()]++;
+            }
+        }
+        if (enFuncionamiento) {
+            operativos.increment();
+        }
+    }
+
+    /**
+     * Se suscribe al estado de un equipo ya sumado al construirlo
+     * @param equipo equipo recién construido, con el estado con que se sumó
+     */
+    void seguir(Equipo equipo) {
+        equipo.vincularObservador(this);
+    }
+
+    @Override
+    public void estadoCambiado(Equipo equipo, boolean enFuncionamiento) {
+        if (enFuncionamiento) {
+            operativos.increment();
+        } else {
+            operativos.decrement();
+        }
+    }
+
+    /**
+     * Toma una instantánea de los agregados
+     * @return EstadisticasFlota inmutable
+     */
+    EstadisticasFlota instantanea() {
+        return new EstadisticasFlota(totalEquipos, porCapacidad, consumoTotal,
+                (int) operativos.sum());
+    }
+}
@@ -0,0 +1,44 @@
+package org.paiz.model;
+
+import java.util.stream.Collector;
+
+/**
+ * Clase AcumuladorGrupo
+ * Acumulador parcial para las reducciones agrupadas en paralelo
+ * Cada hilo llena los suyos y al final se combinan, sin estado compartido
+ * @author Franco Paiz
+ * @version 1.0
+ */
+class AcumuladorGrupo {
+    private int cantidad;
+    private int operativos;
+    private double consumoTotal;
+
+    /**
+     * Collector que reduce equipos a su ResumenGrupo
+     * @return Collector apto para flujos paralelos
+     */
+    static Collector<Equipo, AcumuladorGrupo, ResumenGrupo> coleccionar() {
+        return Collector.of(AcumuladorGrupo::new, AcumuladorGrupo::agregar,
+                AcumuladorGrupo::combinar, AcumuladorGrupo::resumir);
+    }
+
+    void agregar(Equipo equipo) {
+        cantidad++;
+        if (equipo.isEnFuncionamiento()) {
+            operativos++;
+        }
+        consumoTotal += equipo.getConsumoWatts();
+    }
+
+    AcumuladorGrupo combinar(AcumuladorGrupo otro) {
+        cantidad += otro.cantidad;
+        operativos += otro.operativos;
+        consumoTotal += otro.consumoTotal;
+        return this;
+    }
+
+    ResumenGrupo resumir() {
+        return new ResumenGrupo(cantidad, operativos, consumoTotal);
+    }
+}
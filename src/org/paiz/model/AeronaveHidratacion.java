@@ -4,10 +4,7 @@ import org.paiz.interfaces.IAuditable;
 import org.paiz.interfaces.IEjecutable;
 import org.paiz.interfaces.IMedible;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Clase AeronaveHidratacion
@@ -17,23 +14,36 @@ import java.time.format.DateTimeFormatter;
  */
 public class AeronaveHidratacion extends Equipo
         implements IEjecutable, IMedible, IAuditable {
+    static final String CATEGORIA = "Dron de Riego";
 
     private double duracionBateriaMin;
     private double volumenDepositoL;
     private double altitudOperacion;
     private String estadoAeronave;
-    private List<String> bitacora;
+    private final CanalBitacora bitacora;
 
     public AeronaveHidratacion(String codigo, String denominacion, String marca,
                                double consumo, String zona, double duracion,
                                double volumen) {
+        this(codigo, denominacion, marca, consumo, zona, duracion, volumen, true);
+    }
+
+    /**
+     * Constructor que permite omitir la anotación de inicialización
+     * @param anotarInicio false al reconstruir un equipo que ya se dio de alta
+     */
+    AeronaveHidratacion(String codigo, String denominacion, String marca,
+                        double consumo, String zona, double duracion,
+                        double volumen, boolean anotarInicio) {
         super(codigo, denominacion, marca, consumo, zona);
         this.duracionBateriaMin = duracion;
         this.volumenDepositoL = volumen;
         this.altitudOperacion = 0.0;
         this.estadoAeronave = "EN_TIERRA";
-        this.bitacora = new ArrayList<>();
-        agregarRegistro("Aeronave de hidratación inicializada");
+        this.bitacora = MotorBitacora.global().abrirCanal(codigo, zona);
+        if (anotarInicio) {
+            bitacora.registrar(EventoBitacora.INICIALIZACION, "Aeronave de hidratación inicializada");
+        }
     }
 
     @Override
@@ -42,17 +52,16 @@ public class AeronaveHidratacion extends Equipo
 
         if (instruccion.equalsIgnoreCase("DESPEGAR")) {
             estadoAeronave = "EN_VUELO";
-            altitudOperacion = 5.0 + Math.random() * 10.0;
-            agregarRegistro(String.format("Despegue exitoso - Altitud: %.1fm",
-                    altitudOperacion));
+            altitudOperacion = SimuladorSensores.global().fuente(codigo).uniforme(5.0, 15.0);
+            bitacora.registrar(EventoBitacora.DESPEGUE, altitudOperacion);
             exitoso = true;
         } else if (instruccion.equalsIgnoreCase("ATERRIZAR")) {
             estadoAeronave = "EN_TIERRA";
             altitudOperacion = 0.0;
-            agregarRegistro("Aterrizaje completado");
+            bitacora.registrar(EventoBitacora.ATERRIZAJE);
             exitoso = true;
         } else if (instruccion.equalsIgnoreCase("ROCIAR")) {
-            agregarRegistro("Rociado iniciado - Volumen: " + volumenDepositoL + "L");
+            bitacora.registrar(EventoBitacora.ROCIADO_AEREO, volumenDepositoL);
             exitoso = true;
         }
 
@@ -60,31 +69,46 @@ public class AeronaveHidratacion extends Equipo
     }
 
     @Override
-    public String capturarDatos() {
-        double bateriaRestante = duracionBateriaMin * (0.4 + Math.random() * 0.6);
-        String datos = String.format("Batería: %.1f min - Altitud: %.1fm - " +
+    public void capturarDatos(LecturaTelemetria lectura) {
+        FuenteSimulada fuente = SimuladorSensores.global().fuente(codigo);
+        lectura.reiniciar(this, fuente.siguienteInstante());
+        lectura.poner(CanalTelemetria.AUTONOMIA, duracionBateriaMin * fuente.uniforme(0.4, 1.0));
+        lectura.poner(CanalTelemetria.ALTITUD, altitudOperacion);
+        lectura.poner(CanalTelemetria.DEPOSITO, volumenDepositoL);
+        bitacora.registrar(EventoBitacora.TELEMETRIA_CAPTURADA);
+    }
+
+    @Override
+    public String describirLectura(LecturaTelemetria lectura) {
+        return String.format("Batería: %.1f min - Altitud: %.1fm - " +
                         "Depósito: %.1fL - Estado: %s",
-                bateriaRestante, altitudOperacion,
-                volumenDepositoL, estadoAeronave);
-        agregarRegistro("Telemetría capturada");
-        return datos;
+                lectura.obtener(CanalTelemetria.AUTONOMIA), lectura.obtener(CanalTelemetria.ALTITUD),
+                lectura.obtener(CanalTelemetria.DEPOSITO), estadoAeronave);
     }
 
     @Override
     public void agregarRegistro(String entrada) {
-        String timestamp = LocalDateTime.now()
-                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        bitacora.add(timestamp + " - " + entrada);
+        bitacora.registrar(entrada);
     }
 
     @Override
     public List<String> consultarBitacora() {
-        return new ArrayList<>(bitacora);
+        return bitacora.consultar();
+    }
+
+    @Override
+    public List<String> consultarUltimosRegistros(int cantidad) {
+        return bitacora.consultarUltimos(cantidad);
+    }
+
+    @Override
+    public int contarRegistros() {
+        return bitacora.contarRegistros();
     }
 
     @Override
     public String obtenerCategoria() {
-        return "Dron de Riego";
+        return CATEGORIA;
     }
 
     @Override
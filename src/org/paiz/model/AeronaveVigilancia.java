@@ -6,8 +6,6 @@ import org.paiz.interfaces.IMedible;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Clase AeronaveVigilancia
@@ -17,22 +15,35 @@ import java.time.format.DateTimeFormatter;
  */
 public class AeronaveVigilancia extends Equipo
         implements IEjecutable, IMedible, IAuditable {
+    static final String CATEGORIA = "Dron de Monitoreo";
 
     private List<String> sensoresOpticos;
     private String definicion;
     private double autonomiaMinutos;
-    private List<String> bitacora;
+    private final CanalBitacora bitacora;
 
     public AeronaveVigilancia(String codigo, String denominacion, String marca,
                               double consumo, String zona, double autonomia,
                               String definicion) {
+        this(codigo, denominacion, marca, consumo, zona, autonomia, definicion, true);
+    }
+
+    /**
+     * Constructor que permite omitir la anotación de inicialización
+     * @param anotarInicio false al reconstruir un equipo que ya se dio de alta
+     */
+    AeronaveVigilancia(String codigo, String denominacion, String marca,
+                       double consumo, String zona, double autonomia,
+                       String definicion, boolean anotarInicio) {
         super(codigo, denominacion, marca, consumo, zona);
         this.autonomiaMinutos = autonomia;
         this.definicion = definicion;
         this.sensoresOpticos = new ArrayList<>();
-        this.bitacora = new ArrayList<>();
+        this.bitacora = MotorBitacora.global().abrirCanal(codigo, zona);
         inicializarSensores();
-        agregarRegistro("Aeronave de vigilancia inicializada");
+        if (anotarInicio) {
+            bitacora.registrar(EventoBitacora.INICIALIZACION, "Aeronave de vigilancia inicializada");
+        }
     }
 
     private void inicializarSensores() {
@@ -46,13 +57,13 @@ public class AeronaveVigilancia extends Equipo
         boolean exitoso = false;
 
         if (instruccion.equalsIgnoreCase("INICIAR_VUELO")) {
-            agregarRegistro("Vuelo de monitoreo iniciado");
+            bitacora.registrar(EventoBitacora.VUELO_INICIADO);
             exitoso = true;
         } else if (instruccion.equalsIgnoreCase("CAPTURAR_IMAGEN")) {
-            agregarRegistro("Imagen capturada - Resolución: " + definicion);
+            bitacora.registrar(EventoBitacora.IMAGEN_CAPTURADA, definicion);
             exitoso = true;
         } else if (instruccion.equalsIgnoreCase("REGRESAR_BASE")) {
-            agregarRegistro("Regreso a base iniciado");
+            bitacora.registrar(EventoBitacora.REGRESO_BASE);
             exitoso = true;
         }
 
@@ -60,36 +71,51 @@ public class AeronaveVigilancia extends Equipo
     }
 
     @Override
-    public String capturarDatos() {
+    public void capturarDatos(LecturaTelemetria lectura) {
+        FuenteSimulada fuente = SimuladorSensores.global().fuente(codigo);
+        lectura.reiniciar(this, fuente.siguienteInstante());
+        lectura.poner(CanalTelemetria.AUTONOMIA, autonomiaMinutos * fuente.uniforme(0.5, 1.0));
+        bitacora.registrar(EventoBitacora.DATOS_VIGILANCIA);
+    }
+
+    @Override
+    public String describirLectura(LecturaTelemetria lectura) {
         StringBuilder datos = new StringBuilder();
         datos.append("Datos de vigilancia:\n");
         datos.append(String.format("  - Resolución: %s\n", definicion));
         datos.append(String.format("  - Autonomía restante: %.1f min\n",
-                autonomiaMinutos * (0.5 + Math.random() * 0.5)));
+                lectura.obtener(CanalTelemetria.AUTONOMIA)));
         datos.append("  - Sensores activos: ");
         for (int i = 0; i < sensoresOpticos.size(); i++) {
             datos.append(sensoresOpticos.get(i));
             if (i < sensoresOpticos.size() - 1) datos.append(", ");
         }
-        agregarRegistro("Datos de vigilancia capturados");
         return datos.toString();
     }
 
     @Override
     public void agregarRegistro(String entrada) {
-        String timestamp = LocalDateTime.now()
-                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        bitacora.add(timestamp + " - " + entrada);
+        bitacora.registrar(entrada);
     }
 
     @Override
     public List<String> consultarBitacora() {
-        return new ArrayList<>(bitacora);
+        return bitacora.consultar();
+    }
+
+    @Override
+    public List<String> consultarUltimosRegistros(int cantidad) {
+        return bitacora.consultarUltimos(cantidad);
+    }
+
+    @Override
+    public int contarRegistros() {
+        return bitacora.contarRegistros();
     }
 
     @Override
     public String obtenerCategoria() {
-        return "Dron de Monitoreo";
+        return CATEGORIA;
     }
 
     @Override
@@ -116,7 +142,7 @@ public class AeronaveVigilancia extends Equipo
     public void incorporarSensor(String sensor) {
         if (!sensoresOpticos.contains(sensor)) {
             sensoresOpticos.add(sensor);
-            agregarRegistro("Nuevo sensor incorporado: " + sensor);
+            bitacora.registrar(EventoBitacora.SENSOR_INCORPORADO, sensor);
         }
     }
 
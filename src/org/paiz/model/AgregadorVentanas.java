@@ -0,0 +1,172 @@
+package org.paiz.model;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Clase AgregadorVentanas
+ * Agregados de la telemetría por minuto, hora y día, calculados a medida
+ * que llegan las lecturas
+ *
+ * Cada lectura actualiza en O(1) las ventanas abiertas de su equipo (ver
+ * VentanasEquipo); las ventanas que se cierran quedan guardadas y los
+ * reportes se responden con ellas sin volver a leer las series crudas.
+ * Se alimenta como ReceptorLectura del planificador de sondeo o con
+ * capturas sueltas.
+ *
+ * Las consultas cuentan ventanas completas: una ventana entra si su
+ * inicio cae en el rango. La ventana abierta de cada equipo también cuenta.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class AgregadorVentanas implements ReceptorLectura {
+    private final ConcurrentHashMap<String, VentanasEquipo> equipos;
+
+    /**
+     * Constructor de un agregador vacío
+     */
+    public AgregadorVentanas() {
+        this.equipos = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Suma una lectura a las ventanas de su equipo
+     * @param codigoEquipo código del equipo que la capturó
+     * @param lectura lectura llena con capturarDatos
+     */
+    @Override
+    public void recibir(String codigoEquipo, LecturaTelemetria lectura) {
+        VentanasEquipo ventanas = equipos.get(Equipo.normalizarCodigo(codigoEquipo));
+        if (ventanas == null) {
+            Equipo equipo = lectura.getOrigen() instanceof Equipo ? (Equipo) lectura.getOrigen() : null;
+            ventanas = equipos.computeIfAbsent(Equipo.normalizarCodigo(codigoEquipo),
+                    clave -> new VentanasEquipo(equipo));
+        }
+        ventanas.agregar(lectura);
+    }
+
+    /**
+     * Recorre en orden las ventanas de un equipo y canal con inicio en el rango
+     * @param codigoEquipo código del equipo
+     * @param canal magnitud buscada
+     * @param resolucion duración de las ventanas
+     * @param desdeNanos inicio mínimo en nanosegundos de época (inclusive)
+     * @param hastaNanos inicio máximo en nanosegundos de época (exclusive)
+     * @param visitante receptor de las ventanas
+     * @return long con la cantidad de ventanas visitadas
+     */
+    public long recorrer(String codigoEquipo, CanalTelemetria canal, Resolucion resolucion,
+                         long desdeNanos, long hastaNanos, VisitanteVentana visitante) {
+        VentanasEquipo ventanas = equipos.get(Equipo.normalizarCodigo(codigoEquipo));
+        return ventanas == null ? 0 : ventanas.recorrer(resolucion, canal, desdeNanos, hastaNanos, visitante);
+    }
+
+    /**
+     * Resume un canal de un equipo en un rango
+     * @param codigoEquipo código del equipo
+     * @param canal magnitud buscada
+     * @param resolucion ventanas que se combinan
+     * @param desdeNanos inicio mínimo en nanosegundos de época (inclusive)
+     * @param hastaNanos inicio máximo en nanosegundos de época (exclusive)
+     * @return ResumenVentana con cantidad, mínimo, máximo y promedio
+     */
+    public ResumenVentana resumir(String codigoEquipo, CanalTelemetria canal, Resolucion resolucion,
+                                  long desdeNanos, long hastaNanos) {
+        Combinacion combinacion = new Combinacion();
+        recorrer(codigoEquipo, canal, resolucion, desdeNanos, hastaNanos, combinacion);
+        return combinacion.aResumen();
+    }
+
+    /**
+     * Resume un canal por zona en un rango, por ejemplo la humedad del
+     * suelo promedio de cada zona en las últimas 24 horas
+     * @param canal magnitud buscada
+     * @param resolucion ventanas que se combinan
+     * @param desdeNanos inicio mínimo en nanosegundos de época (inclusive)
+     * @param hastaNanos inicio máximo en nanosegundos de época (exclusive)
+     * @return Map con el resumen de cada zona con lecturas, ordenado por nombre
+     */
+    public Map<String, ResumenVentana> resumirPorZona(CanalTelemetria canal, Resolucion resolucion,
+                                                      long desdeNanos, long hastaNanos) {
+        Map<String, Combinacion> zonas = new TreeMap<>();
+        for (VentanasEquipo ventanas : equipos.values()) {
+            Equipo equipo = ventanas.getEquipo();
+            if (equipo == null || equipo.getZona() == null) {
+                continue;
+            }
+            Combinacion combinacion = zonas.computeIfAbsent(equipo.getZona(), zona -> new Combinacion());
+            ventanas.recorrer(resolucion, canal, desdeNanos, hastaNanos, combinacion);
+        }
+        Map<String, ResumenVentana> resultado = new TreeMap<>();
+        for (Map.Entry<String, Combinacion> zona : zonas.entrySet()) {
+            if (zona.getValue().cantidad > 0) {
+                resultado.put(zona.getKey(), zona.getValue().aResumen());
+            }
+        }
+        return Collections.unmodifiableMap(resultado);
+    }
+
+    /**
+     * Descarta las ventanas cerradas de una resolución anteriores a un instante
+     * Por ejemplo, conservar minutos por dos días y horas por un mes.
+     * @param resolucion resolución a recortar
+     * @param instanteNanos límite en nanosegundos de época
+     * @return long con la cantidad de ventanas descartadas
+     */
+    public long descartarAnteriores(Resolucion resolucion, long instanteNanos) {
+        long descartadas = 0;
+        for (VentanasEquipo ventanas : equipos.values()) {
+            descartadas += ventanas.descartarAnteriores(resolucion, instanteNanos);
+        }
+        return descartadas;
+    }
+
+    /**
+     * Memoria aproximada de todas las ventanas
+     * @return long con los bytes estimados
+     */
+    public long estimarBytesEnMemoria() {
+        long total = 0;
+        for (VentanasEquipo ventanas : equipos.values()) {
+            total += ventanas.estimarBytes();
+        }
+        return total;
+    }
+
+    /**
+     * Memoria aproximada de las ventanas cerradas de una resolución
+     * @param resolucion resolución a medir
+     * @return long con los bytes estimados
+     */
+    public long estimarBytesEnMemoria(Resolucion resolucion) {
+        long total = 0;
+        for (VentanasEquipo ventanas : equipos.values()) {
+            total += ventanas.estimarBytes(resolucion);
+        }
+        return total;
+    }
+
+    /**
+     * Combina ventanas en un solo resumen
+     */
+    private static class Combinacion implements VisitanteVentana {
+        private long cantidad;
+        private double minimo = Double.POSITIVE_INFINITY;
+        private double maximo = Double.NEGATIVE_INFINITY;
+        private double suma;
+
+        @Override
+        public void visitar(long inicioNanos, long lecturas, double minimo, double maximo, double suma) {
+            this.cantidad += lecturas;
+            this.minimo = Math.min(this.minimo, minimo);
+            this.maximo = Math.max(this.maximo, maximo);
+            this.suma += suma;
+        }
+
+        ResumenVentana aResumen() {
+            return new ResumenVentana(cantidad, minimo, maximo, suma);
+        }
+    }
+}
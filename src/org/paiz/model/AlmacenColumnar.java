@@ -0,0 +1,204 @@
+package org.paiz.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Clase AlmacenColumnar
+ * Espejo del repositorio en arreglos primitivos (una columna por atributo)
+ * Los filtros y agregaciones recorren memoria contigua en lugar de
+ * seguir referencias a cada equipo y a sus textos
+ * @author Franco Paiz
+ * @version 1.0
+ */
+class AlmacenColumnar {
+    private static final int CAPACIDAD_INICIAL = 16;
+    // Cantidad de filas que procesa cada tarea en las agregaciones paralelas
+    private static final int FILAS_POR_BLOQUE = 1 << 16;
+
+    private String[] codigos;
+    private double[] consumo;
+    // Bitset de equipos en funcionamiento, 64 filas por palabra
+    private long[] operativos;
+    // Identificadores de diccionario, una columna por Dimension
+    private final int[][] identificadores;
+    private final DiccionarioValores[] diccionarios;
+    private int tamano;
+
+    /**
+     * Constructor que inicializa las columnas vacías
+     */
+    AlmacenColumnar() {
+        this.codigos = new String[CAPACIDAD_INICIAL];
+        this.consumo = new double[CAPACIDAD_INICIAL];
+        this.operativos = new long[CAPACIDAD_INICIAL / 64 + 1];
+        this.identificadores = new int[Dimension.values().length][CAPACIDAD_INICIAL];
+        this.diccionarios = new DiccionarioValores[Dimension.values().length];
+        for (int d = 0; d < diccionarios.length; d++) {
+            diccionarios[d] = new DiccionarioValores();
+        }
+    }
+
+    /**
+     * Agrega la fila del equipo; el ordinal es la siguiente posición
+     * @param equipo equipo a reflejar
+     */
+    void anexar(Equipo equipo) {
+        int fila = anexar(equipo.getCodigo(), equipo.getConsumoWatts(), Dimension.ZONA.valorDe(equipo),
+                Dimension.MARCA.valorDe(equipo), Dimension.CATEGORIA.valorDe(equipo));
+        seguir(fila, equipo);
+    }
+
+    /**
+     * Agrega la fila de un registro del catálogo sin construir el equipo
+     * Cuando se construya hay que suscribirse a su estado con seguir
+     * @param ficha registro del catálogo
+     */
+    void anexar(CatalogoEquipos.Ficha ficha) {
+        int fila = anexar(ficha.getCodigo(), ficha.getConsumoWatts(), sinNulo(ficha.getZona()),
+                sinNulo(ficha.getMarca()), ficha.getCategoria());
+        marcarEstado(fila, ficha.isEnFuncionamiento());
+    }
+
+    /**
+     * Refleja en una fila los cambios de estado de su equipo
+     * @param fila fila del equipo
+     * @param equipo equipo de la fila
+     */
+    void seguir(int fila, Equipo equipo) {
+        marcarEstado(fila, equipo.vincularObservador((e, estado) -> marcarEstado(fila, estado)));
+    }
+
+    private static String sinNulo(String valor) {
+        return valor == null ? Dimension.SIN_VALOR : valor;
+    }
+
+    private synchronized int anexar(String codigo, double watts, String zona, String marca,
+                                    String categoria) {
+        int fila = tamano;
+        if (fila == consumo.length) {
+            int capacidad = fila * 2;
+            codigos = Arrays.copyOf(codigos, capacidad);
+            consumo = Arrays.copyOf(consumo, capacidad);
+            operativos = Arrays.copyOf(operativos, capacidad / 64 + 1);
+            for (int d = 0; d < identificadores.length; d++) {
+                identificadores[d] = Arrays.copyOf(identificadores[d], capacidad);
+            }
+        }
+        codigos[fila] = codigo;
+        consumo[fila] = watts;
+        identificadores[Dimension.ZONA.ordinal()][fila] =
+                diccionarios[Dimension.ZONA.ordinal()].codificar(zona);
+        identificadores[Dimension.MARCA.ordinal()][fila] =
+                diccionarios[Dimension.MARCA.ordinal()].codificar(marca);
+        identificadores[Dimension.CATEGORIA.ordinal()][fila] =
+                diccionarios[Dimension.CATEGORIA.ordinal()].codificar(categoria);
+        tamano = fila + 1;
+        return fila;
+    }
+
+    private synchronized void marcarEstado(int fila, boolean enFuncionamiento) {
+        if (enFuncionamiento) {
+            operativos[fila >>> 6] |= 1L << fila;
+        } else {
+            operativos[fila >>> 6] &= ~(1L << fila);
+        }
+    }
+
+    /**
+     * Agrupa por una dimensión recorriendo solo columnas primitivas
+     * Cada bloque de filas se acumula en sus propios arreglos y luego se suman
+     * @param dimension atributo por el que se agrupa
+     * @return Map ordenado por valor del atributo
+     */
+    Map<String, ResumenGrupo> agruparPor(Dimension dimension) {
+        int filas = tamano;
+        int grupos = diccionarios[dimension.ordinal()].tamano();
+        int[] columna = identificadores[dimension.ordinal()];
+        int bloques = (filas + FILAS_POR_BLOQUE - 1) / FILAS_POR_BLOQUE;
+
+        Parciales total = IntStream.range(0, bloques).parallel()
+                .mapToObj(b -> acumular(columna, -1, grupos, b * FILAS_POR_BLOQUE,
+                        Math.min(filas, (b + 1) * FILAS_POR_BLOQUE)))
+                .reduce(new Parciales(grupos), Parciales::combinar);
+
+        Map<String, ResumenGrupo> resultado = new TreeMap<>();
+        for (int g = 0; g < grupos; g++) {
+            if (total.cantidad[g] > 0) {
+                resultado.put(diccionarios[dimension.ordinal()].decodificar(g),
+                        new ResumenGrupo(total.cantidad[g], total.operativos[g], total.consumo[g]));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Resume los equipos que tienen un valor concreto en una dimensión
+     * @param dimension atributo a filtrar
+     * @param valor valor exacto buscado
+     * @return ResumenGrupo de los equipos que coinciden
+     */
+    ResumenGrupo resumirDonde(Dimension dimension, String valor) {
+        int id = diccionarios[dimension.ordinal()].buscar(valor);
+        if (id < 0) {
+            return new ResumenGrupo(0, 0, 0.0);
+        }
+        int filas = tamano;
+        int[] columna = identificadores[dimension.ordinal()];
+        int bloques = (filas + FILAS_POR_BLOQUE - 1) / FILAS_POR_BLOQUE;
+        Parciales total = IntStream.range(0, bloques).parallel()
+                .mapToObj(b -> acumular(columna, id, 1, b * FILAS_POR_BLOQUE,
+                        Math.min(filas, (b + 1) * FILAS_POR_BLOQUE)))
+                .reduce(new Parciales(1), Parciales::combinar);
+        return new ResumenGrupo(total.cantidad[0], total.operativos[0], total.consumo[0]);
+    }
+
+    /**
+     * Acumula un rango de filas; con filtro >= 0 solo cuenta ese identificador
+     */
+    private Parciales acumular(int[] columna, int filtro, int grupos, int desde, int hasta) {
+        Parciales parciales = new Parciales(grupos);
+        double[] watts = consumo;
+        long[] estado = operativos;
+        for (int fila = desde; fila < hasta; fila++) {
+            int grupo = columna[fila];
+            if (filtro >= 0) {
+                if (grupo != filtro) continue;
+                grupo = 0;
+            }
+            parciales.cantidad[grupo]++;
+            parciales.consumo[grupo] += watts[fila];
+            if ((estado[fila >>> 6] & (1L << fila)) != 0) {
+                parciales.operativos[grupo]++;
+            }
+        }
+        return parciales;
+    }
+
+    /**
+     * Acumuladores de un bloque de filas
+     */
+    private static class Parciales {
+        private final int[] cantidad;
+        private final int[] operativos;
+        private final double[] consumo;
+
+        Parciales(int grupos) {
+            this.cantidad = new int[grupos];
+            this.operativos = new int[grupos];
+            this.consumo = new double[grupos];
+        }
+
+        Parciales combinar(Parciales otro) {
+            Parciales suma = new Parciales(cantidad.length);
+            for (int g = 0; g < cantidad.length; g++) {
+                suma.cantidad[g] = cantidad[g] + otro.cantidad[g];
+                suma.operativos[g] = operativos[g] + otro.operativos[g];
+                suma.consumo[g] = consumo[g] + otro.consumo[g];
+            }
+            return suma;
+        }
+    }
+}
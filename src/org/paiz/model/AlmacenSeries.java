@@ -0,0 +1,197 @@
+package org.paiz.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Clase AlmacenSeries
+ * Series temporales en memoria de las lecturas de telemetría, una por
+ * equipo y canal
+ *
+ * Cada serie se comprime con SerieTemporal (instantes como diferencia de
+ * diferencias y valores con XOR); con sondeos de un segundo un punto ocupa
+ * alrededor de un par de bytes. Los instantes se guardan en milisegundos.
+ * Las series de equipos distintos se escriben en paralelo; cada serie
+ * admite un escritor a la vez y los puntos más antiguos que el último se
+ * ignoran.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class AlmacenSeries {
+    private static final int CANALES = CanalTelemetria.values().length;
+    private static final CanalTelemetria[] TODOS = CanalTelemetria.values();
+
+    private final ConcurrentHashMap<String, AtomicReferenceArray<SerieTemporal>> series;
+
+    /**
+     * Constructor de un almacén vacío
+     */
+    public AlmacenSeries() {
+        this.series = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Agrega un punto a la serie de un equipo y canal
+     * @param codigoEquipo código del equipo
+     * @param canal magnitud medida
+     * @param instanteNanos instante en nanosegundos de época
+     * @param valor valor en la unidad del canal
+     * @return boolean false si el punto es anterior al último de la serie
+     */
+    public boolean registrar(String codigoEquipo, CanalTelemetria canal, long instanteNanos, double valor) {
+        return serie(codigoEquipo, canal).agregar(Math.floorDiv(instanteNanos, 1_000_000L), valor);
+    }
+
+    /**
+     * Agrega a sus series todos los canales de una lectura
+     * @param codigoEquipo código del equipo que la capturó
+     * @param lectura lectura llena con capturarDatos
+     * @return int con la cantidad de puntos agregados
+     */
+    public int registrar(String codigoEquipo, LecturaTelemetria lectura) {
+        AtomicReferenceArray<SerieTemporal> canales = canalesDe(codigoEquipo);
+        long instante = Math.floorDiv(lectura.getInstanteNanos(), 1_000_000L);
+        int agregados = 0;
+        for (CanalTelemetria canal : TODOS) {
+            if (lectura.tiene(canal)
+                    && serie(canales, canal).agregar(instante, lectura.obtener(canal))) {
+                agregados++;
+            }
+        }
+        return agregados;
+    }
+
+    /**
+     * Recorre en orden de tiempo los puntos de una serie dentro de un rango
+     * @param codigoEquipo código del equipo
+     * @param canal magnitud buscada
+     * @param desdeNanos instante mínimo en nanosegundos de época (inclusive)
+     * @param hastaNanos instante máximo en nanosegundos de época (inclusive)
+     * @param visitante receptor de los puntos
+     * @return long con la cantidad de puntos visitados
+     */
+    public long recorrer(String codigoEquipo, CanalTelemetria canal, long desdeNanos, long hastaNanos,
+                         VisitantePunto visitante) {
+        SerieTemporal serie = buscar(codigoEquipo, canal);
+        if (serie == null) {
+            return 0;
+        }
+        return serie.recorrer(Math.floorDiv(desdeNanos, 1_000_000L), Math.floorDiv(hastaNanos, 1_000_000L),
+                visitante);
+    }
+
+    /**
+     * Último valor de una serie
+     * @param codigoEquipo código del equipo
+     * @param canal magnitud buscada
+     * @return double con el valor, o NaN si la serie no tiene puntos
+     */
+    public double obtenerUltimoValor(String codigoEquipo, CanalTelemetria canal) {
+        SerieTemporal serie = buscar(codigoEquipo, canal);
+        return serie == null ? Double.NaN : serie.getUltimoValor();
+    }
+
+    /**
+     * Instante del último punto de una serie
+     * @param codigoEquipo código del equipo
+     * @param canal magnitud buscada
+     * @return long en nanosegundos de época, o Long.MIN_VALUE si no tiene puntos
+     */
+    public long obtenerUltimoInstante(String codigoEquipo, CanalTelemetria canal) {
+        SerieTemporal serie = buscar(codigoEquipo, canal);
+        long instante = serie == null ? Long.MIN_VALUE : serie.getUltimoInstante();
+        return instante == Long.MIN_VALUE ? instante : instante * 1_000_000L;
+    }
+
+    /**
+     * Descarta los bloques de todas las series que terminan antes de un instante
+     * El bloque abierto de cada serie se conserva siempre.
+     * @param instanteNanos límite en nanosegundos de época
+     * @return long con la cantidad de bloques descartados
+     */
+    public long descartarAnteriores(long instanteNanos) {
+        long limite = Math.floorDiv(instanteNanos, 1_000_000L);
+        long descartados = 0;
+        for (AtomicReferenceArray<SerieTemporal> canales : series.values()) {
+            for (int c = 0; c < CANALES; c++) {
+                SerieTemporal serie = canales.get(c);
+                if (serie != null) {
+                    descartados += serie.descartarAnteriores(limite);
+                }
+            }
+        }
+        return descartados;
+    }
+
+    /**
+     * Cantidad de puntos guardados en todas las series
+     */
+    public long contarPuntos() {
+        long total = 0;
+        for (AtomicReferenceArray<SerieTemporal> canales : series.values()) {
+            for (int c = 0; c < CANALES; c++) {
+                SerieTemporal serie = canales.get(c);
+                if (serie != null) {
+                    total += serie.contarPuntos();
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Cantidad de series (pares equipo y canal) con al menos un punto
+     */
+    public int contarSeries() {
+        int total = 0;
+        for (AtomicReferenceArray<SerieTemporal> canales : series.values()) {
+            for (int c = 0; c < CANALES; c++) {
+                if (canales.get(c) != null) {
+                    total++;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Memoria aproximada de todas las series
+     * @return long con los bytes estimados
+     */
+    public long estimarBytesEnMemoria() {
+        long total = 0;
+        for (AtomicReferenceArray<SerieTemporal> canales : series.values()) {
+            total += 16 + 4L * CANALES;
+            for (int c = 0; c < CANALES; c++) {
+                SerieTemporal serie = canales.get(c);
+                if (serie != null) {
+                    total += serie.estimarBytes();
+                }
+            }
+        }
+        return total;
+    }
+
+    private SerieTemporal buscar(String codigoEquipo, CanalTelemetria canal) {
+        AtomicReferenceArray<SerieTemporal> canales = series.get(Equipo.normalizarCodigo(codigoEquipo));
+        return canales == null ? null : canales.get(canal.ordinal());
+    }
+
+    private AtomicReferenceArray<SerieTemporal> canalesDe(String codigoEquipo) {
+        return series.computeIfAbsent(Equipo.normalizarCodigo(codigoEquipo),
+                clave -> new AtomicReferenceArray<>(CANALES));
+    }
+
+    private SerieTemporal serie(String codigoEquipo, CanalTelemetria canal) {
+        return serie(canalesDe(codigoEquipo), canal);
+    }
+
+    private static SerieTemporal serie(AtomicReferenceArray<SerieTemporal> canales, CanalTelemetria canal) {
+        SerieTemporal serie = canales.get(canal.ordinal());
+        if (serie == null) {
+            canales.compareAndSet(canal.ordinal(), null, new SerieTemporal());
+            serie = canales.get(canal.ordinal());
+        }
+        return serie;
+    }
+}
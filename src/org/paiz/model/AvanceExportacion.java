@@ -0,0 +1,18 @@
+package org.paiz.model;
+
+/**
+ * Interfaz AvanceExportacion
+ * Recibe el progreso de una exportación de bitácora después de cada lote
+ * @author Franco Paiz
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface AvanceExportacion {
+    /**
+     * @param cursor cursor con el que se retoma la exportación, o
+     *               PaginaBitacora.FIN si terminó
+     * @param bytesEscritos bytes escritos en el destino desde que empezó
+     *                      esta exportación, todos de lotes completos
+     */
+    void avanzar(long cursor, long bytesEscritos);
+}
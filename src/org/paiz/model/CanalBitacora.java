@@ -0,0 +1,164 @@
+package org.paiz.model;
+
+import java.util.List;
+
+/**
+ * Clase CanalBitacora
+ * Vista de la bitácora de un equipo dentro del motor compartido
+ * Guarda solo las secuencias de sus registros, hasta su retención
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class CanalBitacora {
+    private static final int CAPACIDAD_INICIAL = 4;
+
+    private final MotorBitacora motor;
+    private final int id;
+    private final String codigoEquipo;
+    // Zona del equipo, usada para filtrar consultas; null si no se conoce
+    private volatile String zona;
+    // Anillo con las secuencias de este canal en el motor
+    private long[] secuencias;
+    private int inicio;
+    private int cantidad;
+
+    CanalBitacora(MotorBitacora motor, int id, String codigoEquipo) {
+        this.motor = motor;
+        this.id = id;
+        this.codigoEquipo = codigoEquipo;
+        this.secuencias = new long[CAPACIDAD_INICIAL];
+    }
+
+    /**
+     * Agrega un registro de texto libre a la bitácora del equipo
+     * @param entrada texto del evento
+     */
+    public void registrar(String entrada) {
+        motor.registrar(this, EventoBitacora.TEXTO_LIBRE, 0.0, 0.0, entrada);
+    }
+
+    /**
+     * Agrega un evento sin argumentos
+     * @param evento tipo de evento
+     */
+    public void registrar(EventoBitacora evento) {
+        motor.registrar(this, evento, 0.0, 0.0, null);
+    }
+
+    /**
+     * Agrega un evento con un argumento numérico
+     * @param evento tipo de evento
+     * @param valor argumento del mensaje
+     */
+    public void registrar(EventoBitacora evento, double valor) {
+        motor.registrar(this, evento, valor, 0.0, null);
+    }
+
+    /**
+     * Agrega un evento con un argumento de texto ya existente
+     * @param evento tipo de evento
+     * @param texto argumento del mensaje
+     */
+    public void registrar(EventoBitacora evento, String texto) {
+        motor.registrar(this, evento, 0.0, 0.0, texto);
+    }
+
+    /**
+     * Consulta los registros retenidos del equipo
+     * El costo está acotado por la retención por equipo del motor
+     * @return List inmutable, del más antiguo al más reciente
+     */
+    public List<String> consultar() {
+        return motor.consultar(this);
+    }
+
+    /**
+     * Consulta solo los registros más recientes del equipo
+     * El costo depende de la cantidad pedida, no de la retención
+     * @param cantidad cantidad máxima de registros
+     * @return List inmutable, del más antiguo al más reciente
+     */
+    public List<String> consultarUltimos(int cantidad) {
+        return motor.consultarUltimos(this, cantidad);
+    }
+
+    /**
+     * Cantidad de registros retenidos del equipo, sin armar su texto
+     * @return int con la cantidad que devolvería consultar
+     */
+    public int contarRegistros() {
+        return motor.contar(this);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getCodigoEquipo() {
+        return codigoEquipo;
+    }
+
+    public String getZona() {
+        return zona;
+    }
+
+    void setZona(String zona) {
+        this.zona = zona;
+    }
+
+    /**
+     * Anota una secuencia nueva descartando las que excedan la retención
+     * Se llama con el candado del motor tomado
+     */
+    void recordar(long secuencia, int retencion) {
+        while (cantidad >= retencion) {
+            inicio = (inicio + 1) % secuencias.length;
+            cantidad--;
+        }
+        if (cantidad == secuencias.length) {
+            secuencias = MotorBitacora.crecer(secuencias, inicio, cantidad,
+                    Math.min(secuencias.length * 2, retencion));
+            inicio = 0;
+        }
+        secuencias[(inicio + cantidad) % secuencias.length] = secuencia;
+        cantidad++;
+    }
+
+    /**
+     * Secuencias retenidas en orden; se llama con el candado del motor tomado
+     */
+    long[] secuenciasRetenidas(int retencion) {
+        return secuenciasRecientes(retencion, retencion);
+    }
+
+    /**
+     * Las últimas secuencias retenidas, como máximo las indicadas, en orden
+     * Se llama con el candado del motor tomado
+     */
+    long[] secuenciasRecientes(int retencion, int maximo) {
+        int tomar = Math.min(Math.min(cantidad, retencion), Math.max(0, maximo));
+        int desde = (inicio + cantidad - tomar) % secuencias.length;
+        return MotorBitacora.enOrden(secuencias, desde, tomar);
+    }
+
+    /**
+     * Secuencias retenidas que siguen vivas en el motor, sin copiarlas
+     * Las secuencias crecen, así que las sobrescritas están al principio
+     * Se llama con el candado del motor tomado
+     */
+    int contarVivas(int retencion, long primeraViva) {
+        int tomar = Math.min(cantidad, retencion);
+        int desde = inicio + cantidad - tomar;
+        int bajo = 0;
+        int alto = tomar;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (secuencias[(desde + medio) % secuencias.length] < primeraViva) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return tomar - bajo;
+    }
+}
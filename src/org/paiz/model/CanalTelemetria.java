@@ -0,0 +1,26 @@
+package org.paiz.model;
+
+/**
+ * Enum CanalTelemetria
+ * Magnitudes numéricas que puede reportar un equipo medible
+ * La unidad de cada canal va en el comentario
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public enum CanalTelemetria {
+    HUMEDAD_SUELO,          // %
+    HUMEDAD_RELATIVA,       // %
+    EXACTITUD,              // ± %
+    PROFUNDIDAD,            // cm
+    TEMPERATURA,            // grados, en la escala del equipo
+    PRESION_ATMOSFERICA,    // hPa
+    PRESION_AGUA,           // bar
+    VIENTO,                 // km/h
+    ELEVACION,              // m
+    CAUDAL,                 // L/h
+    POTENCIA,               // HP
+    ALCANCE,                // m
+    ALTITUD,                // m
+    DEPOSITO,               // L
+    AUTONOMIA               // min
+}
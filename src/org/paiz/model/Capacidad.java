@@ -0,0 +1,42 @@
+package org.paiz.model;
+
+import org.paiz.interfaces.IAuditable;
+import org.paiz.interfaces.IEjecutable;
+import org.paiz.interfaces.IMedible;
+
+/**
+ * Enum Capacidad
+ * Enumera las capacidades que un equipo puede ofrecer mediante interfaces
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public enum Capacidad {
+    MEDIBLE(IMedible.class),
+    EJECUTABLE(IEjecutable.class),
+    AUDITABLE(IAuditable.class);
+
+    private final Class<?> interfaz;
+
+    Capacidad(Class<?> interfaz) {
+        this.interfaz = interfaz;
+    }
+
+    /**
+     * Indica si el equipo implementa la interfaz de esta capacidad
+     * @param equipo equipo a revisar
+     * @return boolean true si el equipo tiene la capacidad
+     */
+    public boolean presenteEn(Equipo equipo) {
+        return interfaz.isInstance(equipo);
+    }
+
+    /**
+     * Indica si una clase de equipo implementa la interfaz de esta capacidad
+     * Sirve para los equipos del catálogo que todavía no se construyeron
+     * @param clase clase del equipo
+     * @return boolean true si los equipos de esa clase tienen la capacidad
+     */
+    public boolean presenteEn(Class<? extends Equipo> clase) {
+        return interfaz.isAssignableFrom(clase);
+    }
+}
@@ -0,0 +1,577 @@
+package org.paiz.model;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Clase CatalogoEquipos
+ * Catálogo binario persistente de equipos, mapeado en memoria con NIO
+ *
+ * Formato del archivo:
+ * - Cabecera de 128 bytes con dos ranuras de confirmación alternadas
+ *   (secuencia, longitud confirmada, cantidad, CRC). Al abrir se usa la
+ *   ranura válida más reciente, así una escritura interrumpida nunca deja
+ *   el catálogo inconsistente.
+ * - Registros: longitud del cuerpo (int), tipo (byte), estado (byte),
+ *   atributos comunes y atributos propios de cada subclase.
+ *
+ * Al abrir solo se recorren las longitudes de los registros; cada equipo
+ * se construye la primera vez que se pide, sin volver a anotar su
+ * inicialización en la bitácora. Los atributos comunes se pueden leer
+ * directamente de los registros (ver recorrer) sin construir los equipos.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class CatalogoEquipos implements AutoCloseable {
+    private static final int MAGIA = 0x41475243; // "AGRC"
+    private static final int VERSION = 1;
+    private static final int RANURA_0 = 8;
+    private static final int TAMANO_RANURA = 32;
+    private static final int INICIO_DATOS = 128;
+    private static final int CAPACIDAD_INICIAL = 1 << 16;
+    // Posición del byte de estado dentro de un registro
+    private static final int DESPLAZAMIENTO_ESTADO = 5;
+
+    private static final byte MONITOR_SUELO = 1;
+    private static final byte DETECTOR_HUMEDAD = 2;
+    private static final byte MEDIDOR_TERMICO = 3;
+    private static final byte CENTRAL_CLIMATICA = 4;
+    private static final byte COMPUERTA_HIDRAULICA = 5;
+    private static final byte MODULO_NUTRIENTES = 6;
+    private static final byte ROCIADOR_INTELIGENTE = 7;
+    private static final byte UNIDAD_BOMBEO = 8;
+    private static final byte AERONAVE_HIDRATACION = 9;
+    private static final byte AERONAVE_VIGILANCIA = 10;
+
+    // Clase y categoría de cada tipo, para leer registros sin construir el equipo
+    private static final List<Class<? extends Equipo>> CLASES = List.of(
+            MonitorSuelo.class, DetectorHumedad.class, MedidorTermico.class,
+            CentralClimatica.class, CompuertaHidraulica.class, ModuloNutrientes.class,
+            RociadorInteligente.class, UnidadBombeo.class, AeronaveHidratacion.class,
+            AeronaveVigilancia.class);
+    private static final List<String> CATEGORIAS = List.of(
+            MonitorSuelo.CATEGORIA, DetectorHumedad.CATEGORIA, MedidorTermico.CATEGORIA,
+            CentralClimatica.CATEGORIA, CompuertaHidraulica.CATEGORIA, ModuloNutrientes.CATEGORIA,
+            RociadorInteligente.CATEGORIA, UnidadBombeo.CATEGORIA, AeronaveHidratacion.CATEGORIA,
+            AeronaveVigilancia.CATEGORIA);
+
+    private final FileChannel canal;
+    private MappedByteBuffer mapa;
+    private long secuencia;
+    private int longitudConfirmada;
+    private int posicionEscritura;
+    // Inicio de cada registro confirmado, por ordinal
+    private int[] desplazamientos;
+    private int cantidad;
+    // Equipos ya construidos, por ordinal
+    private Equipo[] materializados;
+    // Quienes deben enterarse de cada equipo que se construye (repositorios vinculados)
+    private final List<ObjIntConsumer<Equipo>> alMaterializar;
+
+    private CatalogoEquipos(FileChannel canal) throws IOException {
+        this.canal = canal;
+        long tamanoArchivo = canal.size();
+        this.mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(CAPACIDAD_INICIAL, tamanoArchivo));
+        this.desplazamientos = new int[16];
+        this.longitudConfirmada = INICIO_DATOS;
+        this.alMaterializar = new ArrayList<>();
+
+        if (tamanoArchivo >= INICIO_DATOS && mapa.getInt(0) == MAGIA) {
+            recuperarCabecera();
+        } else {
+            mapa.putInt(0, MAGIA);
+            mapa.putInt(4, VERSION);
+            escribirRanura();
+        }
+        // Lo que esté después de la longitud confirmada es una escritura incompleta
+        this.posicionEscritura = longitudConfirmada;
+        this.materializados = new Equipo[Math.max(16, cantidad)];
+    }
+
+    /**
+     * Abre el catálogo, creándolo si no existe
+     * @param ruta archivo del catálogo
+     * @return CatalogoEquipos listo para leer y anexar
+     * @throws IOException si no se puede abrir o mapear el archivo
+     */
+    public static CatalogoEquipos abrir(Path ruta) throws IOException {
+        FileChannel canal = FileChannel.open(ruta, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new CatalogoEquipos(canal);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Cantidad de equipos confirmados en el catálogo
+     * @return int con la cantidad
+     */
+    public synchronized int contarEquipos() {
+        return cantidad;
+    }
+
+    /**
+     * Obtiene el equipo de un ordinal, construyéndolo solo la primera vez
+     * @param ordinal posición del equipo en el catálogo
+     * @return Equipo reconstruido
+     */
+    public synchronized Equipo materializar(int ordinal) {
+        if (ordinal < 0 || ordinal >= cantidad) {
+            throw new IndexOutOfBoundsException("Ordinal: " + ordinal + ", cantidad: " + cantidad);
+        }
+        Equipo equipo = materializados[ordinal];
+        if (equipo == null) {
+            equipo = decodificar(desplazamientos[ordinal]);
+            vincularEstado(equipo, desplazamientos[ordinal]);
+            materializados[ordinal] = equipo;
+            // Se avisa antes de entregar el equipo: nadie puede cambiarle el estado todavía
+            for (ObjIntConsumer<Equipo> observador : alMaterializar) {
+                observador.accept(equipo, ordinal);
+            }
+        }
+        return equipo;
+    }
+
+    /**
+     * Recorre los primeros registros leyendo sus atributos sin construir los equipos
+     * El visitante recibe siempre el mismo cursor y no debe conservarlo
+     * @param hasta cantidad de registros a recorrer
+     * @param visitante recibe el cursor posicionado en cada registro, en orden
+     */
+    synchronized void recorrer(int hasta, Consumer<Ficha> visitante) {
+        if (hasta > cantidad) {
+            throw new IndexOutOfBoundsException("Registros: " + hasta + ", cantidad: " + cantidad);
+        }
+        Ficha ficha = new Ficha();
+        for (int i = 0; i < hasta; i++) {
+            ficha.posicionar(i);
+            visitante.accept(ficha);
+        }
+    }
+
+    /**
+     * Recorre los primeros registros y avisa de cada equipo que se construya después
+     * Ambas cosas ocurren sin soltar el catálogo, así cada equipo se ve una
+     * sola vez: en el recorrido (ya construido o no) o en el aviso
+     * @param hasta cantidad de registros a recorrer
+     * @param visitante recibe el cursor posicionado en cada registro, en orden
+     * @param observador recibe cada equipo que se construya y su ordinal
+     */
+    synchronized void suscribir(int hasta, Consumer<Ficha> visitante,
+                                ObjIntConsumer<Equipo> observador) {
+        recorrer(hasta, visitante);
+        alMaterializar.add(observador);
+    }
+
+    /**
+     * Anexa un equipo y lo confirma en disco
+     * @param equipo equipo a persistir
+     * @throws IOException si falla la escritura
+     */
+    public void anexar(Equipo equipo) throws IOException {
+        anexarTodos(List.of(equipo));
+    }
+
+    /**
+     * Anexa varios equipos con una sola confirmación
+     * Primero se escriben y sincronizan los registros, después la cabecera;
+     * si el proceso se interrumpe antes, al abrir no aparece ninguno. Si la
+     * escritura falla no se anexa ninguno y el catálogo queda como estaba
+     * @param equipos equipos a persistir
+     * @throws IOException si falla la escritura
+     */
+    public synchronized void anexarTodos(Collection<? extends Equipo> equipos) throws IOException {
+        int primero = cantidad;
+        int[] nuevos = new int[equipos.size()];
+        int n = 0;
+        try {
+            for (Equipo equipo : equipos) {
+                nuevos[n++] = posicionEscritura;
+                escribirRegistro(equipo);
+            }
+            if (n == 0) {
+                return;
+            }
+            mapa.force(longitudConfirmada, posicionEscritura - longitudConfirmada);
+        } catch (IOException | RuntimeException e) {
+            // Lo escrito queda después de la longitud confirmada y se sobrescribe
+            // con el próximo anexo
+            posicionEscritura = longitudConfirmada;
+            throw e;
+        }
+
+        longitudConfirmada = posicionEscritura;
+        for (int i = 0; i < n; i++) {
+            agregarDesplazamiento(nuevos[i]);
+        }
+        escribirRanura();
+        mapa.force(0, INICIO_DATOS);
+
+        int i = primero;
+        for (Equipo equipo : equipos) {
+            if (i >= materializados.length) {
+                materializados = Arrays.copyOf(materializados, Math.max(cantidad, i * 2));
+            }
+            materializados[i] = equipo;
+            vincularEstado(equipo, desplazamientos[i]);
+            i++;
+        }
+    }
+
+    /**
+     * Sincroniza los cambios de estado pendientes y cierra el archivo
+     * @throws IOException si falla el cierre
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        mapa.force();
+        canal.close();
+    }
+
+    // ---------- Cabecera ----------
+
+    private void recuperarCabecera() {
+        long mejorSecuencia = -1;
+        for (int r = 0; r < 2; r++) {
+            int base = RANURA_0 + r * TAMANO_RANURA;
+            long sec = mapa.getLong(base);
+            long longitud = mapa.getLong(base + 8);
+            long total = mapa.getLong(base + 16);
+            if (mapa.getLong(base + 24) == crcRanura(sec, longitud, total)
+                    && sec > mejorSecuencia && longitud >= INICIO_DATOS
+                    && longitud <= mapa.capacity()) {
+                mejorSecuencia = sec;
+                longitudConfirmada = (int) longitud;
+                cantidad = (int) total;
+            }
+        }
+        secuencia = Math.max(0, mejorSecuencia);
+
+        int confirmados = cantidad;
+        cantidad = 0;
+        int posicion = INICIO_DATOS;
+        while (cantidad < confirmados && posicion + 4 <= longitudConfirmada) {
+            agregarDesplazamiento(posicion);
+            posicion += 4 + mapa.getInt(posicion);
+        }
+    }
+
+    private void escribirRanura() {
+        secuencia++;
+        int base = RANURA_0 + (int) (secuencia % 2) * TAMANO_RANURA;
+        mapa.putLong(base, secuencia);
+        mapa.putLong(base + 8, longitudConfirmada);
+        mapa.putLong(base + 16, cantidad);
+        mapa.putLong(base + 24, crcRanura(secuencia, longitudConfirmada, cantidad));
+    }
+
+    private static long crcRanura(long sec, long longitud, long total) {
+        CRC32 crc = new CRC32();
+        for (long valor : new long[] {sec, longitud, total}) {
+            for (int b = 0; b < 8; b++) {
+                crc.update((int) (valor >>> (b * 8)));
+            }
+        }
+        return crc.getValue();
+    }
+
+    private void agregarDesplazamiento(int posicion) {
+        if (cantidad == desplazamientos.length) {
+            desplazamientos = Arrays.copyOf(desplazamientos, cantidad * 2);
+        }
+        desplazamientos[cantidad++] = posicion;
+    }
+
+    // ---------- Estado en funcionamiento ----------
+
+    /**
+     * Refleja los cambios de estado en el byte del registro
+     * Se sincronizan a disco en la siguiente confirmación o al cerrar
+     */
+    private void vincularEstado(Equipo equipo, int registro) {
+        boolean estado = equipo.vincularObservador((e, nuevo) -> escribirEstado(registro, nuevo));
+        escribirEstado(registro, estado);
+    }
+
+    private synchronized void escribirEstado(int registro, boolean estado) {
+        mapa.put(registro + DESPLAZAMIENTO_ESTADO, (byte) (estado ? 1 : 0));
+    }
+
+    // ---------- Codificación ----------
+
+    private void escribirRegistro(Equipo equipo) throws IOException {
+        int inicio = posicionEscritura;
+        posicionEscritura += 4;
+        escribirByte(tipoDe(equipo));
+        escribirByte((byte) (equipo.isEnFuncionamiento() ? 1 : 0));
+        escribirTexto(equipo.getCodigo());
+        escribirTexto(equipo.getDenominacion());
+        escribirTexto(equipo.getMarca());
+        escribirDouble(equipo.getConsumoWatts());
+        escribirTexto(equipo.getZona());
+
+        if (equipo instanceof MonitorSuelo) {
+            MonitorSuelo monitor = (MonitorSuelo) equipo;
+            escribirDouble(monitor.getProfundidadCm());
+            escribirTexto(monitor.getCategoriaMonitor());
+        } else if (equipo instanceof DetectorHumedad) {
+            DetectorHumedad detector = (DetectorHumedad) equipo;
+            escribirTexto(detector.getIntervaloDeteccion());
+            escribirDouble(detector.getExactitud());
+        } else if (equipo instanceof MedidorTermico) {
+            escribirTexto(((MedidorTermico) equipo).getRangoTermico());
+        } else if (equipo instanceof CentralClimatica) {
+            escribirDouble(((CentralClimatica) equipo).getElevacionMetros());
+        } else if (equipo instanceof CompuertaHidraulica) {
+            escribirDouble(((CompuertaHidraulica) equipo).getFlujoMaximoLH());
+        } else if (equipo instanceof ModuloNutrientes) {
+            escribirDouble(((ModuloNutrientes) equipo).getCapacidadLitros());
+        } else if (equipo instanceof RociadorInteligente) {
+            escribirDouble(((RociadorInteligente) equipo).getAlcanceMetros());
+        } else if (equipo instanceof UnidadBombeo) {
+            UnidadBombeo bomba = (UnidadBombeo) equipo;
+            escribirDouble(bomba.getPotenciaCaballos());
+            escribirDouble(bomba.getCaudalLH());
+        } else if (equipo instanceof AeronaveHidratacion) {
+            AeronaveHidratacion aeronave = (AeronaveHidratacion) equipo;
+            escribirDouble(aeronave.getDuracionBateriaMin());
+            escribirDouble(aeronave.getVolumenDepositoL());
+        } else {
+            AeronaveVigilancia aeronave = (AeronaveVigilancia) equipo;
+            escribirDouble(aeronave.getAutonomiaMinutos());
+            escribirTexto(aeronave.getDefinicion());
+        }
+        mapa.putInt(inicio, posicionEscritura - inicio - 4);
+    }
+
+    private static byte tipoDe(Equipo equipo) {
+        if (equipo instanceof MonitorSuelo) return MONITOR_SUELO;
+        if (equipo instanceof DetectorHumedad) return DETECTOR_HUMEDAD;
+        if (equipo instanceof MedidorTermico) return MEDIDOR_TERMICO;
+        if (equipo instanceof CentralClimatica) return CENTRAL_CLIMATICA;
+        if (equipo instanceof CompuertaHidraulica) return COMPUERTA_HIDRAULICA;
+        if (equipo instanceof ModuloNutrientes) return MODULO_NUTRIENTES;
+        if (equipo instanceof RociadorInteligente) return ROCIADOR_INTELIGENTE;
+        if (equipo instanceof UnidadBombeo) return UNIDAD_BOMBEO;
+        if (equipo instanceof AeronaveHidratacion) return AERONAVE_HIDRATACION;
+        if (equipo instanceof AeronaveVigilancia) return AERONAVE_VIGILANCIA;
+        throw new IllegalArgumentException("Tipo de equipo no soportado: "
+                + equipo.getClass().getSimpleName());
+    }
+
+    /**
+     * Reconstruye el equipo de un registro
+     * Usa los constructores que no anotan la inicialización: esa anotación
+     * ya se hizo al dar de alta el equipo y no se repite en cada arranque
+     */
+    private Equipo decodificar(int registro) {
+        Lector lector = new Lector(registro + 4);
+        byte tipo = lector.leerByte();
+        boolean estado = lector.leerByte() != 0;
+        String codigo = lector.leerTexto();
+        String denominacion = lector.leerTexto();
+        String marca = lector.leerTexto();
+        double consumo = lector.leerDouble();
+        String zona = lector.leerTexto();
+
+        Equipo equipo;
+        switch (tipo) {
+            case MONITOR_SUELO:
+                equipo = new MonitorSuelo(codigo, denominacion, marca, consumo, zona,
+                        lector.leerDouble(), lector.leerTexto(), false);
+                break;
+            case DETECTOR_HUMEDAD:
+                equipo = new DetectorHumedad(codigo, denominacion, marca, consumo, zona,
+                        lector.leerTexto(), lector.leerDouble(), false);
+                break;
+            case MEDIDOR_TERMICO:
+                equipo = new MedidorTermico(codigo, denominacion, marca, consumo, zona,
+                        lector.leerTexto(), false);
+                break;
+            case CENTRAL_CLIMATICA:
+                equipo = new CentralClimatica(codigo, denominacion, marca, consumo, zona,
+                        lector.leerDouble(), false);
+                break;
+            case COMPUERTA_HIDRAULICA:
+                equipo = new CompuertaHidraulica(codigo, denominacion, marca, consumo, zona,
+                        lector.leerDouble(), false);
+                break;
+            case MODULO_NUTRIENTES:
+                equipo = new ModuloNutrientes(codigo, denominacion, marca, consumo, zona,
+                        lector.leerDouble(), false);
+                break;
+            case ROCIADOR_INTELIGENTE:
+                equipo = new RociadorInteligente(codigo, denominacion, marca, consumo, zona,
+                        lector.leerDouble(), false);
+                break;
+            case UNIDAD_BOMBEO:
+                equipo = new UnidadBombeo(codigo, denominacion, marca, consumo, zona,
+                        lector.leerDouble(), lector.leerDouble(), false);
+                break;
+            case AERONAVE_HIDRATACION:
+                equipo = new AeronaveHidratacion(codigo, denominacion, marca, consumo, zona,
+                        lector.leerDouble(), lector.leerDouble(), false);
+                break;
+            case AERONAVE_VIGILANCIA:
+                equipo = new AeronaveVigilancia(codigo, denominacion, marca, consumo, zona,
+                        lector.leerDouble(), lector.leerTexto(), false);
+                break;
+            default:
+                throw new IllegalStateException("Registro corrupto en el catálogo, tipo: " + tipo);
+        }
+        equipo.setEnFuncionamiento(estado);
+        return equipo;
+    }
+
+    private void asegurarEspacio(int bytes) throws IOException {
+        long necesario = (long) posicionEscritura + bytes;
+        if (necesario > mapa.capacity()) {
+            long capacidad = Math.max(necesario, (long) mapa.capacity() * 2);
+            if (capacidad > Integer.MAX_VALUE) {
+                throw new IOException("El catálogo superó el tamaño máximo de un mapeo (2 GB)");
+            }
+            mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, capacidad);
+        }
+    }
+
+    private void escribirByte(byte valor) throws IOException {
+        asegurarEspacio(1);
+        mapa.put(posicionEscritura, valor);
+        posicionEscritura += 1;
+    }
+
+    private void escribirDouble(double valor) throws IOException {
+        asegurarEspacio(8);
+        mapa.putDouble(posicionEscritura, valor);
+        posicionEscritura += 8;
+    }
+
+    private void escribirTexto(String texto) throws IOException {
+        byte[] bytes = texto == null ? new byte[0] : texto.getBytes(StandardCharsets.UTF_8);
+        asegurarEspacio(4 + bytes.length);
+        // Longitud -1 representa null
+        mapa.putInt(posicionEscritura, texto == null ? -1 : bytes.length);
+        mapa.put(posicionEscritura + 4, bytes);
+        posicionEscritura += 4 + bytes.length;
+    }
+
+    /**
+     * Cursor sobre los atributos comunes de un registro
+     * Solo es válido dentro del recorrido que lo entregó
+     */
+    final class Ficha {
+        private int ordinal;
+        private int registro;
+        private int posicionMarca;
+        private int posicionZona;
+
+        private void posicionar(int ordinal) {
+            this.ordinal = ordinal;
+            this.registro = desplazamientos[ordinal];
+            int posicion = registro + 4 + 2;
+            posicion = saltarTexto(saltarTexto(posicion));
+            posicionMarca = posicion;
+            posicionZona = saltarTexto(posicion) + 8;
+        }
+
+        private int saltarTexto(int posicion) {
+            return posicion + 4 + Math.max(0, mapa.getInt(posicion));
+        }
+
+        private String leerTexto(int posicion) {
+            return new Lector(posicion).leerTexto();
+        }
+
+        int getOrdinal() {
+            return ordinal;
+        }
+
+        Class<? extends Equipo> getClase() {
+            return CLASES.get(mapa.get(registro + 4) - 1);
+        }
+
+        String getCategoria() {
+            return CATEGORIAS.get(mapa.get(registro + 4) - 1);
+        }
+
+        boolean isEnFuncionamiento() {
+            return mapa.get(registro + DESPLAZAMIENTO_ESTADO) != 0;
+        }
+
+        String getCodigo() {
+            return leerTexto(registro + 6);
+        }
+
+        String getDenominacion() {
+            return leerTexto(saltarTexto(registro + 6));
+        }
+
+        String getMarca() {
+            return leerTexto(posicionMarca);
+        }
+
+        double getConsumoWatts() {
+            return mapa.getDouble(posicionZona - 8);
+        }
+
+        String getZona() {
+            return leerTexto(posicionZona);
+        }
+
+        /**
+         * Equipo del registro si ya se construyó
+         * @return Equipo o null si todavía no se pidió
+         */
+        Equipo getEquipo() {
+            return materializados[ordinal];
+        }
+    }
+
+    /**
+     * Cursor de lectura con posiciones absolutas sobre el mapa
+     */
+    private class Lector {
+        private int posicion;
+
+        Lector(int posicion) {
+            this.posicion = posicion;
+        }
+
+        byte leerByte() {
+            return mapa.get(posicion++);
+        }
+
+        double leerDouble() {
+            double valor = mapa.getDouble(posicion);
+            posicion += 8;
+            return valor;
+        }
+
+        String leerTexto() {
+            int longitud = mapa.getInt(posicion);
+            posicion += 4;
+            if (longitud < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[longitud];
+            mapa.get(posicion, bytes);
+            posicion += longitud;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
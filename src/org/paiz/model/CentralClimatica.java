@@ -5,8 +5,6 @@ import org.paiz.interfaces.IMedible;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Clase CentralClimatica
@@ -15,18 +13,31 @@ import java.time.format.DateTimeFormatter;
  * @version 1.0
  */
 public class CentralClimatica extends Equipo implements IMedible, IAuditable {
+    static final String CATEGORIA = "Estación Meteorológica";
+
     private double elevacionMetros;
     private List<String> variablesMedidas;
-    private List<String> bitacora;
+    private final CanalBitacora bitacora;
 
     public CentralClimatica(String codigo, String denominacion, String marca,
                             double consumo, String zona, double elevacion) {
+        this(codigo, denominacion, marca, consumo, zona, elevacion, true);
+    }
+
+    /**
+     * Constructor que permite omitir la anotación de inicialización
+     * @param anotarInicio false al reconstruir un equipo que ya se dio de alta
+     */
+    CentralClimatica(String codigo, String denominacion, String marca,
+                     double consumo, String zona, double elevacion, boolean anotarInicio) {
         super(codigo, denominacion, marca, consumo, zona);
         this.elevacionMetros = elevacion;
         this.variablesMedidas = new ArrayList<>();
-        this.bitacora = new ArrayList<>();
+        this.bitacora = MotorBitacora.global().abrirCanal(codigo, zona);
         inicializarVariables();
-        agregarRegistro("Central climática inicializada");
+        if (anotarInicio) {
+            bitacora.registrar(EventoBitacora.INICIALIZACION, "Central climática inicializada");
+        }
     }
 
     private void inicializarVariables() {
@@ -37,32 +48,51 @@ public class CentralClimatica extends Equipo implements IMedible, IAuditable {
     }
 
     @Override
-    public String capturarDatos() {
+    public void capturarDatos(LecturaTelemetria lectura) {
+        FuenteSimulada fuente = SimuladorSensores.global().fuente(codigo);
+        lectura.reiniciar(this, fuente.siguienteInstante());
+        lectura.poner(CanalTelemetria.TEMPERATURA, fuente.temperaturaDiurna(24.0, 7.0));
+        lectura.poner(CanalTelemetria.HUMEDAD_RELATIVA, fuente.humedadRelativa(65.0, 20.0));
+        lectura.poner(CanalTelemetria.PRESION_ATMOSFERICA, fuente.presionAtmosferica());
+        lectura.poner(CanalTelemetria.VIENTO, fuente.viento(12.0));
+        lectura.poner(CanalTelemetria.ELEVACION, elevacionMetros);
+        bitacora.registrar(EventoBitacora.CAPTURA_METEOROLOGICA);
+    }
+
+    @Override
+    public String describirLectura(LecturaTelemetria lectura) {
         StringBuilder datos = new StringBuilder("Datos meteorológicos:\n");
-        datos.append(String.format("  - Temperatura: %.1f°C\n", 15 + Math.random() * 20));
-        datos.append(String.format("  - Humedad: %.1f%%\n", 40 + Math.random() * 50));
-        datos.append(String.format("  - Presión: %.1f hPa\n", 980 + Math.random() * 60));
-        datos.append(String.format("  - Viento: %.1f km/h\n", Math.random() * 40));
-        datos.append(String.format("  - Elevación: %.1fm", elevacionMetros));
-        agregarRegistro("Captura completa de datos meteorológicos");
+        datos.append(String.format("  - Temperatura: %.1f°C\n", lectura.obtener(CanalTelemetria.TEMPERATURA)));
+        datos.append(String.format("  - Humedad: %.1f%%\n", lectura.obtener(CanalTelemetria.HUMEDAD_RELATIVA)));
+        datos.append(String.format("  - Presión: %.1f hPa\n", lectura.obtener(CanalTelemetria.PRESION_ATMOSFERICA)));
+        datos.append(String.format("  - Viento: %.1f km/h\n", lectura.obtener(CanalTelemetria.VIENTO)));
+        datos.append(String.format("  - Elevación: %.1fm", lectura.obtener(CanalTelemetria.ELEVACION)));
         return datos.toString();
     }
 
     @Override
     public void agregarRegistro(String entrada) {
-        String timestamp = LocalDateTime.now()
-                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        bitacora.add(timestamp + " - " + entrada);
+        bitacora.registrar(entrada);
     }
 
     @Override
     public List<String> consultarBitacora() {
-        return new ArrayList<>(bitacora);
+        return bitacora.consultar();
+    }
+
+    @Override
+    public List<String> consultarUltimosRegistros(int cantidad) {
+        return bitacora.consultarUltimos(cantidad);
+    }
+
+    @Override
+    public int contarRegistros() {
+        return bitacora.contarRegistros();
     }
 
     @Override
     public String obtenerCategoria() {
-        return "Estación Meteorológica";
+        return CATEGORIA;
     }
 
     @Override
@@ -88,7 +118,7 @@ public class CentralClimatica extends Equipo implements IMedible, IAuditable {
     public void incorporarVariable(String variable) {
         if (!variablesMedidas.contains(variable)) {
             variablesMedidas.add(variable);
-            agregarRegistro("Nueva variable incorporada: " + variable);
+            bitacora.registrar(EventoBitacora.VARIABLE_INCORPORADA, variable);
         }
     }
 
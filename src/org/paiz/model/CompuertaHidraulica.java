@@ -3,10 +3,7 @@ package org.paiz.model;
 import org.paiz.interfaces.IAuditable;
 import org.paiz.interfaces.IEjecutable;
 import org.paiz.interfaces.IMedible;
-import java.util.ArrayList;
 import java.util.List;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Clase CompuertaHidraulica
@@ -15,17 +12,30 @@ import java.time.format.DateTimeFormatter;
  * @version 1.0
  */
 public class CompuertaHidraulica extends Equipo implements IEjecutable, IAuditable {
+    static final String CATEGORIA = "Sistema de Riego";
+
     private double flujoMaximoLH;
     private String posicionCompuerta;
-    private List<String> bitacora;
+    private final CanalBitacora bitacora;
 
     public CompuertaHidraulica(String codigo, String denominacion, String marca,
                                double consumo, String zona, double flujo) {
+        this(codigo, denominacion, marca, consumo, zona, flujo, true);
+    }
+
+    /**
+     * Constructor que permite omitir la anotación de inicialización
+     * @param anotarInicio false al reconstruir un equipo que ya se dio de alta
+     */
+    CompuertaHidraulica(String codigo, String denominacion, String marca,
+                        double consumo, String zona, double flujo, boolean anotarInicio) {
         super(codigo, denominacion, marca, consumo, zona);
         this.flujoMaximoLH = flujo;
         this.posicionCompuerta = "CERRADA";
-        this.bitacora = new ArrayList<>();
-        agregarRegistro("Compuerta hidráulica inicializada");
+        this.bitacora = MotorBitacora.global().abrirCanal(codigo, zona);
+        if (anotarInicio) {
+            bitacora.registrar(EventoBitacora.INICIALIZACION, "Compuerta hidráulica inicializada");
+        }
     }
 
     @Override
@@ -34,15 +44,15 @@ public class CompuertaHidraulica extends Equipo implements IEjecutable, IAuditab
 
         if (instruccion.equalsIgnoreCase("ABRIR")) {
             posicionCompuerta = "ABIERTA";
-            agregarRegistro("Compuerta abierta - Flujo máximo: " + flujoMaximoLH + " L/h");
+            bitacora.registrar(EventoBitacora.COMPUERTA_ABIERTA, flujoMaximoLH);
             exitoso = true;
         } else if (instruccion.equalsIgnoreCase("CERRAR")) {
             posicionCompuerta = "CERRADA";
-            agregarRegistro("Compuerta cerrada");
+            bitacora.registrar(EventoBitacora.COMPUERTA_CERRADA);
             exitoso = true;
         } else if (instruccion.startsWith("PARCIAL")) {
             posicionCompuerta = "PARCIAL";
-            agregarRegistro("Compuerta en posición parcial");
+            bitacora.registrar(EventoBitacora.COMPUERTA_PARCIAL);
             exitoso = true;
         }
 
@@ -51,19 +61,27 @@ public class CompuertaHidraulica extends Equipo implements IEjecutable, IAuditab
 
     @Override
     public void agregarRegistro(String entrada) {
-        String timestamp = LocalDateTime.now()
-                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        bitacora.add(timestamp + " - " + entrada);
+        bitacora.registrar(entrada);
     }
 
     @Override
     public List<String> consultarBitacora() {
-        return new ArrayList<>(bitacora);
+        return bitacora.consultar();
+    }
+
+    @Override
+    public List<String> consultarUltimosRegistros(int cantidad) {
+        return bitacora.consultarUltimos(cantidad);
+    }
+
+    @Override
+    public int contarRegistros() {
+        return bitacora.contarRegistros();
     }
 
     @Override
     public String obtenerCategoria() {
-        return "Sistema de Riego";
+        return CATEGORIA;
     }
 
     @Override
@@ -0,0 +1,235 @@
+package org.paiz.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Clase DetectorAnomalias
+ * Evalúa cada lectura contra umbrales y contra la media móvil de su
+ * propio equipo, apenas se captura
+ *
+ * Es un ReceptorLectura: se conecta al planificador de sondeo (o a
+ * cualquier captura) y evalúa en el mismo hilo, sin crear objetos. El
+ * estado de cada equipo y regla vive en arreglos primitivos, repartidos en
+ * tramos de EQUIPOS_POR_TRAMO equipos que no se mueven al crecer. Cada
+ * equipo tiene una marca de ocupado en su tramo: las lecturas de un mismo
+ * equipo (por ejemplo, del sondeo y de una captura desde la consola) se
+ * evalúan de a una, y equipos distintos en paralelo sin esperarse.
+ *
+ * Las reglas (ver ReglaAlerta) admiten histéresis y rebote; cada
+ * activación y cada despeje se informan al ReceptorAlerta.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class DetectorAnomalias implements ReceptorLectura {
+    private static final int EQUIPOS_POR_TRAMO = 1 << 10;
+    private static final int MAXIMO_TRAMOS = 1 << 16;
+    private static final int CANALES = CanalTelemetria.values().length;
+
+    // Bits de alertas activas y desplazamiento de cada contador de rebote
+    private static final int ALTO = 0;
+    private static final int BAJO = 1;
+    private static final int DESVIO = 2;
+
+    private final ReceptorAlerta receptor;
+    private final ReglaAlerta[] reglas;
+    // Regla de cada canal por ordinal, o -1 si el canal no se vigila
+    private final int[] reglaPorCanal;
+    private final ConcurrentHashMap<String, Integer> indices;
+    private final Tramo[] tramos;
+    private int siguienteIndice;
+
+    /**
+     * Constructor
+     * @param receptor destino de las alertas
+     * @param reglas una regla por canal vigilado
+     */
+    public DetectorAnomalias(ReceptorAlerta receptor, ReglaAlerta... reglas) {
+        this.receptor = receptor;
+        this.reglas = reglas.clone();
+        this.reglaPorCanal = new int[CANALES];
+        Arrays.fill(reglaPorCanal, -1);
+        for (int r = 0; r < reglas.length; r++) {
+            if (reglaPorCanal[reglas[r].getCanal().ordinal()] >= 0) {
+                throw new IllegalArgumentException("Canal con dos reglas: " + reglas[r].getCanal());
+            }
+            reglaPorCanal[reglas[r].getCanal().ordinal()] = r;
+        }
+        this.indices = new ConcurrentHashMap<>();
+        this.tramos = new Tramo[MAXIMO_TRAMOS];
+    }
+
+    /**
+     * Evalúa una lectura
+     * @param codigoEquipo código del equipo que la capturó
+     * @param lectura lectura llena con capturarDatos
+     */
+    @Override
+    public void recibir(String codigoEquipo, LecturaTelemetria lectura) {
+        int indice = indiceDe(codigoEquipo);
+        Tramo tramo = tramo(indice / EQUIPOS_POR_TRAMO);
+        int casilla = indice % EQUIPOS_POR_TRAMO;
+        int base = casilla * reglas.length;
+        // Casi nunca hay competencia: solo una captura manual durante un sondeo
+        while (!tramo.ocupados.compareAndSet(casilla, 0, 1)) {
+            Thread.onSpinWait();
+        }
+        try {
+            for (int r = 0; r < reglas.length; r++) {
+                ReglaAlerta regla = reglas[r];
+                if (lectura.tiene(regla.getCanal())) {
+                    evaluar(codigoEquipo, regla, tramo, base + r, lectura.obtener(regla.getCanal()),
+                            lectura.getInstanteNanos());
+                }
+            }
+        } finally {
+            tramo.ocupados.set(casilla, 0);
+        }
+    }
+
+    private void evaluar(String codigo, ReglaAlerta regla, Tramo tramo, int i, double valor, long instante) {
+        if (Double.isNaN(valor)) {
+            return;
+        }
+        double histeresis = regla.getHisteresis();
+        if (!Double.isNaN(regla.getUmbralAlto())) {
+            boolean activa = (tramo.activas[i] & (1 << ALTO)) != 0;
+            boolean cambia = activa ? valor < regla.getUmbralAlto() - histeresis : valor > regla.getUmbralAlto();
+            confirmar(codigo, regla, tramo, i, ALTO, TipoAlerta.UMBRAL_ALTO, cambia, valor, instante);
+        }
+        if (!Double.isNaN(regla.getUmbralBajo())) {
+            boolean activa = (tramo.activas[i] & (1 << BAJO)) != 0;
+            boolean cambia = activa ? valor > regla.getUmbralBajo() + histeresis : valor < regla.getUmbralBajo();
+            confirmar(codigo, regla, tramo, i, BAJO, TipoAlerta.UMBRAL_BAJO, cambia, valor, instante);
+        }
+        if (!Double.isNaN(regla.getLimiteDesvio())) {
+            if (tramo.muestras[i] == 0) {
+                tramo.medias[i] = valor;
+                tramo.varianzas[i] = 0.0;
+            } else {
+                double diferencia = valor - tramo.medias[i];
+                if (tramo.muestras[i] >= regla.getMuestrasCalentamiento() && tramo.varianzas[i] > 0) {
+                    // Desvío respecto de la línea base anterior a esta lectura
+                    double desviacion = Math.sqrt(tramo.varianzas[i]);
+                    double z = Math.abs(diferencia) / desviacion;
+                    boolean activa = (tramo.activas[i] & (1 << DESVIO)) != 0;
+                    boolean cambia = activa ? z < regla.getLimiteDesvio() - 1.0 : z > regla.getLimiteDesvio();
+                    confirmar(codigo, regla, tramo, i, DESVIO, TipoAlerta.DESVIO, cambia, valor, instante);
+                    // Un pico no arrastra la línea base: entra recortado al límite,
+                    // así un cambio de nivel sostenido se aprende de a poco
+                    double tope = regla.getLimiteDesvio() * desviacion;
+                    diferencia = Math.max(-tope, Math.min(tope, diferencia));
+                }
+                double incremento = regla.getAlfa() * diferencia;
+                tramo.medias[i] += incremento;
+                tramo.varianzas[i] = (1.0 - regla.getAlfa()) * (tramo.varianzas[i] + diferencia * incremento);
+            }
+            if (tramo.muestras[i] < Integer.MAX_VALUE) {
+                tramo.muestras[i]++;
+            }
+        }
+    }
+
+    /**
+     * Cuenta las lecturas seguidas que piden un cambio y lo aplica al llegar al rebote
+     */
+    private void confirmar(String codigo, ReglaAlerta regla, Tramo tramo, int i, int bit, TipoAlerta tipo,
+                           boolean cambia, double valor, long instante) {
+        int contador = i * 3 + bit;
+        if (!cambia) {
+            tramo.rebotes[contador] = 0;
+            return;
+        }
+        if (++tramo.rebotes[contador] < regla.getRebote()) {
+            return;
+        }
+        tramo.rebotes[contador] = 0;
+        tramo.activas[i] ^= (byte) (1 << bit);
+        receptor.alertar(codigo, regla.getCanal(), tipo, (tramo.activas[i] & (1 << bit)) != 0, valor, instante);
+    }
+
+    /**
+     * Indica si una alerta está activa
+     * @param codigoEquipo código del equipo
+     * @param canal magnitud vigilada
+     * @param tipo condición
+     * @return boolean true si está activa
+     */
+    public boolean isActiva(String codigoEquipo, CanalTelemetria canal, TipoAlerta tipo) {
+        Integer indice = indices.get(Equipo.normalizarCodigo(codigoEquipo));
+        int r = reglaPorCanal[canal.ordinal()];
+        if (indice == null || r < 0) {
+            return false;
+        }
+        Tramo tramo = tramo(indice / EQUIPOS_POR_TRAMO);
+        int bit = tipo == TipoAlerta.UMBRAL_ALTO ? ALTO : tipo == TipoAlerta.UMBRAL_BAJO ? BAJO : DESVIO;
+        return (tramo.activas[(indice % EQUIPOS_POR_TRAMO) * reglas.length + r] & (1 << bit)) != 0;
+    }
+
+    /**
+     * Media móvil de un canal de un equipo
+     * @return double con la media, o NaN si el canal no vigila desvíos o no hay lecturas
+     */
+    public double obtenerLineaBase(String codigoEquipo, CanalTelemetria canal) {
+        Integer indice = indices.get(Equipo.normalizarCodigo(codigoEquipo));
+        int r = reglaPorCanal[canal.ordinal()];
+        if (indice == null || r < 0) {
+            return Double.NaN;
+        }
+        Tramo tramo = tramo(indice / EQUIPOS_POR_TRAMO);
+        int i = (indice % EQUIPOS_POR_TRAMO) * reglas.length + r;
+        return tramo.muestras[i] == 0 ? Double.NaN : tramo.medias[i];
+    }
+
+    private int indiceDe(String codigoEquipo) {
+        String clave = Equipo.normalizarCodigo(codigoEquipo);
+        Integer indice = indices.get(clave);
+        if (indice == null) {
+            indice = indices.computeIfAbsent(clave, k -> asignarIndice());
+        }
+        return indice;
+    }
+
+    private synchronized int asignarIndice() {
+        if (siguienteIndice == EQUIPOS_POR_TRAMO * MAXIMO_TRAMOS) {
+            throw new IllegalStateException("Se alcanzó el máximo de equipos del detector");
+        }
+        return siguienteIndice++;
+    }
+
+    private Tramo tramo(int numero) {
+        Tramo tramo = tramos[numero];
+        return tramo != null ? tramo : crearTramo(numero);
+    }
+
+    private synchronized Tramo crearTramo(int numero) {
+        if (tramos[numero] == null) {
+            tramos[numero] = new Tramo(EQUIPOS_POR_TRAMO * reglas.length);
+        }
+        return tramos[numero];
+    }
+
+    /**
+     * Estado de EQUIPOS_POR_TRAMO equipos, una casilla por equipo y regla
+     */
+    private static class Tramo {
+        private final double[] medias;
+        private final double[] varianzas;
+        private final int[] muestras;
+        // Tres contadores de rebote por casilla: alto, bajo y desvío
+        private final int[] rebotes;
+        private final byte[] activas;
+        // 1 mientras se evalúa una lectura del equipo
+        private final AtomicIntegerArray ocupados;
+
+        Tramo(int casillas) {
+            this.medias = new double[casillas];
+            this.varianzas = new double[casillas];
+            this.muestras = new int[casillas];
+            this.rebotes = new int[casillas * 3];
+            this.activas = new byte[casillas];
+            this.ocupados = new AtomicIntegerArray(EQUIPOS_POR_TRAMO);
+        }
+    }
+}
@@ -3,10 +3,7 @@ package org.paiz.model;
 import org.paiz.interfaces.IAuditable;
 import org.paiz.interfaces.IMedible;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Clase DetectorHumedad
@@ -15,44 +12,73 @@ import java.time.format.DateTimeFormatter;
  * @version 1.0
  */
 public class DetectorHumedad extends Equipo implements IMedible, IAuditable {
+    static final String CATEGORIA = "Detector de Humedad";
+
     private String intervaloDeteccion;
     private double exactitud;
-    private List<String> bitacora;
+    private final CanalBitacora bitacora;
 
     public DetectorHumedad(String codigo, String denominacion, String marca,
                            double consumo, String zona, String intervalo,
                            double exactitud) {
+        this(codigo, denominacion, marca, consumo, zona, intervalo, exactitud, true);
+    }
+
+    /**
+     * Constructor que permite omitir la anotación de inicialización
+     * @param anotarInicio false al reconstruir un equipo que ya se dio de alta
+     */
+    DetectorHumedad(String codigo, String denominacion, String marca,
+                    double consumo, String zona, String intervalo,
+                    double exactitud, boolean anotarInicio) {
         super(codigo, denominacion, marca, consumo, zona);
         this.intervaloDeteccion = intervalo;
         this.exactitud = exactitud;
-        this.bitacora = new ArrayList<>();
-        agregarRegistro("Detector de humedad inicializado");
+        this.bitacora = MotorBitacora.global().abrirCanal(codigo, zona);
+        if (anotarInicio) {
+            bitacora.registrar(EventoBitacora.INICIALIZACION, "Detector de humedad inicializado");
+        }
+    }
+
+    @Override
+    public void capturarDatos(LecturaTelemetria lectura) {
+        FuenteSimulada fuente = SimuladorSensores.global().fuente(codigo);
+        lectura.reiniciar(this, fuente.siguienteInstante());
+        double humedad = fuente.humedadRelativa(60.0, 25.0);
+        lectura.poner(CanalTelemetria.HUMEDAD_RELATIVA, humedad);
+        lectura.poner(CanalTelemetria.EXACTITUD, exactitud);
+        bitacora.registrar(EventoBitacora.MEDICION_REALIZADA, humedad);
     }
 
     @Override
-    public String capturarDatos() {
-        double lectura = 30.0 + Math.random() * 60.0;
-        String datos = String.format("Humedad relativa: %.2f%% (±%.2f%%)",
-                lectura, exactitud);
-        agregarRegistro("Medición realizada: " + lectura);
-        return datos;
+    public String describirLectura(LecturaTelemetria lectura) {
+        return String.format("Humedad relativa: %.2f%% (±%.2f%%)",
+                lectura.obtener(CanalTelemetria.HUMEDAD_RELATIVA), lectura.obtener(CanalTelemetria.EXACTITUD));
     }
 
     @Override
     public void agregarRegistro(String entrada) {
-        String timestamp = LocalDateTime.now()
-                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        bitacora.add(timestamp + " - " + entrada);
+        bitacora.registrar(entrada);
     }
 
     @Override
     public List<String> consultarBitacora() {
-        return new ArrayList<>(bitacora);
+        return bitacora.consultar();
+    }
+
+    @Override
+    public List<String> consultarUltimosRegistros(int cantidad) {
+        return bitacora.consultarUltimos(cantidad);
+    }
+
+    @Override
+    public int contarRegistros() {
+        return bitacora.contarRegistros();
     }
 
     @Override
     public String obtenerCategoria() {
-        return "Detector de Humedad";
+        return CATEGORIA;
     }
 
     @Override
@@ -0,0 +1,900 @@
+package org.paiz.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Clase DiarioBitacora
+ * Bitácora persistente en un directorio de segmentos de solo anexión
+ *
+ * Los registros se acumulan en un búfer y se escriben con FileChannel; la
+ * sincronización con el disco (fsync) se hace por grupos, como máximo una
+ * vez por intervalo de confirmación, no por registro. Si no llegan más
+ * registros, el hilo de mantenimiento confirma lo pendiente al vencer el
+ * intervalo. Un segmento se sella y se abre uno nuevo al superar el tamaño
+ * o la duración máxima.
+ *
+ * Los equipos se identifican con un número estable guardado, junto con su
+ * zona, en el diccionario canales.dic, así sus registros se reconocen tras
+ * reiniciar.
+ * Los eventos se guardan con el código de EventoBitacora.
+ *
+ * Al abrir se descarta la cola incompleta de una escritura interrumpida
+ * en lugar de fallar, y cada ejecución escribe en un segmento nuevo.
+ *
+ * Los segmentos sellados más antiguos que los SEGMENTOS_CALIENTES más
+ * recientes se comprimen en segundo plano (ver SegmentoComprimido) sin
+ * detener las anexiones; las consultas los leen por bloques.
+ *
+ * Los segmentos que salen por completo de la ventana caliente se resumen
+ * en cantidades por equipo, hora y tipo de evento (ver HistorialResumido)
+ * y se borran, también en segundo plano. Las consultas devuelven primero
+ * los resúmenes y luego los registros completos.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class DiarioBitacora implements AutoCloseable {
+    public static final long TAMANO_SEGMENTO_POR_DEFECTO = 16L << 20;
+    public static final Duration DURACION_SEGMENTO_POR_DEFECTO = Duration.ofHours(1);
+    public static final Duration CONFIRMACION_POR_DEFECTO = Duration.ofMillis(200);
+    public static final Duration VENTANA_CALIENTE_POR_DEFECTO = Duration.ofDays(7);
+
+    // Los segmentos se mapean completos para leerlos
+    private static final long TAMANO_SEGMENTO_MAXIMO = 1L << 30;
+    private static final int TAMANO_BUFFER = 1 << 16;
+    private static final String ARCHIVO_CANALES = "canales.dic";
+    private static final String ARCHIVO_HISTORIAL = "historial.res";
+    // Segmentos sellados recientes que se dejan sin comprimir
+    private static final int SEGMENTOS_CALIENTES = 1;
+
+    private final Path directorio;
+    private final long tamanoMaximoSegmento;
+    private final long duracionMaximaNanos;
+    private final long intervaloConfirmacionNanos;
+    private final long ventanaCalienteNanos;
+
+    // Segmentos sellados y, al final, el activo
+    private final List<SegmentoBitacora> segmentos;
+    private SegmentoBitacora activo;
+    private FileChannel archivoActivo;
+    private final ByteBuffer buffer;
+    private final CRC32 crc;
+    private long ultimaConfirmacion;
+    // true si hay registros anexados después de la última confirmación
+    private boolean pendiente;
+
+    // Diccionario persistente: código de equipo <-> número estable
+    private final FileChannel archivoCanales;
+    private final Map<String, Integer> idPorClave;
+    private final List<String> codigosPorId;
+    private final List<String> zonasPorId;
+    // Número estable por id de CanalBitacora del motor; -1 si aún no se resolvió
+    private int[] idPorCanal;
+
+    // Nivel frío con los segmentos ya resumidos
+    private final HistorialResumido historial;
+
+    // Compresión, compactación y confirmación periódica en un hilo aparte
+    private final ScheduledExecutorService mantenimiento;
+    private final Set<Long> compresionesProgramadas;
+    private final Set<Long> compactacionesProgramadas;
+    // Resúmenes y compresiones que fallaron; se reintentan en la próxima rotación
+    private long fallosMantenimiento;
+    private String ultimoFalloMantenimiento;
+
+    private DiarioBitacora(Path directorio, long tamanoMaximoSegmento,
+                           Duration duracionMaxima, Duration intervaloConfirmacion,
+                           Duration ventanaCaliente, FileChannel archivoCanales,
+                           HistorialResumido historial) throws IOException {
+        this.directorio = directorio;
+        this.tamanoMaximoSegmento = tamanoMaximoSegmento;
+        this.duracionMaximaNanos = duracionMaxima.toNanos();
+        this.intervaloConfirmacionNanos = intervaloConfirmacion.toNanos();
+        this.ventanaCalienteNanos = ventanaCaliente.toNanos();
+        this.historial = historial;
+        this.segmentos = new ArrayList<>();
+        this.buffer = ByteBuffer.allocateDirect(TAMANO_BUFFER);
+        this.crc = new CRC32();
+        this.archivoCanales = archivoCanales;
+        this.idPorClave = new HashMap<>();
+        this.codigosPorId = new ArrayList<>();
+        this.zonasPorId = new ArrayList<>();
+        this.idPorCanal = new int[0];
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "mantenimiento-bitacora");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.compresionesProgramadas = new HashSet<>();
+        this.compactacionesProgramadas = new HashSet<>();
+
+        cargarCanales();
+        long ultimo = recuperarSegmentos();
+        abrirSegmento(ultimo + 1);
+        this.ultimaConfirmacion = MotorBitacora.ahoraEpocaNanos();
+        programarMantenimiento();
+        if (intervaloConfirmacionNanos > 0) {
+            // Con intervalo cero cada anexión confirma y no hace falta
+            mantenimiento.scheduleWithFixedDelay(this::confirmarVencido, intervaloConfirmacionNanos,
+                    intervaloConfirmacionNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Abre el diario con los límites por defecto, creándolo si no existe
+     * @param directorio carpeta de los segmentos
+     * @return DiarioBitacora listo para anexar y leer
+     * @throws IOException si no se puede abrir o recuperar el directorio
+     */
+    public static DiarioBitacora abrir(Path directorio) throws IOException {
+        return abrir(directorio, TAMANO_SEGMENTO_POR_DEFECTO, DURACION_SEGMENTO_POR_DEFECTO,
+                CONFIRMACION_POR_DEFECTO);
+    }
+
+    /**
+     * Abre el diario con límites configurables
+     * @param directorio carpeta de los segmentos
+     * @param tamanoMaximoSegmento bytes a partir de los cuales se rota el segmento
+     * @param duracionMaxima tiempo a partir del cual se rota el segmento
+     * @param intervaloConfirmacion tiempo máximo entre sincronizaciones con el disco
+     * @return DiarioBitacora listo para anexar y leer
+     * @throws IOException si no se puede abrir o recuperar el directorio
+     */
+    public static DiarioBitacora abrir(Path directorio, long tamanoMaximoSegmento,
+                                       Duration duracionMaxima,
+                                       Duration intervaloConfirmacion) throws IOException {
+        return abrir(directorio, tamanoMaximoSegmento, duracionMaxima, intervaloConfirmacion,
+                VENTANA_CALIENTE_POR_DEFECTO);
+    }
+
+    /**
+     * Abre el diario con límites configurables y ventana caliente
+     * @param directorio carpeta de los segmentos
+     * @param tamanoMaximoSegmento bytes a partir de los cuales se rota el segmento
+     * @param duracionMaxima tiempo a partir del cual se rota el segmento
+     * @param intervaloConfirmacion tiempo máximo entre sincronizaciones con el disco
+     * @param ventanaCaliente antigüedad a partir de la cual los registros se resumen por hora
+     * @return DiarioBitacora listo para anexar y leer
+     * @throws IOException si no se puede abrir o recuperar el directorio
+     */
+    public static DiarioBitacora abrir(Path directorio, long tamanoMaximoSegmento,
+                                       Duration duracionMaxima, Duration intervaloConfirmacion,
+                                       Duration ventanaCaliente) throws IOException {
+        if (tamanoMaximoSegmento <= SegmentoBitacora.TAMANO_CABECERA
+                || tamanoMaximoSegmento > TAMANO_SEGMENTO_MAXIMO) {
+            throw new IllegalArgumentException("Tamaño de segmento fuera de rango: "
+                    + tamanoMaximoSegmento);
+        }
+        if (duracionMaxima.isNegative() || duracionMaxima.isZero() || intervaloConfirmacion.isNegative()
+                || ventanaCaliente.isNegative()) {
+            throw new IllegalArgumentException("La duración, el intervalo y la ventana deben ser positivos");
+        }
+        Files.createDirectories(directorio);
+        FileChannel canales = FileChannel.open(directorio.resolve(ARCHIVO_CANALES),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        HistorialResumido historial = null;
+        try {
+            historial = HistorialResumido.abrir(directorio.resolve(ARCHIVO_HISTORIAL));
+            return new DiarioBitacora(directorio, tamanoMaximoSegmento, duracionMaxima,
+                    intervaloConfirmacion, ventanaCaliente, canales, historial);
+        } catch (IOException | RuntimeException e) {
+            canales.close();
+            if (historial != null) {
+                historial.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Anexa un registro; solo sincroniza con el disco si venció el intervalo
+     * de confirmación
+     */
+    synchronized void anexar(CanalBitacora canal, long instante, EventoBitacora evento,
+                             double primero, double segundo, String texto) throws IOException {
+        int id = identificar(canal);
+        byte[] bytesTexto = texto == null ? null : texto.getBytes(StandardCharsets.UTF_8);
+        int cuerpo = SegmentoBitacora.CUERPO_MINIMO + (bytesTexto == null ? 0 : bytesTexto.length);
+        int tamano = SegmentoBitacora.CABECERA_REGISTRO + cuerpo;
+
+        if (activo.getRegistros() > 0
+                && (activo.getLongitud() + tamano > tamanoMaximoSegmento
+                || instante - activo.getPrimerInstante() >= duracionMaximaNanos)) {
+            rotar(instante);
+        }
+
+        ByteBuffer destino = buffer;
+        if (tamano > buffer.remaining()) {
+            vaciar();
+            if (tamano > buffer.capacity()) {
+                destino = ByteBuffer.allocate(tamano);
+            }
+        }
+        int inicio = destino.position();
+        destino.putInt(cuerpo).putInt(0)
+                .putLong(instante).putInt(id).putInt(evento.ordinal())
+                .putDouble(primero).putDouble(segundo);
+        if (bytesTexto == null) {
+            destino.putInt(-1);
+        } else {
+            destino.putInt(bytesTexto.length).put(bytesTexto);
+        }
+        destino.putInt(inicio + 4, calcularCrc(destino, inicio + SegmentoBitacora.CABECERA_REGISTRO));
+        activo.anotar(activo.getLongitud(), tamano, instante, id, evento.ordinal());
+        pendiente = true;
+
+        if (destino != buffer) {
+            destino.flip();
+            escribir(destino);
+        }
+        if (instante - ultimaConfirmacion >= intervaloConfirmacionNanos) {
+            confirmar(instante);
+        }
+    }
+
+    /**
+     * Escribe y sincroniza con el disco todo lo pendiente
+     * @throws IOException si falla la escritura
+     */
+    public synchronized void sincronizar() throws IOException {
+        confirmar(MotorBitacora.ahoraEpocaNanos());
+    }
+
+    /**
+     * Confirma lo pendiente si venció el intervalo sin que otra anexión lo
+     * hiciera; se ejecuta periódicamente en el hilo de mantenimiento. Si
+     * ese hilo está resumiendo o comprimiendo un segmento, espera a que termine
+     */
+    private synchronized void confirmarVencido() {
+        long ahora = MotorBitacora.ahoraEpocaNanos();
+        if (!pendiente || ahora - ultimaConfirmacion < intervaloConfirmacionNanos) {
+            return;
+        }
+        try {
+            confirmar(ahora);
+        } catch (IOException e) {
+            // Lo pendiente sigue en el búfer; se reintenta en la próxima anexión o período
+            registrarFallo("confirmación del segmento " + activo.getNumero(), e);
+        }
+    }
+
+    /**
+     * Recorre en orden los registros con instante dentro del rango
+     * Usa el índice disperso de cada segmento para saltar al inicio del
+     * rango. El visitante no debe registrar en la bitácora.
+     * @param desdeNanos instante mínimo (inclusive)
+     * @param hastaNanos instante máximo (inclusive)
+     * @param visitante receptor de los registros
+     * @return long con la cantidad de registros visitados
+     * @throws IOException si falla la lectura
+     */
+    public synchronized long recorrer(long desdeNanos, long hastaNanos,
+                                      VisitanteBitacora visitante) throws IOException {
+        vaciar();
+        long visitados = 0;
+        for (SegmentoBitacora segmento : segmentos) {
+            if (segmento.getRegistros() == 0 || segmento.getUltimoInstante() < desdeNanos
+                    || segmento.getPrimerInstante() > hastaNanos) {
+                continue;
+            }
+            try (LectorSegmento datos = abrirLector(segmento)) {
+                int limite = (int) segmento.getLongitud();
+                int posicion = (int) segmento.posicionDesdeInstante(desdeNanos);
+                while (posicion < limite) {
+                    long instante = datos.getLong(posicion + SegmentoBitacora.CABECERA_REGISTRO);
+                    if (instante > hastaNanos) {
+                        break;
+                    }
+                    if (instante >= desdeNanos) {
+                        visitar(datos, posicion, visitante);
+                        visitados++;
+                    }
+                    posicion += SegmentoBitacora.CABECERA_REGISTRO + datos.getInt(posicion);
+                }
+            }
+        }
+        return visitados;
+    }
+
+    /**
+     * Recorre en orden los últimos registros del diario
+     * Los segmentos anteriores a los necesarios no se leen
+     * @param maximo cantidad máxima de registros a visitar
+     * @param visitante receptor de los registros
+     * @return long con la cantidad de registros visitados
+     * @throws IOException si falla la lectura
+     */
+    public synchronized long recorrerRecientes(long maximo, VisitanteBitacora visitante)
+            throws IOException {
+        vaciar();
+        int primero = segmentos.size();
+        long faltan = maximo;
+        while (primero > 0 && faltan > 0) {
+            primero--;
+            faltan -= segmentos.get(primero).getRegistros();
+        }
+        long omitir = Math.max(0, -faltan);
+
+        long visitados = 0;
+        for (int s = primero; s < segmentos.size(); s++) {
+            SegmentoBitacora segmento = segmentos.get(s);
+            if (segmento.getRegistros() == 0) {
+                continue;
+            }
+            int posicion = (int) segmento.posicionDesdeRegistro(omitir);
+            long saltar = omitir % SegmentoBitacora.INTERVALO_INDICE;
+            omitir = 0;
+            try (LectorSegmento datos = abrirLector(segmento)) {
+                int limite = (int) segmento.getLongitud();
+                while (posicion < limite) {
+                    if (saltar > 0) {
+                        saltar--;
+                    } else {
+                        visitar(datos, posicion, visitante);
+                        visitados++;
+                    }
+                    posicion += SegmentoBitacora.CABECERA_REGISTRO + datos.getInt(posicion);
+                }
+            }
+        }
+        return visitados;
+    }
+
+    /**
+     * Consulta paginada sobre todo el historial en disco
+     * Primero se devuelven los resúmenes por hora del nivel frío y luego
+     * los registros completos de los segmentos. Se descartan los segmentos
+     * cuyo rango de tiempo, canales o eventos no coinciden con el filtro;
+     * dentro de un segmento el índice disperso ubica el inicio del rango.
+     * El cursor codifica el número de segmento y la posición del siguiente
+     * registro, o la fila siguiente del nivel frío. Si el segmento de un
+     * cursor ya se resumió o eliminó, la consulta falla en lugar de saltar
+     * sus registros restantes.
+     * @param filtro criterios de la consulta
+     * @param cursor PaginaBitacora.INICIO o el cursor de la página anterior
+     * @param limite cantidad máxima de registros de la página
+     * @return PaginaBitacora con los registros en orden de tiempo
+     * @throws IOException si falla la lectura
+     */
+    public synchronized PaginaBitacora consultar(FiltroBitacora filtro, long cursor, int limite)
+            throws IOException {
+        List<RegistroBitacora> registros = new ArrayList<>(Math.min(Math.max(limite, 0), 1024));
+        if (cursor == PaginaBitacora.FIN || limite <= 0) {
+            return new PaginaBitacora(registros, cursor);
+        }
+        BitSet canalesBuscados = canalesQueCumplen(filtro);
+        if (canalesBuscados != null && canalesBuscados.isEmpty()) {
+            return new PaginaBitacora(registros, PaginaBitacora.FIN);
+        }
+        vaciar();
+
+        boolean cursorFrio = (cursor & HistorialResumido.CURSOR_FRIO) != 0;
+        if (cursor != PaginaBitacora.INICIO && !cursorFrio && !existeSegmento(cursor >>> 32)) {
+            // Retomar desde el segmento siguiente dejaría un hueco sin avisar
+            throw new IllegalStateException("El segmento " + (cursor >>> 32)
+                    + " del cursor ya fue resumido o eliminado; la consulta debe empezar de nuevo");
+        }
+        if (cursor == PaginaBitacora.INICIO || cursorFrio) {
+            long siguiente = historial.consultar(filtro, canalesBuscados, cursor, limite,
+                    registros, codigosPorId);
+            if (siguiente != PaginaBitacora.FIN) {
+                return new PaginaBitacora(registros, siguiente);
+            }
+            cursor = PaginaBitacora.INICIO;
+        }
+        long segmentoCursor = cursor >>> 32;
+        int posicionCursor = (int) cursor;
+        for (SegmentoBitacora segmento : segmentos) {
+            if (segmento.getNumero() < segmentoCursor || !segmento.puedeContener(canalesBuscados, filtro)) {
+                continue;
+            }
+            int limiteSegmento = (int) segmento.getLongitud();
+            int posicion = (int) segmento.posicionDesdeInstante(filtro.getDesdeNanos());
+            if (segmento.getNumero() == segmentoCursor) {
+                posicion = Math.max(posicion, posicionCursor);
+            }
+            try (LectorSegmento datos = abrirLector(segmento)) {
+                while (posicion < limiteSegmento) {
+                    int cuerpo = posicion + SegmentoBitacora.CABECERA_REGISTRO;
+                    long instante = datos.getLong(cuerpo);
+                    if (instante > filtro.getHastaNanos()) {
+                        break;
+                    }
+                    if (instante >= filtro.getDesdeNanos()
+                            && (canalesBuscados == null || canalesBuscados.get(datos.getInt(cuerpo + 8)))
+                            && filtro.aceptaEvento(datos.getInt(cuerpo + 12))) {
+                        if (registros.size() == limite) {
+                            return new PaginaBitacora(registros, (segmento.getNumero() << 32) | posicion);
+                        }
+                        visitar(datos, posicion, (t, codigo, evento, primero, segundo, texto) ->
+                                registros.add(new RegistroBitacora(t, codigo, evento, primero, segundo, texto)));
+                    }
+                    posicion = cuerpo + datos.getInt(posicion);
+                }
+            }
+        }
+        return new PaginaBitacora(registros, PaginaBitacora.FIN);
+    }
+
+    private boolean existeSegmento(long numero) {
+        for (SegmentoBitacora segmento : segmentos) {
+            if (segmento.getNumero() == numero) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Canales que cumplen los criterios de equipo y zona
+     * @return BitSet con los números de canal, o null si no se filtra por canal
+     */
+    private BitSet canalesQueCumplen(FiltroBitacora filtro) {
+        if (filtro.getClaveCodigo() == null && filtro.getZona() == null) {
+            return null;
+        }
+        BitSet resultado = new BitSet();
+        if (filtro.getClaveCodigo() != null) {
+            Integer id = idPorClave.get(filtro.getClaveCodigo());
+            if (id != null && filtro.aceptaZona(zonasPorId.get(id))) {
+                resultado.set(id);
+            }
+        } else {
+            for (int id = 0; id < zonasPorId.size(); id++) {
+                if (filtro.aceptaZona(zonasPorId.get(id))) {
+                    resultado.set(id);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Cantidad de registros en todos los segmentos
+     * @return long con el total
+     */
+    public synchronized long contarRegistros() {
+        long total = 0;
+        for (SegmentoBitacora segmento : segmentos) {
+            total += segmento.getRegistros();
+        }
+        return total;
+    }
+
+    /**
+     * Cantidad de segmentos, incluido el activo
+     * @return int con la cantidad
+     */
+    public synchronized int contarSegmentos() {
+        return segmentos.size();
+    }
+
+    /**
+     * Resume el espacio que ocupa el historial en disco
+     * @return ResumenAlmacenamiento con los bytes originales y los reales
+     */
+    public synchronized ResumenAlmacenamiento resumirAlmacenamiento() {
+        long registros = 0;
+        long bytesOriginales = 0;
+        long bytesEnDisco = 0;
+        int comprimidos = 0;
+        for (SegmentoBitacora segmento : segmentos) {
+            registros += segmento.getRegistros();
+            bytesOriginales += segmento.getLongitud();
+            bytesEnDisco += segmento.bytesEnDisco();
+            if (segmento.isComprimido()) {
+                comprimidos++;
+            }
+        }
+        return new ResumenAlmacenamiento(registros, bytesOriginales, bytesEnDisco,
+                segmentos.size(), comprimidos, fallosMantenimiento, ultimoFalloMantenimiento);
+    }
+
+    public Path getDirectorio() {
+        return directorio;
+    }
+
+    /**
+     * Termina el mantenimiento en curso, sincroniza lo pendiente, sella el
+     * segmento activo y cierra los archivos
+     * @throws IOException si falla el cierre
+     */
+    @Override
+    public void close() throws IOException {
+        // Fuera del candado: el mantenimiento lo toma al terminar cada segmento
+        mantenimiento.shutdown();
+        boolean interrumpido = false;
+        while (true) {
+            try {
+                if (mantenimiento.awaitTermination(1, TimeUnit.MINUTES)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrumpido = true;
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            try {
+                confirmar(MotorBitacora.ahoraEpocaNanos());
+                archivoActivo.close();
+                if (activo.getRegistros() == 0) {
+                    segmentos.remove(activo);
+                    activo.eliminar();
+                } else {
+                    activo.escribirIndice();
+                }
+            } finally {
+                archivoCanales.close();
+                historial.close();
+            }
+        }
+    }
+
+    // ---------- Segmentos ----------
+
+    private long recuperarSegmentos() throws IOException {
+        // Número de segmento -> si está comprimido
+        TreeMap<Long, Boolean> encontrados = new TreeMap<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio,
+                "bitacora-*.{seg,segz,tmp}")) {
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                if (nombre.endsWith(".tmp")) {
+                    // Compresión interrumpida: el segmento original sigue completo
+                    Files.delete(archivo);
+                    continue;
+                }
+                boolean comprimido = nombre.endsWith(".segz");
+                try {
+                    long numero = Long.parseLong(nombre.substring(9, nombre.lastIndexOf('.')));
+                    encontrados.merge(numero, comprimido, Boolean::logicalOr);
+                } catch (NumberFormatException e) {
+                    // No es un segmento del diario
+                }
+            }
+        }
+        for (Map.Entry<Long, Boolean> entrada : encontrados.entrySet()) {
+            Path ruta = SegmentoBitacora.rutaSegmento(directorio, entrada.getKey());
+            if (entrada.getValue()) {
+                // El .segz solo aparece completo; el original pudo quedar sin borrar
+                Files.deleteIfExists(ruta);
+            }
+            SegmentoBitacora segmento = SegmentoBitacora.recuperar(entrada.getKey(), ruta,
+                    entrada.getValue());
+            if (segmento.getRegistros() > 0 && entrada.getKey() > historial.getUltimoSegmento()) {
+                segmentos.add(segmento);
+            } else {
+                // Vacío, o ya resumido antes de que se alcanzara a borrar
+                segmento.eliminar();
+            }
+        }
+        long ultimo = encontrados.isEmpty() ? 0 : encontrados.lastKey();
+        return Math.max(ultimo, historial.getUltimoSegmento());
+    }
+
+    private void abrirSegmento(long numero) throws IOException {
+        Path ruta = SegmentoBitacora.rutaSegmento(directorio, numero);
+        archivoActivo = FileChannel.open(ruta, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        SegmentoBitacora.escribirCabecera(archivoActivo, numero);
+        activo = new SegmentoBitacora(numero, ruta);
+        segmentos.add(activo);
+    }
+
+    private void rotar(long instante) throws IOException {
+        confirmar(instante);
+        archivoActivo.close();
+        activo.escribirIndice();
+        abrirSegmento(activo.getNumero() + 1);
+        programarMantenimiento();
+    }
+
+    /**
+     * Programa el resumen de los segmentos sellados que salieron de la
+     * ventana caliente, del más antiguo en adelante, y la compresión de
+     * los demás segmentos sellados que ya no son recientes
+     */
+    private void programarMantenimiento() {
+        if (mantenimiento.isShutdown()) {
+            return;
+        }
+        long limiteCaliente = MotorBitacora.ahoraEpocaNanos() - ventanaCalienteNanos;
+        int sellados = segmentos.size() - 1;
+        int s = 0;
+        for (; s < sellados && segmentos.get(s).getUltimoInstante() < limiteCaliente; s++) {
+            SegmentoBitacora segmento = segmentos.get(s);
+            if (compactacionesProgramadas.add(segmento.getNumero())) {
+                mantenimiento.execute(() -> compactar(segmento));
+            }
+        }
+        for (; s < sellados - SEGMENTOS_CALIENTES; s++) {
+            SegmentoBitacora segmento = segmentos.get(s);
+            if (!segmento.isComprimido() && compresionesProgramadas.add(segmento.getNumero())) {
+                mantenimiento.execute(() -> comprimir(segmento));
+            }
+        }
+    }
+
+    /**
+     * Resume un segmento en el nivel frío y lo borra; se ejecuta en el hilo
+     * de mantenimiento. El segmento se lee sin el candado del diario, que
+     * solo se toma para publicar el resumen y quitar el segmento.
+     */
+    private void compactar(SegmentoBitacora segmento) {
+        try {
+            LectorSegmento datos;
+            synchronized (this) {
+                if (segmentos.indexOf(segmento) != 0) {
+                    // Falló el resumen de uno anterior: el nivel frío debe seguir en orden,
+                    // así que este se vuelve a programar junto con aquel
+                    compactacionesProgramadas.remove(segmento.getNumero());
+                    return;
+                }
+                if (historial.getUltimoSegmento() >= segmento.getNumero()) {
+                    // Ya se escribió su resumen y falló al publicarlo: solo falta eso
+                    historial.publicar();
+                    segmentos.remove(segmento);
+                    segmento.eliminar();
+                    return;
+                }
+                datos = abrirLector(segmento);
+            }
+            TreeMap<Long, Long> conteos = new TreeMap<>();
+            try (datos) {
+                int limite = (int) segmento.getLongitud();
+                int posicion = SegmentoBitacora.TAMANO_CABECERA;
+                while (posicion < limite) {
+                    int cuerpo = posicion + SegmentoBitacora.CABECERA_REGISTRO;
+                    conteos.merge(HistorialResumido.clave(datos.getLong(cuerpo), datos.getInt(cuerpo + 8),
+                            datos.getInt(cuerpo + 12)), 1L, Long::sum);
+                    posicion = cuerpo + datos.getInt(posicion);
+                }
+            }
+            historial.escribir(segmento.getNumero(), conteos);
+            synchronized (this) {
+                historial.publicar();
+                segmentos.remove(segmento);
+                segmento.eliminar();
+            }
+        } catch (IOException e) {
+            // El segmento sigue completo; se reintenta en la próxima rotación
+            registrarFallo("resumen", segmento, e);
+            synchronized (this) {
+                compactacionesProgramadas.remove(segmento.getNumero());
+            }
+        }
+    }
+
+    /**
+     * Comprime un segmento sellado sin tomar el candado del diario salvo
+     * para reemplazarlo; se ejecuta en el hilo de mantenimiento
+     */
+    private void comprimir(SegmentoBitacora segmento) {
+        synchronized (this) {
+            if (compactacionesProgramadas.contains(segmento.getNumero())) {
+                // Se programó su resumen después de la compresión: no vale la pena
+                return;
+            }
+        }
+        Path destino = segmento.rutaComprimida();
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try {
+            SegmentoComprimido.comprimir(segmento.getRuta(), segmento.getLongitud(), temporal);
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+            long bytes = Files.size(destino);
+            synchronized (this) {
+                // Ninguna consulta está leyendo el original mientras se tiene el candado
+                segmento.marcarComprimido(bytes);
+                Files.deleteIfExists(segmento.getRuta());
+            }
+        } catch (IOException e) {
+            // El segmento queda sin comprimir; se reintenta en la próxima rotación
+            registrarFallo("compresión", segmento, e);
+            try {
+                Files.deleteIfExists(temporal);
+            } catch (IOException ignorada) {
+                // Se borra al recuperar el directorio
+            }
+            synchronized (this) {
+                compresionesProgramadas.remove(segmento.getNumero());
+            }
+        }
+    }
+
+    /**
+     * Anota un fallo del mantenimiento para el resumen de almacenamiento
+     */
+    private void registrarFallo(String tarea, SegmentoBitacora segmento, IOException e) {
+        registrarFallo(tarea + " del segmento " + segmento.getNumero(), e);
+    }
+
+    private synchronized void registrarFallo(String descripcion, IOException e) {
+        fallosMantenimiento++;
+        ultimoFalloMantenimiento = descripcion + ": "
+                + (e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+    }
+
+    private void confirmar(long instante) throws IOException {
+        vaciar();
+        archivoActivo.force(false);
+        ultimaConfirmacion = instante;
+        pendiente = false;
+    }
+
+    private void vaciar() throws IOException {
+        buffer.flip();
+        escribir(buffer);
+        buffer.clear();
+    }
+
+    private void escribir(ByteBuffer datos) throws IOException {
+        while (datos.hasRemaining()) {
+            archivoActivo.write(datos);
+        }
+    }
+
+    private int calcularCrc(ByteBuffer datos, int desde) {
+        int hasta = datos.position();
+        int limite = datos.limit();
+        datos.limit(hasta).position(desde);
+        crc.reset();
+        crc.update(datos);
+        datos.limit(limite).position(hasta);
+        return (int) crc.getValue();
+    }
+
+    private LectorSegmento abrirLector(SegmentoBitacora segmento) throws IOException {
+        if (segmento == activo) {
+            return LectorSegmento.de(archivoActivo.map(FileChannel.MapMode.READ_ONLY, 0,
+                    segmento.getLongitud()));
+        }
+        if (segmento.isComprimido()) {
+            return SegmentoComprimido.abrir(segmento.rutaComprimida());
+        }
+        try (FileChannel canal = FileChannel.open(segmento.getRuta(), StandardOpenOption.READ)) {
+            return LectorSegmento.de(canal.map(FileChannel.MapMode.READ_ONLY, 0, segmento.getLongitud()));
+        }
+    }
+
+    private void visitar(LectorSegmento datos, int posicion, VisitanteBitacora visitante) {
+        int p = posicion + SegmentoBitacora.CABECERA_REGISTRO;
+        int longitudTexto = datos.getInt(p + 32);
+        String texto = null;
+        if (longitudTexto >= 0) {
+            byte[] bytes = new byte[longitudTexto];
+            datos.get(p + SegmentoBitacora.CUERPO_MINIMO, bytes);
+            texto = new String(bytes, StandardCharsets.UTF_8);
+        }
+        visitante.visitar(datos.getLong(p), codigosPorId.get(datos.getInt(p + 8)),
+                EventoBitacora.desdeCodigo(datos.getInt(p + 12)),
+                datos.getDouble(p + 16), datos.getDouble(p + 24), texto);
+    }
+
+    // ---------- Diccionario de canales ----------
+
+    private int identificar(CanalBitacora canal) throws IOException {
+        int idMotor = canal.getId();
+        if (idMotor < idPorCanal.length && idPorCanal[idMotor] >= 0) {
+            return idPorCanal[idMotor];
+        }
+        String clave = Equipo.normalizarCodigo(canal.getCodigoEquipo());
+        String zona = canal.getZona();
+        Integer id = idPorClave.get(clave);
+        if (id == null) {
+            id = codigosPorId.size();
+            escribirCanal(id, canal.getCodigoEquipo(), zona);
+            idPorClave.put(clave, id);
+            codigosPorId.add(canal.getCodigoEquipo());
+            zonasPorId.add(zona);
+        } else if (zona != null && !zona.equals(zonasPorId.get(id))) {
+            // Una entrada repetida actualiza la zona conocida del canal
+            escribirCanal(id, canal.getCodigoEquipo(), zona);
+            zonasPorId.set(id, zona);
+        }
+        if (idMotor >= idPorCanal.length) {
+            int anterior = idPorCanal.length;
+            idPorCanal = Arrays.copyOf(idPorCanal, Math.max(idMotor + 1, anterior * 2));
+            Arrays.fill(idPorCanal, anterior, idPorCanal.length, -1);
+        }
+        idPorCanal[idMotor] = id;
+        return id;
+    }
+
+    /**
+     * Persiste una entrada del diccionario antes que cualquier registro que
+     * la use, para que tras un corte ningún registro quede sin equipo
+     */
+    private void escribirCanal(int id, String codigo, String zona) throws IOException {
+        byte[] bytesCodigo = codigo == null ? new byte[0] : codigo.getBytes(StandardCharsets.UTF_8);
+        byte[] bytesZona = zona == null ? new byte[0] : zona.getBytes(StandardCharsets.UTF_8);
+        int cuerpo = 12 + bytesCodigo.length + bytesZona.length;
+        ByteBuffer entrada = ByteBuffer.allocate(SegmentoBitacora.CABECERA_REGISTRO + cuerpo);
+        entrada.putInt(cuerpo).putInt(0).putInt(id)
+                .putInt(codigo == null ? -1 : bytesCodigo.length).put(bytesCodigo)
+                .putInt(zona == null ? -1 : bytesZona.length).put(bytesZona);
+        entrada.putInt(4, calcularCrc(entrada, SegmentoBitacora.CABECERA_REGISTRO));
+        entrada.flip();
+        long posicion = archivoCanales.size();
+        while (entrada.hasRemaining()) {
+            posicion += archivoCanales.write(entrada, posicion);
+        }
+        archivoCanales.force(false);
+    }
+
+    private void cargarCanales() throws IOException {
+        long tamano = archivoCanales.size();
+        if (tamano > Integer.MAX_VALUE) {
+            throw new IOException("Diccionario de canales demasiado grande");
+        }
+        ByteBuffer datos = ByteBuffer.allocate((int) tamano);
+        while (datos.hasRemaining() && archivoCanales.read(datos, datos.position()) >= 0) {
+            // Lee el archivo completo
+        }
+        byte[] bytes = datos.array();
+        int limite = datos.position();
+        int posicion = 0;
+        while (posicion <= limite - SegmentoBitacora.CABECERA_REGISTRO - 12) {
+            int cuerpo = datos.getInt(posicion);
+            if (cuerpo < 12 || cuerpo > limite - posicion - SegmentoBitacora.CABECERA_REGISTRO) {
+                break;
+            }
+            crc.reset();
+            crc.update(bytes, posicion + SegmentoBitacora.CABECERA_REGISTRO, cuerpo);
+            if ((int) crc.getValue() != datos.getInt(posicion + 4)) {
+                break;
+            }
+            int p = posicion + SegmentoBitacora.CABECERA_REGISTRO;
+            int id = datos.getInt(p);
+            int longitudCodigo = datos.getInt(p + 4);
+            if (longitudCodigo > cuerpo - 12) {
+                break;
+            }
+            int inicioZona = p + 8 + Math.max(0, longitudCodigo);
+            int longitudZona = datos.getInt(inicioZona);
+            if (id > codigosPorId.size() || 12 + Math.max(0, longitudCodigo) + Math.max(0, longitudZona) != cuerpo) {
+                break;
+            }
+            String codigo = longitudCodigo < 0 ? null
+                    : new String(bytes, p + 8, longitudCodigo, StandardCharsets.UTF_8);
+            String zona = longitudZona < 0 ? null
+                    : new String(bytes, inicioZona + 4, longitudZona, StandardCharsets.UTF_8);
+            if (id == codigosPorId.size()) {
+                idPorClave.put(Equipo.normalizarCodigo(codigo), id);
+                codigosPorId.add(codigo);
+                zonasPorId.add(zona);
+            } else {
+                zonasPorId.set(id, zona);
+            }
+            posicion += SegmentoBitacora.CABECERA_REGISTRO + cuerpo;
+        }
+        if (posicion < tamano) {
+            // Entrada incompleta de una escritura interrumpida
+            archivoCanales.truncate(posicion);
+            archivoCanales.force(true);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.paiz.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Clase DiccionarioValores
+ * Asigna un identificador entero a cada texto distinto
+ * @author Franco Paiz
+ * @version 1.0
+ */
+class DiccionarioValores {
+    private Map<String, Integer> identificadores;
+    private List<String> valores;
+
+    /**
+     * Constructor que inicializa el diccionario vacío
+     */
+    DiccionarioValores() {
+        this.identificadores = new HashMap<>();
+        this.valores = new ArrayList<>();
+    }
+
+    /**
+     * Obtiene el identificador del valor, registrándolo si es nuevo
+     * @param valor texto a codificar
+     * @return int con el identificador
+     */
+    int codificar(String valor) {
+        Integer id = identificadores.get(valor);
+        if (id == null) {
+            id = valores.size();
+            identificadores.put(valor, id);
+            valores.add(valor);
+        }
+        return id;
+    }
+
+    /**
+     * Busca el identificador de un valor sin registrarlo
+     * @param valor texto a buscar
+     * @return int con el identificador o -1 si no existe
+     */
+    int buscar(String valor) {
+        Integer id = identificadores.get(valor);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Obtiene el texto de un identificador
+     * @param id identificador
+     * @return String con el valor original
+     */
+    String decodificar(int id) {
+        return valores.get(id);
+    }
+
+    /**
+     * Cantidad de valores distintos registrados
+     * @return int con el tamaño
+     */
+    int tamano() {
+        return valores.size();
+    }
+}
@@ -0,0 +1,37 @@
+package org.paiz.model;
+
+/**
+ * Enum Dimension
+ * Atributos por los que se pueden agrupar los equipos en los reportes
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public enum Dimension {
+    ZONA,
+    MARCA,
+    CATEGORIA;
+
+    // Grupo para los equipos que no tienen el atributo
+    public static final String SIN_VALOR = "(sin valor)";
+
+    /**
+     * Obtiene el valor del atributo en un equipo
+     * @param equipo equipo a revisar
+     * @return String con el valor, o SIN_VALOR si no tiene
+     */
+    public String valorDe(Equipo equipo) {
+        String valor;
+        switch (this) {
+            case ZONA:
+                valor = equipo.getZona();
+                break;
+            case MARCA:
+                valor = equipo.getMarca();
+                break;
+            default:
+                valor = equipo.obtenerCategoria();
+                break;
+        }
+        return valor == null ? SIN_VALOR : valor;
+    }
+}
@@ -1,5 +1,8 @@
 package org.paiz.model;
 
+import java.util.Locale;
+import java.util.Objects;
+
 /**
  * Clase abstracta Equipo
  * Representa la base para todos los dispositivos del sistema agro-tecnológico
@@ -15,6 +18,10 @@ public abstract class Equipo implements Comparable<Equipo> {
     protected double consumoWatts;
     protected String zona;
     protected boolean enFuncionamiento;
+    // Código normalizado que define la identidad del equipo
+    private final String claveCodigo;
+    // Quien debe enterarse de los cambios de funcionamiento (repositorios)
+    private ObservadorEstado observador;
 
     /**
      * Constructor de Equipo
@@ -32,6 +39,16 @@ public abstract class Equipo implements Comparable<Equipo> {
         this.consumoWatts = consumoWatts;
         this.zona = zona;
         this.enFuncionamiento = true;
+        this.claveCodigo = normalizarCodigo(codigo);
+    }
+
+    /**
+     * Normaliza un código para compararlo sin distinguir mayúsculas
+     * @param codigo código a normalizar
+     * @return String con el código normalizado o null si no hay código
+     */
+    public static String normalizarCodigo(String codigo) {
+        return codigo == null ? null : codigo.toUpperCase(Locale.ROOT);
     }
 
     // Getters
@@ -55,12 +72,45 @@ public abstract class Equipo implements Comparable<Equipo> {
         return zona;
     }
 
+    /**
+     * Obtiene el código normalizado usado como identidad del equipo
+     * @return String con el código en mayúsculas
+     */
+    public String getClaveCodigo() {
+        return claveCodigo;
+    }
+
     public boolean isEnFuncionamiento() {
         return enFuncionamiento;
     }
 
+    /**
+     * Cambia el estado de funcionamiento y avisa a los observadores
+     * @param estado nuevo estado
+     */
     public void setEnFuncionamiento(boolean estado) {
-        this.enFuncionamiento = estado;
+        ObservadorEstado aviso;
+        synchronized (this) {
+            if (this.enFuncionamiento == estado) {
+                return;
+            }
+            this.enFuncionamiento = estado;
+            aviso = observador;
+        }
+        if (aviso != null) {
+            aviso.estadoCambiado(this, estado);
+        }
+    }
+
+    /**
+     * Suscribe un observador a los cambios de funcionamiento
+     * El estado se lee junto con la suscripción para no perder cambios
+     * @param nuevo observador a agregar
+     * @return boolean con el estado actual del equipo
+     */
+    synchronized boolean vincularObservador(ObservadorEstado nuevo) {
+        observador = observador == null ? nuevo : ObservadorEstado.combinar(observador, nuevo);
+        return enFuncionamiento;
     }
 
     /**
@@ -87,24 +137,44 @@ public abstract class Equipo implements Comparable<Equipo> {
 
     /**
      * Override de equals para comparación por código
+     * El código es único en todo el sistema y no distingue mayúsculas,
+     * igual que la búsqueda del repositorio
      * @param obj objeto a comparar
      * @return boolean indicando si son iguales
      */
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
-        if (obj == null || getClass() != obj.getClass()) return false;
+        if (!(obj instanceof Equipo)) return false;
         Equipo equipo = (Equipo) obj;
-        return codigo.equals(equipo.codigo);
+        return Objects.equals(claveCodigo, equipo.claveCodigo);
+    }
+
+    /**
+     * Override de hashCode coherente con equals
+     * @return int calculado a partir del código normalizado
+     */
+    @Override
+    public int hashCode() {
+        return claveCodigo == null ? 0 : claveCodigo.hashCode();
     }
 
     /**
      * Implementación de compareTo para ordenamiento por consumo eléctrico
+     * Los empates se resuelven por código para que el orden sea estable
+     * y coherente con equals
      * @param otro equipo a comparar
      * @return int negativo, cero o positivo según la comparación
      */
     @Override
     public int compareTo(Equipo otro) {
-        return Double.compare(this.consumoWatts, otro.consumoWatts);
+        int porConsumo = Double.compare(this.consumoWatts, otro.consumoWatts);
+        if (porConsumo != 0) {
+            return porConsumo;
+        }
+        if (claveCodigo == null || otro.claveCodigo == null) {
+            return claveCodigo == null ? (otro.claveCodigo == null ? 0 : -1) : 1;
+        }
+        return claveCodigo.compareTo(otro.claveCodigo);
     }
 }
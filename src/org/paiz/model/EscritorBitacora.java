@@ -0,0 +1,334 @@
+package org.paiz.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Clase EscritorBitacora
+ * Escritura asíncrona de la bitácora con un único hilo escritor
+ *
+ * Los hilos que registran solo encolan el registro en una cola acotada
+ * sin candados (algoritmo de Vyukov: cada casilla lleva una secuencia que
+ * indica si está libre o publicada). El hilo escritor la vacía en lotes,
+ * tomando el candado del motor una vez por lote, y escribe el lote en el
+ * diario, si hay uno adjunto, después de soltarlo.
+ *
+ * Las casillas se reservan al crear el escritor, así encolar no crea objetos.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class EscritorBitacora {
+    public static final int CAPACIDAD_POR_DEFECTO = 1 << 16;
+    public static final int FACTOR_MUESTREO_POR_DEFECTO = 10;
+
+    // Registros máximos que se aplican por cada toma del candado del motor
+    private static final int TAMANO_LOTE = 1_024;
+    private static final long PAUSA_NANOS = 1_000_000L;
+    // Con BLOQUEAR y la cola llena: veces que se cede el procesador antes de
+    // dormir y primera pausa, que se duplica en cada intento hasta PAUSA_NANOS
+    private static final int CESIONES_ESPERA = 8;
+    private static final long ESPERA_MINIMA_NANOS = 10_000L;
+
+    private final MotorBitacora motor;
+    private final PoliticaPresion politica;
+    private final int factorMuestreo;
+
+    // Cola: la casilla de la posición p es p & mascara
+    private final int capacidad;
+    private final int mascara;
+    private final AtomicLongArray secuencias;
+    private final long[] instantes;
+    private final CanalBitacora[] canales;
+    private final int[] eventos;
+    private final double[] argumentos;
+    private final String[] textos;
+    private final AtomicLong posicionEncolar;
+    private final AtomicLong posicionDesencolar;
+    // Posiciones reservadas por el lote en curso; el motor las usa con su
+    // candado de orden tomado, así un solo arreglo sirve para todos los lotes
+    private final long[] posicionesLote;
+
+    private final Thread hilo;
+    private volatile boolean activo;
+    private volatile boolean esperando;
+    // Todas las posiciones anteriores ya se aplicaron o descartaron
+    private volatile long completado;
+    private volatile IOException error;
+    private final LongAdder descartados;
+    private final AtomicLong contadorMuestreo;
+
+    EscritorBitacora(MotorBitacora motor, int capacidad, PoliticaPresion politica, int factorMuestreo) {
+        if (capacidad < 2 || Integer.bitCount(capacidad) != 1) {
+            throw new IllegalArgumentException("La capacidad debe ser una potencia de dos: " + capacidad);
+        }
+        if (factorMuestreo < 1) {
+            throw new IllegalArgumentException("El factor de muestreo debe ser positivo");
+        }
+        this.motor = motor;
+        this.politica = politica;
+        this.factorMuestreo = factorMuestreo;
+        this.capacidad = capacidad;
+        this.mascara = capacidad - 1;
+        this.secuencias = new AtomicLongArray(capacidad);
+        for (int i = 0; i < capacidad; i++) {
+            secuencias.set(i, i);
+        }
+        this.instantes = new long[capacidad];
+        this.canales = new CanalBitacora[capacidad];
+        this.eventos = new int[capacidad];
+        this.argumentos = new double[2 * capacidad];
+        this.textos = new String[capacidad];
+        this.posicionEncolar = new AtomicLong();
+        this.posicionDesencolar = new AtomicLong();
+        this.posicionesLote = new long[TAMANO_LOTE];
+        this.descartados = new LongAdder();
+        this.contadorMuestreo = new AtomicLong();
+        this.activo = true;
+        this.hilo = new Thread(this::ejecutar, "escritor-bitacora");
+        this.hilo.setDaemon(true);
+        this.hilo.start();
+    }
+
+    /**
+     * Encola un registro aplicando la política de presión si la cola está llena
+     */
+    void encolar(CanalBitacora canal, long instante, EventoBitacora evento,
+                 double primero, double segundo, String texto) {
+        int intentos = 0;
+        while (!ofrecer(canal, instante, evento, primero, segundo, texto)) {
+            if (politica == PoliticaPresion.DESCARTAR_ANTIGUO) {
+                long posicion = reservar();
+                if (posicion >= 0) {
+                    liberar(posicion);
+                    descartados.increment();
+                }
+            } else if (politica == PoliticaPresion.MUESTREAR
+                    && contadorMuestreo.incrementAndGet() % factorMuestreo != 0) {
+                descartados.increment();
+                return;
+            } else if (activo) {
+                esperarCasilla(intentos++);
+            } else {
+                motor.aplicarLote(this, TAMANO_LOTE);
+            }
+        }
+        if (esperando) {
+            LockSupport.unpark(hilo);
+        }
+        if (!activo) {
+            // El escritor se está deteniendo: este hilo aplica lo que quedó
+            while (motor.aplicarLote(this, TAMANO_LOTE) > 0) {
+                // Sigue hasta vaciar la cola
+            }
+        }
+    }
+
+    /**
+     * Espera a que el hilo escritor libere casillas: primero cede el
+     * procesador unas pocas veces y después duerme con pausas que se
+     * duplican, así muchos productores bloqueados no ocupan el procesador
+     * mientras el escritor escribe en disco
+     */
+    private void esperarCasilla(int intentos) {
+        LockSupport.unpark(hilo);
+        if (intentos < CESIONES_ESPERA) {
+            Thread.yield();
+            return;
+        }
+        int duplicaciones = Math.min(intentos - CESIONES_ESPERA, 7);
+        LockSupport.parkNanos(this, Math.min(PAUSA_NANOS, ESPERA_MINIMA_NANOS << duplicaciones));
+    }
+
+    private boolean ofrecer(CanalBitacora canal, long instante, EventoBitacora evento,
+                            double primero, double segundo, String texto) {
+        long posicion = posicionEncolar.get();
+        while (true) {
+            int casilla = (int) (posicion & mascara);
+            long diferencia = secuencias.get(casilla) - posicion;
+            if (diferencia == 0) {
+                if (posicionEncolar.compareAndSet(posicion, posicion + 1)) {
+                    instantes[casilla] = instante;
+                    canales[casilla] = canal;
+                    eventos[casilla] = evento.ordinal();
+                    argumentos[2 * casilla] = primero;
+                    argumentos[2 * casilla + 1] = segundo;
+                    textos[casilla] = texto;
+                    // Publica la casilla después de escribir sus datos
+                    secuencias.set(casilla, posicion + 1);
+                    return true;
+                }
+                posicion = posicionEncolar.get();
+            } else if (diferencia < 0) {
+                return false;
+            } else {
+                posicion = posicionEncolar.get();
+            }
+        }
+    }
+
+    /**
+     * Reserva la casilla publicada más antigua
+     * @return long con su posición, o -1 si la cola está vacía
+     */
+    long reservar() {
+        long posicion = posicionDesencolar.get();
+        while (true) {
+            int casilla = (int) (posicion & mascara);
+            long diferencia = secuencias.get(casilla) - (posicion + 1);
+            if (diferencia == 0) {
+                if (posicionDesencolar.compareAndSet(posicion, posicion + 1)) {
+                    return posicion;
+                }
+                posicion = posicionDesencolar.get();
+            } else if (diferencia < 0) {
+                return -1;
+            } else {
+                posicion = posicionDesencolar.get();
+            }
+        }
+    }
+
+    /**
+     * Devuelve a la cola una casilla ya leída
+     */
+    void liberar(long posicion) {
+        int casilla = (int) (posicion & mascara);
+        canales[casilla] = null;
+        textos[casilla] = null;
+        secuencias.set(casilla, posicion + capacidad);
+    }
+
+    long[] posicionesLote() {
+        return posicionesLote;
+    }
+
+    int casilla(long posicion) {
+        return (int) (posicion & mascara);
+    }
+
+    long instante(int casilla) {
+        return instantes[casilla];
+    }
+
+    /**
+     * Reemplaza el instante de una casilla reservada por el que quedó en el motor
+     */
+    void fijarInstante(int casilla, long instante) {
+        instantes[casilla] = instante;
+    }
+
+    CanalBitacora canal(int casilla) {
+        return canales[casilla];
+    }
+
+    EventoBitacora evento(int casilla) {
+        return EventoBitacora.desdeCodigo(eventos[casilla]);
+    }
+
+    double primero(int casilla) {
+        return argumentos[2 * casilla];
+    }
+
+    double segundo(int casilla) {
+        return argumentos[2 * casilla + 1];
+    }
+
+    String texto(int casilla) {
+        return textos[casilla];
+    }
+
+    /**
+     * Anota un error de escritura del diario para informarlo en la siguiente barrera
+     */
+    void registrarError(IOException e) {
+        error = e;
+    }
+
+    private void ejecutar() {
+        while (true) {
+            long objetivo = posicionDesencolar.get();
+            int aplicados = motor.aplicarLote(this, TAMANO_LOTE);
+            if (aplicados > 0) {
+                completado = Math.max(completado, objetivo + aplicados);
+                continue;
+            }
+            // Cola vacía (o con una casilla a medio publicar)
+            completado = posicionDesencolar.get();
+            if (!activo) {
+                return;
+            }
+            esperando = true;
+            if (posicionEncolar.get() == posicionDesencolar.get()) {
+                LockSupport.parkNanos(this, PAUSA_NANOS);
+            }
+            esperando = false;
+        }
+    }
+
+    /**
+     * Barrera: espera a que se apliquen todos los registros encolados antes
+     * de la llamada. Si el diario falló desde la última barrera, lo informa.
+     */
+    public void esperarVaciado() {
+        long objetivo = posicionEncolar.get();
+        while (completado < objetivo && hilo.isAlive()) {
+            LockSupport.unpark(hilo);
+            LockSupport.parkNanos(50_000L);
+        }
+        IOException pendiente = error;
+        if (pendiente != null) {
+            error = null;
+            throw new UncheckedIOException("No se pudo escribir la bitácora en disco", pendiente);
+        }
+    }
+
+    /**
+     * Detiene el hilo escritor después de aplicar todo lo pendiente
+     */
+    void detener() {
+        activo = false;
+        LockSupport.unpark(hilo);
+        boolean interrumpido = false;
+        while (hilo.isAlive()) {
+            try {
+                hilo.join();
+            } catch (InterruptedException e) {
+                interrumpido = true;
+            }
+        }
+        while (motor.aplicarLote(this, TAMANO_LOTE) > 0) {
+            // Registros encolados mientras el hilo terminaba
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Registros descartados por la política de presión
+     * @return long con el total desde que se creó el escritor
+     */
+    public long getDescartados() {
+        return descartados.sum();
+    }
+
+    /**
+     * Registros encolados que aún no se aplicaron
+     * @return long con la cantidad aproximada
+     */
+    public long getPendientes() {
+        return Math.max(0, posicionEncolar.get() - posicionDesencolar.get());
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    public PoliticaPresion getPolitica() {
+        return politica;
+    }
+}
@@ -0,0 +1,64 @@
+package org.paiz.model;
+
+import java.util.Arrays;
+
+/**
+ * Clase EstadisticasFlota
+ * Instantánea inmutable de los agregados que mantiene el repositorio
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class EstadisticasFlota {
+    private final int totalEquipos;
+    private final int[] porCapacidad;
+    private final double consumoTotal;
+    private final int operativos;
+
+    /**
+     * Constructor de EstadisticasFlota
+     * @param totalEquipos cantidad total de equipos
+     * @param porCapacidad cantidad de equipos por ordinal de Capacidad
+     * @param consumoTotal suma del consumo en watts
+     * @param operativos cantidad de equipos en funcionamiento
+     */
+    EstadisticasFlota(int totalEquipos, int[] porCapacidad,
+                      double consumoTotal, int operativos) {
+        this.totalEquipos = totalEquipos;
+        this.porCapacidad = Arrays.copyOf(porCapacidad, porCapacidad.length);
+        this.consumoTotal = consumoTotal;
+        this.operativos = operativos;
+    }
+
+    public int getTotalEquipos() {
+        return totalEquipos;
+    }
+
+    /**
+     * Cantidad de equipos que tienen una capacidad
+     * @param capacidad capacidad a consultar
+     * @return int con la cantidad de equipos
+     */
+    public int contarPorCapacidad(Capacidad capacidad) {
+        return porCapacidad[capacidad.ordinal()];
+    }
+
+    public double getConsumoTotal() {
+        return consumoTotal;
+    }
+
+    /**
+     * Consumo promedio por equipo
+     * @return double con el promedio en watts, 0 si no hay equipos
+     */
+    public double getConsumoPromedio() {
+        return totalEquipos > 0 ? consumoTotal / totalEquipos : 0.0;
+    }
+
+    public int getOperativos() {
+        return operativos;
+    }
+
+    public int getInactivos() {
+        return totalEquipos - operativos;
+    }
+}
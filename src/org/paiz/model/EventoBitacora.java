@@ -0,0 +1,111 @@
+package org.paiz.model;
+
+/**
+ * Enum EventoBitacora
+ * Tipos de evento de la bitácora con la plantilla de su mensaje
+ * El motor guarda solo el código del evento y sus argumentos; el texto
+ * se arma con la plantilla cuando alguien consulta la bitácora
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public enum EventoBitacora {
+    // Texto arbitrario recibido por IAuditable.agregarRegistro
+    TEXTO_LIBRE("%s", 0, true),
+    INICIALIZACION("%s", 0, true),
+
+    // Capturas de datos
+    LECTURA_CAPTURADA("Lectura capturada: %s", 1, false),
+    MEDICION_REALIZADA("Medición realizada: %s", 1, false),
+    TEMPERATURA_REGISTRADA("Temperatura registrada: %s", 1, false),
+    CAPTURA_METEOROLOGICA("Captura completa de datos meteorológicos", 0, false),
+    LECTURA_CAUDAL("Lectura de caudal realizada", 0, false),
+    DATOS_OPERACION("Datos de operación capturados", 0, false),
+    TELEMETRIA_CAPTURADA("Telemetría capturada", 0, false),
+    DATOS_VIGILANCIA("Datos de vigilancia capturados", 0, false),
+
+    // Operaciones
+    COMPUERTA_ABIERTA("Compuerta abierta - Flujo máximo: %s L/h", 1, false),
+    COMPUERTA_CERRADA("Compuerta cerrada", 0, false),
+    COMPUERTA_PARCIAL("Compuerta en posición parcial", 0, false),
+    APLICACION_INICIADA("Aplicación iniciada - Dosis: %.2f L", 1, false),
+    APLICACION_DETENIDA("Aplicación detenida", 0, false),
+    DOSIFICACION_PROGRAMADA("Nueva dosificación programada", 0, false),
+    ROCIADOR_ACTIVADO("Rociador activado - Alcance: %sm", 1, false),
+    ROCIADOR_DESACTIVADO("Rociador desactivado", 0, false),
+    ROCIADOR_AJUSTADO("Ajustando parámetros de rociado", 0, false),
+    BOMBA_ENCENDIDA("Bomba encendida - Caudal: %s L/h", 1, false),
+    BOMBA_APAGADA("Bomba apagada", 0, false),
+    BOMBA_AJUSTADA("Ajustando velocidad de bombeo", 0, false),
+    DESPEGUE("Despegue exitoso - Altitud: %.1fm", 1, false),
+    ATERRIZAJE("Aterrizaje completado", 0, false),
+    ROCIADO_AEREO("Rociado iniciado - Volumen: %sL", 1, false),
+    VUELO_INICIADO("Vuelo de monitoreo iniciado", 0, false),
+    IMAGEN_CAPTURADA("Imagen capturada - Resolución: %s", 0, true),
+    REGRESO_BASE("Regreso a base iniciado", 0, false),
+
+    // Cambios de configuración
+    SENSOR_INCORPORADO("Nuevo sensor incorporado: %s", 0, true),
+    VARIABLE_INCORPORADA("Nueva variable incorporada: %s", 0, true),
+    FORMULA_INCORPORADA("Nueva fórmula incorporada: %s", 0, true),
+
+    // Cantidades por tipo de evento de una hora ya compactada
+    RESUMEN_HORARIO("Resumen de la hora: %s", 0, true),
+
+    // Detector de anomalías
+    ALERTA_ACTIVADA("Alerta activada: %s", 0, true),
+    ALERTA_DESPEJADA("Alerta despejada: %s", 0, true);
+
+    private static final EventoBitacora[] VALORES = values();
+
+    private final String plantilla;
+    private final int argumentosNumericos;
+    private final boolean argumentoTexto;
+
+    EventoBitacora(String plantilla, int argumentosNumericos, boolean argumentoTexto) {
+        this.plantilla = plantilla;
+        this.argumentosNumericos = argumentosNumericos;
+        this.argumentoTexto = argumentoTexto;
+    }
+
+    /**
+     * Obtiene el evento de un código guardado
+     * @param codigo ordinal del evento
+     * @return EventoBitacora correspondiente
+     */
+    public static EventoBitacora desdeCodigo(int codigo) {
+        return VALORES[codigo];
+    }
+
+    public String getPlantilla() {
+        return plantilla;
+    }
+
+    /**
+     * Nombre corto del evento para los resúmenes, p. ej. "bomba encendida"
+     * @return String en minúsculas
+     */
+    public String getEtiqueta() {
+        return name().toLowerCase().replace('_', ' ');
+    }
+
+    /**
+     * Arma el texto del evento con sus argumentos
+     * @param primero primer argumento numérico
+     * @param segundo segundo argumento numérico
+     * @param texto argumento de texto (si el evento lo usa)
+     * @return String con el mensaje tal como se mostraba antes
+     */
+    public String renderizar(double primero, double segundo, String texto) {
+        if (argumentoTexto) {
+            return String.format(plantilla, texto);
+        }
+        switch (argumentosNumericos) {
+            case 0:
+                return plantilla;
+            case 1:
+                return String.format(plantilla, primero);
+            default:
+                return String.format(plantilla, primero, segundo);
+        }
+    }
+}
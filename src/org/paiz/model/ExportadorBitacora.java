@@ -0,0 +1,312 @@
+package org.paiz.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Clase ExportadorBitacora
+ * Vuelca la bitácora en disco a un WritableByteChannel en memoria constante
+ *
+ * Los registros se leen del diario por lotes de REGISTROS_POR_LOTE con la
+ * consulta paginada y se codifican en un búfer reutilizado; el diario solo
+ * se bloquea mientras se lee cada lote, nunca mientras se escribe. Si el
+ * destino es lento, la exportación espera sin leer más (presión hacia atrás).
+ *
+ * Después de escribir cada lote completo se informan el cursor siguiente y
+ * los bytes escritos; si la exportación se interrumpe, se retoma desde el
+ * último cursor informado con el destino cortado en esos bytes, sin
+ * repetir ni perder registros. Si el destino es un archivo
+ * (SeekableByteChannel) el exportador lo corta solo antes de fallar.
+ *
+ * Formato CSV: encabezado (solo al empezar desde el inicio) y una línea por
+ * registro con instante ISO-8601, equipo, evento, los dos argumentos y el
+ * mensaje, entre comillas cuando hace falta.
+ * Formato BINARIO: magia "AGBX" y versión (solo al empezar desde el
+ * inicio); por registro, instante (long), evento (int), dos argumentos
+ * (double), código de equipo y texto (longitud int, -1 si es null, y bytes
+ * UTF-8). Todos los enteros en big-endian.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class ExportadorBitacora {
+    public static final int REGISTROS_POR_LOTE = 1_024;
+
+    private static final int MAGIA = 0x41474258; // "AGBX"
+    private static final int VERSION = 1;
+    private static final int TAMANO_BUFFER = 1 << 16;
+    private static final String ENCABEZADO_CSV = "instante,equipo,evento,primero,segundo,mensaje\n";
+    // Espera cuando un destino no bloqueante no acepta más bytes
+    private static final long PAUSA_NANOS = 100_000L;
+
+    private final DiarioBitacora diario;
+    private final FormatoExportacion formato;
+
+    /**
+     * Constructor
+     * @param diario bitácora en disco a exportar
+     * @param formato formato de salida
+     */
+    public ExportadorBitacora(DiarioBitacora diario, FormatoExportacion formato) {
+        this.diario = diario;
+        this.formato = formato;
+    }
+
+    /**
+     * Exporta en orden de tiempo los registros que cumplen el filtro
+     * @param filtro criterios de los registros a exportar
+     * @param cursor PaginaBitacora.INICIO o un cursor informado por una
+     *               exportación anterior interrumpida
+     * @param destino canal donde se escribe
+     * @param avance recibe el progreso después de cada lote escrito; puede ser null
+     * @return long con la cantidad de registros exportados
+     * @throws IOException si falla la lectura del diario o la escritura
+     * @throws IllegalStateException si el segmento del cursor se resumió o
+     *                               eliminó desde la interrupción; hay que
+     *                               exportar de nuevo desde el inicio
+     */
+    public long exportar(FiltroBitacora filtro, long cursor, WritableByteChannel destino,
+                         AvanceExportacion avance) throws IOException {
+        Salida salida = new Salida(destino);
+        long inicioArchivo = destino instanceof SeekableByteChannel
+                ? ((SeekableByteChannel) destino).position() : -1;
+        long confirmados = 0;
+        try {
+            if (cursor == PaginaBitacora.INICIO) {
+                if (formato == FormatoExportacion.CSV) {
+                    salida.poner(ENCABEZADO_CSV.getBytes(StandardCharsets.UTF_8));
+                } else {
+                    salida.buffer.putInt(MAGIA).putInt(VERSION);
+                }
+            }
+            long exportados = 0;
+            while (cursor != PaginaBitacora.FIN) {
+                PaginaBitacora pagina = diario.consultar(filtro, cursor, REGISTROS_POR_LOTE);
+                for (RegistroBitacora registro : pagina.getRegistros()) {
+                    if (formato == FormatoExportacion.CSV) {
+                        escribirCsv(registro, salida);
+                    } else {
+                        escribirBinario(registro, salida);
+                    }
+                }
+                salida.vaciar();
+                exportados += pagina.getRegistros().size();
+                cursor = pagina.getSiguienteCursor();
+                confirmados = salida.escritos;
+                if (avance != null) {
+                    avance.avanzar(cursor, confirmados);
+                }
+            }
+            return exportados;
+        } catch (IOException | RuntimeException e) {
+            if (inicioArchivo >= 0 && salida.escritos > confirmados) {
+                try {
+                    // Quita el lote a medias para poder retomar desde el último cursor
+                    ((SeekableByteChannel) destino).truncate(inicioArchivo + confirmados);
+                } catch (IOException corte) {
+                    e.addSuppressed(corte);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Exporta cada equipo a su propio canal, varios equipos a la vez
+     * Dentro de cada equipo se mantiene el orden de tiempo. Si un equipo
+     * falla, los demás siguen; al final se lanza el primer error y en
+     * cursores queda desde dónde retomar cada uno.
+     * @param filtro criterios comunes (el equipo se toma de cada destino)
+     * @param destinos canal de salida por código de equipo
+     * @param cursores cursor inicial por código; un equipo sin cursor
+     *                 empieza desde el inicio. Se actualiza con el avance
+     *                 de cada equipo y queda en PaginaBitacora.FIN al terminar.
+     * @param hilos cantidad de exportaciones simultáneas
+     * @return Map con los registros exportados por código de equipo
+     * @throws IOException si falla la exportación de algún equipo
+     */
+    public Map<String, Long> exportarPorEquipo(FiltroBitacora filtro,
+                                               Map<String, ? extends WritableByteChannel> destinos,
+                                               Map<String, Long> cursores, int hilos) throws IOException {
+        if (hilos < 1) {
+            throw new IllegalArgumentException("Se necesita al menos un hilo");
+        }
+        Map<String, Long> avance = new ConcurrentHashMap<>(cursores);
+        Map<String, Future<Long>> tareas = new LinkedHashMap<>();
+        ExecutorService ejecutor = Executors.newFixedThreadPool(Math.min(hilos, Math.max(1, destinos.size())),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "exportador-bitacora");
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+        try {
+            for (Map.Entry<String, ? extends WritableByteChannel> destino : destinos.entrySet()) {
+                String codigo = destino.getKey();
+                long inicio = avance.getOrDefault(codigo, PaginaBitacora.INICIO);
+                tareas.put(codigo, ejecutor.submit(() -> exportar(filtro.conEquipo(codigo), inicio,
+                        destino.getValue(), (siguiente, bytes) -> avance.put(codigo, siguiente))));
+            }
+            Map<String, Long> exportados = new LinkedHashMap<>();
+            List<Throwable> errores = new ArrayList<>();
+            boolean interrumpido = false;
+            for (Map.Entry<String, Future<Long>> tarea : tareas.entrySet()) {
+                while (true) {
+                    try {
+                        exportados.put(tarea.getKey(), tarea.getValue().get());
+                        break;
+                    } catch (InterruptedException e) {
+                        interrumpido = true;
+                    } catch (ExecutionException e) {
+                        errores.add(e.getCause());
+                        break;
+                    }
+                }
+            }
+            if (interrumpido) {
+                Thread.currentThread().interrupt();
+            }
+            cursores.putAll(avance);
+            if (!errores.isEmpty()) {
+                IOException error = new IOException("No se pudo exportar la bitácora de "
+                        + errores.size() + " equipo(s)", errores.get(0));
+                errores.subList(1, errores.size()).forEach(error::addSuppressed);
+                throw error;
+            }
+            return Collections.unmodifiableMap(exportados);
+        } finally {
+            ejecutor.shutdown();
+        }
+    }
+
+    private void escribirCsv(RegistroBitacora registro, Salida salida) throws IOException {
+        StringBuilder linea = salida.linea;
+        linea.setLength(0);
+        linea.append(Instant.ofEpochSecond(0, registro.getInstanteNanos())).append(',');
+        agregarCampo(linea, registro.getCodigoEquipo());
+        linea.append(',').append(registro.getEvento().name())
+                .append(',').append(registro.getPrimero())
+                .append(',').append(registro.getSegundo()).append(',');
+        agregarCampo(linea, registro.getMensaje());
+        linea.append('\n');
+        salida.poner(linea.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Agrega un campo CSV, entre comillas si tiene comas, comillas o saltos de línea
+     */
+    private static void agregarCampo(StringBuilder linea, String valor) {
+        if (valor == null) {
+            return;
+        }
+        boolean citar = false;
+        for (int i = 0; i < valor.length() && !citar; i++) {
+            char c = valor.charAt(i);
+            citar = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!citar) {
+            linea.append(valor);
+            return;
+        }
+        linea.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                linea.append('"');
+            }
+            linea.append(c);
+        }
+        linea.append('"');
+    }
+
+    private void escribirBinario(RegistroBitacora registro, Salida salida) throws IOException {
+        byte[] codigo = registro.getCodigoEquipo() == null ? null
+                : registro.getCodigoEquipo().getBytes(StandardCharsets.UTF_8);
+        byte[] texto = registro.getTexto() == null ? null
+                : registro.getTexto().getBytes(StandardCharsets.UTF_8);
+        int tamano = 8 + 4 + 16 + 4 + (codigo == null ? 0 : codigo.length)
+                + 4 + (texto == null ? 0 : texto.length);
+        ByteBuffer destino = salida.buffer;
+        if (tamano > destino.remaining()) {
+            salida.vaciar();
+            if (tamano > destino.capacity()) {
+                // Registro más grande que el búfer
+                destino = ByteBuffer.allocate(tamano);
+            }
+        }
+        destino.putLong(registro.getInstanteNanos()).putInt(registro.getEvento().ordinal())
+                .putDouble(registro.getPrimero()).putDouble(registro.getSegundo());
+        ponerBytes(destino, codigo);
+        ponerBytes(destino, texto);
+        if (destino != salida.buffer) {
+            destino.flip();
+            salida.escribir(destino);
+        }
+    }
+
+    private static void ponerBytes(ByteBuffer destino, byte[] bytes) {
+        if (bytes == null) {
+            destino.putInt(-1);
+        } else {
+            destino.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    /**
+     * Búfer reutilizado de una exportación y bytes ya entregados al destino
+     */
+    private static class Salida {
+        private final WritableByteChannel destino;
+        private final ByteBuffer buffer;
+        private final StringBuilder linea;
+        private long escritos;
+
+        Salida(WritableByteChannel destino) {
+            this.destino = destino;
+            this.buffer = ByteBuffer.allocate(TAMANO_BUFFER);
+            this.linea = new StringBuilder(256);
+        }
+
+        void poner(byte[] bytes) throws IOException {
+            int desde = 0;
+            while (desde < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    vaciar();
+                }
+                int cantidad = Math.min(buffer.remaining(), bytes.length - desde);
+                buffer.put(bytes, desde, cantidad);
+                desde += cantidad;
+            }
+        }
+
+        void vaciar() throws IOException {
+            buffer.flip();
+            escribir(buffer);
+            buffer.clear();
+        }
+
+        void escribir(ByteBuffer datos) throws IOException {
+            while (datos.hasRemaining()) {
+                int cantidad = destino.write(datos);
+                if (cantidad == 0) {
+                    // Canal no bloqueante lleno: espera a que el lector avance
+                    LockSupport.parkNanos(PAUSA_NANOS);
+                }
+                escritos += cantidad;
+            }
+        }
+    }
+}
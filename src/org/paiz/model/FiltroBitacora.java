@@ -0,0 +1,103 @@
+package org.paiz.model;
+
+import java.time.Instant;
+
+/**
+ * Clase FiltroBitacora
+ * Criterios de una consulta de bitácora; cada criterio en null no filtra
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class FiltroBitacora {
+    private final long desdeNanos;
+    private final long hastaNanos;
+    private final String claveCodigo;
+    private final String zona;
+    // Bit i encendido si se acepta el evento de código i; 0 acepta todos
+    private final long mascaraEventos;
+
+    /**
+     * Constructor con todos los criterios
+     * @param desde instante mínimo (inclusive), o null
+     * @param hasta instante máximo (inclusive), o null
+     * @param codigoEquipo código del equipo, o null
+     * @param zona zona de los equipos (sin distinguir mayúsculas), o null
+     * @param eventos tipos de evento aceptados; sin eventos se aceptan todos
+     */
+    public FiltroBitacora(Instant desde, Instant hasta, String codigoEquipo, String zona,
+                          EventoBitacora... eventos) {
+        this.desdeNanos = desde == null ? Long.MIN_VALUE : aNanos(desde);
+        this.hastaNanos = hasta == null ? Long.MAX_VALUE : aNanos(hasta);
+        this.claveCodigo = Equipo.normalizarCodigo(codigoEquipo);
+        this.zona = zona;
+        long mascara = 0;
+        for (EventoBitacora evento : eventos) {
+            mascara |= 1L << evento.ordinal();
+        }
+        this.mascaraEventos = mascara;
+    }
+
+    private FiltroBitacora(long desdeNanos, long hastaNanos, String claveCodigo, String zona,
+                           long mascaraEventos) {
+        this.desdeNanos = desdeNanos;
+        this.hastaNanos = hastaNanos;
+        this.claveCodigo = claveCodigo;
+        this.zona = zona;
+        this.mascaraEventos = mascaraEventos;
+    }
+
+    /**
+     * Copia del filtro restringida a un equipo
+     * @param codigoEquipo código del equipo
+     * @return FiltroBitacora con los mismos criterios de tiempo, zona y evento
+     */
+    public FiltroBitacora conEquipo(String codigoEquipo) {
+        return new FiltroBitacora(desdeNanos, hastaNanos, Equipo.normalizarCodigo(codigoEquipo), zona,
+                mascaraEventos);
+    }
+
+    /**
+     * Filtro que acepta todos los registros
+     * @return FiltroBitacora sin criterios
+     */
+    public static FiltroBitacora todos() {
+        return new FiltroBitacora(null, null, null, null);
+    }
+
+    private static long aNanos(Instant instante) {
+        try {
+            return Math.addExact(Math.multiplyExact(instante.getEpochSecond(), 1_000_000_000L),
+                    instante.getNano());
+        } catch (ArithmeticException e) {
+            return instante.getEpochSecond() < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    long getDesdeNanos() {
+        return desdeNanos;
+    }
+
+    long getHastaNanos() {
+        return hastaNanos;
+    }
+
+    String getClaveCodigo() {
+        return claveCodigo;
+    }
+
+    String getZona() {
+        return zona;
+    }
+
+    long getMascaraEventos() {
+        return mascaraEventos;
+    }
+
+    boolean aceptaEvento(int codigo) {
+        return mascaraEventos == 0 || (mascaraEventos & (1L << codigo)) != 0;
+    }
+
+    boolean aceptaZona(String zonaEquipo) {
+        return zona == null || zona.equalsIgnoreCase(zonaEquipo);
+    }
+}
@@ -0,0 +1,14 @@
+package org.paiz.model;
+
+/**
+ * Enum FormatoExportacion
+ * Formatos en los que ExportadorBitacora escribe la bitácora
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public enum FormatoExportacion {
+    // Texto separado por comas con encabezado, legible en una planilla
+    CSV,
+    // Registros binarios de tamaño variable, ver ExportadorBitacora
+    BINARIO
+}
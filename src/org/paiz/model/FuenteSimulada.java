@@ -0,0 +1,165 @@
+package org.paiz.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Clase FuenteSimulada
+ * Valores simulados de un equipo, con su propio generador y estado
+ *
+ * En cada captura el equipo pide primero siguienteInstante() y después los
+ * valores de sus canales. Los modelos usan el tiempo transcurrido desde la
+ * lectura anterior:
+ * - Temperatura y humedad relativa siguen una curva diaria (máxima de
+ *   temperatura a las 15 h, hora de Guatemala) más ruido con memoria.
+ * - La humedad del suelo decae exponencialmente hacia el punto de
+ *   marchitez, más rápido de día, y un riego la devuelve a capacidad de
+ *   campo cuando baja del umbral.
+ * - El caudal de una bomba oscila alrededor del nominal con caídas
+ *   ocasionales por cavitación.
+ * El ruido con memoria es un proceso de Ornstein-Uhlenbeck: vuelve a la
+ * media con tasa theta (por hora) y dispersión sigma.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class FuenteSimulada {
+    private static final double NANOS_POR_HORA = 3_600_000_000_000.0;
+    // Guatemala: UTC-6 todo el año
+    private static final double DESFASE_HORAS = -6.0;
+    // Salto máximo entre lecturas que se simula de una vez
+    private static final double HORAS_MAXIMAS = 24.0;
+    private static final double PROBABILIDAD_CAVITACION = 0.002;
+
+    private final SplittableRandom aleatorio;
+    private final long origenNanos;
+    private final long pasoNanos;
+
+    private long muestras;
+    private long instante;
+    // Horas simuladas desde la lectura anterior
+    private double horas;
+
+    // Estado de los modelos; NaN hasta su primer uso
+    private double ruidoTemperatura = Double.NaN;
+    private double ruidoHumedad = Double.NaN;
+    private double humedadSuelo = Double.NaN;
+    private double ruidoFlujo = Double.NaN;
+    private double presion = Double.NaN;
+    private double viento = Double.NaN;
+
+    FuenteSimulada(long semilla, long origenNanos, long pasoNanos) {
+        this.aleatorio = new SplittableRandom(semilla);
+        this.origenNanos = origenNanos;
+        this.pasoNanos = pasoNanos;
+    }
+
+    /**
+     * Avanza al instante de la lectura siguiente
+     * @return long con el instante en nanosegundos de época
+     */
+    public synchronized long siguienteInstante() {
+        long ahora = pasoNanos > 0 ? origenNanos + muestras * pasoNanos : MotorBitacora.ahoraEpocaNanos();
+        horas = muestras == 0 ? 0.0
+                : Math.max(0.0, Math.min(HORAS_MAXIMAS, (ahora - instante) / NANOS_POR_HORA));
+        instante = ahora;
+        muestras++;
+        return ahora;
+    }
+
+    /**
+     * Valor uniforme en un intervalo
+     * @param minimo límite inferior (inclusive)
+     * @param maximo límite superior (exclusive)
+     */
+    public synchronized double uniforme(double minimo, double maximo) {
+        return minimo + aleatorio.nextDouble() * (maximo - minimo);
+    }
+
+    /**
+     * Temperatura con curva diaria
+     * @param media temperatura media del día en °C
+     * @param amplitud diferencia entre la máxima y la media en °C
+     */
+    public synchronized double temperaturaDiurna(double media, double amplitud) {
+        ruidoTemperatura = ornsteinUhlenbeck(ruidoTemperatura, 0.0, 0.5, 0.8);
+        return media + amplitud * curvaDiaria() + ruidoTemperatura;
+    }
+
+    /**
+     * Humedad relativa con curva diaria, opuesta a la temperatura
+     * @param media humedad media del día en %
+     * @param amplitud diferencia entre la media y la mínima de la tarde en %
+     */
+    public synchronized double humedadRelativa(double media, double amplitud) {
+        ruidoHumedad = ornsteinUhlenbeck(ruidoHumedad, 0.0, 0.5, 3.0);
+        return Math.max(5.0, Math.min(100.0, media - amplitud * curvaDiaria() + ruidoHumedad));
+    }
+
+    /**
+     * Humedad del suelo que se seca entre riegos
+     * @param capacidadCampo humedad después de un riego en %
+     * @param puntoMarchitez humedad a la que tiende sin riego en %
+     * @param umbralRiego humedad a la que se riega en %
+     */
+    public synchronized double humedadSuelo(double capacidadCampo, double puntoMarchitez, double umbralRiego) {
+        if (Double.isNaN(humedadSuelo)) {
+            humedadSuelo = umbralRiego + aleatorio.nextDouble() * (capacidadCampo - umbralRiego);
+        }
+        // Evapotranspiración: más rápida con sol
+        double tasa = 0.02 * (1.0 + 0.8 * Math.max(0.0, curvaDiaria()));
+        humedadSuelo = puntoMarchitez + (humedadSuelo - puntoMarchitez) * Math.exp(-tasa * horas);
+        if (humedadSuelo < umbralRiego) {
+            humedadSuelo = capacidadCampo - aleatorio.nextDouble() * 2.0;
+        }
+        return humedadSuelo + aleatorio.nextGaussian() * 0.2;
+    }
+
+    /**
+     * Caudal o presión de una bomba
+     * @param nominal valor de trabajo de la bomba
+     */
+    public synchronized double flujoBomba(double nominal) {
+        ruidoFlujo = ornsteinUhlenbeck(ruidoFlujo, 0.0, 20.0, 0.05);
+        double factor = aleatorio.nextDouble() < PROBABILIDAD_CAVITACION ? 0.6 : 1.0;
+        return Math.max(0.0, nominal * (1.0 + ruidoFlujo) * factor);
+    }
+
+    /**
+     * Presión atmosférica en hPa, con la marea barométrica de dos picos diarios
+     */
+    public synchronized double presionAtmosferica() {
+        presion = ornsteinUhlenbeck(presion, 1013.0, 0.1, 1.5);
+        return presion + Math.cos(4.0 * Math.PI * (horaLocal() - 10.0) / 24.0);
+    }
+
+    /**
+     * Velocidad del viento en km/h con ráfagas
+     * @param media velocidad media
+     */
+    public synchronized double viento(double media) {
+        viento = ornsteinUhlenbeck(viento, media, 1.0, media * 0.3);
+        return Math.max(0.0, viento + Math.abs(aleatorio.nextGaussian()) * media * 0.3);
+    }
+
+    /**
+     * Un paso de Ornstein-Uhlenbeck; la primera vez toma un valor de su
+     * distribución estacionaria
+     */
+    private double ornsteinUhlenbeck(double x, double media, double theta, double sigma) {
+        if (Double.isNaN(x)) {
+            return media + sigma / Math.sqrt(2.0 * theta) * aleatorio.nextGaussian();
+        }
+        return x + theta * (media - x) * horas + sigma * Math.sqrt(horas) * aleatorio.nextGaussian();
+    }
+
+    /**
+     * Curva diaria entre -1 (03:00) y 1 (15:00)
+     */
+    private double curvaDiaria() {
+        return Math.sin(2.0 * Math.PI * (horaLocal() - 9.0) / 24.0);
+    }
+
+    private double horaLocal() {
+        double horasEpoca = instante / NANOS_POR_HORA + DESFASE_HORAS;
+        return horasEpoca - Math.floor(horasEpoca / 24.0) * 24.0;
+    }
+}
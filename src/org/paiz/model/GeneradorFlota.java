@@ -0,0 +1,389 @@
+package org.paiz.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clase GeneradorFlota
+ * Genera flotas sintéticas grandes para pruebas de escala
+ *
+ * El equipo número n depende solo de la semilla y de n (cada número tiene
+ * su propio SplittableRandom), así la misma semilla produce la misma flota
+ * con cualquier cantidad de hilos. El código es el prefijo del tipo y el
+ * número con al menos tres dígitos (MS-001, RI-004217...), único dentro de
+ * una generación.
+ *
+ * Las zonas y las marcas siguen una distribución de Zipf: pocas zonas
+ * grandes y muchas chicas, y unas pocas marcas con la mayor parte del
+ * mercado de cada tipo.
+ *
+ * Cada equipo abre su canal de bitácora al construirse, así que al poblar
+ * se omiten, sin construirlos, los números cuyo código ya existe en el
+ * repositorio, y con catálogo cada lote se persiste antes de incorporarse.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class GeneradorFlota {
+    public static final int ZONAS_POR_DEFECTO = 200;
+    // Equipos que cada hilo genera y publica juntos
+    private static final int TAMANO_LOTE = 4_096;
+    private static final double EXPONENTE_ZONAS = 1.07;
+    private static final double EXPONENTE_MARCAS = 1.2;
+    // Proporción de equipos que se generan apagados
+    private static final double PROPORCION_INACTIVOS = 0.03;
+
+    private static final String[] TIPOS_ZONA = {"Parcela", "Invernadero", "Lote", "Huerto", "Zona"};
+    private static final Map<TipoEquipo, String[]> MARCAS = new EnumMap<>(TipoEquipo.class);
+    private static final Map<TipoEquipo, String> DENOMINACIONES = new EnumMap<>(TipoEquipo.class);
+
+    static {
+        MARCAS.put(TipoEquipo.MONITOR_SUELO, new String[]{"SensorTech", "AgriSense", "SoilPro", "TerraLog"});
+        MARCAS.put(TipoEquipo.DETECTOR_HUMEDAD, new String[]{"ClimaTech", "HumiSense", "AgriSense"});
+        MARCAS.put(TipoEquipo.MEDIDOR_TERMICO, new String[]{"TempSafe", "ThermoAgro", "ClimaTech"});
+        MARCAS.put(TipoEquipo.CENTRAL_CLIMATICA, new String[]{"WeatherPro", "MeteoCampo", "ClimaTech"});
+        MARCAS.put(TipoEquipo.COMPUERTA_HIDRAULICA, new String[]{"HydroFlow", "AquaGate", "RiegoMax"});
+        MARCAS.put(TipoEquipo.MODULO_NUTRIENTES, new String[]{"NutriCrop", "FertiSmart", "AgroDose"});
+        MARCAS.put(TipoEquipo.ROCIADOR_INTELIGENTE, new String[]{"SmartIrrigation", "RainBird", "AquaSpray", "RiegoMax"});
+        MARCAS.put(TipoEquipo.UNIDAD_BOMBEO, new String[]{"PumpMaster", "HydroFlow", "BombAgro"});
+        MARCAS.put(TipoEquipo.AERONAVE_HIDRATACION, new String[]{"AgroDrone", "SkyFarm"});
+        MARCAS.put(TipoEquipo.AERONAVE_VIGILANCIA, new String[]{"SkyVision", "AgroDrone", "SkyFarm"});
+
+        DENOMINACIONES.put(TipoEquipo.MONITOR_SUELO, "Monitor Suelo");
+        DENOMINACIONES.put(TipoEquipo.DETECTOR_HUMEDAD, "Detector Ambiental");
+        DENOMINACIONES.put(TipoEquipo.MEDIDOR_TERMICO, "Termómetro");
+        DENOMINACIONES.put(TipoEquipo.CENTRAL_CLIMATICA, "Estación Meteorológica");
+        DENOMINACIONES.put(TipoEquipo.COMPUERTA_HIDRAULICA, "Válvula Riego");
+        DENOMINACIONES.put(TipoEquipo.MODULO_NUTRIENTES, "Sistema Fertilización");
+        DENOMINACIONES.put(TipoEquipo.ROCIADOR_INTELIGENTE, "Aspersor Inteligente");
+        DENOMINACIONES.put(TipoEquipo.UNIDAD_BOMBEO, "Bomba Hidráulica");
+        DENOMINACIONES.put(TipoEquipo.AERONAVE_HIDRATACION, "Dron Riego Aéreo");
+        DENOMINACIONES.put(TipoEquipo.AERONAVE_VIGILANCIA, "Dron Monitoreo");
+    }
+
+    private final long semilla;
+    private final TipoEquipo[] tipos;
+    private final double[] acumuladoTipos;
+    private final String[] zonas;
+    private final double[] acumuladoZonas;
+    private final Map<TipoEquipo, double[]> acumuladoMarcas;
+
+    /**
+     * Constructor con la mezcla de tipos por defecto y ZONAS_POR_DEFECTO zonas
+     * @param semilla semilla de la flota
+     */
+    public GeneradorFlota(long semilla) {
+        this(semilla, mezclaPorDefecto(), ZONAS_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor
+     * @param semilla semilla de la flota
+     * @param mezcla peso relativo de cada tipo; los tipos ausentes no se generan
+     * @param cantidadZonas cantidad de zonas distintas
+     */
+    public GeneradorFlota(long semilla, Map<TipoEquipo, Double> mezcla, int cantidadZonas) {
+        if (cantidadZonas < 1) {
+            throw new IllegalArgumentException("Se necesita al menos una zona");
+        }
+        List<TipoEquipo> elegidos = new ArrayList<>();
+        List<Double> pesos = new ArrayList<>();
+        for (Map.Entry<TipoEquipo, Double> tipo : mezcla.entrySet()) {
+            if (tipo.getValue() > 0) {
+                elegidos.add(tipo.getKey());
+                pesos.add(tipo.getValue());
+            }
+        }
+        if (elegidos.isEmpty()) {
+            throw new IllegalArgumentException("La mezcla no tiene ningún tipo con peso positivo");
+        }
+        this.semilla = semilla;
+        this.tipos = elegidos.toArray(new TipoEquipo[0]);
+        this.acumuladoTipos = acumular(pesos.stream().mapToDouble(Double::doubleValue).toArray());
+
+        this.zonas = new String[cantidadZonas];
+        double[] pesosZonas = new double[cantidadZonas];
+        for (int z = 0; z < cantidadZonas; z++) {
+            zonas[z] = TIPOS_ZONA[z % TIPOS_ZONA.length] + " " + (z / TIPOS_ZONA.length + 1);
+            pesosZonas[z] = 1.0 / Math.pow(z + 1, EXPONENTE_ZONAS);
+        }
+        this.acumuladoZonas = acumular(pesosZonas);
+
+        this.acumuladoMarcas = new EnumMap<>(TipoEquipo.class);
+        for (TipoEquipo tipo : tipos) {
+            double[] pesosMarcas = new double[MARCAS.get(tipo).length];
+            for (int m = 0; m < pesosMarcas.length; m++) {
+                pesosMarcas[m] = 1.0 / Math.pow(m + 1, EXPONENTE_MARCAS);
+            }
+            acumuladoMarcas.put(tipo, acumular(pesosMarcas));
+        }
+    }
+
+    /**
+     * Mezcla de tipos de una flota típica, según TipoEquipo.getPesoPorDefecto()
+     * @return Map con el peso de cada tipo
+     */
+    public static Map<TipoEquipo, Double> mezclaPorDefecto() {
+        Map<TipoEquipo, Double> mezcla = new EnumMap<>(TipoEquipo.class);
+        for (TipoEquipo tipo : TipoEquipo.values()) {
+            mezcla.put(tipo, tipo.getPesoPorDefecto());
+        }
+        return mezcla;
+    }
+
+    /**
+     * Genera el equipo de un número
+     * @param numero número del equipo; define su código
+     * @param digitos dígitos mínimos del número en el código
+     * @return Equipo nuevo
+     */
+    public Equipo generar(long numero, int digitos) {
+        return generar(numero, digitos, null);
+    }
+
+    /**
+     * Genera el equipo de un número salvo que su código ya exista
+     * @param existentes repositorio donde buscar el código, o null para no buscar
+     * @return Equipo nuevo, o null si el código ya estaba en existentes
+     */
+    private Equipo generar(long numero, int digitos, RepositorioEquipos existentes) {
+        SplittableRandom aleatorio = new SplittableRandom(semilla ^ (numero * 0x9e3779b97f4a7c15L));
+        TipoEquipo tipo = tipos[elegir(acumuladoTipos, aleatorio)];
+        String codigo = armarCodigo(tipo.getPrefijo(), numero, digitos);
+        if (existentes != null && existentes.localizarPorCodigo(codigo) != null) {
+            return null;
+        }
+        String zona = zonas[elegir(acumuladoZonas, aleatorio)];
+        String marca = MARCAS.get(tipo)[elegir(acumuladoMarcas.get(tipo), aleatorio)];
+        String denominacion = DENOMINACIONES.get(tipo) + " " + zona;
+        // Consumo alrededor del típico, con cola hacia arriba
+        double consumo = Math.round(tipo.getConsumoTipico() * Math.exp(aleatorio.nextGaussian() * 0.2) * 10) / 10.0;
+
+        Equipo equipo;
+        switch (tipo) {
+            case MONITOR_SUELO:
+                equipo = new MonitorSuelo(codigo, denominacion, marca, consumo, zona,
+                        5.0 * aleatorio.nextInt(2, 13),
+                        aleatorio.nextBoolean() ? "Humedad" : "Humedad y pH");
+                break;
+            case DETECTOR_HUMEDAD:
+                equipo = new DetectorHumedad(codigo, denominacion, marca, consumo, zona,
+                        "0-100%", 1.5 + 0.5 * aleatorio.nextInt(4));
+                break;
+            case MEDIDOR_TERMICO:
+                equipo = new MedidorTermico(codigo, denominacion, marca, consumo, zona,
+                        aleatorio.nextBoolean() ? "-20°C a 50°C" : "0°C a 60°C");
+                break;
+            case CENTRAL_CLIMATICA:
+                equipo = new CentralClimatica(codigo, denominacion, marca, consumo, zona,
+                        aleatorio.nextDouble(2.0, 30.0));
+                break;
+            case COMPUERTA_HIDRAULICA:
+                equipo = new CompuertaHidraulica(codigo, denominacion, marca, consumo, zona,
+                        500.0 * aleatorio.nextInt(2, 21));
+                break;
+            case MODULO_NUTRIENTES:
+                equipo = new ModuloNutrientes(codigo, denominacion, marca, consumo, zona,
+                        50.0 * aleatorio.nextInt(1, 11));
+                break;
+            case ROCIADOR_INTELIGENTE:
+                equipo = new RociadorInteligente(codigo, denominacion, marca, consumo, zona,
+                        aleatorio.nextInt(5, 41));
+                break;
+            case UNIDAD_BOMBEO:
+                double potencia = aleatorio.nextInt(2, 31);
+                equipo = new UnidadBombeo(codigo, denominacion, marca, consumo, zona,
+                        potencia, potencia * aleatorio.nextInt(400, 601));
+                break;
+            case AERONAVE_HIDRATACION:
+                equipo = new AeronaveHidratacion(codigo, denominacion, marca, consumo, zona,
+                        aleatorio.nextInt(20, 61), aleatorio.nextInt(5, 31));
+                break;
+            default:
+                equipo = new AeronaveVigilancia(codigo, denominacion, marca, consumo, zona,
+                        aleatorio.nextInt(30, 91), aleatorio.nextBoolean() ? "4K UHD" : "Multiespectral");
+                break;
+        }
+        if (aleatorio.nextDouble() < PROPORCION_INACTIVOS) {
+            equipo.setEnFuncionamiento(false);
+        }
+        return equipo;
+    }
+
+    /**
+     * Genera una flota y la incorpora al repositorio con varios hilos
+     * Cada hilo genera lotes de TAMANO_LOTE equipos y los publica con
+     * incorporarEquipos; si el repositorio no es RepositorioEquiposConcurrente
+     * la generación sigue siendo paralela, pero las publicaciones se turnan.
+     * @param destino repositorio donde se incorporan los equipos
+     * @param cantidad cantidad de equipos a generar
+     * @param numeroInicial número del primer equipo
+     * @param hilos hilos que generan
+     * @return ReporteGeneracion con cantidad, equipos por segundo y heap usado
+     */
+    public ReporteGeneracion poblar(RepositorioEquipos destino, long cantidad, long numeroInicial, int hilos) {
+        try {
+            return poblar(destino, null, cantidad, numeroInicial, hilos);
+        } catch (IOException e) {
+            // Sin catálogo no hay escritura en disco
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Genera una flota, la persiste en un catálogo y la incorpora al repositorio
+     * Cada lote se anexa al catálogo antes de incorporarse, así los equipos
+     * (y lo que registren en la bitácora) siguen existiendo al reiniciar
+     * @param destino repositorio donde se incorporan los equipos
+     * @param catalogo catálogo donde se persisten, o null para no persistirlos
+     * @param cantidad cantidad de equipos a generar
+     * @param numeroInicial número del primer equipo
+     * @param hilos hilos que generan
+     * @return ReporteGeneracion con cantidad, equipos por segundo y heap usado
+     * @throws IOException si falla la escritura del catálogo; los lotes ya
+     *                     anexados quedan persistidos e incorporados
+     */
+    public ReporteGeneracion poblar(RepositorioEquipos destino, CatalogoEquipos catalogo, long cantidad,
+                                    long numeroInicial, int hilos) throws IOException {
+        if (hilos < 1) {
+            throw new IllegalArgumentException("Se necesita al menos un hilo");
+        }
+        int digitos = Math.max(3, Long.toString(numeroInicial + cantidad - 1).length());
+        boolean concurrente = destino instanceof RepositorioEquiposConcurrente;
+        long heapInicial = heapUsado();
+        long inicio = System.nanoTime();
+
+        AtomicLong siguiente = new AtomicLong();
+        AtomicLong incorporados = new AtomicLong();
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "generador-flota");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                tareas.add(ejecutor.submit(() -> {
+                    List<Equipo> lote = new ArrayList<>(TAMANO_LOTE);
+                    long desde;
+                    while ((desde = siguiente.getAndAdd(TAMANO_LOTE)) < cantidad) {
+                        long hasta = Math.min(cantidad, desde + TAMANO_LOTE);
+                        lote.clear();
+                        for (long n = desde; n < hasta; n++) {
+                            Equipo equipo = generar(numeroInicial + n, digitos, destino);
+                            if (equipo != null) {
+                                lote.add(equipo);
+                            }
+                        }
+                        if (catalogo != null) {
+                            try {
+                                catalogo.anexarTodos(lote);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                        if (concurrente) {
+                            incorporados.addAndGet(destino.incorporarEquipos(lote));
+                        } else {
+                            synchronized (destino) {
+                                incorporados.addAndGet(destino.incorporarEquipos(lote));
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                esperar(tarea);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            ejecutor.shutdown();
+        }
+        long duracion = System.nanoTime() - inicio;
+        return new ReporteGeneracion(cantidad, incorporados.get(), duracion,
+                Math.max(0, heapUsado() - heapInicial));
+    }
+
+    private static void esperar(Future<?> tarea) {
+        boolean interrumpido = false;
+        try {
+            while (true) {
+                try {
+                    tarea.get();
+                    return;
+                } catch (InterruptedException e) {
+                    interrumpido = true;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new IllegalStateException("Falló la generación de la flota", e.getCause());
+                }
+            }
+        } finally {
+            if (interrumpido) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Heap usado después de pedir una recolección
+     */
+    private static long heapUsado() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static String armarCodigo(String prefijo, long numero, int digitos) {
+        String cifras = Long.toString(numero);
+        StringBuilder codigo = new StringBuilder(prefijo.length() + 1 + Math.max(digitos, cifras.length()));
+        codigo.append(prefijo).append('-');
+        for (int i = cifras.length(); i < digitos; i++) {
+            codigo.append('0');
+        }
+        return codigo.append(cifras).toString();
+    }
+
+    private static double[] acumular(double[] pesos) {
+        double[] acumulado = new double[pesos.length];
+        double total = 0;
+        for (int i = 0; i < pesos.length; i++) {
+            total += pesos[i];
+            acumulado[i] = total;
+        }
+        for (int i = 0; i < acumulado.length; i++) {
+            acumulado[i] /= total;
+        }
+        return acumulado;
+    }
+
+    /**
+     * Índice elegido según una distribución acumulada
+     */
+    private static int elegir(double[] acumulado, SplittableRandom aleatorio) {
+        double valor = aleatorio.nextDouble();
+        int bajo = 0;
+        int alto = acumulado.length - 1;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (acumulado[medio] <= valor) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+}
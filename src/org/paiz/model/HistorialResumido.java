@@ -0,0 +1,334 @@
+package org.paiz.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Clase HistorialResumido
+ * Nivel frío de la bitácora: cantidad de eventos por equipo, hora y tipo
+ *
+ * Cuando un segmento sale de la ventana caliente del diario, sus registros
+ * se resumen aquí y el segmento se borra. El archivo es de solo anexión:
+ * filas de 32 bytes con hora (horas de época, long), canal (int), evento
+ * (int), cantidad (long), número del segmento resumido (int) y CRC de la
+ * fila (int). Cada segmento termina con una fila de cierre (canal y evento
+ * -1); al abrir se descartan las filas posteriores al último cierre, y los
+ * segmentos con número hasta el último cerrado ya están resumidos.
+ *
+ * Las filas quedan en orden de hora, así todas las de una hora están
+ * juntas aunque provengan de dos segmentos. Solo el hilo de mantenimiento
+ * del diario escribe; las filas nuevas se ven en las consultas recién al
+ * publicarlas con el candado del diario tomado.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+class HistorialResumido implements AutoCloseable {
+    static final long NANOS_POR_HORA = 3_600_000_000_000L;
+    // Bit que distingue los cursores del nivel frío de los de segmentos
+    static final long CURSOR_FRIO = 1L << 62;
+
+    private static final int MAGIA = 0x41474248; // "AGBH"
+    private static final int VERSION = 1;
+    private static final int TAMANO_CABECERA = 8;
+    private static final int TAMANO_FILA = 32;
+    private static final int INTERVALO_INDICE = 256;
+    private static final int BITS_CANAL = 26;
+
+    private final FileChannel archivo;
+    private final CRC32 crc;
+    // Filas visibles para las consultas y filas ya escritas
+    private long filasPublicadas;
+    private long filasEscritas;
+    private long ultimoSegmento;
+    // Índice disperso: hora y fila de comienzo de algunos grupos de hora
+    private long[] horasIndice;
+    private long[] filasIndice;
+    private int entradasIndice;
+    private long ultimaHora;
+    private long filasDesdeEntrada;
+
+    private HistorialResumido(FileChannel archivo) {
+        this.archivo = archivo;
+        this.crc = new CRC32();
+        this.horasIndice = new long[16];
+        this.filasIndice = new long[16];
+        this.ultimaHora = Long.MIN_VALUE;
+    }
+
+    /**
+     * Abre el historial, descartando un resumen que quedó a medias
+     * @param ruta archivo del historial
+     * @return HistorialResumido listo para consultar y anexar
+     * @throws IOException si no se puede abrir el archivo
+     */
+    static HistorialResumido abrir(Path ruta) throws IOException {
+        FileChannel archivo = FileChannel.open(ruta, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            HistorialResumido historial = new HistorialResumido(archivo);
+            historial.recuperar();
+            return historial;
+        } catch (IOException | RuntimeException e) {
+            archivo.close();
+            throw e;
+        }
+    }
+
+    private void recuperar() throws IOException {
+        long tamano = archivo.size();
+        if (tamano < TAMANO_CABECERA) {
+            ByteBuffer cabecera = ByteBuffer.allocate(TAMANO_CABECERA);
+            cabecera.putInt(MAGIA).putInt(VERSION).flip();
+            archivo.truncate(0);
+            while (cabecera.hasRemaining()) {
+                archivo.write(cabecera, cabecera.position());
+            }
+            archivo.force(true);
+            return;
+        }
+        MappedByteBuffer datos = archivo.map(FileChannel.MapMode.READ_ONLY, 0, tamano);
+        if (datos.getInt(0) != MAGIA) {
+            throw new IOException("El historial resumido no tiene un formato válido");
+        }
+        long filas = (tamano - TAMANO_CABECERA) / TAMANO_FILA;
+        long confirmadas = 0;
+        for (long fila = 0; fila < filas; fila++) {
+            int posicion = posicionFila(fila);
+            if (calcularCrc(datos, posicion) != datos.getInt(posicion + 28)) {
+                break;
+            }
+            if (datos.getInt(posicion + 12) < 0) {
+                confirmadas = fila + 1;
+                ultimoSegmento = datos.getInt(posicion + 24);
+            }
+        }
+        for (long fila = 0; fila < confirmadas; fila++) {
+            int posicion = posicionFila(fila);
+            if (datos.getInt(posicion + 12) >= 0) {
+                indexar(datos.getLong(posicion), fila);
+            }
+        }
+        filasPublicadas = confirmadas;
+        filasEscritas = confirmadas;
+        if (posicionFila(confirmadas) < tamano) {
+            archivo.truncate(posicionFila(confirmadas));
+            archivo.force(true);
+        }
+    }
+
+    /**
+     * Escribe el resumen de un segmento sin publicarlo
+     * Solo lo llama el hilo de mantenimiento del diario
+     * @param segmento número del segmento resumido
+     * @param conteos cantidad por clave, ver clave()
+     * @throws IOException si falla la escritura
+     */
+    void escribir(long segmento, TreeMap<Long, Long> conteos) throws IOException {
+        ByteBuffer filas = ByteBuffer.allocate((conteos.size() + 1) * TAMANO_FILA);
+        long hora = ultimaHora;
+        for (Map.Entry<Long, Long> conteo : conteos.entrySet()) {
+            long clave = conteo.getKey();
+            hora = clave >> 32;
+            ponerFila(filas, hora, (int) (clave >>> 6) & ((1 << BITS_CANAL) - 1),
+                    (int) clave & 63, conteo.getValue(), segmento);
+        }
+        ponerFila(filas, hora, -1, -1, conteos.size(), segmento);
+        filas.flip();
+        long posicion = posicionFila(filasEscritas);
+        while (filas.hasRemaining()) {
+            posicion += archivo.write(filas, posicion);
+        }
+        archivo.force(false);
+        filasEscritas += conteos.size() + 1;
+        ultimoSegmento = segmento;
+    }
+
+    /**
+     * Hace visibles para las consultas las filas escritas
+     * Se llama con el candado del diario tomado
+     */
+    void publicar() throws IOException {
+        if (filasPublicadas == filasEscritas) {
+            return;
+        }
+        MappedByteBuffer datos = mapear(filasPublicadas, filasEscritas);
+        for (long fila = filasPublicadas; fila < filasEscritas; fila++) {
+            int posicion = (int) ((fila - filasPublicadas) * TAMANO_FILA);
+            if (datos.getInt(posicion + 12) >= 0) {
+                indexar(datos.getLong(posicion), fila);
+            }
+        }
+        filasPublicadas = filasEscritas;
+    }
+
+    /**
+     * Clave de un conteo: hora, canal y evento en un long que ordena por hora
+     * El canal ocupa 26 bits y el evento 6
+     */
+    static long clave(long instanteNanos, int canal, int evento) {
+        return Math.floorDiv(instanteNanos, NANOS_POR_HORA) << 32 | (long) canal << 6 | evento;
+    }
+
+    /**
+     * Agrega a la página los resúmenes por equipo y hora que cumplen el filtro
+     * Cada resumen es un registro RESUMEN_HORARIO al comienzo de su hora con
+     * la cantidad de cada evento aceptado; una hora se incluye si se solapa
+     * con el rango del filtro.
+     * @param cursor PaginaBitacora.INICIO o un cursor del nivel frío
+     * @param codigos código de equipo por número de canal
+     * @return long con el cursor siguiente si la página se llenó, o
+     *         PaginaBitacora.FIN si se agotó el nivel frío
+     */
+    long consultar(FiltroBitacora filtro, BitSet canalesBuscados, long cursor, int limite,
+                   List<RegistroBitacora> registros, List<String> codigos) throws IOException {
+        if (filasPublicadas == 0) {
+            return PaginaBitacora.FIN;
+        }
+        long horaDesde = Math.floorDiv(filtro.getDesdeNanos(), NANOS_POR_HORA);
+        long horaHasta = Math.floorDiv(filtro.getHastaNanos(), NANOS_POR_HORA);
+        boolean todosLosEventos = filtro.getMascaraEventos() == 0
+                || filtro.aceptaEvento(EventoBitacora.RESUMEN_HORARIO.ordinal());
+        long fila = filaDesdeHora(horaDesde);
+        int canalDesde = 0;
+        if (cursor != PaginaBitacora.INICIO) {
+            fila = Math.max(fila, (cursor & ~CURSOR_FRIO) >>> BITS_CANAL);
+            canalDesde = (int) (cursor & ((1 << BITS_CANAL) - 1));
+        }
+
+        MappedByteBuffer datos = mapear(0, filasPublicadas);
+        TreeMap<Integer, long[]> grupo = new TreeMap<>();
+        while (fila < filasPublicadas) {
+            long hora = datos.getLong((int) (fila * TAMANO_FILA));
+            if (hora > horaHasta) {
+                break;
+            }
+            // Junta las filas de la hora, que pueden venir de dos segmentos
+            long inicioGrupo = fila;
+            grupo.clear();
+            for (; fila < filasPublicadas; fila++) {
+                int posicion = (int) (fila * TAMANO_FILA);
+                if (datos.getLong(posicion) != hora) {
+                    break;
+                }
+                int canal = datos.getInt(posicion + 8);
+                int evento = datos.getInt(posicion + 12);
+                if (evento < 0 || hora < horaDesde || canal < canalDesde
+                        || (canalesBuscados != null && !canalesBuscados.get(canal))
+                        || !(todosLosEventos || filtro.aceptaEvento(evento))) {
+                    continue;
+                }
+                grupo.computeIfAbsent(canal, c -> new long[EventoBitacora.values().length])[evento]
+                        += datos.getLong(posicion + 16);
+            }
+            for (Map.Entry<Integer, long[]> canal : grupo.entrySet()) {
+                if (registros.size() == limite) {
+                    return CURSOR_FRIO | inicioGrupo << BITS_CANAL | canal.getKey();
+                }
+                registros.add(resumir(hora, codigos.get(canal.getKey()), canal.getValue()));
+            }
+            canalDesde = 0;
+        }
+        return PaginaBitacora.FIN;
+    }
+
+    private static RegistroBitacora resumir(long hora, String codigo, long[] cantidades) {
+        StringBuilder texto = new StringBuilder();
+        long total = 0;
+        for (int evento = 0; evento < cantidades.length; evento++) {
+            if (cantidades[evento] > 0) {
+                if (texto.length() > 0) {
+                    texto.append(", ");
+                }
+                texto.append(cantidades[evento]).append(' ')
+                        .append(EventoBitacora.desdeCodigo(evento).getEtiqueta());
+                total += cantidades[evento];
+            }
+        }
+        return new RegistroBitacora(hora * NANOS_POR_HORA, codigo, EventoBitacora.RESUMEN_HORARIO,
+                total, 0.0, texto.toString());
+    }
+
+    /**
+     * Primera fila del grupo indexado más cercano antes de la hora indicada
+     */
+    private long filaDesdeHora(long hora) {
+        int bajo = 0;
+        int alto = entradasIndice - 1;
+        int encontrada = -1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (horasIndice[medio] < hora) {
+                encontrada = medio;
+                bajo = medio + 1;
+            } else {
+                alto = medio - 1;
+            }
+        }
+        return encontrada < 0 ? 0 : filasIndice[encontrada];
+    }
+
+    /**
+     * Anota en el índice disperso el comienzo de algunos grupos de hora
+     */
+    private void indexar(long hora, long fila) {
+        if (hora != ultimaHora) {
+            if (entradasIndice == 0 || filasDesdeEntrada >= INTERVALO_INDICE) {
+                if (entradasIndice == horasIndice.length) {
+                    horasIndice = Arrays.copyOf(horasIndice, entradasIndice * 2);
+                    filasIndice = Arrays.copyOf(filasIndice, entradasIndice * 2);
+                }
+                horasIndice[entradasIndice] = hora;
+                filasIndice[entradasIndice] = fila;
+                entradasIndice++;
+                filasDesdeEntrada = 0;
+            }
+            ultimaHora = hora;
+        }
+        filasDesdeEntrada++;
+    }
+
+    private void ponerFila(ByteBuffer filas, long hora, int canal, int evento, long cantidad,
+                           long segmento) {
+        int inicio = filas.position();
+        filas.putLong(hora).putInt(canal).putInt(evento).putLong(cantidad).putInt((int) segmento);
+        filas.putInt(calcularCrc(filas, inicio));
+    }
+
+    private int calcularCrc(ByteBuffer datos, int posicion) {
+        crc.reset();
+        crc.update(datos.slice(posicion, TAMANO_FILA - 4));
+        return (int) crc.getValue();
+    }
+
+    private MappedByteBuffer mapear(long desdeFila, long hastaFila) throws IOException {
+        long desde = posicionFila(desdeFila);
+        return archivo.map(FileChannel.MapMode.READ_ONLY, desde, posicionFila(hastaFila) - desde);
+    }
+
+    private static int posicionFila(long fila) {
+        return Math.toIntExact(TAMANO_CABECERA + fila * TAMANO_FILA);
+    }
+
+    /**
+     * Número del último segmento resumido por completo
+     * @return long con el número, 0 si no hay ninguno
+     */
+    long getUltimoSegmento() {
+        return ultimoSegmento;
+    }
+
+    @Override
+    public void close() throws IOException {
+        archivo.close();
+    }
+}
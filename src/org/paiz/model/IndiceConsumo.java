@@ -0,0 +1,111 @@
+package org.paiz.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+/**
+ * Clase IndiceConsumo
+ * Mantiene los ordinales de los equipos ordenados por consumo eléctrico
+ * Los empates de consumo se resuelven por código (como en Equipo.compareTo)
+ * Guarda ordinales y no equipos, así puede indexar los registros de un
+ * catálogo sin construirlos; solo se construyen los que se devuelven
+ * @author Franco Paiz
+ * @version 1.0
+ */
+class IndiceConsumo {
+    // Consumo en watts -> código normalizado -> ordinal del equipo
+    private NavigableMap<Double, NavigableMap<String, Integer>> porConsumo;
+    // Entrega el equipo de un ordinal
+    private final IntFunction<Equipo> equipos;
+
+    /**
+     * Constructor que inicializa el índice vacío
+     * @param equipos función que entrega el equipo de cada ordinal
+     */
+    IndiceConsumo(IntFunction<Equipo> equipos) {
+        this.porConsumo = new TreeMap<>();
+        this.equipos = equipos;
+    }
+
+    /**
+     * Inserta un equipo en su posición, O(log n)
+     * @param ordinal posición del equipo en el repositorio
+     * @param consumoWatts consumo del equipo
+     * @param claveCodigo código normalizado del equipo
+     */
+    void indexar(int ordinal, double consumoWatts, String claveCodigo) {
+        porConsumo.computeIfAbsent(consumoWatts, k -> new TreeMap<>()).put(claveCodigo, ordinal);
+    }
+
+    /**
+     * Recorre todos los equipos de menor a mayor consumo
+     * @param cantidadEsperada tamaño estimado para la lista resultante
+     * @return List ordenada
+     */
+    List<Equipo> ordenados(int cantidadEsperada) {
+        List<Equipo> resultado = new ArrayList<>(cantidadEsperada);
+        for (NavigableMap<String, Integer> grupo : porConsumo.values()) {
+            agregar(resultado, grupo.values());
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtiene los k equipos de menor consumo
+     * @param k cantidad máxima de equipos
+     * @return List de menor a mayor consumo
+     */
+    List<Equipo> menores(int k) {
+        return tomar(porConsumo, k, false);
+    }
+
+    /**
+     * Obtiene los k equipos de mayor consumo
+     * @param k cantidad máxima de equipos
+     * @return List de mayor a menor consumo
+     */
+    List<Equipo> mayores(int k) {
+        return tomar(porConsumo.descendingMap(), k, true);
+    }
+
+    /**
+     * Obtiene los equipos cuyo consumo está en el rango, ambos inclusive
+     * @param minimo consumo mínimo en watts
+     * @param maximo consumo máximo en watts
+     * @return List de menor a mayor consumo
+     */
+    List<Equipo> enRango(double minimo, double maximo) {
+        List<Equipo> resultado = new ArrayList<>();
+        if (minimo > maximo) {
+            return resultado;
+        }
+        for (NavigableMap<String, Integer> grupo
+                : porConsumo.subMap(minimo, true, maximo, true).values()) {
+            agregar(resultado, grupo.values());
+        }
+        return resultado;
+    }
+
+    private void agregar(List<Equipo> resultado, Iterable<Integer> ordinales) {
+        for (int ordinal : ordinales) {
+            resultado.add(equipos.apply(ordinal));
+        }
+    }
+
+    private List<Equipo> tomar(NavigableMap<Double, NavigableMap<String, Integer>> mapa,
+                               int k, boolean descendente) {
+        List<Equipo> resultado = new ArrayList<>(Math.max(0, Math.min(k, 64)));
+        for (NavigableMap<String, Integer> grupo : mapa.values()) {
+            for (int ordinal : descendente ? grupo.descendingMap().values() : grupo.values()) {
+                if (resultado.size() >= k) {
+                    return resultado;
+                }
+                resultado.add(equipos.apply(ordinal));
+            }
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,182 @@
+package org.paiz.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Clase IndiceDenominacion
+ * Índice de trigramas sobre las denominaciones de los equipos
+ * Permite búsquedas parciales revisando solo los equipos candidatos
+ * @author Franco Paiz
+ * @version 1.0
+ */
+class IndiceDenominacion {
+    private static final int LONGITUD_TRIGRAMA = 3;
+
+    // Denominaciones en minúsculas, por ordinal de inserción
+    private List<String> denominaciones;
+    // Trigrama -> ordinales (ascendentes) de los equipos que lo contienen
+    private Map<String, ListaOrdinales> trigramas;
+
+    /**
+     * Constructor que inicializa el índice vacío
+     */
+    IndiceDenominacion() {
+        this.denominaciones = new ArrayList<>();
+        this.trigramas = new HashMap<>();
+    }
+
+    /**
+     * Normaliza un texto para la búsqueda sin distinguir mayúsculas
+     * @param texto texto a normalizar
+     * @return String en minúsculas
+     */
+    static String normalizar(String texto) {
+        return texto == null ? "" : texto.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Indexa la denominación del siguiente equipo
+     * El ordinal debe coincidir con la posición del equipo en el repositorio
+     * @param ordinal posición del equipo
+     * @param denominacion nombre del equipo
+     */
+    void indexar(int ordinal, String denominacion) {
+        String nombre = normalizar(denominacion);
+        denominaciones.add(nombre);
+        for (int i = 0; i + LONGITUD_TRIGRAMA <= nombre.length(); i++) {
+            trigramas.computeIfAbsent(nombre.substring(i, i + LONGITUD_TRIGRAMA),
+                    k -> new ListaOrdinales()).agregar(ordinal);
+        }
+    }
+
+    /**
+     * Busca los equipos cuya denominación contiene el texto
+     * Los resultados se ordenan por calidad de coincidencia:
+     * nombre exacto, prefijo, inicio de palabra y luego cualquier posición
+     * @param texto texto a buscar
+     * @return arreglo con los ordinales encontrados, ya ordenados
+     */
+    int[] buscar(String texto) {
+        String consulta = normalizar(texto);
+        if (consulta.isEmpty()) {
+            // Sin texto coinciden todos, en el orden de registro
+            int[] todos = new int[denominaciones.size()];
+            Arrays.setAll(todos, i -> i);
+            return todos;
+        }
+        int[] candidatos = consulta.length() < LONGITUD_TRIGRAMA
+                ? null : intersectarCandidatos(consulta);
+        if (candidatos != null && candidatos.length == 0) {
+            return candidatos;
+        }
+
+        List<Coincidencia> coincidencias = new ArrayList<>();
+        int total = candidatos == null ? denominaciones.size() : candidatos.length;
+        for (int i = 0; i < total; i++) {
+            int ordinal = candidatos == null ? i : candidatos[i];
+            String nombre = denominaciones.get(ordinal);
+            int posicion = nombre.indexOf(consulta);
+            if (posicion >= 0) {
+                coincidencias.add(new Coincidencia(ordinal,
+                        calificar(nombre, consulta, posicion), posicion, nombre.length()));
+            }
+        }
+
+        coincidencias.sort(null);
+        int[] resultado = new int[coincidencias.size()];
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = coincidencias.get(i).ordinal;
+        }
+        return resultado;
+    }
+
+    /**
+     * Intersecta las listas de todos los trigramas de la consulta
+     * @param consulta texto normalizado de al menos tres caracteres
+     * @return ordinales que contienen todos los trigramas
+     */
+    private int[] intersectarCandidatos(String consulta) {
+        List<ListaOrdinales> listas = new ArrayList<>();
+        for (int i = 0; i + LONGITUD_TRIGRAMA <= consulta.length(); i++) {
+            ListaOrdinales lista = trigramas.get(consulta.substring(i, i + LONGITUD_TRIGRAMA));
+            if (lista == null) {
+                return new int[0];
+            }
+            listas.add(lista);
+        }
+        // Empezar por la lista más corta reduce el trabajo de cada intersección
+        listas.sort((a, b) -> Integer.compare(a.tamano, b.tamano));
+
+        int[] actual = Arrays.copyOf(listas.get(0).datos, listas.get(0).tamano);
+        int cantidad = actual.length;
+        for (int l = 1; l < listas.size() && cantidad > 0; l++) {
+            ListaOrdinales otra = listas.get(l);
+            int conservados = 0;
+            for (int i = 0; i < cantidad; i++) {
+                if (Arrays.binarySearch(otra.datos, 0, otra.tamano, actual[i]) >= 0) {
+                    actual[conservados++] = actual[i];
+                }
+            }
+            cantidad = conservados;
+        }
+        return cantidad == actual.length ? actual : Arrays.copyOf(actual, cantidad);
+    }
+
+    /**
+     * Califica una coincidencia, menor es mejor
+     */
+    private static int calificar(String nombre, String consulta, int posicion) {
+        if (posicion == 0) {
+            return nombre.length() == consulta.length() ? 0 : 1;
+        }
+        return Character.isLetterOrDigit(nombre.charAt(posicion - 1)) ? 3 : 2;
+    }
+
+    /**
+     * Lista creciente de ordinales sin duplicados consecutivos
+     */
+    private static class ListaOrdinales {
+        private int[] datos = new int[4];
+        private int tamano;
+
+        void agregar(int ordinal) {
+            if (tamano > 0 && datos[tamano - 1] == ordinal) {
+                return;
+            }
+            if (tamano == datos.length) {
+                datos = Arrays.copyOf(datos, tamano * 2);
+            }
+            datos[tamano++] = ordinal;
+        }
+    }
+
+    /**
+     * Resultado intermedio de una búsqueda con su calificación
+     */
+    private static class Coincidencia implements Comparable<Coincidencia> {
+        private final int ordinal;
+        private final int calidad;
+        private final int posicion;
+        private final int longitud;
+
+        Coincidencia(int ordinal, int calidad, int posicion, int longitud) {
+            this.ordinal = ordinal;
+            this.calidad = calidad;
+            this.posicion = posicion;
+            this.longitud = longitud;
+        }
+
+        @Override
+        public int compareTo(Coincidencia otra) {
+            if (calidad != otra.calidad) return Integer.compare(calidad, otra.calidad);
+            if (posicion != otra.posicion) return Integer.compare(posicion, otra.posicion);
+            if (longitud != otra.longitud) return Integer.compare(longitud, otra.longitud);
+            return Integer.compare(ordinal, otra.ordinal);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.paiz.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Clase IndiceSecundario
+ * Asocia cada valor de un atributo con el conjunto de ordinales que lo tienen
+ * Los conjuntos son BitSet para que los filtros combinados sean un AND
+ * @author Franco Paiz
+ * @version 1.0
+ */
+class IndiceSecundario {
+    private static final BitSet VACIO = new BitSet();
+
+    // Valor normalizado -> ordinales de los equipos con ese valor
+    private Map<String, BitSet> conjuntos;
+    // Valor tal como se registró por primera vez, para listarlo
+    private Map<String, String> valoresOriginales;
+
+    /**
+     * Constructor que inicializa el índice vacío
+     */
+    IndiceSecundario() {
+        this.conjuntos = new HashMap<>();
+        this.valoresOriginales = new LinkedHashMap<>();
+    }
+
+    private static String normalizar(String valor) {
+        return valor.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Registra el valor del equipo con el ordinal dado
+     * @param ordinal posición del equipo en el repositorio
+     * @param valor valor del atributo, se ignora si es null
+     */
+    void indexar(int ordinal, String valor) {
+        if (valor == null) {
+            return;
+        }
+        String clave = normalizar(valor);
+        conjuntos.computeIfAbsent(clave, k -> new BitSet()).set(ordinal);
+        valoresOriginales.putIfAbsent(clave, valor);
+    }
+
+    /**
+     * Obtiene los ordinales con el valor indicado, sin distinguir mayúsculas
+     * El conjunto devuelto no debe modificarse
+     * @param valor valor a buscar
+     * @return BitSet con los ordinales (vacío si no hay coincidencias)
+     */
+    BitSet consultar(String valor) {
+        if (valor == null) {
+            return VACIO;
+        }
+        BitSet conjunto = conjuntos.get(normalizar(valor));
+        return conjunto == null ? VACIO : conjunto;
+    }
+
+    /**
+     * Lista los valores distintos registrados
+     * @return List con cada valor una sola vez
+     */
+    List<String> listarValores() {
+        return new ArrayList<>(valoresOriginales.values());
+    }
+}
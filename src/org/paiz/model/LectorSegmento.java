@@ -0,0 +1,56 @@
+package org.paiz.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Interfaz LectorSegmento
+ * Lectura por posición de un segmento de bitácora, esté o no comprimido
+ * Las posiciones son las del segmento original sin comprimir
+ * @author Franco Paiz
+ * @version 1.0
+ */
+interface LectorSegmento extends AutoCloseable {
+    int getInt(int posicion);
+
+    long getLong(int posicion);
+
+    double getDouble(int posicion);
+
+    void get(int posicion, byte[] destino);
+
+    /**
+     * Libera los recursos del lector
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * Lector sobre un segmento sin comprimir ya mapeado en memoria
+     * @param datos contenido del segmento
+     * @return LectorSegmento que lee directamente del búfer
+     */
+    static LectorSegmento de(ByteBuffer datos) {
+        return new LectorSegmento() {
+            @Override
+            public int getInt(int posicion) {
+                return datos.getInt(posicion);
+            }
+
+            @Override
+            public long getLong(int posicion) {
+                return datos.getLong(posicion);
+            }
+
+            @Override
+            public double getDouble(int posicion) {
+                return datos.getDouble(posicion);
+            }
+
+            @Override
+            public void get(int posicion, byte[] destino) {
+                datos.get(posicion, destino);
+            }
+        };
+    }
+}
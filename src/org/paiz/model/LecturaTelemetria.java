@@ -0,0 +1,97 @@
+package org.paiz.model;
+
+import org.paiz.interfaces.IMedible;
+
+import java.time.Instant;
+
+/**
+ * Clase LecturaTelemetria
+ * Búfer reutilizable con una lectura de un equipo medible: instante y
+ * valor de cada canal reportado
+ *
+ * Quien sondea muchos equipos crea una sola lectura y la pasa a cada
+ * IMedible.capturarDatos(LecturaTelemetria); llenarla no crea objetos.
+ * El texto de la lectura se arma solo si se pide con renderizar().
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class LecturaTelemetria {
+    private static final int CANALES = CanalTelemetria.values().length;
+
+    private IMedible origen;
+    private long instanteNanos;
+    private final double[] valores;
+    // Bit i encendido si la lectura trae el canal de ordinal i
+    private long presentes;
+
+    /**
+     * Constructor de una lectura vacía
+     */
+    public LecturaTelemetria() {
+        this.valores = new double[CANALES];
+    }
+
+    /**
+     * Vacía la lectura para llenarla con una captura nueva
+     * @param origen equipo que captura
+     * @param instanteNanos instante de la captura en nanosegundos de época
+     */
+    public void reiniciar(IMedible origen, long instanteNanos) {
+        this.origen = origen;
+        this.instanteNanos = instanteNanos;
+        this.presentes = 0;
+    }
+
+    /**
+     * Anota el valor de un canal
+     * @param canal magnitud medida
+     * @param valor valor en la unidad del canal
+     */
+    public void poner(CanalTelemetria canal, double valor) {
+        valores[canal.ordinal()] = valor;
+        presentes |= 1L << canal.ordinal();
+    }
+
+    /**
+     * Indica si la lectura trae un canal
+     * @param canal magnitud buscada
+     * @return boolean true si el equipo la reportó
+     */
+    public boolean tiene(CanalTelemetria canal) {
+        return (presentes & (1L << canal.ordinal())) != 0;
+    }
+
+    /**
+     * Valor de un canal
+     * @param canal magnitud buscada
+     * @return double con el valor, o NaN si la lectura no lo trae
+     */
+    public double obtener(CanalTelemetria canal) {
+        return tiene(canal) ? valores[canal.ordinal()] : Double.NaN;
+    }
+
+    public IMedible getOrigen() {
+        return origen;
+    }
+
+    public long getInstanteNanos() {
+        return instanteNanos;
+    }
+
+    public Instant getInstante() {
+        return Instant.ofEpochSecond(0, instanteNanos);
+    }
+
+    /**
+     * Texto de la lectura con el formato del equipo que la capturó
+     * @return String con los datos, o vacío si aún no se capturó nada
+     */
+    public String renderizar() {
+        return origen == null ? "" : origen.describirLectura(this);
+    }
+
+    @Override
+    public String toString() {
+        return renderizar();
+    }
+}
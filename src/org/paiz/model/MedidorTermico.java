@@ -3,10 +3,7 @@ package org.paiz.model;
 import org.paiz.interfaces.IAuditable;
 import org.paiz.interfaces.IMedible;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Clase MedidorTermico
@@ -15,43 +12,70 @@ import java.time.format.DateTimeFormatter;
  * @version 1.0
  */
 public class MedidorTermico extends Equipo implements IMedible, IAuditable {
+    static final String CATEGORIA = "Medidor Térmico";
+
     private String rangoTermico;
     private String escala;
-    private List<String> bitacora;
+    private final CanalBitacora bitacora;
 
     public MedidorTermico(String codigo, String denominacion, String marca,
                           double consumo, String zona, String rango) {
+        this(codigo, denominacion, marca, consumo, zona, rango, true);
+    }
+
+    /**
+     * Constructor que permite omitir la anotación de inicialización
+     * @param anotarInicio false al reconstruir un equipo que ya se dio de alta
+     */
+    MedidorTermico(String codigo, String denominacion, String marca,
+                   double consumo, String zona, String rango, boolean anotarInicio) {
         super(codigo, denominacion, marca, consumo, zona);
         this.rangoTermico = rango;
         this.escala = "Celsius";
-        this.bitacora = new ArrayList<>();
-        agregarRegistro("Medidor térmico inicializado");
+        this.bitacora = MotorBitacora.global().abrirCanal(codigo, zona);
+        if (anotarInicio) {
+            bitacora.registrar(EventoBitacora.INICIALIZACION, "Medidor térmico inicializado");
+        }
+    }
+
+    @Override
+    public void capturarDatos(LecturaTelemetria lectura) {
+        FuenteSimulada fuente = SimuladorSensores.global().fuente(codigo);
+        lectura.reiniciar(this, fuente.siguienteInstante());
+        double temperatura = fuente.temperaturaDiurna(24.0, 8.0);
+        lectura.poner(CanalTelemetria.TEMPERATURA, temperatura);
+        bitacora.registrar(EventoBitacora.TEMPERATURA_REGISTRADA, temperatura);
     }
 
     @Override
-    public String capturarDatos() {
-        double temperatura = 10.0 + Math.random() * 30.0;
-        String lectura = String.format("Temperatura: %.2f°%s (Rango: %s)",
-                temperatura, escala, rangoTermico);
-        agregarRegistro("Temperatura registrada: " + temperatura);
-        return lectura;
+    public String describirLectura(LecturaTelemetria lectura) {
+        return String.format("Temperatura: %.2f°%s (Rango: %s)",
+                lectura.obtener(CanalTelemetria.TEMPERATURA), escala, rangoTermico);
     }
 
     @Override
     public void agregarRegistro(String entrada) {
-        String timestamp = LocalDateTime.now()
-                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        bitacora.add(timestamp + " - " + entrada);
+        bitacora.registrar(entrada);
     }
 
     @Override
     public List<String> consultarBitacora() {
-        return new ArrayList<>(bitacora);
+        return bitacora.consultar();
+    }
+
+    @Override
+    public List<String> consultarUltimosRegistros(int cantidad) {
+        return bitacora.consultarUltimos(cantidad);
+    }
+
+    @Override
+    public int contarRegistros() {
+        return bitacora.contarRegistros();
     }
 
     @Override
     public String obtenerCategoria() {
-        return "Medidor Térmico";
+        return CATEGORIA;
     }
 
     @Override
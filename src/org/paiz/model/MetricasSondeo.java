@@ -0,0 +1,89 @@
+package org.paiz.model;
+
+/**
+ * Clase MetricasSondeo
+ * Foto de las métricas del planificador de sondeo
+ *
+ * El retraso de un sondeo es el tiempo entre el instante en que le tocaba
+ * y el instante en que un hilo empezó a leer el equipo. La tasa y los
+ * retrasos son los de la ventana desde la foto anterior; el percentil 99 se
+ * toma de un histograma por potencias de dos, así que es una cota superior.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class MetricasSondeo {
+    private final int programados;
+    private final long realizados;
+    private final long omitidos;
+    private final long fallidos;
+    private final double sondeosPorSegundo;
+    private final long retrasoPromedioNanos;
+    private final long retrasoP99Nanos;
+    private final long retrasoMaximoNanos;
+
+    /**
+     * Constructor
+     * @param programados equipos con sondeo programado
+     * @param realizados sondeos terminados
+     * @param omitidos sondeos que no se hicieron porque el anterior seguía en
+     *                 curso o la cola de hilos estaba llena
+     * @param fallidos sondeos en los que el equipo lanzó una excepción
+     * @param sondeosPorSegundo sondeos realizados por segundo en la ventana
+     * @param retrasoPromedioNanos retraso promedio en la ventana
+     * @param retrasoP99Nanos cota del percentil 99 del retraso en la ventana
+     * @param retrasoMaximoNanos retraso máximo en la ventana
+     */
+    public MetricasSondeo(int programados, long realizados, long omitidos, long fallidos,
+                          double sondeosPorSegundo, long retrasoPromedioNanos,
+                          long retrasoP99Nanos, long retrasoMaximoNanos) {
+        this.programados = programados;
+        this.realizados = realizados;
+        this.omitidos = omitidos;
+        this.fallidos = fallidos;
+        this.sondeosPorSegundo = sondeosPorSegundo;
+        this.retrasoPromedioNanos = retrasoPromedioNanos;
+        this.retrasoP99Nanos = retrasoP99Nanos;
+        this.retrasoMaximoNanos = retrasoMaximoNanos;
+    }
+
+    // Getters
+    public int getProgramados() {
+        return programados;
+    }
+
+    public long getRealizados() {
+        return realizados;
+    }
+
+    public long getOmitidos() {
+        return omitidos;
+    }
+
+    public long getFallidos() {
+        return fallidos;
+    }
+
+    public double getSondeosPorSegundo() {
+        return sondeosPorSegundo;
+    }
+
+    public long getRetrasoPromedioNanos() {
+        return retrasoPromedioNanos;
+    }
+
+    public long getRetrasoP99Nanos() {
+        return retrasoP99Nanos;
+    }
+
+    public long getRetrasoMaximoNanos() {
+        return retrasoMaximoNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d equipos, %d sondeos (%.0f/s), %d omitidos, %d fallidos, "
+                        + "retraso promedio %.2f ms, p99 < %.2f ms, máximo %.2f ms",
+                programados, realizados, sondeosPorSegundo, omitidos, fallidos,
+                retrasoPromedioNanos / 1e6, retrasoP99Nanos / 1e6, retrasoMaximoNanos / 1e6);
+    }
+}
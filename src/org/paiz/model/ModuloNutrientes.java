@@ -5,8 +5,6 @@ import org.paiz.interfaces.IEjecutable;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Clase ModuloNutrientes
@@ -15,20 +13,33 @@ import java.time.format.DateTimeFormatter;
  * @version 1.0
  */
 public class ModuloNutrientes extends Equipo implements IEjecutable, IAuditable {
+    static final String CATEGORIA = "Sistema de Fertilización";
+
     private double capacidadLitros;
     private List<String> formulasDisponibles;
     private double dosisProgramada;
-    private List<String> bitacora;
+    private final CanalBitacora bitacora;
 
     public ModuloNutrientes(String codigo, String denominacion, String marca,
                             double consumo, String zona, double capacidad) {
+        this(codigo, denominacion, marca, consumo, zona, capacidad, true);
+    }
+
+    /**
+     * Constructor que permite omitir la anotación de inicialización
+     * @param anotarInicio false al reconstruir un equipo que ya se dio de alta
+     */
+    ModuloNutrientes(String codigo, String denominacion, String marca,
+                     double consumo, String zona, double capacidad, boolean anotarInicio) {
         super(codigo, denominacion, marca, consumo, zona);
         this.capacidadLitros = capacidad;
         this.formulasDisponibles = new ArrayList<>();
         this.dosisProgramada = 0.0;
-        this.bitacora = new ArrayList<>();
+        this.bitacora = MotorBitacora.global().abrirCanal(codigo, zona);
         inicializarFormulas();
-        agregarRegistro("Módulo de nutrientes inicializado");
+        if (anotarInicio) {
+            bitacora.registrar(EventoBitacora.INICIALIZACION, "Módulo de nutrientes inicializado");
+        }
     }
 
     private void inicializarFormulas() {
@@ -42,15 +53,14 @@ public class ModuloNutrientes extends Equipo implements IEjecutable, IAuditable
         boolean exitoso = false;
 
         if (instruccion.startsWith("APLICAR")) {
-            dosisProgramada = 5.0 + Math.random() * 15.0;
-            agregarRegistro(String.format("Aplicación iniciada - Dosis: %.2f L",
-                    dosisProgramada));
+            dosisProgramada = SimuladorSensores.global().fuente(codigo).uniforme(5.0, 20.0);
+            bitacora.registrar(EventoBitacora.APLICACION_INICIADA, dosisProgramada);
             exitoso = true;
         } else if (instruccion.equalsIgnoreCase("DETENER")) {
-            agregarRegistro("Aplicación detenida");
+            bitacora.registrar(EventoBitacora.APLICACION_DETENIDA);
             exitoso = true;
         } else if (instruccion.startsWith("PROGRAMAR")) {
-            agregarRegistro("Nueva dosificación programada");
+            bitacora.registrar(EventoBitacora.DOSIFICACION_PROGRAMADA);
             exitoso = true;
         }
 
@@ -59,19 +69,27 @@ public class ModuloNutrientes extends Equipo implements IEjecutable, IAuditable
 
     @Override
     public void agregarRegistro(String entrada) {
-        String timestamp = LocalDateTime.now()
-                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        bitacora.add(timestamp + " - " + entrada);
+        bitacora.registrar(entrada);
     }
 
     @Override
     public List<String> consultarBitacora() {
-        return new ArrayList<>(bitacora);
+        return bitacora.consultar();
+    }
+
+    @Override
+    public List<String> consultarUltimosRegistros(int cantidad) {
+        return bitacora.consultarUltimos(cantidad);
+    }
+
+    @Override
+    public int contarRegistros() {
+        return bitacora.contarRegistros();
     }
 
     @Override
     public String obtenerCategoria() {
-        return "Sistema de Fertilización";
+        return CATEGORIA;
     }
 
     @Override
@@ -97,7 +115,7 @@ public class ModuloNutrientes extends Equipo implements IEjecutable, IAuditable
     public void incorporarFormula(String formula) {
         if (!formulasDisponibles.contains(formula)) {
             formulasDisponibles.add(formula);
-            agregarRegistro("Nueva fórmula incorporada: " + formula);
+            bitacora.registrar(EventoBitacora.FORMULA_INCORPORADA, formula);
         }
     }
 
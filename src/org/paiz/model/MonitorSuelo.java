@@ -3,10 +3,7 @@ package org.paiz.model;
 import org.paiz.interfaces.IAuditable;
 import org.paiz.interfaces.IMedible;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Clase MonitorSuelo
@@ -15,10 +12,12 @@ import java.time.format.DateTimeFormatter;
  * @version 1.0
  */
 public class MonitorSuelo extends Equipo implements IMedible, IAuditable {
+    static final String CATEGORIA = "Sensor de Suelo";
+
     private double profundidadCm;
     private String categoriaMonitor;
     private double valorActual;
-    private List<String> bitacora;
+    private final CanalBitacora bitacora;
 
     /**
      * Constructor de MonitorSuelo
@@ -26,39 +25,66 @@ public class MonitorSuelo extends Equipo implements IMedible, IAuditable {
     public MonitorSuelo(String codigo, String denominacion, String marca,
                         double consumo, String zona, double profundidadCm,
                         String categoriaMonitor) {
+        this(codigo, denominacion, marca, consumo, zona, profundidadCm, categoriaMonitor, true);
+    }
+
+    /**
+     * Constructor que permite omitir la anotación de inicialización
+     * @param anotarInicio false al reconstruir un equipo que ya se dio de alta
+     */
+    MonitorSuelo(String codigo, String denominacion, String marca,
+                 double consumo, String zona, double profundidadCm,
+                 String categoriaMonitor, boolean anotarInicio) {
         super(codigo, denominacion, marca, consumo, zona);
         this.profundidadCm = profundidadCm;
         this.categoriaMonitor = categoriaMonitor;
         this.valorActual = 0.0;
-        this.bitacora = new ArrayList<>();
-        agregarRegistro("Monitor de suelo inicializado");
+        this.bitacora = MotorBitacora.global().abrirCanal(codigo, zona);
+        if (anotarInicio) {
+            bitacora.registrar(EventoBitacora.INICIALIZACION, "Monitor de suelo inicializado");
+        }
+    }
+
+    @Override
+    public void capturarDatos(LecturaTelemetria lectura) {
+        // Simula el secado del suelo entre riegos
+        FuenteSimulada fuente = SimuladorSensores.global().fuente(codigo);
+        lectura.reiniciar(this, fuente.siguienteInstante());
+        valorActual = fuente.humedadSuelo(40.0, 12.0, 18.0);
+        lectura.poner(CanalTelemetria.HUMEDAD_SUELO, valorActual);
+        lectura.poner(CanalTelemetria.PROFUNDIDAD, profundidadCm);
+        bitacora.registrar(EventoBitacora.LECTURA_CAPTURADA, valorActual);
     }
 
     @Override
-    public String capturarDatos() {
-        // Simula lectura de sensor
-        valorActual = 15.0 + Math.random() * 25.0;
-        String lectura = String.format("Humedad del suelo: %.2f%% a %.1fcm de profundidad",
-                valorActual, profundidadCm);
-        agregarRegistro("Lectura capturada: " + valorActual);
-        return lectura;
+    public String describirLectura(LecturaTelemetria lectura) {
+        return String.format("Humedad del suelo: %.2f%% a %.1fcm de profundidad",
+                lectura.obtener(CanalTelemetria.HUMEDAD_SUELO), lectura.obtener(CanalTelemetria.PROFUNDIDAD));
     }
 
     @Override
     public void agregarRegistro(String entrada) {
-        String timestamp = LocalDateTime.now()
-                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        bitacora.add(timestamp + " - " + entrada);
+        bitacora.registrar(entrada);
     }
 
     @Override
     public List<String> consultarBitacora() {
-        return new ArrayList<>(bitacora);
+        return bitacora.consultar();
+    }
+
+    @Override
+    public List<String> consultarUltimosRegistros(int cantidad) {
+        return bitacora.consultarUltimos(cantidad);
+    }
+
+    @Override
+    public int contarRegistros() {
+        return bitacora.contarRegistros();
     }
 
     @Override
     public String obtenerCategoria() {
-        return "Sensor de Suelo";
+        return CATEGORIA;
     }
 
     @Override
@@ -0,0 +1,649 @@
+package org.paiz.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Clase MotorBitacora
+ * Almacén único de bitácora compartido por todos los equipos auditables
+ *
+ * Los registros van a un búfer circular con capacidad global fija: al
+ * llenarse se sobrescriben los más antiguos. Las columnas empiezan chicas y
+ * duplican su tamaño a medida que llegan registros, hasta la capacidad
+ * global; un motor con poca actividad no reserva memoria para toda la
+ * capacidad. Además cada equipo conserva como máximo la cantidad de
+ * registros de su retención.
+ *
+ * Cada registro se guarda en columnas primitivas (instante en nanosegundos
+ * de época, canal, código de evento y dos argumentos numéricos), más una
+ * referencia opcional a un texto ya existente. Agregar un registro no crea
+ * objetos; el texto con la fecha se arma solo al consultar la bitácora.
+ *
+ * Con un DiarioBitacora adjunto cada registro también se persiste en disco,
+ * y al adjuntarlo se recuperan en el búfer los registros más recientes.
+ * Con un EscritorBitacora activo quien registra solo encola; las consultas
+ * esperan a que se aplique lo encolado antes de leer.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class MotorBitacora {
+    public static final int RETENCION_POR_DEFECTO = 1_000;
+    public static final int CAPACIDAD_POR_DEFECTO = 1 << 20;
+    // Casillas asignadas al crear el motor; crecen al doble al llenarse
+    static final int CASILLAS_INICIALES = 1 << 10;
+    // Instante, canal, evento, dos argumentos y referencia al texto
+    private static final int BYTES_POR_CASILLA = 8 + 4 + 4 + 16 + 4;
+
+    private static final DateTimeFormatter FORMATO_FECHA =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+    private static final MotorBitacora GLOBAL = new MotorBitacora();
+
+    // Referencia para obtener nanosegundos de época sin crear objetos
+    private static final long ORIGEN_EPOCA_NANOS = System.currentTimeMillis() * 1_000_000L;
+    private static final long ORIGEN_MONOTONICO = System.nanoTime();
+
+    private int retencionPorEquipo;
+    private int capacidad;
+    // Búfer circular en columnas: la posición de la secuencia s es
+    // s % casillas, con casillas <= capacidad
+    private int casillas;
+    private long[] instantes;
+    private int[] canalesRegistro;
+    private int[] eventos;
+    private double[] argumentos;
+    private String[] textos;
+    // Las secuencias vivas son [primeraViva, siguiente)
+    private long primeraViva;
+    private long siguiente;
+
+    private final Map<String, CanalBitacora> canalesPorCodigo;
+    private final List<CanalBitacora> canales;
+    // Persistencia opcional en disco
+    private DiarioBitacora diario;
+    // Quien aplica registros lo toma antes que el candado del motor y lo
+    // conserva mientras escribe en el diario: el disco recibe los registros
+    // en orden sin que el candado del motor espere la escritura
+    private final ReentrantLock ordenDiario = new ReentrantLock();
+    // Escritura asíncrona opcional; null si se registra en el hilo que llama
+    private volatile EscritorBitacora escritor;
+    // Instante del registro más reciente; mantiene los instantes en orden
+    private long ultimoInstante;
+
+    /**
+     * Constructor con los límites por defecto
+     */
+    public MotorBitacora() {
+        this(RETENCION_POR_DEFECTO, CAPACIDAD_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor con límites configurables
+     * @param retencionPorEquipo registros máximos que conserva cada equipo
+     * @param capacidadGlobal registros máximos entre todos los equipos
+     */
+    public MotorBitacora(int retencionPorEquipo, int capacidadGlobal) {
+        validarLimites(retencionPorEquipo, capacidadGlobal);
+        this.retencionPorEquipo = retencionPorEquipo;
+        this.capacidad = capacidadGlobal;
+        asignarColumnas(Math.min(capacidadGlobal, CASILLAS_INICIALES));
+        this.canalesPorCodigo = new HashMap<>();
+        this.canales = new ArrayList<>();
+    }
+
+    /**
+     * Motor compartido que usan los equipos del sistema
+     * @return MotorBitacora global
+     */
+    public static MotorBitacora global() {
+        return GLOBAL;
+    }
+
+    private static void validarLimites(int retencionPorEquipo, int capacidadGlobal) {
+        if (retencionPorEquipo <= 0 || capacidadGlobal <= 0) {
+            throw new IllegalArgumentException("La retención y la capacidad deben ser positivas");
+        }
+    }
+
+    /**
+     * Cambia los límites conservando los registros más recientes que quepan
+     * @param retencionPorEquipo registros máximos que conserva cada equipo
+     * @param capacidadGlobal registros máximos entre todos los equipos
+     */
+    public synchronized void configurar(int retencionPorEquipo, int capacidadGlobal) {
+        validarLimites(retencionPorEquipo, capacidadGlobal);
+        if (capacidadGlobal != capacidad) {
+            primeraViva = Math.max(primeraViva, siguiente - capacidadGlobal);
+            int vivas = (int) (siguiente - primeraViva);
+            reubicar(Math.min(capacidadGlobal, Math.max(vivas, CASILLAS_INICIALES)));
+            capacidad = capacidadGlobal;
+        }
+        this.retencionPorEquipo = retencionPorEquipo;
+    }
+
+    private void asignarColumnas(int cantidad) {
+        casillas = cantidad;
+        instantes = new long[cantidad];
+        canalesRegistro = new int[cantidad];
+        eventos = new int[cantidad];
+        argumentos = new double[2 * cantidad];
+        textos = new String[cantidad];
+    }
+
+    // Pasa las secuencias vivas a columnas nuevas con otra cantidad de casillas
+    private void reubicar(int cantidad) {
+        long[] viejosInstantes = instantes;
+        int[] viejosCanales = canalesRegistro;
+        int[] viejosEventos = eventos;
+        double[] viejosArgumentos = argumentos;
+        String[] viejosTextos = textos;
+        int casillasAnteriores = casillas;
+        asignarColumnas(cantidad);
+        for (long s = primeraViva; s < siguiente; s++) {
+            int desde = (int) (s % casillasAnteriores);
+            int hasta = posicion(s);
+            instantes[hasta] = viejosInstantes[desde];
+            canalesRegistro[hasta] = viejosCanales[desde];
+            eventos[hasta] = viejosEventos[desde];
+            argumentos[2 * hasta] = viejosArgumentos[2 * desde];
+            argumentos[2 * hasta + 1] = viejosArgumentos[2 * desde + 1];
+            textos[hasta] = viejosTextos[desde];
+        }
+    }
+
+    private int posicion(long secuencia) {
+        return (int) (secuencia % casillas);
+    }
+
+    /**
+     * Instante actual en nanosegundos desde la época, sin crear objetos
+     * Es el reloj de la bitácora y de las lecturas de telemetría
+     * @return long con los nanosegundos
+     */
+    public static long ahoraEpocaNanos() {
+        return ORIGEN_EPOCA_NANOS + (System.nanoTime() - ORIGEN_MONOTONICO);
+    }
+
+    /**
+     * Obtiene el canal de un equipo, creándolo la primera vez
+     * Los equipos con el mismo código comparten canal
+     * @param codigoEquipo código del equipo
+     * @return CanalBitacora del equipo
+     */
+    public CanalBitacora abrirCanal(String codigoEquipo) {
+        return abrirCanal(codigoEquipo, null);
+    }
+
+    /**
+     * Obtiene el canal de un equipo anotando su zona para las consultas
+     * @param codigoEquipo código del equipo
+     * @param zona zona del equipo, o null para conservar la conocida
+     * @return CanalBitacora del equipo
+     */
+    public synchronized CanalBitacora abrirCanal(String codigoEquipo, String zona) {
+        String clave = Equipo.normalizarCodigo(codigoEquipo);
+        CanalBitacora canal = canalesPorCodigo.get(clave);
+        if (canal == null) {
+            canal = new CanalBitacora(this, canales.size(), codigoEquipo);
+            canalesPorCodigo.put(clave, canal);
+            canales.add(canal);
+        }
+        if (zona != null) {
+            canal.setZona(zona);
+        }
+        return canal;
+    }
+
+    /**
+     * Agrega un registro de un canal sin crear objetos
+     * Con escritor asíncrono solo se encola; si no, se aplica en este hilo
+     * y, si hay diario adjunto, también se anexa en disco
+     */
+    void registrar(CanalBitacora canal, EventoBitacora evento,
+                   double primero, double segundo, String texto) {
+        long instante = ahoraEpocaNanos();
+        EscritorBitacora actual = escritor;
+        if (actual != null) {
+            actual.encolar(canal, instante, evento, primero, segundo, texto);
+            return;
+        }
+        ordenDiario.lock();
+        try {
+            DiarioBitacora destino;
+            synchronized (this) {
+                instante = aplicar(canal, instante, evento, primero, segundo, texto);
+                destino = diario;
+            }
+            if (destino != null) {
+                destino.anexar(canal, instante, evento, primero, segundo, texto);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir la bitácora en disco", e);
+        } finally {
+            ordenDiario.unlock();
+        }
+    }
+
+    /**
+     * Aplica en el motor un lote de registros encolados por el escritor
+     * @return int con la cantidad de registros aplicados
+     */
+    int aplicarLote(EscritorBitacora origen, int maximo) {
+        int aplicados = 0;
+        ordenDiario.lock();
+        // Solo se usa con ordenDiario tomado
+        long[] posiciones = origen.posicionesLote();
+        try {
+            DiarioBitacora destino;
+            synchronized (this) {
+                long posicion;
+                int tope = Math.min(maximo, posiciones.length);
+                while (aplicados < tope && (posicion = origen.reservar()) >= 0) {
+                    int casilla = origen.casilla(posicion);
+                    origen.fijarInstante(casilla, aplicar(origen.canal(casilla), origen.instante(casilla),
+                            origen.evento(casilla), origen.primero(casilla), origen.segundo(casilla),
+                            origen.texto(casilla)));
+                    posiciones[aplicados++] = posicion;
+                }
+                destino = diario;
+            }
+            // Las posiciones pueden no ser consecutivas: con DESCARTAR_ANTIGUO un
+            // productor reserva y libera casillas sin tomar ordenDiario
+            for (int i = 0; destino != null && i < aplicados; i++) {
+                int casilla = origen.casilla(posiciones[i]);
+                try {
+                    destino.anexar(origen.canal(casilla), origen.instante(casilla), origen.evento(casilla),
+                            origen.primero(casilla), origen.segundo(casilla), origen.texto(casilla));
+                } catch (IOException e) {
+                    origen.registrarError(e);
+                }
+            }
+        } finally {
+            for (int i = 0; i < aplicados; i++) {
+                origen.liberar(posiciones[i]);
+            }
+            ordenDiario.unlock();
+        }
+        return aplicados;
+    }
+
+    /**
+     * Inserta en el búfer con el instante corregido para mantener el orden
+     * @return long con el instante con que quedó el registro
+     */
+    private long aplicar(CanalBitacora canal, long instante, EventoBitacora evento,
+                         double primero, double segundo, String texto) {
+        // Registros de varios hilos pueden llegar con instantes apenas desordenados
+        long instanteOrdenado = Math.max(instante, ultimoInstante);
+        insertar(canal, instanteOrdenado, evento, primero, segundo, texto);
+        return instanteOrdenado;
+    }
+
+    private void insertar(CanalBitacora canal, long instante, EventoBitacora evento,
+                          double primero, double segundo, String texto) {
+        if (siguiente - primeraViva == casillas && casillas < capacidad) {
+            reubicar((int) Math.min(capacidad, 2L * casillas));
+        }
+        long secuencia = siguiente++;
+        if (siguiente - primeraViva > capacidad) {
+            primeraViva = siguiente - capacidad;
+        }
+        int posicion = posicion(secuencia);
+        instantes[posicion] = instante;
+        canalesRegistro[posicion] = canal.getId();
+        eventos[posicion] = evento.ordinal();
+        argumentos[2 * posicion] = primero;
+        argumentos[2 * posicion + 1] = segundo;
+        textos[posicion] = texto;
+        canal.recordar(secuencia, retencionPorEquipo);
+        ultimoInstante = Math.max(ultimoInstante, instante);
+    }
+
+    /**
+     * Activa la escritura asíncrona: desde ahora registrar solo encola
+     * @param capacidad casillas de la cola (potencia de dos)
+     * @param politica qué hacer cuando la cola está llena
+     * @param factorMuestreo con MUESTREAR, se conserva uno de cada tantos registros
+     * @return EscritorBitacora activo, con sus contadores
+     */
+    public synchronized EscritorBitacora iniciarEscritor(int capacidad, PoliticaPresion politica,
+                                                         int factorMuestreo) {
+        if (escritor != null) {
+            throw new IllegalStateException("El motor ya tiene un escritor asíncrono");
+        }
+        escritor = new EscritorBitacora(this, capacidad, politica, factorMuestreo);
+        return escritor;
+    }
+
+    /**
+     * Activa la escritura asíncrona con la capacidad y el muestreo por defecto
+     * @param politica qué hacer cuando la cola está llena
+     * @return EscritorBitacora activo, con sus contadores
+     */
+    public EscritorBitacora iniciarEscritor(PoliticaPresion politica) {
+        return iniciarEscritor(EscritorBitacora.CAPACIDAD_POR_DEFECTO, politica,
+                EscritorBitacora.FACTOR_MUESTREO_POR_DEFECTO);
+    }
+
+    /**
+     * Vuelve a registrar en el hilo que llama, después de aplicar lo encolado
+     */
+    public void detenerEscritor() {
+        EscritorBitacora anterior;
+        synchronized (this) {
+            anterior = escritor;
+            escritor = null;
+        }
+        // Fuera del candado: el hilo escritor lo necesita para terminar
+        if (anterior != null) {
+            anterior.detener();
+        }
+    }
+
+    /**
+     * Barrera: espera a que se apliquen los registros encolados hasta ahora
+     * No debe llamarse con el candado del motor tomado
+     */
+    public void esperarEscritura() {
+        EscritorBitacora actual = escritor;
+        if (actual != null) {
+            actual.esperarVaciado();
+        }
+    }
+
+    /**
+     * Adjunta un diario en disco: recupera sus registros más recientes en
+     * el búfer y desde entonces persiste cada registro nuevo
+     * @param nuevoDiario diario a adjuntar
+     * @return long con la cantidad de registros recuperados
+     * @throws IOException si falla la lectura del diario
+     */
+    public synchronized long adjuntarDiario(DiarioBitacora nuevoDiario) throws IOException {
+        if (diario != null) {
+            throw new IllegalStateException("El motor ya tiene un diario adjunto");
+        }
+        long recuperados = nuevoDiario.recorrerRecientes(capacidad,
+                (instante, codigo, evento, primero, segundo, texto) ->
+                        insertar(abrirCanal(codigo), instante, evento, primero, segundo, texto));
+        diario = nuevoDiario;
+        return recuperados;
+    }
+
+    /**
+     * Deja de persistir los registros nuevos
+     * El diario no se cierra; eso queda a cargo de quien lo abrió
+     * @return DiarioBitacora que estaba adjunto, o null
+     */
+    public DiarioBitacora separarDiario() {
+        // Espera los anexos en curso para que quien lo abrió pueda cerrarlo
+        ordenDiario.lock();
+        try {
+            synchronized (this) {
+                DiarioBitacora anterior = diario;
+                diario = null;
+                return anterior;
+            }
+        } finally {
+            ordenDiario.unlock();
+        }
+    }
+
+    /**
+     * Reconstruye los registros vivos de un canal, del más antiguo al más reciente
+     */
+    List<String> consultar(CanalBitacora canal) {
+        esperarEscritura();
+        return consultarAplicados(canal);
+    }
+
+    private synchronized List<String> consultarAplicados(CanalBitacora canal) {
+        long[] secuencias = canal.secuenciasRetenidas(retencionPorEquipo);
+        List<String> registros = new ArrayList<>(secuencias.length);
+        for (long secuencia : secuencias) {
+            if (secuencia >= primeraViva) {
+                registros.add(renderizar(secuencia));
+            }
+        }
+        return Collections.unmodifiableList(registros);
+    }
+
+    /**
+     * Reconstruye solo los registros vivos más recientes de un canal
+     */
+    List<String> consultarUltimos(CanalBitacora canal, int cantidad) {
+        esperarEscritura();
+        synchronized (this) {
+            long[] secuencias = canal.secuenciasRecientes(retencionPorEquipo, cantidad);
+            List<String> registros = new ArrayList<>(secuencias.length);
+            for (long secuencia : secuencias) {
+                if (secuencia >= primeraViva) {
+                    registros.add(renderizar(secuencia));
+                }
+            }
+            return Collections.unmodifiableList(registros);
+        }
+    }
+
+    /**
+     * Cantidad de registros vivos de un canal, sin reconstruirlos
+     */
+    int contar(CanalBitacora canal) {
+        esperarEscritura();
+        synchronized (this) {
+            return canal.contarVivas(retencionPorEquipo, primeraViva);
+        }
+    }
+
+    private String renderizar(long secuencia) {
+        int posicion = posicion(secuencia);
+        return renderizar(instantes[posicion], EventoBitacora.desdeCodigo(eventos[posicion]),
+                argumentos[2 * posicion], argumentos[2 * posicion + 1], textos[posicion]);
+    }
+
+    /**
+     * Arma el texto de un registro en el formato de la bitácora
+     * @param instanteNanos nanosegundos desde la época
+     * @param evento tipo de evento
+     * @param primero primer argumento numérico
+     * @param segundo segundo argumento numérico
+     * @param texto argumento de texto
+     * @return String "yyyy-MM-dd HH:mm:ss - mensaje"
+     */
+    static String renderizar(long instanteNanos, EventoBitacora evento,
+                             double primero, double segundo, String texto) {
+        return FORMATO_FECHA.format(Instant.ofEpochSecond(0, instanteNanos))
+                + " - " + evento.renderizar(primero, segundo, texto);
+    }
+
+    /**
+     * Consulta paginada sobre los registros vivos del motor
+     * El rango de tiempo se ubica con búsqueda binaria, porque los instantes
+     * crecen con la secuencia. Con equipo o zona solo se recorren las
+     * secuencias que retienen esos canales. El cursor es la secuencia desde
+     * la que sigue la consulta; si ya se sobrescribió, se continúa desde el
+     * registro vivo más antiguo.
+     * @param filtro criterios de la consulta
+     * @param cursor PaginaBitacora.INICIO o el cursor de la página anterior
+     * @param limite cantidad máxima de registros de la página
+     * @return PaginaBitacora con los registros en orden de tiempo
+     */
+    public PaginaBitacora consultar(FiltroBitacora filtro, long cursor, int limite) {
+        esperarEscritura();
+        return consultarAplicados(filtro, cursor, limite);
+    }
+
+    private synchronized PaginaBitacora consultarAplicados(FiltroBitacora filtro, long cursor, int limite) {
+        List<RegistroBitacora> registros = new ArrayList<>(Math.min(Math.max(limite, 0), 1024));
+        if (cursor == PaginaBitacora.FIN || limite <= 0) {
+            return new PaginaBitacora(registros, cursor);
+        }
+        long desde = Math.max(cursor, primeraViva);
+
+        if (filtro.getClaveCodigo() == null && filtro.getZona() == null) {
+            long secuencia = primeraSecuenciaDesde(desde, siguiente, filtro.getDesdeNanos());
+            for (; secuencia < siguiente; secuencia++) {
+                int posicion = posicion(secuencia);
+                if (instantes[posicion] > filtro.getHastaNanos()) {
+                    break;
+                }
+                if (filtro.aceptaEvento(eventos[posicion])) {
+                    if (registros.size() == limite) {
+                        return new PaginaBitacora(registros, secuencia);
+                    }
+                    registros.add(crearRegistro(posicion));
+                }
+            }
+            return new PaginaBitacora(registros, PaginaBitacora.FIN);
+        }
+
+        // Secuencias de los canales que cumplen el filtro, cada una ordenada
+        List<long[]> listas = new ArrayList<>();
+        if (filtro.getClaveCodigo() != null) {
+            CanalBitacora canal = canalesPorCodigo.get(filtro.getClaveCodigo());
+            if (canal != null && filtro.aceptaZona(canal.getZona())) {
+                listas.add(canal.secuenciasRetenidas(retencionPorEquipo));
+            }
+        } else {
+            for (CanalBitacora canal : canales) {
+                if (filtro.aceptaZona(canal.getZona())) {
+                    listas.add(canal.secuenciasRetenidas(retencionPorEquipo));
+                }
+            }
+        }
+
+        // Mezcla de las listas en orden de secuencia
+        int[] posiciones = new int[listas.size()];
+        PriorityQueue<Integer> frente = new PriorityQueue<>(Math.max(1, listas.size()),
+                (a, b) -> Long.compare(listas.get(a)[posiciones[a]], listas.get(b)[posiciones[b]]));
+        for (int i = 0; i < listas.size(); i++) {
+            posiciones[i] = primeraPosicionDesde(listas.get(i), desde, filtro.getDesdeNanos());
+            if (posiciones[i] < listas.get(i).length) {
+                frente.add(i);
+            }
+        }
+        while (!frente.isEmpty()) {
+            int lista = frente.poll();
+            long secuencia = listas.get(lista)[posiciones[lista]];
+            int posicion = posicion(secuencia);
+            if (instantes[posicion] > filtro.getHastaNanos()) {
+                // Esta lista ya no aporta; las demás pueden tener registros anteriores
+                continue;
+            }
+            if (filtro.aceptaEvento(eventos[posicion])) {
+                if (registros.size() == limite) {
+                    return new PaginaBitacora(registros, secuencia);
+                }
+                registros.add(crearRegistro(posicion));
+            }
+            if (++posiciones[lista] < listas.get(lista).length) {
+                frente.add(lista);
+            }
+        }
+        return new PaginaBitacora(registros, PaginaBitacora.FIN);
+    }
+
+    /**
+     * Primera secuencia en [desde, hasta) con instante mayor o igual al indicado
+     */
+    private long primeraSecuenciaDesde(long desde, long hasta, long instanteMinimo) {
+        long bajo = desde;
+        long alto = hasta;
+        while (bajo < alto) {
+            long medio = (bajo + alto) >>> 1;
+            if (instantes[posicion(medio)] < instanteMinimo) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    /**
+     * Primera posición de una lista de secuencias que sea viva, no menor
+     * que desde y con instante mayor o igual al indicado
+     */
+    private int primeraPosicionDesde(long[] secuencias, long desde, long instanteMinimo) {
+        int bajo = 0;
+        int alto = secuencias.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            long secuencia = secuencias[medio];
+            if (secuencia < desde || instantes[posicion(secuencia)] < instanteMinimo) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    private RegistroBitacora crearRegistro(int posicion) {
+        return new RegistroBitacora(instantes[posicion],
+                canales.get(canalesRegistro[posicion]).getCodigoEquipo(),
+                EventoBitacora.desdeCodigo(eventos[posicion]),
+                argumentos[2 * posicion], argumentos[2 * posicion + 1], textos[posicion]);
+    }
+
+    /**
+     * Cantidad de registros vivos en el motor
+     * @return long con los registros que aún no se sobrescribieron
+     */
+    public long contarRegistros() {
+        esperarEscritura();
+        synchronized (this) {
+            return siguiente - primeraViva;
+        }
+    }
+
+    /**
+     * Memoria estimada de los registros del motor
+     * Cuenta las casillas asignadas (36 bytes por casilla con referencias
+     * comprimidas), no la capacidad global; cada canal guarda 8 bytes por secuencia retenida; los
+     * textos son plantillas o cadenas compartidas y no se cuentan
+     * @return long con los bytes aproximados
+     */
+    public long estimarBytesEnMemoria() {
+        esperarEscritura();
+        synchronized (this) {
+            return (long) casillas * BYTES_POR_CASILLA + (siguiente - primeraViva) * Long.BYTES;
+        }
+    }
+
+    public synchronized int getRetencionPorEquipo() {
+        return retencionPorEquipo;
+    }
+
+    public synchronized int getCapacidadGlobal() {
+        return capacidad;
+    }
+
+    /**
+     * Copia de un arreglo circular en orden, usada por los canales
+     */
+    static long[] enOrden(long[] anillo, int inicio, int cantidad) {
+        long[] resultado = new long[cantidad];
+        int primeraParte = Math.min(cantidad, anillo.length - inicio);
+        System.arraycopy(anillo, inicio, resultado, 0, primeraParte);
+        System.arraycopy(anillo, 0, resultado, primeraParte, cantidad - primeraParte);
+        return resultado;
+    }
+
+    /**
+     * Crece un arreglo circular dejándolo en orden desde la posición 0
+     */
+    static long[] crecer(long[] anillo, int inicio, int cantidad, int nuevaLongitud) {
+        long[] ordenado = enOrden(anillo, inicio, cantidad);
+        return Arrays.copyOf(ordenado, nuevaLongitud);
+    }
+}
@@ -0,0 +1,29 @@
+package org.paiz.model;
+
+/**
+ * Interfaz ObservadorEstado
+ * Recibe los cambios de funcionamiento de un equipo
+ * @author Franco Paiz
+ * @version 1.0
+ */
+interface ObservadorEstado {
+    /**
+     * Notifica que el equipo cambió de estado
+     * @param equipo equipo que cambió
+     * @param enFuncionamiento nuevo estado del equipo
+     */
+    void estadoCambiado(Equipo equipo, boolean enFuncionamiento);
+
+    /**
+     * Combina dos observadores para que ambos reciban los avisos
+     * @param primero observador existente
+     * @param segundo observador nuevo
+     * @return ObservadorEstado que notifica a los dos
+     */
+    static ObservadorEstado combinar(ObservadorEstado primero, ObservadorEstado segundo) {
+        return (equipo, estado) -> {
+            primero.estadoCambiado(equipo, estado);
+            segundo.estadoCambiado(equipo, estado);
+        };
+    }
+}
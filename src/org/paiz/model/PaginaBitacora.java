@@ -0,0 +1,42 @@
+package org.paiz.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Clase PaginaBitacora
+ * Resultado de una consulta paginada de bitácora
+ * Para la página siguiente se repite la consulta con el cursor devuelto
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class PaginaBitacora {
+    // Cursor para empezar desde el principio
+    public static final long INICIO = 0;
+    // Cursor que indica que no quedan registros
+    public static final long FIN = -1;
+
+    private final List<RegistroBitacora> registros;
+    private final long siguienteCursor;
+
+    PaginaBitacora(List<RegistroBitacora> registros, long siguienteCursor) {
+        this.registros = Collections.unmodifiableList(registros);
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    public List<RegistroBitacora> getRegistros() {
+        return registros;
+    }
+
+    public long getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    /**
+     * Indica si puede haber más registros después de esta página
+     * @return boolean true si conviene pedir la siguiente página
+     */
+    public boolean hayMas() {
+        return siguienteCursor != FIN;
+    }
+}
@@ -0,0 +1,460 @@
+package org.paiz.model;
+
+import org.paiz.interfaces.IMedible;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Clase PlanificadorSondeo
+ * Sondea periódicamente los equipos medibles, cada uno con su propio período
+ *
+ * Los sondeos pendientes viven en una rueda de temporización con
+ * RANURAS ranuras de DURACION_TICK cada una; un sondeo más lejano que una
+ * vuelta lleva la cantidad de vueltas que le faltan. Un único hilo
+ * planificador avanza la rueda, junta los sondeos vencidos en lotes de
+ * hasta TAMANO_LOTE y los entrega a un grupo acotado de hilos lectores
+ * (Java 17 no tiene hilos virtuales). Cada lote lleva su propia lectura
+ * reutilizable, así sondear no crea objetos.
+ *
+ * Cada equipo empieza en una fase fija dentro de su período, derivada de
+ * su código, para que la flota no se sondee toda en el mismo tick. Si el
+ * sondeo anterior de un equipo sigue en curso, o la cola de lotes está
+ * llena, el sondeo se omite y se cuenta en las métricas.
+ *
+ * Opcionalmente el planificador lanza una tarea de mantenimiento (por
+ * ejemplo la retención de la telemetría) en los mismos hilos lectores;
+ * nunca hay dos en curso y, si la cola está llena, se reintenta en el
+ * tick siguiente.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class PlanificadorSondeo {
+    public static final long DURACION_TICK = 1_000_000L;
+    public static final int TAMANO_LOTE = 256;
+
+    private static final int RANURAS = 1 << 10;
+    private static final int MASCARA = RANURAS - 1;
+    private static final int LOTES_EN_COLA = 256;
+    // Período mínimo: un tick
+    private static final Duration PERIODO_MINIMO = Duration.ofNanos(DURACION_TICK);
+
+    private final ReceptorLectura receptor;
+    private final ThreadPoolExecutor lectores;
+    private final ArrayBlockingQueue<Lote> lotesLibres;
+    private final ConcurrentHashMap<String, Sondeo> programados;
+    // Altas hechas por otros hilos; el planificador las inserta en la rueda
+    private final ConcurrentLinkedQueue<Sondeo> altas;
+
+    // Solo las usa el hilo planificador
+    private final Sondeo[] ranuras;
+    private long inicio;
+    private long tickActual;
+    private Lote loteActual;
+
+    private final Thread hilo;
+    private volatile boolean activo;
+
+    // Tarea de mantenimiento; null si no hay
+    private Runnable mantenimiento;
+    private long periodoMantenimiento;
+    // Solo lo usa el hilo planificador
+    private long proximoMantenimiento;
+    private volatile boolean mantenimientoEnCurso;
+    private final LongAdder fallosMantenimiento;
+
+    private final LongAdder realizados;
+    private final LongAdder omitidos;
+    private final LongAdder fallidos;
+    private final LongAdder sumaRetrasos;
+    private final AtomicLong retrasoMaximo;
+    // Cantidad de sondeos por potencia de dos del retraso en nanosegundos
+    private final AtomicLongArray histogramaRetrasos;
+    private long realizadosFoto;
+    private long instanteFoto;
+
+    /**
+     * Constructor
+     * @param receptor destino de cada lectura (por ejemplo AlmacenSeries::registrar)
+     * @param hilos cantidad de hilos lectores
+     */
+    public PlanificadorSondeo(ReceptorLectura receptor, int hilos) {
+        if (hilos < 1) {
+            throw new IllegalArgumentException("Se necesita al menos un hilo");
+        }
+        this.receptor = receptor;
+        AtomicInteger numero = new AtomicInteger();
+        this.lectores = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(LOTES_EN_COLA), tarea -> {
+                    Thread lector = new Thread(tarea, "lector-sondeo-" + numero.incrementAndGet());
+                    lector.setDaemon(true);
+                    return lector;
+                });
+        this.lotesLibres = new ArrayBlockingQueue<>(LOTES_EN_COLA + hilos + 1);
+        this.programados = new ConcurrentHashMap<>();
+        this.altas = new ConcurrentLinkedQueue<>();
+        this.ranuras = new Sondeo[RANURAS];
+        this.realizados = new LongAdder();
+        this.omitidos = new LongAdder();
+        this.fallidos = new LongAdder();
+        this.sumaRetrasos = new LongAdder();
+        this.retrasoMaximo = new AtomicLong();
+        this.histogramaRetrasos = new AtomicLongArray(64);
+        this.fallosMantenimiento = new LongAdder();
+        this.hilo = new Thread(this::ejecutar, "planificador-sondeo");
+        this.hilo.setDaemon(true);
+    }
+
+    /**
+     * Programa el sondeo periódico de un equipo; si ya estaba programado,
+     * reemplaza su período
+     * @param equipo equipo que debe implementar IMedible
+     * @param periodo tiempo entre sondeos (al menos un tick)
+     */
+    public void programar(Equipo equipo, Duration periodo) {
+        if (!(equipo instanceof IMedible)) {
+            throw new IllegalArgumentException("El equipo no es medible: " + equipo.getCodigo());
+        }
+        long periodoNanos = (periodo.compareTo(PERIODO_MINIMO) < 0 ? PERIODO_MINIMO : periodo).toNanos();
+        Sondeo sondeo = new Sondeo(equipo.getCodigo(), (IMedible) equipo, periodoNanos);
+        Sondeo anterior = programados.put(Equipo.normalizarCodigo(equipo.getCodigo()), sondeo);
+        if (anterior != null) {
+            anterior.cancelado = true;
+        }
+        altas.add(sondeo);
+    }
+
+    /**
+     * Deja de sondear un equipo
+     * @param codigo código del equipo
+     * @return boolean true si estaba programado
+     */
+    public boolean cancelar(String codigo) {
+        Sondeo sondeo = programados.remove(Equipo.normalizarCodigo(codigo));
+        if (sondeo == null) {
+            return false;
+        }
+        sondeo.cancelado = true;
+        return true;
+    }
+
+    /**
+     * Programa una tarea periódica de mantenimiento; debe llamarse antes de iniciar
+     * @param tarea tarea a ejecutar en un hilo lector
+     * @param periodo tiempo entre ejecuciones (al menos un tick)
+     */
+    public synchronized void programarMantenimiento(Runnable tarea, Duration periodo) {
+        if (activo || hilo.getState() != Thread.State.NEW) {
+            throw new IllegalStateException("El mantenimiento se programa antes de iniciar");
+        }
+        this.mantenimiento = tarea;
+        this.periodoMantenimiento = (periodo.compareTo(PERIODO_MINIMO) < 0 ? PERIODO_MINIMO : periodo).toNanos();
+    }
+
+    /**
+     * Ejecuciones de la tarea de mantenimiento que lanzaron una excepción
+     */
+    public long contarFallosMantenimiento() {
+        return fallosMantenimiento.sum();
+    }
+
+    public int contarProgramados() {
+        return programados.size();
+    }
+
+    /**
+     * Arranca el hilo planificador
+     */
+    public synchronized void iniciar() {
+        if (activo || hilo.getState() != Thread.State.NEW) {
+            throw new IllegalStateException("El planificador ya se inició");
+        }
+        inicio = System.nanoTime();
+        instanteFoto = inicio;
+        proximoMantenimiento = inicio + periodoMantenimiento;
+        activo = true;
+        hilo.start();
+    }
+
+    /**
+     * Detiene el planificador y espera a que terminen los lotes en curso
+     */
+    public void detener() {
+        activo = false;
+        LockSupport.unpark(hilo);
+        boolean interrumpido = false;
+        while (hilo.isAlive()) {
+            try {
+                hilo.join();
+            } catch (InterruptedException e) {
+                interrumpido = true;
+            }
+        }
+        lectores.shutdown();
+        while (!lectores.isTerminated()) {
+            try {
+                lectores.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrumpido = true;
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void ejecutar() {
+        while (activo) {
+            Sondeo alta;
+            while ((alta = altas.poll()) != null) {
+                if (!alta.cancelado) {
+                    // Fase fija dentro del período para repartir la flota
+                    alta.proximo = System.nanoTime() + Math.floorMod(mezclar(alta.codigo.hashCode()), alta.periodo);
+                    insertar(alta);
+                }
+            }
+            long objetivo = (System.nanoTime() - inicio) / DURACION_TICK;
+            while (tickActual < objetivo && activo) {
+                tickActual++;
+                procesarRanura();
+            }
+            if (loteActual != null) {
+                enviarLote();
+            }
+            if (mantenimiento != null) {
+                lanzarMantenimiento();
+            }
+            long espera = inicio + (tickActual + 1) * DURACION_TICK - System.nanoTime();
+            if (espera > 0) {
+                LockSupport.parkNanos(this, espera);
+            }
+        }
+    }
+
+    /**
+     * Pone un sondeo en la ranura del tick de su próximo instante
+     */
+    private void insertar(Sondeo sondeo) {
+        long tick = (sondeo.proximo - inicio + DURACION_TICK - 1) / DURACION_TICK;
+        long distancia = Math.max(1, tick - tickActual);
+        sondeo.vueltas = (distancia - 1) / RANURAS;
+        int ranura = (int) ((tickActual + distancia) & MASCARA);
+        sondeo.siguiente = ranuras[ranura];
+        ranuras[ranura] = sondeo;
+    }
+
+    private void procesarRanura() {
+        int ranura = (int) (tickActual & MASCARA);
+        Sondeo sondeo = ranuras[ranura];
+        ranuras[ranura] = null;
+        while (sondeo != null) {
+            Sondeo siguiente = sondeo.siguiente;
+            if (sondeo.cancelado) {
+                sondeo.siguiente = null;
+            } else if (sondeo.vueltas > 0) {
+                sondeo.vueltas--;
+                sondeo.siguiente = ranuras[ranura];
+                ranuras[ranura] = sondeo;
+            } else {
+                despachar(sondeo);
+                sondeo.proximo += sondeo.periodo;
+                long ahora = inicio + tickActual * DURACION_TICK;
+                if (sondeo.proximo <= ahora) {
+                    // Atrasado más de un período: salta los sondeos perdidos
+                    sondeo.proximo += ((ahora - sondeo.proximo) / sondeo.periodo + 1) * sondeo.periodo;
+                }
+                insertar(sondeo);
+            }
+            sondeo = siguiente;
+        }
+    }
+
+    private void despachar(Sondeo sondeo) {
+        if (sondeo.enCurso) {
+            omitidos.increment();
+            return;
+        }
+        sondeo.enCurso = true;
+        if (loteActual == null) {
+            loteActual = lotesLibres.poll();
+            if (loteActual == null) {
+                loteActual = new Lote();
+            }
+        }
+        loteActual.sondeos[loteActual.cantidad] = sondeo;
+        loteActual.programados[loteActual.cantidad] = sondeo.proximo;
+        loteActual.cantidad++;
+        if (loteActual.cantidad == TAMANO_LOTE) {
+            enviarLote();
+        }
+    }
+
+    private void enviarLote() {
+        Lote lote = loteActual;
+        loteActual = null;
+        try {
+            lectores.execute(lote);
+        } catch (RejectedExecutionException e) {
+            omitidos.add(lote.cantidad);
+            lote.descartar();
+        }
+    }
+
+    private void lanzarMantenimiento() {
+        long ahora = System.nanoTime();
+        if (ahora < proximoMantenimiento || mantenimientoEnCurso) {
+            return;
+        }
+        mantenimientoEnCurso = true;
+        try {
+            lectores.execute(() -> {
+                try {
+                    mantenimiento.run();
+                } catch (RuntimeException e) {
+                    fallosMantenimiento.increment();
+                } finally {
+                    mantenimientoEnCurso = false;
+                }
+            });
+            proximoMantenimiento = ahora + periodoMantenimiento;
+        } catch (RejectedExecutionException e) {
+            // Cola llena o planificador detenido: se reintenta en el próximo tick
+            mantenimientoEnCurso = false;
+        }
+    }
+
+    private void registrarRetraso(long retraso) {
+        retraso = Math.max(0, retraso);
+        sumaRetrasos.add(retraso);
+        histogramaRetrasos.incrementAndGet(64 - Long.numberOfLeadingZeros(retraso | 1) - 1);
+        long maximo = retrasoMaximo.get();
+        while (retraso > maximo && !retrasoMaximo.compareAndSet(maximo, retraso)) {
+            maximo = retrasoMaximo.get();
+        }
+    }
+
+    /**
+     * Métricas del planificador
+     * Los contadores se acumulan desde el inicio; la tasa y los retrasos
+     * son los de la ventana desde la llamada anterior.
+     * @return MetricasSondeo con contadores, tasa y retrasos
+     */
+    public synchronized MetricasSondeo obtenerMetricas() {
+        long ahora = System.nanoTime();
+        long total = realizados.sum();
+        double tasa = ahora > instanteFoto ? (total - realizadosFoto) * 1e9 / (ahora - instanteFoto) : 0;
+        realizadosFoto = total;
+        instanteFoto = ahora;
+
+        long contados = 0;
+        long[] cantidades = new long[64];
+        for (int i = 0; i < 64; i++) {
+            cantidades[i] = histogramaRetrasos.getAndSet(i, 0);
+            contados += cantidades[i];
+        }
+        long p99 = 0;
+        long acumulado = 0;
+        for (int i = 0; i < 64 && contados > 0; i++) {
+            acumulado += cantidades[i];
+            if (acumulado * 100 >= contados * 99) {
+                p99 = i >= 62 ? Long.MAX_VALUE : 1L << (i + 1);
+                break;
+            }
+        }
+        long promedio = contados == 0 ? 0 : sumaRetrasos.sumThenReset() / contados;
+        return new MetricasSondeo(programados.size(), total, omitidos.sum(), fallidos.sum(), tasa,
+                promedio, p99, retrasoMaximo.getAndSet(0));
+    }
+
+    /**
+     * Mezcla de bits de SplitMix para repartir las fases aunque los códigos se parezcan
+     */
+    private static long mezclar(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
+    /**
+     * Equipo programado y su lugar en la rueda
+     */
+    private static class Sondeo {
+        private final String codigo;
+        private final IMedible medible;
+        private final long periodo;
+        // Solo los usa el hilo planificador
+        private long proximo;
+        private long vueltas;
+        private Sondeo siguiente;
+        private volatile boolean cancelado;
+        private volatile boolean enCurso;
+
+        Sondeo(String codigo, IMedible medible, long periodo) {
+            this.codigo = codigo;
+            this.medible = medible;
+            this.periodo = periodo;
+        }
+    }
+
+    /**
+     * Sondeos vencidos que lee un hilo lector; se reutiliza
+     */
+    private class Lote implements Runnable {
+        private final Sondeo[] sondeos = new Sondeo[TAMANO_LOTE];
+        private final long[] programados = new long[TAMANO_LOTE];
+        private final LecturaTelemetria lectura = new LecturaTelemetria();
+        private int cantidad;
+
+        @Override
+        public void run() {
+            for (int i = 0; i < cantidad; i++) {
+                Sondeo sondeo = sondeos[i];
+                registrarRetraso(System.nanoTime() - programados[i]);
+                try {
+                    sondeo.medible.capturarDatos(lectura);
+                    receptor.recibir(sondeo.codigo, lectura);
+                    realizados.increment();
+                } catch (RuntimeException e) {
+                    fallidos.increment();
+                } finally {
+                    sondeo.enCurso = false;
+                }
+            }
+            liberar();
+        }
+
+        /**
+         * Devuelve un lote que no se ejecutó: sus sondeos quedan libres
+         */
+        void descartar() {
+            for (int i = 0; i < cantidad; i++) {
+                sondeos[i].enCurso = false;
+            }
+            liberar();
+        }
+
+        /**
+         * Devuelve el lote a la reserva
+         * No toca enCurso: run ya lo limpió sondeo por sondeo y, para
+         * entonces, el planificador puede haber puesto el mismo equipo en
+         * otro lote que todavía se está leyendo
+         */
+        void liberar() {
+            for (int i = 0; i < cantidad; i++) {
+                sondeos[i] = null;
+            }
+            cantidad = 0;
+            lotesLibres.offer(this);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.paiz.model;
+
+/**
+ * Enum PoliticaPresion
+ * Qué hace el escritor asíncrono de bitácora cuando su cola está llena
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public enum PoliticaPresion {
+    // El hilo que registra espera hasta que haya lugar; no se pierde nada
+    BLOQUEAR,
+    // Se descarta el registro pendiente más antiguo para hacer lugar
+    DESCARTAR_ANTIGUO,
+    // Solo uno de cada N registros espera lugar; los demás se descartan
+    MUESTREAR
+}
@@ -0,0 +1,124 @@
+package org.paiz.model;
+
+import java.time.Duration;
+
+/**
+ * Clase PoliticaRetencion
+ * Cuánto se conserva de la telemetría en memoria
+ *
+ * Cada resolución tiene su ventana de tiempo. Además, las series crudas y
+ * las ventanas por minuto comparten un presupuesto de bytes: si la
+ * telemetría lo supera, ambas ventanas se acortan en la misma proporción.
+ * Las ventanas por hora y por día solo se recortan por tiempo.
+ *
+ * Capacidad medida por canal de un equipo sondeado cada segundo:
+ * - Serie cruda: unos 1,3 B por lectura, unos 110 KB por día.
+ * - Ventanas por minuto: 40 B cada una, unos 56 KB por día.
+ * - Ventanas por hora: unos 0,9 KB por día; por día, 40 B.
+ * Con 100 000 sensores y un solo canal, una semana de series crudas ocupa
+ * unos 75 GB y dos días de minutos unos 11 GB, lo que no entra en el heap;
+ * con el presupuesto por defecto (un cuarto del heap) quedan unas horas
+ * de datos finos y las semanas se consultan por hora. Treinta días por
+ * hora y 400 días por día suman unos 4,5 GB por canal en esa flota.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class PoliticaRetencion {
+    private final Duration series;
+    private final Duration minutos;
+    private final Duration horas;
+    private final Duration dias;
+    private final long presupuestoBytes;
+
+    /**
+     * Constructor de PoliticaRetencion
+     * @param series cuánto se conservan las series crudas
+     * @param minutos cuánto se conservan las ventanas por minuto
+     * @param horas cuánto se conservan las ventanas por hora
+     * @param dias cuánto se conservan las ventanas por día
+     * @param presupuestoBytes memoria máxima de la telemetría; al superarla se
+     *                         acortan las series crudas y los minutos
+     */
+    public PoliticaRetencion(Duration series, Duration minutos, Duration horas, Duration dias,
+                             long presupuestoBytes) {
+        if (series.isNegative() || minutos.isNegative() || horas.isNegative() || dias.isNegative()) {
+            throw new IllegalArgumentException("Las ventanas de retención no pueden ser negativas");
+        }
+        if (presupuestoBytes <= 0) {
+            throw new IllegalArgumentException("El presupuesto debe ser positivo: " + presupuestoBytes);
+        }
+        this.series = series;
+        this.minutos = minutos;
+        this.horas = horas;
+        this.dias = dias;
+        this.presupuestoBytes = presupuestoBytes;
+    }
+
+    /**
+     * Política por defecto: una semana cruda, dos días por minuto, treinta
+     * días por hora y 400 por día, dentro de un cuarto del heap
+     * @return PoliticaRetencion por defecto
+     */
+    public static PoliticaRetencion porDefecto() {
+        return new PoliticaRetencion(Duration.ofDays(7), Duration.ofDays(2), Duration.ofDays(30),
+                Duration.ofDays(400), Runtime.getRuntime().maxMemory() / 4);
+    }
+
+    public Duration getSeries() {
+        return series;
+    }
+
+    public Duration getMinutos() {
+        return minutos;
+    }
+
+    public Duration getHoras() {
+        return horas;
+    }
+
+    public Duration getDias() {
+        return dias;
+    }
+
+    public long getPresupuestoBytes() {
+        return presupuestoBytes;
+    }
+
+    /**
+     * Ventana de una resolución de los agregados
+     * @param resolucion resolución consultada
+     * @return Duration con la ventana configurada
+     */
+    public Duration obtenerVentana(Resolucion resolucion) {
+        switch (resolucion) {
+            case MINUTO:
+                return minutos;
+            case HORA:
+                return horas;
+            default:
+                return dias;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("crudas %s, minutos %s, horas %s, días %s, presupuesto %.1f MB",
+                describir(series), describir(minutos), describir(horas), describir(dias),
+                presupuestoBytes / (double) (1 << 20));
+    }
+
+    /**
+     * Duración legible en la unidad entera más grande (días, horas o minutos)
+     * @param duracion duración a describir
+     * @return String como "7 d", "36 h" o "25 min"
+     */
+    public static String describir(Duration duracion) {
+        if (duracion.toDays() > 0 && duracion.equals(Duration.ofDays(duracion.toDays()))) {
+            return duracion.toDays() + " d";
+        }
+        if (duracion.toHours() > 0 && duracion.equals(Duration.ofHours(duracion.toHours()))) {
+            return duracion.toHours() + " h";
+        }
+        return duracion.toMinutes() + " min";
+    }
+}
@@ -0,0 +1,24 @@
+package org.paiz.model;
+
+/**
+ * Interfaz ReceptorAlerta
+ * Recibe las alertas del detector de anomalías cuando se activan y cuando
+ * se despejan
+ *
+ * Se llama en el hilo que entregó la lectura, así que debe retornar rápido.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface ReceptorAlerta {
+    /**
+     * @param codigoEquipo código del equipo
+     * @param canal magnitud vigilada
+     * @param tipo condición que cambió
+     * @param activa true si la alerta se activó, false si se despejó
+     * @param valor valor de la lectura que produjo el cambio
+     * @param instanteNanos instante de esa lectura en nanosegundos de época
+     */
+    void alertar(String codigoEquipo, CanalTelemetria canal, TipoAlerta tipo, boolean activa,
+                 double valor, long instanteNanos);
+}
@@ -0,0 +1,19 @@
+package org.paiz.model;
+
+/**
+ * Interfaz ReceptorLectura
+ * Recibe cada lectura tomada por el planificador de sondeo
+ *
+ * La lectura es un búfer reutilizado: el receptor debe copiar lo que
+ * necesite antes de retornar.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface ReceptorLectura {
+    /**
+     * @param codigoEquipo código del equipo sondeado
+     * @param lectura valores capturados
+     */
+    void recibir(String codigoEquipo, LecturaTelemetria lectura);
+}
@@ -0,0 +1,70 @@
+package org.paiz.model;
+
+import java.time.Instant;
+
+/**
+ * Clase RegistroBitacora
+ * Un registro de bitácora devuelto por una consulta
+ * El mensaje se arma solo cuando se pide
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class RegistroBitacora {
+    private final long instanteNanos;
+    private final String codigoEquipo;
+    private final EventoBitacora evento;
+    private final double primero;
+    private final double segundo;
+    private final String texto;
+
+    RegistroBitacora(long instanteNanos, String codigoEquipo, EventoBitacora evento,
+                     double primero, double segundo, String texto) {
+        this.instanteNanos = instanteNanos;
+        this.codigoEquipo = codigoEquipo;
+        this.evento = evento;
+        this.primero = primero;
+        this.segundo = segundo;
+        this.texto = texto;
+    }
+
+    public long getInstanteNanos() {
+        return instanteNanos;
+    }
+
+    public Instant getInstante() {
+        return Instant.ofEpochSecond(0, instanteNanos);
+    }
+
+    public String getCodigoEquipo() {
+        return codigoEquipo;
+    }
+
+    public EventoBitacora getEvento() {
+        return evento;
+    }
+
+    public double getPrimero() {
+        return primero;
+    }
+
+    public double getSegundo() {
+        return segundo;
+    }
+
+    public String getTexto() {
+        return texto;
+    }
+
+    /**
+     * Mensaje del evento con sus argumentos
+     * @return String con el mensaje
+     */
+    public String getMensaje() {
+        return evento.renderizar(primero, segundo, texto);
+    }
+
+    @Override
+    public String toString() {
+        return MotorBitacora.renderizar(instanteNanos, evento, primero, segundo, texto);
+    }
+}
@@ -0,0 +1,93 @@
+package org.paiz.model;
+
+/**
+ * Clase ReglaAlerta
+ * Qué vigila el detector de anomalías en un canal
+ *
+ * Umbrales: la alerta se activa al cruzar el umbral y se despeja recién al
+ * volver más allá de la histéresis (por ejemplo, umbral alto 38 con
+ * histéresis 1 se despeja por debajo de 37).
+ * Desvío: se lleva una media y una varianza móviles exponenciales (EWMA)
+ * por equipo; la alerta se activa cuando el valor se aleja más de
+ * limiteDesvio desviaciones estándar y se despeja por debajo de
+ * limiteDesvio - 1. No se evalúa hasta tener muestrasCalentamiento lecturas;
+ * después, cada lectura entra a la media recortada a limiteDesvio
+ * desviaciones para que un pico no infle la línea base.
+ * Rebote: cada cambio (activar o despejar) exige esa cantidad de lecturas
+ * seguidas que lo confirmen.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class ReglaAlerta {
+    private final CanalTelemetria canal;
+    private final double umbralBajo;
+    private final double umbralAlto;
+    private final double histeresis;
+    private final double limiteDesvio;
+    private final double alfa;
+    private final int muestrasCalentamiento;
+    private final int rebote;
+
+    /**
+     * Constructor de ReglaAlerta
+     * @param canal magnitud vigilada
+     * @param umbralBajo umbral bajo, o NaN para no vigilarlo
+     * @param umbralAlto umbral alto, o NaN para no vigilarlo
+     * @param histeresis margen para despejar una alerta de umbral
+     * @param limiteDesvio desviaciones estándar para alertar un desvío, o NaN
+     *                     para no vigilarlo
+     * @param alfa peso de cada lectura en la media móvil (entre 0 y 1)
+     * @param muestrasCalentamiento lecturas antes de evaluar desvíos
+     * @param rebote lecturas seguidas que confirman un cambio (al menos 1)
+     */
+    public ReglaAlerta(CanalTelemetria canal, double umbralBajo, double umbralAlto, double histeresis,
+                       double limiteDesvio, double alfa, int muestrasCalentamiento, int rebote) {
+        if (!(alfa > 0 && alfa <= 1)) {
+            throw new IllegalArgumentException("alfa debe estar entre 0 y 1: " + alfa);
+        }
+        if (rebote < 1 || histeresis < 0) {
+            throw new IllegalArgumentException("El rebote debe ser positivo y la histéresis no negativa");
+        }
+        this.canal = canal;
+        this.umbralBajo = umbralBajo;
+        this.umbralAlto = umbralAlto;
+        this.histeresis = histeresis;
+        this.limiteDesvio = limiteDesvio;
+        this.alfa = alfa;
+        this.muestrasCalentamiento = muestrasCalentamiento;
+        this.rebote = rebote;
+    }
+
+    // Getters
+    public CanalTelemetria getCanal() {
+        return canal;
+    }
+
+    public double getUmbralBajo() {
+        return umbralBajo;
+    }
+
+    public double getUmbralAlto() {
+        return umbralAlto;
+    }
+
+    public double getHisteresis() {
+        return histeresis;
+    }
+
+    public double getLimiteDesvio() {
+        return limiteDesvio;
+    }
+
+    public double getAlfa() {
+        return alfa;
+    }
+
+    public int getMuestrasCalentamiento() {
+        return muestrasCalentamiento;
+    }
+
+    public int getRebote() {
+        return rebote;
+    }
+}
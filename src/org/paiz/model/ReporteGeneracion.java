@@ -0,0 +1,71 @@
+package org.paiz.model;
+
+/**
+ * Clase ReporteGeneracion
+ * Resultado de generar una flota sintética: cantidad, velocidad y memoria
+ *
+ * La memoria es la diferencia del heap usado antes y después de la
+ * generación, medida después de pedir una recolección de basura; incluye
+ * los equipos, sus índices en el repositorio y sus canales de bitácora.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class ReporteGeneracion {
+    private final long generados;
+    private final long incorporados;
+    private final long duracionNanos;
+    private final long bytesHeap;
+
+    /**
+     * Constructor de ReporteGeneracion
+     * @param generados equipos creados
+     * @param incorporados equipos que aceptó el repositorio (los demás
+     *                     tenían un código repetido)
+     * @param duracionNanos tiempo total de la generación
+     * @param bytesHeap crecimiento del heap usado
+     */
+    public ReporteGeneracion(long generados, long incorporados, long duracionNanos, long bytesHeap) {
+        this.generados = generados;
+        this.incorporados = incorporados;
+        this.duracionNanos = duracionNanos;
+        this.bytesHeap = bytesHeap;
+    }
+
+    public long getGenerados() {
+        return generados;
+    }
+
+    public long getIncorporados() {
+        return incorporados;
+    }
+
+    public long getDuracionNanos() {
+        return duracionNanos;
+    }
+
+    public long getBytesHeap() {
+        return bytesHeap;
+    }
+
+    /**
+     * Equipos generados e incorporados por segundo
+     */
+    public double getEquiposPorSegundo() {
+        return duracionNanos > 0 ? generados * 1e9 / duracionNanos : 0.0;
+    }
+
+    /**
+     * Heap promedio por equipo incorporado
+     */
+    public double getBytesPorEquipo() {
+        return incorporados > 0 ? (double) bytesHeap / incorporados : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d equipos generados (%d incorporados) en %.2f s - %.0f equipos/s - "
+                        + "heap %.1f MB (%.0f bytes por equipo)", generados, incorporados,
+                duracionNanos / 1e9, getEquiposPorSegundo(), bytesHeap / (double) (1 << 20),
+                getBytesPorEquipo());
+    }
+}
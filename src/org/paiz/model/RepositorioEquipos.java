@@ -1,45 +1,228 @@
 package org.paiz.model;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
  * Clase RepositorioEquipos (MODELO en patrón MVC)
  * Gestiona la colección polimórfica de equipos
+ *
+ * Puede arrancar vinculado a un catálogo (ver vincularCatalogo): sus
+ * equipos se construyen al pedirlos y los índices se arman la primera vez
+ * que se consultan, así el arranque no depende del tamaño de la flota.
  * @author Franco Paiz
  * @version 1.0
  */
 public class RepositorioEquipos {
-    // Lista polimórfica única que almacena todos los equipos
-    private List<Equipo> equipos;
+    // Secuencia polimórfica única que almacena todos los equipos
+    // Es de solo anexión: la posición de cada equipo es su ordinal
+    private SecuenciaAnexable<Equipo> equipos;
+    // Catálogo vinculado; sus primeros enCatalogo registros son los primeros ordinales
+    private CatalogoEquipos catalogo;
+    private int enCatalogo;
+    // Los índices valen null mientras no se construyan (solo con catálogo vinculado)
+    // Índice hash por código normalizado para búsquedas en tiempo constante
+    private volatile Map<String, Integer> indicePorCodigo;
+    // Índice de trigramas para búsquedas parciales por nombre
+    private volatile IndiceDenominacion indiceDenominacion;
+    // Índices secundarios por atributo y por capacidad
+    private volatile IndicesAtributo atributos;
+    // Orden por consumo mantenido en cada inserción
+    private volatile IndiceConsumo indiceConsumo;
+    // Agregados que se leen en tiempo constante desde los reportes
+    private AcumuladorEstadisticas estadisticas;
+    // Espejo opcional en columnas primitivas para análisis de recorrido completo
+    private AlmacenColumnar almacenColumnar;
+    // Códigos reservados (ver reservarCodigo) cuyo equipo aún no se incorporó
+    private Set<String> reservados;
 
     /**
      * Constructor que inicializa la lista de equipos
      */
     public RepositorioEquipos() {
-        this.equipos = new ArrayList<>();
+        this(false);
+    }
+
+    /**
+     * Constructor que permite activar el espejo columnar
+     * Con el espejo, las agregaciones recorren arreglos primitivos en lugar
+     * de los objetos Equipo, a cambio de memoria adicional
+     * @param espejoColumnar true para mantener el espejo columnar
+     */
+    public RepositorioEquipos(boolean espejoColumnar) {
+        this(espejoColumnar, true);
+    }
+
+    /**
+     * Constructor para subclases que guardan los equipos en otras instancias
+     * Sin estado propio no crea la secuencia, los índices ni los agregados,
+     * y la subclase debe redefinir todas las operaciones públicas
+     * @param espejoColumnar true para mantener el espejo columnar
+     * @param conEstado false si la subclase no usa el estado de esta instancia
+     */
+    RepositorioEquipos(boolean espejoColumnar, boolean conEstado) {
+        if (!conEstado) {
+            return;
+        }
+        this.equipos = new SecuenciaAnexable<>();
+        this.indicePorCodigo = new HashMap<>();
+        this.indiceDenominacion = new IndiceDenominacion();
+        this.atributos = new IndicesAtributo();
+        this.indiceConsumo = new IndiceConsumo(this::obtenerEquipo);
+        this.estadisticas = new AcumuladorEstadisticas();
+        this.almacenColumnar = espejoColumnar ? new AlmacenColumnar() : null;
+        this.reservados = new HashSet<>();
+    }
+
+    /**
+     * Vincula un catálogo como origen de los primeros equipos sin construirlos
+     * Solo se recorren los registros para los agregados de la flota (y el
+     * espejo columnar, si está activo). Cada equipo se construye la primera
+     * vez que se pide, sin repetir su anotación de inicialización, y cada
+     * índice se arma en la primera consulta que lo necesita
+     * @param catalogo catálogo abierto; no debe tener registros duplicados
+     * @return int con la cantidad de equipos vinculados
+     * @throws IllegalStateException si el repositorio ya tiene equipos
+     */
+    public synchronized int vincularCatalogo(CatalogoEquipos catalogo) {
+        if (equipos.tamano() > 0) {
+            throw new IllegalStateException("Solo se puede vincular un catálogo a un repositorio vacío");
+        }
+        int cantidad = catalogo.contarEquipos();
+        catalogo.suscribir(cantidad, ficha -> {
+            Equipo equipo = ficha.getEquipo();
+            if (equipo != null) {
+                estadisticas.registrar(equipo);
+                if (almacenColumnar != null) {
+                    almacenColumnar.anexar(equipo);
+                }
+            } else {
+                estadisticas.registrar(ficha.getClase(), ficha.getConsumoWatts(),
+                        ficha.isEnFuncionamiento());
+                if (almacenColumnar != null) {
+                    almacenColumnar.anexar(ficha);
+                }
+            }
+        }, (equipo, ordinal) -> {
+            if (ordinal < cantidad) {
+                estadisticas.seguir(equipo);
+                if (almacenColumnar != null) {
+                    almacenColumnar.seguir(ordinal, equipo);
+                }
+            }
+        });
+        this.catalogo = catalogo;
+        this.enCatalogo = cantidad;
+        this.equipos = new SecuenciaAnexable<>(cantidad, catalogo::materializar);
+        this.indicePorCodigo = null;
+        this.indiceDenominacion = null;
+        this.atributos = null;
+        this.indiceConsumo = null;
+        return cantidad;
     }
 
     /**
      * Incorpora un nuevo equipo al repositorio
+     * Rechaza equipos cuyo código ya exista o esté reservado, sin importar
+     * mayúsculas
      * @param equipo el equipo a agregar
      * @return boolean indicando si se agregó exitosamente
      */
-    public boolean incorporarEquipo(Equipo equipo) {
-        if (equipo != null && !equipos.contains(equipo)) {
-            return equipos.add(equipo);
+    public synchronized boolean incorporarEquipo(Equipo equipo) {
+        if (equipo == null || equipo.getClaveCodigo() == null
+                || reservados.contains(equipo.getClaveCodigo())) {
+            return false;
+        }
+        return incorporar(equipo);
+    }
+
+    /**
+     * Reserva un código libre antes de construir su equipo
+     * Mientras dure la reserva nadie más puede incorporar ese código; quien
+     * la obtuvo debe incorporar el equipo con incorporarReservado o
+     * liberarla con cancelarReserva
+     * @param codigo código a reservar
+     * @return boolean true si el código estaba libre y quedó reservado
+     */
+    public synchronized boolean reservarCodigo(String codigo) {
+        String clave = Equipo.normalizarCodigo(codigo);
+        return clave != null && !codigos().containsKey(clave) && reservados.add(clave);
+    }
+
+    /**
+     * Incorpora el equipo de un código reservado y consume la reserva
+     * @param equipo equipo cuyo código reservó quien llama
+     * @return boolean true si se incorporó; false si el código no estaba reservado
+     */
+    public synchronized boolean incorporarReservado(Equipo equipo) {
+        return equipo != null && reservados.remove(equipo.getClaveCodigo()) && incorporar(equipo);
+    }
+
+    /**
+     * Libera un código reservado sin incorporar su equipo
+     * @param codigo código que se había reservado
+     */
+    public synchronized void cancelarReserva(String codigo) {
+        reservados.remove(Equipo.normalizarCodigo(codigo));
+    }
+
+    private boolean incorporar(Equipo equipo) {
+        int ordinal = equipos.tamano();
+        if (codigos().putIfAbsent(equipo.getClaveCodigo(), ordinal) != null) {
+            return false;
+        }
+        // Los índices que aún no se construyeron incluirán al equipo cuando se construyan
+        if (indiceDenominacion != null) {
+            indiceDenominacion.indexar(ordinal, equipo.getDenominacion());
+        }
+        if (atributos != null) {
+            atributos.indexar(ordinal, equipo.getZona(), equipo.obtenerCategoria(),
+                    equipo.getMarca(), equipo.getClass());
+        }
+        if (indiceConsumo != null) {
+            indiceConsumo.indexar(ordinal, equipo.getConsumoWatts(), equipo.getClaveCodigo());
+        }
+        estadisticas.registrar(equipo);
+        if (almacenColumnar != null) {
+            almacenColumnar.anexar(equipo);
+        }
+        equipos.anexar(equipo);
+        return true;
+    }
+
+    /**
+     * Incorpora varios equipos de una sola vez
+     * @param nuevos equipos a agregar
+     * @return int con la cantidad de equipos que se agregaron
+     */
+    public int incorporarEquipos(Collection<? extends Equipo> nuevos) {
+        int agregados = 0;
+        for (Equipo equipo : nuevos) {
+            if (incorporarEquipo(equipo)) {
+                agregados++;
+            }
         }
-        return false;
+        return agregados;
     }
 
     /**
      * Recupera todos los equipos del repositorio
-     * @return List con todos los equipos
+     * Devuelve una instantánea inmutable sin copiar la colección: los
+     * equipos incorporados después no aparecen en ella. Los equipos del
+     * catálogo se construyen a medida que se leen
+     * @return List de solo lectura con todos los equipos
      */
     public List<Equipo> recuperarEquipos() {
-        return new ArrayList<>(equipos);
+        return equipos.instantanea();
     }
 
     /**
@@ -48,35 +231,212 @@ public class RepositorioEquipos {
      * @return Equipo encontrado o null si no existe
      */
     public Equipo localizarPorCodigo(String codigo) {
-        for (Equipo equipo : equipos) {
-            if (equipo.getCodigo().equalsIgnoreCase(codigo)) {
-                return equipo;
-            }
+        if (codigo == null) {
+            return null;
         }
-        return null;
+        Integer ordinal = codigos().get(Equipo.normalizarCodigo(codigo));
+        return ordinal == null ? null : equipos.obtener(ordinal);
+    }
+
+    /**
+     * Indica si hay un equipo con el código, sin construirlo
+     * @param claveCodigo código normalizado (ver Equipo.normalizarCodigo)
+     * @return boolean true si el código ya está registrado
+     */
+    boolean contieneCodigo(String claveCodigo) {
+        return codigos().containsKey(claveCodigo);
     }
 
     /**
      * Localiza equipos por denominación (búsqueda parcial)
+     * Usa el índice de trigramas y ordena por calidad de coincidencia
      * @param denominacion texto a buscar en el nombre
      * @return List con los equipos que coinciden
      */
     public List<Equipo> localizarPorDenominacion(String denominacion) {
-        return equipos.stream()
-                .filter(e -> e.getDenominacion().toLowerCase()
-                        .contains(denominacion.toLowerCase()))
-                .collect(Collectors.toList());
+        int[] ordinales = denominaciones().buscar(denominacion);
+        List<Equipo> encontrados = new ArrayList<>(ordinales.length);
+        for (int ordinal : ordinales) {
+            encontrados.add(equipos.obtener(ordinal));
+        }
+        return encontrados;
+    }
+
+    /**
+     * Localiza los equipos de una zona (sin distinguir mayúsculas)
+     * @param zona zona a buscar
+     * @return List con los equipos de la zona
+     */
+    public List<Equipo> localizarPorZona(String zona) {
+        return materializar(atributos().zonas.consultar(zona));
+    }
+
+    /**
+     * Localiza los equipos de una categoría (sin distinguir mayúsculas)
+     * @param categoria categoría a buscar
+     * @return List con los equipos de la categoría
+     */
+    public List<Equipo> localizarPorCategoria(String categoria) {
+        return materializar(atributos().categorias.consultar(categoria));
+    }
+
+    /**
+     * Localiza los equipos de una marca (sin distinguir mayúsculas)
+     * @param marca marca a buscar
+     * @return List con los equipos de la marca
+     */
+    public List<Equipo> localizarPorMarca(String marca) {
+        return materializar(atributos().marcas.consultar(marca));
+    }
+
+    /**
+     * Filtra equipos combinando criterios; un criterio null no filtra
+     * Cada criterio es un BitSet y la combinación se resuelve con AND
+     * @param zona zona requerida o null
+     * @param categoria categoría requerida o null
+     * @param marca marca requerida o null
+     * @param capacidades capacidades que el equipo debe tener todas
+     * @return List con los equipos que cumplen todos los criterios
+     */
+    public List<Equipo> filtrarEquipos(String zona, String categoria, String marca,
+                                       Capacidad... capacidades) {
+        IndicesAtributo indices = atributos();
+        BitSet resultado = new BitSet(equipos.tamano());
+        resultado.set(0, equipos.tamano());
+        if (zona != null) resultado.and(indices.zonas.consultar(zona));
+        if (categoria != null) resultado.and(indices.categorias.consultar(categoria));
+        if (marca != null) resultado.and(indices.marcas.consultar(marca));
+        for (Capacidad capacidad : capacidades) {
+            resultado.and(indices.capacidades.get(capacidad));
+        }
+        return materializar(resultado);
+    }
+
+    /**
+     * Cuenta los equipos que tienen una capacidad
+     * @param capacidad capacidad a contar
+     * @return int con la cantidad de equipos
+     */
+    public int contarPorCapacidad(Capacidad capacidad) {
+        return estadisticas.instantanea().contarPorCapacidad(capacidad);
+    }
+
+    /**
+     * Obtiene los agregados de la flota en tiempo constante
+     * Se mantienen al incorporar equipos y al cambiar su funcionamiento
+     * @return EstadisticasFlota inmutable
+     */
+    public EstadisticasFlota obtenerEstadisticas() {
+        return estadisticas.instantanea();
+    }
+
+    /**
+     * Agrupa los equipos por una dimensión y resume cada grupo
+     * Es una reducción en paralelo: cada hilo acumula sus propios
+     * parciales y los mapas se combinan al final
+     * @param dimension atributo por el que se agrupa
+     * @return Map ordenado por valor del atributo
+     */
+    public Map<String, ResumenGrupo> agruparPor(Dimension dimension) {
+        if (almacenColumnar != null) {
+            return almacenColumnar.agruparPor(dimension);
+        }
+        return recuperarEquipos().parallelStream()
+                .collect(Collectors.groupingBy(dimension::valorDe, TreeMap::new,
+                        AcumuladorGrupo.coleccionar()));
+    }
+
+    /**
+     * Resume los equipos con un valor exacto en una dimensión
+     * Por ejemplo, consumo y estado de todos los equipos de una zona
+     * @param dimension atributo a filtrar
+     * @param valor valor buscado (distingue mayúsculas, como agruparPor)
+     * @return ResumenGrupo de los equipos que coinciden
+     */
+    public ResumenGrupo resumirPor(Dimension dimension, String valor) {
+        if (almacenColumnar != null) {
+            return almacenColumnar.resumirDonde(dimension, valor);
+        }
+        return recuperarEquipos().parallelStream()
+                .filter(e -> dimension.valorDe(e).equals(valor))
+                .collect(AcumuladorGrupo.coleccionar());
+    }
+
+    /**
+     * Lista las zonas registradas
+     * @return List con cada zona una sola vez
+     */
+    public List<String> listarZonas() {
+        return atributos().zonas.listarValores();
+    }
+
+    /**
+     * Lista las categorías registradas
+     * @return List con cada categoría una sola vez
+     */
+    public List<String> listarCategorias() {
+        return atributos().categorias.listarValores();
+    }
+
+    /**
+     * Lista las marcas registradas
+     * @return List con cada marca una sola vez
+     */
+    public List<String> listarMarcas() {
+        return atributos().marcas.listarValores();
+    }
+
+    /**
+     * Convierte un conjunto de ordinales en la lista de equipos
+     */
+    private List<Equipo> materializar(BitSet ordinales) {
+        List<Equipo> resultado = new ArrayList<>(ordinales.cardinality());
+        for (int i = ordinales.nextSetBit(0); i >= 0; i = ordinales.nextSetBit(i + 1)) {
+            resultado.add(equipos.obtener(i));
+        }
+        return resultado;
+    }
+
+    private Equipo obtenerEquipo(int ordinal) {
+        return equipos.obtener(ordinal);
     }
 
     /**
      * Organiza los equipos por consumo eléctrico (menor a mayor)
-     * Utiliza el método compareTo implementado en Equipo
+     * El orden (compareTo de Equipo) se mantiene al insertar, así que
+     * solo se recorre el índice
      * @return List ordenada de equipos
      */
     public List<Equipo> organizarPorConsumo() {
-        List<Equipo> equiposOrdenados = new ArrayList<>(equipos);
-        Collections.sort(equiposOrdenados);
-        return equiposOrdenados;
+        return consumos().ordenados(equipos.tamano());
+    }
+
+    /**
+     * Obtiene los equipos que más consumen
+     * @param cantidad cantidad máxima de equipos
+     * @return List de mayor a menor consumo
+     */
+    public List<Equipo> obtenerMayorConsumo(int cantidad) {
+        return consumos().mayores(cantidad);
+    }
+
+    /**
+     * Obtiene los equipos que menos consumen
+     * @param cantidad cantidad máxima de equipos
+     * @return List de menor a mayor consumo
+     */
+    public List<Equipo> obtenerMenorConsumo(int cantidad) {
+        return consumos().menores(cantidad);
+    }
+
+    /**
+     * Localiza los equipos con consumo entre dos valores, ambos inclusive
+     * @param minimoWatts consumo mínimo
+     * @param maximoWatts consumo máximo
+     * @return List de menor a mayor consumo
+     */
+    public List<Equipo> localizarPorRangoConsumo(double minimoWatts, double maximoWatts) {
+        return consumos().enRango(minimoWatts, maximoWatts);
     }
 
     /**
@@ -84,7 +444,115 @@ public class RepositorioEquipos {
      * @return int con el número de equipos
      */
     public int contarEquipos() {
-        return equipos.size();
+        return equipos.tamano();
+    }
+
+    // ---------- Índices diferidos ----------
+    // Se construyen con el repositorio bloqueado, así ninguna incorporación
+    // queda entre el recorrido y la publicación del índice
+
+    private Map<String, Integer> codigos() {
+        Map<String, Integer> indice = indicePorCodigo;
+        return indice != null ? indice : construirCodigos();
+    }
+
+    private synchronized Map<String, Integer> construirCodigos() {
+        if (indicePorCodigo == null) {
+            Map<String, Integer> indice = new HashMap<>(equipos.tamano() * 4 / 3 + 1);
+            catalogo.recorrer(enCatalogo, ficha ->
+                    indice.putIfAbsent(Equipo.normalizarCodigo(ficha.getCodigo()), ficha.getOrdinal()));
+            for (int i = enCatalogo; i < equipos.tamano(); i++) {
+                indice.put(equipos.obtener(i).getClaveCodigo(), i);
+            }
+            indicePorCodigo = indice;
+        }
+        return indicePorCodigo;
+    }
+
+    private IndiceDenominacion denominaciones() {
+        IndiceDenominacion indice = indiceDenominacion;
+        return indice != null ? indice : construirDenominaciones();
+    }
+
+    private synchronized IndiceDenominacion construirDenominaciones() {
+        if (indiceDenominacion == null) {
+            IndiceDenominacion indice = new IndiceDenominacion();
+            catalogo.recorrer(enCatalogo, ficha ->
+                    indice.indexar(ficha.getOrdinal(), ficha.getDenominacion()));
+            for (int i = enCatalogo; i < equipos.tamano(); i++) {
+                indice.indexar(i, equipos.obtener(i).getDenominacion());
+            }
+            indiceDenominacion = indice;
+        }
+        return indiceDenominacion;
+    }
+
+    private IndicesAtributo atributos() {
+        IndicesAtributo indices = atributos;
+        return indices != null ? indices : construirAtributos();
+    }
+
+    private synchronized IndicesAtributo construirAtributos() {
+        if (atributos == null) {
+            IndicesAtributo indices = new IndicesAtributo();
+            catalogo.recorrer(enCatalogo, ficha -> indices.indexar(ficha.getOrdinal(),
+                    ficha.getZona(), ficha.getCategoria(), ficha.getMarca(), ficha.getClase()));
+            for (int i = enCatalogo; i < equipos.tamano(); i++) {
+                Equipo equipo = equipos.obtener(i);
+                indices.indexar(i, equipo.getZona(), equipo.obtenerCategoria(), equipo.getMarca(),
+                        equipo.getClass());
+            }
+            atributos = indices;
+        }
+        return atributos;
+    }
+
+    private IndiceConsumo consumos() {
+        IndiceConsumo indice = indiceConsumo;
+        return indice != null ? indice : construirConsumos();
+    }
+
+    private synchronized IndiceConsumo construirConsumos() {
+        if (indiceConsumo == null) {
+            IndiceConsumo indice = new IndiceConsumo(this::obtenerEquipo);
+            catalogo.recorrer(enCatalogo, ficha -> indice.indexar(ficha.getOrdinal(),
+                    ficha.getConsumoWatts(), Equipo.normalizarCodigo(ficha.getCodigo())));
+            for (int i = enCatalogo; i < equipos.tamano(); i++) {
+                Equipo equipo = equipos.obtener(i);
+                indice.indexar(i, equipo.getConsumoWatts(), equipo.getClaveCodigo());
+            }
+            indiceConsumo = indice;
+        }
+        return indiceConsumo;
+    }
+
+    /**
+     * Índices secundarios por zona, categoría, marca y capacidad
+     * Se construyen y publican juntos
+     */
+    private static class IndicesAtributo {
+        private final IndiceSecundario zonas = new IndiceSecundario();
+        private final IndiceSecundario categorias = new IndiceSecundario();
+        private final IndiceSecundario marcas = new IndiceSecundario();
+        private final Map<Capacidad, BitSet> capacidades = new EnumMap<>(Capacidad.class);
+
+        IndicesAtributo() {
+            for (Capacidad capacidad : Capacidad.values()) {
+                capacidades.put(capacidad, new BitSet());
+            }
+        }
+
+        void indexar(int ordinal, String zona, String categoria, String marca,
+                     Class<? extends Equipo> clase) {
+            zonas.indexar(ordinal, zona);
+            categorias.indexar(ordinal, categoria);
+            marcas.indexar(ordinal, marca);
+            for (Capacidad capacidad : Capacidad.values()) {
+                if (capacidad.presenteEn(clase)) {
+                    capacidades.get(capacidad).set(ordinal);
+                }
+            }
+        }
     }
 
     /**
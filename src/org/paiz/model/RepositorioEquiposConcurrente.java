@@ -0,0 +1,371 @@
+package org.paiz.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Clase RepositorioEquiposConcurrente
+ * Variante de RepositorioEquipos segura para varios hilos
+ * Usa el algoritmo Left-Right: mantiene dos copias de los índices; los
+ * lectores nunca toman candados y los escritores modifican la copia que
+ * nadie está leyendo, la publican y luego actualizan la otra
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class RepositorioEquiposConcurrente extends RepositorioEquipos {
+    // Las dos copias; los equipos se comparten, solo se duplican los índices
+    private final RepositorioEquipos[] instancias;
+    // Copia que deben usar los lectores nuevos
+    private volatile int ladoLectura;
+    // Indicador de lectores que deben registrarse los lectores nuevos
+    private volatile int indiceVersion;
+    private final IndicadorLectores[] indicadores;
+
+    // Reserva de códigos: resuelve duplicados sin pasar por el candado
+    // true si el equipo ya se aceptó; false si solo se reservó el código (reservarCodigo)
+    private final ConcurrentHashMap<String, Boolean> reservas;
+    // Equipos aceptados que aún no se aplican a las copias
+    private final Queue<Equipo> pendientes;
+    // Solo un hilo aplica lotes a la vez; aplica también los de los demás
+    private final ReentrantLock escritura;
+    // true si las copias tienen un catálogo vinculado, cuyos códigos no están en las reservas
+    private volatile boolean conCatalogo;
+
+    /**
+     * Constructor que inicializa ambas copias vacías
+     */
+    public RepositorioEquiposConcurrente() {
+        this(false);
+    }
+
+    /**
+     * Constructor que permite activar el espejo columnar en ambas copias
+     * @param espejoColumnar true para mantener el espejo columnar
+     */
+    public RepositorioEquiposConcurrente(boolean espejoColumnar) {
+        // Todo el estado vive en las dos copias
+        super(espejoColumnar, false);
+        this.instancias = new RepositorioEquipos[] {
+                new RepositorioEquipos(espejoColumnar), new RepositorioEquipos(espejoColumnar)};
+        this.indicadores = new IndicadorLectores[] {
+                new IndicadorLectores(), new IndicadorLectores()};
+        this.reservas = new ConcurrentHashMap<>();
+        this.pendientes = new ConcurrentLinkedQueue<>();
+        this.escritura = new ReentrantLock();
+    }
+
+    /**
+     * Incorpora un equipo; puede llamarse desde varios hilos a la vez
+     * Al retornar true el equipo ya es visible para cualquier lectura
+     * @param equipo el equipo a agregar
+     * @return boolean indicando si se agregó exitosamente
+     */
+    @Override
+    public boolean incorporarEquipo(Equipo equipo) {
+        if (!reservar(equipo)) {
+            return false;
+        }
+        publicarAceptado(equipo);
+        return true;
+    }
+
+    private void publicarAceptado(Equipo equipo) {
+        pendientes.add(equipo);
+        escritura.lock();
+        try {
+            // Quien obtiene el candado aplica en un solo lote todo lo pendiente,
+            // así el costo de publicar se reparte entre los hilos que esperan
+            aplicarPendientes();
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Incorpora varios equipos publicándolos en un solo lote
+     * Es la forma recomendada para cargas masivas, porque cada publicación
+     * espera a que terminen los lectores en curso
+     * @param nuevos equipos a agregar
+     * @return int con la cantidad de equipos que se agregaron
+     */
+    @Override
+    public int incorporarEquipos(Collection<? extends Equipo> nuevos) {
+        int agregados = 0;
+        for (Equipo equipo : nuevos) {
+            if (reservar(equipo)) {
+                pendientes.add(equipo);
+                agregados++;
+            }
+        }
+        if (agregados > 0) {
+            escritura.lock();
+            try {
+                aplicarPendientes();
+            } finally {
+                escritura.unlock();
+            }
+        }
+        return agregados;
+    }
+
+    /**
+     * Vincula el catálogo en ambas copias; ver RepositorioEquipos.vincularCatalogo
+     * @param catalogo catálogo abierto; no debe tener registros duplicados
+     * @return int con la cantidad de equipos vinculados
+     * @throws IllegalStateException si el repositorio ya tiene equipos
+     */
+    @Override
+    public int vincularCatalogo(CatalogoEquipos catalogo) {
+        escritura.lock();
+        try {
+            if (!reservas.isEmpty()) {
+                throw new IllegalStateException("Solo se puede vincular un catálogo a un repositorio vacío");
+            }
+            int[] cantidad = new int[1];
+            publicar(copia -> cantidad[0] = copia.vincularCatalogo(catalogo));
+            conCatalogo = true;
+            return cantidad[0];
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    @Override
+    public boolean reservarCodigo(String codigo) {
+        String clave = Equipo.normalizarCodigo(codigo);
+        return clave != null && !enCatalogo(clave) && reservas.putIfAbsent(clave, false) == null;
+    }
+
+    @Override
+    public boolean incorporarReservado(Equipo equipo) {
+        if (equipo == null || equipo.getClaveCodigo() == null
+                || !reservas.replace(equipo.getClaveCodigo(), false, true)) {
+            return false;
+        }
+        publicarAceptado(equipo);
+        return true;
+    }
+
+    @Override
+    public void cancelarReserva(String codigo) {
+        String clave = Equipo.normalizarCodigo(codigo);
+        if (clave != null) {
+            reservas.remove(clave, false);
+        }
+    }
+
+    /**
+     * Reserva el código del equipo como aceptado; falla si ya está reservado
+     * o en el catálogo
+     */
+    private boolean reservar(Equipo equipo) {
+        if (equipo == null || equipo.getClaveCodigo() == null || enCatalogo(equipo.getClaveCodigo())) {
+            return false;
+        }
+        return reservas.putIfAbsent(equipo.getClaveCodigo(), true) == null;
+    }
+
+    /**
+     * Los códigos del catálogo no están en las reservas; como no cambian,
+     * basta consultarlos antes de reservar
+     */
+    private boolean enCatalogo(String clave) {
+        return conCatalogo && leer(r -> r.contieneCodigo(clave));
+    }
+
+    private void aplicarPendientes() {
+        List<Equipo> lote = new ArrayList<>();
+        Equipo equipo;
+        while ((equipo = pendientes.poll()) != null) {
+            lote.add(equipo);
+        }
+        if (!lote.isEmpty()) {
+            publicar(copia -> aplicar(copia, lote));
+        }
+    }
+
+    /**
+     * Aplica un cambio a la copia que nadie lee, la publica, espera a los
+     * lectores de la otra y le aplica el mismo cambio
+     */
+    private void publicar(Consumer<RepositorioEquipos> cambio) {
+        int lado = ladoLectura;
+        cambio.accept(instancias[1 - lado]);
+        ladoLectura = 1 - lado;
+
+        // Esperar a que los lectores de la copia anterior terminen
+        int versionAnterior = indiceVersion;
+        int versionSiguiente = 1 - versionAnterior;
+        indicadores[versionSiguiente].esperarVacio();
+        indiceVersion = versionSiguiente;
+        indicadores[versionAnterior].esperarVacio();
+
+        cambio.accept(instancias[lado]);
+    }
+
+    private static void aplicar(RepositorioEquipos destino, List<Equipo> lote) {
+        for (Equipo equipo : lote) {
+            destino.incorporarEquipo(equipo);
+        }
+    }
+
+    /**
+     * Ejecuta una lectura sobre la copia publicada sin tomar candados
+     */
+    private <T> T leer(Function<RepositorioEquipos, T> lectura) {
+        IndicadorLectores indicador = indicadores[indiceVersion];
+        indicador.llegar();
+        try {
+            return lectura.apply(instancias[ladoLectura]);
+        } finally {
+            indicador.salir();
+        }
+    }
+
+    @Override
+    public List<Equipo> recuperarEquipos() {
+        return leer(RepositorioEquipos::recuperarEquipos);
+    }
+
+    @Override
+    public Equipo localizarPorCodigo(String codigo) {
+        return leer(r -> r.localizarPorCodigo(codigo));
+    }
+
+    @Override
+    public List<Equipo> localizarPorDenominacion(String denominacion) {
+        return leer(r -> r.localizarPorDenominacion(denominacion));
+    }
+
+    @Override
+    public List<Equipo> localizarPorZona(String zona) {
+        return leer(r -> r.localizarPorZona(zona));
+    }
+
+    @Override
+    public List<Equipo> localizarPorCategoria(String categoria) {
+        return leer(r -> r.localizarPorCategoria(categoria));
+    }
+
+    @Override
+    public List<Equipo> localizarPorMarca(String marca) {
+        return leer(r -> r.localizarPorMarca(marca));
+    }
+
+    @Override
+    public List<Equipo> filtrarEquipos(String zona, String categoria, String marca,
+                                       Capacidad... capacidades) {
+        return leer(r -> r.filtrarEquipos(zona, categoria, marca, capacidades));
+    }
+
+    @Override
+    public int contarPorCapacidad(Capacidad capacidad) {
+        return leer(r -> r.contarPorCapacidad(capacidad));
+    }
+
+    @Override
+    public EstadisticasFlota obtenerEstadisticas() {
+        return leer(RepositorioEquipos::obtenerEstadisticas);
+    }
+
+    @Override
+    public Map<String, ResumenGrupo> agruparPor(Dimension dimension) {
+        return leer(r -> r.agruparPor(dimension));
+    }
+
+    @Override
+    public ResumenGrupo resumirPor(Dimension dimension, String valor) {
+        return leer(r -> r.resumirPor(dimension, valor));
+    }
+
+    @Override
+    public List<String> listarZonas() {
+        return leer(RepositorioEquipos::listarZonas);
+    }
+
+    @Override
+    public List<String> listarCategorias() {
+        return leer(RepositorioEquipos::listarCategorias);
+    }
+
+    @Override
+    public List<String> listarMarcas() {
+        return leer(RepositorioEquipos::listarMarcas);
+    }
+
+    @Override
+    public List<Equipo> organizarPorConsumo() {
+        return leer(RepositorioEquipos::organizarPorConsumo);
+    }
+
+    @Override
+    public List<Equipo> obtenerMayorConsumo(int cantidad) {
+        return leer(r -> r.obtenerMayorConsumo(cantidad));
+    }
+
+    @Override
+    public List<Equipo> obtenerMenorConsumo(int cantidad) {
+        return leer(r -> r.obtenerMenorConsumo(cantidad));
+    }
+
+    @Override
+    public List<Equipo> localizarPorRangoConsumo(double minimoWatts, double maximoWatts) {
+        return leer(r -> r.localizarPorRangoConsumo(minimoWatts, maximoWatts));
+    }
+
+    @Override
+    public int contarEquipos() {
+        return leer(RepositorioEquipos::contarEquipos);
+    }
+
+    /**
+     * Contador de lectores activos repartido en franjas
+     * Cada hilo usa siempre la misma franja, por lo que la suma nunca
+     * llega a cero mientras haya un lector dentro
+     */
+    private static class IndicadorLectores {
+        // Separación entre franjas (8 longs = 64 bytes) para no compartir línea de caché
+        private static final int SEPARACION = 8;
+
+        private final AtomicLongArray franjas;
+        private final int mascara;
+
+        IndicadorLectores() {
+            int cantidad = Integer.highestOneBit(
+                    Math.max(1, Runtime.getRuntime().availableProcessors() * 2) - 1) << 1;
+            this.mascara = cantidad - 1;
+            this.franjas = new AtomicLongArray(cantidad * SEPARACION);
+        }
+
+        private int franjaActual() {
+            long id = Thread.currentThread().getId();
+            int mezcla = (int) (id ^ (id >>> 16)) * 0x9E3779B9;
+            return ((mezcla >>> 16) & mascara) * SEPARACION;
+        }
+
+        void llegar() {
+            franjas.incrementAndGet(franjaActual());
+        }
+
+        void salir() {
+            franjas.decrementAndGet(franjaActual());
+        }
+
+        void esperarVacio() {
+            for (int i = 0; i < franjas.length(); i += SEPARACION) {
+                while (franjas.get(i) != 0) {
+                    Thread.yield();
+                }
+            }
+        }
+    }
+}
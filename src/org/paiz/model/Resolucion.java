@@ -0,0 +1,32 @@
+package org.paiz.model;
+
+/**
+ * Enum Resolucion
+ * Duración de las ventanas de agregación de la telemetría
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public enum Resolucion {
+    MINUTO(60_000_000_000L),
+    HORA(3_600_000_000_000L),
+    DIA(86_400_000_000_000L);
+
+    private final long duracionNanos;
+
+    Resolucion(long duracionNanos) {
+        this.duracionNanos = duracionNanos;
+    }
+
+    public long getDuracionNanos() {
+        return duracionNanos;
+    }
+
+    /**
+     * Inicio de la ventana que contiene un instante (días en UTC)
+     * @param instanteNanos instante en nanosegundos de época
+     * @return long con el inicio de la ventana en nanosegundos de época
+     */
+    public long inicioVentana(long instanteNanos) {
+        return Math.floorDiv(instanteNanos, duracionNanos) * duracionNanos;
+    }
+}
@@ -0,0 +1,107 @@
+package org.paiz.model;
+
+/**
+ * Clase ResumenAlmacenamiento
+ * Espacio que ocupa la bitácora en disco, antes y después de comprimir
+ * los segmentos fríos
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class ResumenAlmacenamiento {
+    private static final double MILLON = 1_000_000.0;
+
+    private final long registros;
+    private final long bytesOriginales;
+    private final long bytesEnDisco;
+    private final int segmentos;
+    private final int segmentosComprimidos;
+    private final long fallosMantenimiento;
+    private final String ultimoFalloMantenimiento;
+
+    ResumenAlmacenamiento(long registros, long bytesOriginales, long bytesEnDisco,
+                          int segmentos, int segmentosComprimidos,
+                          long fallosMantenimiento, String ultimoFalloMantenimiento) {
+        this.registros = registros;
+        this.bytesOriginales = bytesOriginales;
+        this.bytesEnDisco = bytesEnDisco;
+        this.segmentos = segmentos;
+        this.segmentosComprimidos = segmentosComprimidos;
+        this.fallosMantenimiento = fallosMantenimiento;
+        this.ultimoFalloMantenimiento = ultimoFalloMantenimiento;
+    }
+
+    public long getRegistros() {
+        return registros;
+    }
+
+    public long getBytesOriginales() {
+        return bytesOriginales;
+    }
+
+    public long getBytesEnDisco() {
+        return bytesEnDisco;
+    }
+
+    public int getSegmentos() {
+        return segmentos;
+    }
+
+    public int getSegmentosComprimidos() {
+        return segmentosComprimidos;
+    }
+
+    /**
+     * Resúmenes y compresiones de segmentos que fallaron desde que se abrió
+     * el diario; mientras un resumen falle, el nivel caliente no se achica
+     * @return long con la cantidad de fallos
+     */
+    public long getFallosMantenimiento() {
+        return fallosMantenimiento;
+    }
+
+    /**
+     * Descripción del último fallo del mantenimiento
+     * @return String con la tarea, el segmento y el error, o null si no hubo
+     */
+    public String getUltimoFalloMantenimiento() {
+        return ultimoFalloMantenimiento;
+    }
+
+    /**
+     * Bytes por millón de registros sin comprimir
+     * @return double con el promedio, 0 si no hay registros
+     */
+    public double getBytesOriginalesPorMillon() {
+        return registros == 0 ? 0 : bytesOriginales * MILLON / registros;
+    }
+
+    /**
+     * Bytes por millón de registros tal como están en disco
+     * @return double con el promedio, 0 si no hay registros
+     */
+    public double getBytesEnDiscoPorMillon() {
+        return registros == 0 ? 0 : bytesEnDisco * MILLON / registros;
+    }
+
+    /**
+     * Fracción del espacio original que se ahorró al comprimir
+     * @return double entre 0 y 1
+     */
+    public double getAhorro() {
+        return bytesOriginales == 0 ? 0 : 1.0 - (double) bytesEnDisco / bytesOriginales;
+    }
+
+    @Override
+    public String toString() {
+        String resumen = String.format("%d registros en %d segmentos (%d comprimidos): %.1f MB por millón"
+                        + " sin comprimir, %.1f MB por millón en disco (ahorro %.0f%%)",
+                registros, segmentos, segmentosComprimidos,
+                getBytesOriginalesPorMillon() / (1 << 20), getBytesEnDiscoPorMillon() / (1 << 20),
+                getAhorro() * 100);
+        if (fallosMantenimiento > 0) {
+            resumen += String.format("; %d fallos de mantenimiento, el último en %s",
+                    fallosMantenimiento, ultimoFalloMantenimiento);
+        }
+        return resumen;
+    }
+}
@@ -0,0 +1,63 @@
+package org.paiz.model;
+
+/**
+ * Clase ResumenGrupo
+ * Agregados de un grupo de equipos (por zona, marca o categoría)
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class ResumenGrupo {
+    private final int cantidad;
+    private final int operativos;
+    private final double consumoTotal;
+
+    /**
+     * Constructor de ResumenGrupo
+     * @param cantidad cantidad de equipos del grupo
+     * @param operativos equipos en funcionamiento
+     * @param consumoTotal suma del consumo en watts
+     */
+    public ResumenGrupo(int cantidad, int operativos, double consumoTotal) {
+        this.cantidad = cantidad;
+        this.operativos = operativos;
+        this.consumoTotal = consumoTotal;
+    }
+
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    public int getOperativos() {
+        return operativos;
+    }
+
+    public int getInactivos() {
+        return cantidad - operativos;
+    }
+
+    public double getConsumoTotal() {
+        return consumoTotal;
+    }
+
+    /**
+     * Consumo promedio de los equipos del grupo
+     * @return double con el promedio en watts
+     */
+    public double getConsumoPromedio() {
+        return cantidad > 0 ? consumoTotal / cantidad : 0.0;
+    }
+
+    /**
+     * Proporción de equipos inactivos en el grupo
+     * @return double entre 0 y 1
+     */
+    public double getRatioInactivos() {
+        return cantidad > 0 ? (double) getInactivos() / cantidad : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d equipos (%d inactivos) - %.2fW", cantidad,
+                getInactivos(), consumoTotal);
+    }
+}
@@ -0,0 +1,64 @@
+package org.paiz.model;
+
+/**
+ * Clase ResumenVentana
+ * Mínimo, máximo, promedio y cantidad de lecturas de un canal en un período
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class ResumenVentana {
+    private final long cantidad;
+    private final double minimo;
+    private final double maximo;
+    private final double suma;
+
+    /**
+     * Constructor de ResumenVentana
+     * @param cantidad lecturas del período
+     * @param minimo menor valor
+     * @param maximo mayor valor
+     * @param suma suma de los valores
+     */
+    public ResumenVentana(long cantidad, double minimo, double maximo, double suma) {
+        this.cantidad = cantidad;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.suma = suma;
+    }
+
+    public long getCantidad() {
+        return cantidad;
+    }
+
+    /**
+     * @return double con el menor valor, o NaN si no hay lecturas
+     */
+    public double getMinimo() {
+        return cantidad > 0 ? minimo : Double.NaN;
+    }
+
+    /**
+     * @return double con el mayor valor, o NaN si no hay lecturas
+     */
+    public double getMaximo() {
+        return cantidad > 0 ? maximo : Double.NaN;
+    }
+
+    public double getSuma() {
+        return suma;
+    }
+
+    /**
+     * Promedio de las lecturas del período
+     * @return double con el promedio, o NaN si no hay lecturas
+     */
+    public double getPromedio() {
+        return cantidad > 0 ? suma / cantidad : Double.NaN;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d lecturas - promedio %.2f (mín %.2f, máx %.2f)", cantidad,
+                getPromedio(), getMinimo(), getMaximo());
+    }
+}
@@ -4,10 +4,7 @@ import org.paiz.interfaces.IAuditable;
 import org.paiz.interfaces.IEjecutable;
 import org.paiz.interfaces.IMedible;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Clase RociadorInteligente
@@ -17,20 +14,32 @@ import java.time.format.DateTimeFormatter;
  */
 public class RociadorInteligente extends Equipo
         implements IEjecutable, IMedible, IAuditable {
+    static final String CATEGORIA = "Sistema de Riego Inteligente";
 
     private double alcanceMetros;
     private double presionBar;
     private String modoRociador;
-    private List<String> bitacora;
+    private final CanalBitacora bitacora;
 
     public RociadorInteligente(String codigo, String denominacion, String marca,
                                double consumo, String zona, double alcance) {
+        this(codigo, denominacion, marca, consumo, zona, alcance, true);
+    }
+
+    /**
+     * Constructor que permite omitir la anotación de inicialización
+     * @param anotarInicio false al reconstruir un equipo que ya se dio de alta
+     */
+    RociadorInteligente(String codigo, String denominacion, String marca,
+                        double consumo, String zona, double alcance, boolean anotarInicio) {
         super(codigo, denominacion, marca, consumo, zona);
         this.alcanceMetros = alcance;
         this.presionBar = 3.5;
         this.modoRociador = "APAGADO";
-        this.bitacora = new ArrayList<>();
-        agregarRegistro("Rociador inteligente inicializado");
+        this.bitacora = MotorBitacora.global().abrirCanal(codigo, zona);
+        if (anotarInicio) {
+            bitacora.registrar(EventoBitacora.INICIALIZACION, "Rociador inteligente inicializado");
+        }
     }
 
     @Override
@@ -39,15 +48,15 @@ public class RociadorInteligente extends Equipo
 
         if (instruccion.equalsIgnoreCase("ACTIVAR")) {
             modoRociador = "ACTIVO";
-            agregarRegistro("Rociador activado - Alcance: " + alcanceMetros + "m");
+            bitacora.registrar(EventoBitacora.ROCIADOR_ACTIVADO, alcanceMetros);
             exitoso = true;
         } else if (instruccion.equalsIgnoreCase("DESACTIVAR")) {
             modoRociador = "APAGADO";
-            agregarRegistro("Rociador desactivado");
+            bitacora.registrar(EventoBitacora.ROCIADOR_DESACTIVADO);
             exitoso = true;
         } else if (instruccion.startsWith("AJUSTAR")) {
             modoRociador = "AJUSTE";
-            agregarRegistro("Ajustando parámetros de rociado");
+            bitacora.registrar(EventoBitacora.ROCIADOR_AJUSTADO);
             exitoso = true;
         }
 
@@ -55,29 +64,45 @@ public class RociadorInteligente extends Equipo
     }
 
     @Override
-    public String capturarDatos() {
-        presionBar = 2.5 + Math.random() * 2.0;
-        String datos = String.format("Presión actual: %.2f bar - Alcance: %.1fm - Modo: %s",
-                presionBar, alcanceMetros, modoRociador);
-        agregarRegistro("Datos de operación capturados");
-        return datos;
+    public void capturarDatos(LecturaTelemetria lectura) {
+        FuenteSimulada fuente = SimuladorSensores.global().fuente(codigo);
+        lectura.reiniciar(this, fuente.siguienteInstante());
+        presionBar = fuente.flujoBomba(3.5);
+        lectura.poner(CanalTelemetria.PRESION_AGUA, presionBar);
+        lectura.poner(CanalTelemetria.ALCANCE, alcanceMetros);
+        bitacora.registrar(EventoBitacora.DATOS_OPERACION);
+    }
+
+    @Override
+    public String describirLectura(LecturaTelemetria lectura) {
+        return String.format("Presión actual: %.2f bar - Alcance: %.1fm - Modo: %s",
+                lectura.obtener(CanalTelemetria.PRESION_AGUA), lectura.obtener(CanalTelemetria.ALCANCE),
+                modoRociador);
     }
 
     @Override
     public void agregarRegistro(String entrada) {
-        String timestamp = LocalDateTime.now()
-                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        bitacora.add(timestamp + " - " + entrada);
+        bitacora.registrar(entrada);
     }
 
     @Override
     public List<String> consultarBitacora() {
-        return new ArrayList<>(bitacora);
+        return bitacora.consultar();
+    }
+
+    @Override
+    public List<String> consultarUltimosRegistros(int cantidad) {
+        return bitacora.consultarUltimos(cantidad);
+    }
+
+    @Override
+    public int contarRegistros() {
+        return bitacora.contarRegistros();
     }
 
     @Override
     public String obtenerCategoria() {
-        return "Sistema de Riego Inteligente";
+        return CATEGORIA;
     }
 
     @Override
@@ -0,0 +1,133 @@
+package org.paiz.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+
+/**
+ * Clase SecuenciaAnexable
+ * Arreglo de solo anexión que entrega instantáneas inmutables sin copiar
+ * Como los elementos ya escritos nunca cambian, una instantánea solo
+ * necesita recordar el arreglo y el tamaño del momento en que se tomó
+ *
+ * Puede empezar con una base de elementos que no están en el arreglo:
+ * se piden a una función la primera vez que se leen (por ejemplo, los
+ * equipos de un catálogo que todavía no se construyeron)
+ * @author Franco Paiz
+ * @version 1.0
+ */
+class SecuenciaAnexable<E> {
+    private static final int CAPACIDAD_INICIAL = 8;
+
+    private volatile Object[] elementos;
+    private volatile int tamano;
+    // Entrega los elementos de la base que no están en el arreglo; null si no hay base
+    private final IntFunction<E> faltantes;
+
+    /**
+     * Constructor que inicializa la secuencia vacía
+     */
+    SecuenciaAnexable() {
+        this.elementos = new Object[CAPACIDAD_INICIAL];
+        this.faltantes = null;
+    }
+
+    /**
+     * Constructor con una base de elementos que se obtienen al leerlos
+     * La función debe devolver siempre el mismo elemento para cada posición
+     * @param base cantidad de elementos de la base
+     * @param faltantes función que entrega el elemento de una posición de la base
+     */
+    SecuenciaAnexable(int base, IntFunction<E> faltantes) {
+        this.elementos = new Object[base + CAPACIDAD_INICIAL];
+        this.tamano = base;
+        this.faltantes = faltantes;
+    }
+
+    /**
+     * Agrega un elemento al final
+     * Solo un hilo debe anexar a la vez; los lectores pueden ser varios
+     * @param elemento elemento a agregar
+     */
+    void anexar(E elemento) {
+        Object[] arreglo = elementos;
+        int n = tamano;
+        if (n == arreglo.length) {
+            arreglo = Arrays.copyOf(arreglo, n + (n >> 1) + 1);
+            elementos = arreglo;
+        }
+        arreglo[n] = elemento;
+        // Publicar el tamaño al final hace visible el elemento a los lectores
+        tamano = n + 1;
+    }
+
+    /**
+     * Obtiene el elemento de una posición
+     * @param indice posición del elemento
+     * @return E el elemento
+     */
+    E obtener(int indice) {
+        int n = tamano;
+        if (indice < 0 || indice >= n) {
+            throw new IndexOutOfBoundsException("Índice: " + indice + ", tamaño: " + n);
+        }
+        return leer(elementos, indice, faltantes);
+    }
+
+    /**
+     * Cantidad de elementos publicados
+     * @return int con el tamaño actual
+     */
+    int tamano() {
+        return tamano;
+    }
+
+    /**
+     * Toma una instantánea inmutable en tiempo constante
+     * Los elementos agregados después no aparecen en ella
+     * @return List de solo lectura
+     */
+    List<E> instantanea() {
+        int n = tamano;
+        return new Instantanea<>(elementos, n, faltantes);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E leer(Object[] arreglo, int indice, IntFunction<E> faltantes) {
+        Object elemento = arreglo[indice];
+        if (elemento == null && faltantes != null) {
+            return faltantes.apply(indice);
+        }
+        return (E) elemento;
+    }
+
+    /**
+     * Vista de solo lectura sobre un prefijo del arreglo
+     */
+    private static class Instantanea<E> extends AbstractList<E> implements RandomAccess {
+        private final Object[] arreglo;
+        private final int tamano;
+        private final IntFunction<E> faltantes;
+
+        Instantanea(Object[] arreglo, int tamano, IntFunction<E> faltantes) {
+            this.arreglo = arreglo;
+            this.tamano = tamano;
+            this.faltantes = faltantes;
+        }
+
+        @Override
+        public E get(int indice) {
+            if (indice < 0 || indice >= tamano) {
+                throw new IndexOutOfBoundsException("Índice: " + indice + ", tamaño: " + tamano);
+            }
+            return leer(arreglo, indice, faltantes);
+        }
+
+        @Override
+        public int size() {
+            return tamano;
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package org.paiz.model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.zip.CRC32;
+
+/**
+ * Clase SegmentoBitacora
+ * Un archivo de solo anexión de la bitácora en disco y su índice disperso
+ *
+ * Formato del segmento:
+ * - Cabecera de 16 bytes: magia, versión y número de segmento.
+ * - Registros: longitud del cuerpo (int), CRC del cuerpo (int) y cuerpo
+ *   con instante (long), canal (int), evento (int), dos argumentos
+ *   (double) y texto (longitud int, -1 si es null, y bytes UTF-8).
+ *
+ * El índice disperso anota el instante y la posición de uno de cada
+ * INTERVALO_INDICE registros. Además se anotan los canales y los tipos de
+ * evento presentes, para que una consulta descarte segmentos completos.
+ * Al sellar el segmento se guarda junto a él en un archivo .idx; si falta
+ * o no coincide, se reconstruye recorriendo el segmento.
+ *
+ * Un segmento sellado y frío puede reemplazarse por su versión comprimida
+ * (.segz, ver SegmentoComprimido); las posiciones del índice siguen
+ * siendo las del segmento original.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+class SegmentoBitacora {
+    static final int MAGIA = 0x41474253; // "AGBS"
+    static final int VERSION = 1;
+    static final int TAMANO_CABECERA = 16;
+    // Longitud y CRC que preceden a cada cuerpo
+    static final int CABECERA_REGISTRO = 8;
+    // Cuerpo sin texto: instante, canal, evento, dos argumentos y longitud del texto
+    static final int CUERPO_MINIMO = 36;
+    // Cada cuántos registros se anota una entrada en el índice disperso
+    static final int INTERVALO_INDICE = 256;
+
+    private static final int MAGIA_INDICE = 0x41474249; // "AGBI"
+
+    private final long numero;
+    private final Path ruta;
+    // El contenido está en rutaComprimida() en lugar de ruta
+    private boolean comprimido;
+    // Tamaño del archivo comprimido; 0 si no está comprimido
+    private long bytesComprimidos;
+    // Bytes válidos del segmento, incluida la cabecera
+    private long longitud;
+    private long registros;
+    private long primerInstante;
+    private long ultimoInstante;
+    private long[] instantesIndice;
+    private long[] posicionesIndice;
+    private int entradasIndice;
+    // Canales con registros en el segmento
+    private BitSet canales;
+    // Bit i encendido si hay registros del evento de código i
+    private long mascaraEventos;
+
+    SegmentoBitacora(long numero, Path ruta) {
+        this.numero = numero;
+        this.ruta = ruta;
+        this.longitud = TAMANO_CABECERA;
+        this.instantesIndice = new long[16];
+        this.posicionesIndice = new long[16];
+        this.canales = new BitSet();
+    }
+
+    /**
+     * Ruta del segmento con el número indicado
+     */
+    static Path rutaSegmento(Path directorio, long numero) {
+        return directorio.resolve(String.format("bitacora-%010d.seg", numero));
+    }
+
+    /**
+     * Abre un segmento existente usando su índice o reconstruyéndolo
+     * Si el segmento termina en un registro incompleto o corrupto (una
+     * escritura interrumpida), el archivo se trunca en el último registro válido
+     */
+    static SegmentoBitacora recuperar(long numero, Path ruta, boolean comprimido) throws IOException {
+        SegmentoBitacora segmento = new SegmentoBitacora(numero, ruta);
+        if (comprimido) {
+            segmento.marcarComprimido(Files.size(segmento.rutaComprimida()));
+        }
+        if (!segmento.cargarIndice()) {
+            if (comprimido) {
+                segmento.reconstruirComprimido();
+            } else {
+                segmento.reconstruir();
+            }
+            if (segmento.registros > 0) {
+                segmento.escribirIndice();
+            }
+        }
+        return segmento;
+    }
+
+    /**
+     * Escribe la cabecera de un segmento nuevo
+     */
+    static void escribirCabecera(FileChannel canal, long numero) throws IOException {
+        ByteBuffer cabecera = ByteBuffer.allocate(TAMANO_CABECERA);
+        cabecera.putInt(MAGIA).putInt(VERSION).putLong(numero).flip();
+        while (cabecera.hasRemaining()) {
+            canal.write(cabecera, cabecera.position());
+        }
+        canal.position(TAMANO_CABECERA);
+    }
+
+    /**
+     * Anota un registro recién anexado en los metadatos y el índice
+     * @param posicion posición del registro dentro del segmento
+     * @param tamano bytes del registro, cabecera incluida
+     * @param instante instante del registro
+     * @param canal número estable del canal
+     * @param evento código del evento
+     */
+    void anotar(long posicion, int tamano, long instante, int canal, int evento) {
+        if (registros % INTERVALO_INDICE == 0) {
+            if (entradasIndice == instantesIndice.length) {
+                instantesIndice = Arrays.copyOf(instantesIndice, entradasIndice * 2);
+                posicionesIndice = Arrays.copyOf(posicionesIndice, entradasIndice * 2);
+            }
+            instantesIndice[entradasIndice] = instante;
+            posicionesIndice[entradasIndice] = posicion;
+            entradasIndice++;
+        }
+        if (registros == 0) {
+            primerInstante = instante;
+        }
+        ultimoInstante = instante;
+        canales.set(canal);
+        mascaraEventos |= 1L << evento;
+        registros++;
+        longitud = posicion + tamano;
+    }
+
+    /**
+     * Posición desde la que conviene recorrer para encontrar el primer
+     * registro con instante mayor o igual al indicado
+     */
+    long posicionDesdeInstante(long desde) {
+        // Última entrada con instante menor que desde
+        int bajo = 0;
+        int alto = entradasIndice - 1;
+        int encontrada = -1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (instantesIndice[medio] < desde) {
+                encontrada = medio;
+                bajo = medio + 1;
+            } else {
+                alto = medio - 1;
+            }
+        }
+        return encontrada < 0 ? TAMANO_CABECERA : posicionesIndice[encontrada];
+    }
+
+    /**
+     * Posición del registro indexado más cercano antes del ordinal indicado
+     * El llamador debe saltar ordinal % INTERVALO_INDICE registros más
+     */
+    long posicionDesdeRegistro(long ordinal) {
+        int entrada = (int) Math.min(ordinal / INTERVALO_INDICE, entradasIndice - 1L);
+        return entrada < 0 ? TAMANO_CABECERA : posicionesIndice[entrada];
+    }
+
+    /**
+     * Mide el registro de una posición validando su CRC
+     * @return int con los bytes del registro, o -1 si no es válido
+     */
+    static int medirRegistro(ByteBuffer datos, int posicion, int limite, CRC32 crc) {
+        if (posicion > limite - CABECERA_REGISTRO) {
+            return -1;
+        }
+        int cuerpo = datos.getInt(posicion);
+        if (cuerpo < CUERPO_MINIMO || cuerpo > limite - posicion - CABECERA_REGISTRO) {
+            return -1;
+        }
+        crc.reset();
+        crc.update(datos.slice(posicion + CABECERA_REGISTRO, cuerpo));
+        if ((int) crc.getValue() != datos.getInt(posicion + 4)) {
+            return -1;
+        }
+        return CABECERA_REGISTRO + cuerpo;
+    }
+
+    private void reconstruir() throws IOException {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long tamanoArchivo = canal.size();
+            if (tamanoArchivo > Integer.MAX_VALUE) {
+                throw new IOException("Segmento de bitácora demasiado grande: " + ruta);
+            }
+            MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanoArchivo);
+            if (tamanoArchivo < TAMANO_CABECERA || mapa.getInt(0) != MAGIA) {
+                // La cabecera misma quedó incompleta: el segmento no tenía registros
+                canal.truncate(0);
+                escribirCabecera(canal, numero);
+                canal.force(true);
+                return;
+            }
+
+            CRC32 crc = new CRC32();
+            int limite = (int) tamanoArchivo;
+            int posicion = TAMANO_CABECERA;
+            int tamano;
+            while ((tamano = medirRegistro(mapa, posicion, limite, crc)) > 0) {
+                int cuerpo = posicion + CABECERA_REGISTRO;
+                anotar(posicion, tamano, mapa.getLong(cuerpo), mapa.getInt(cuerpo + 8),
+                        mapa.getInt(cuerpo + 12));
+                posicion += tamano;
+            }
+            if (posicion < tamanoArchivo) {
+                canal.truncate(posicion);
+                canal.force(true);
+            }
+        }
+    }
+
+    /**
+     * Reconstruye el índice de un segmento comprimido
+     * Solo se comprimen segmentos sellados y ya validados, así que no hay
+     * cola incompleta que descartar
+     */
+    private void reconstruirComprimido() throws IOException {
+        try (SegmentoComprimido datos = SegmentoComprimido.abrir(rutaComprimida())) {
+            int limite = (int) datos.getLongitudOriginal();
+            int posicion = TAMANO_CABECERA;
+            while (posicion < limite) {
+                int cuerpo = posicion + CABECERA_REGISTRO;
+                int tamano = CABECERA_REGISTRO + datos.getInt(posicion);
+                anotar(posicion, tamano, datos.getLong(cuerpo), datos.getInt(cuerpo + 8),
+                        datos.getInt(cuerpo + 12));
+                posicion += tamano;
+            }
+        }
+    }
+
+    /**
+     * Indica si el segmento puede tener registros que cumplan el filtro
+     * @param canalesBuscados canales aceptados, o null para aceptar todos
+     * @param filtro criterios de tiempo y evento
+     */
+    boolean puedeContener(BitSet canalesBuscados, FiltroBitacora filtro) {
+        return registros > 0
+                && ultimoInstante >= filtro.getDesdeNanos()
+                && primerInstante <= filtro.getHastaNanos()
+                && (canalesBuscados == null || canales.intersects(canalesBuscados))
+                && (filtro.getMascaraEventos() == 0 || (mascaraEventos & filtro.getMascaraEventos()) != 0);
+    }
+
+    /**
+     * Guarda el índice disperso junto al segmento
+     */
+    void escribirIndice() throws IOException {
+        long[] palabrasCanales = canales.toLongArray();
+        int cuerpo = 4 + 8 * 4 + 4 + entradasIndice * 16 + 8 + 4 + palabrasCanales.length * 8;
+        ByteBuffer datos = ByteBuffer.allocate(cuerpo + 8);
+        datos.putInt(MAGIA_INDICE).putLong(longitud).putLong(registros)
+                .putLong(primerInstante).putLong(ultimoInstante).putInt(entradasIndice);
+        for (int i = 0; i < entradasIndice; i++) {
+            datos.putLong(instantesIndice[i]).putLong(posicionesIndice[i]);
+        }
+        datos.putLong(mascaraEventos).putInt(palabrasCanales.length);
+        for (long palabra : palabrasCanales) {
+            datos.putLong(palabra);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(datos.array(), 0, cuerpo);
+        datos.putLong(crc.getValue()).flip();
+
+        try (FileChannel canal = FileChannel.open(rutaIndice(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (datos.hasRemaining()) {
+                canal.write(datos);
+            }
+            canal.force(true);
+        }
+    }
+
+    private boolean cargarIndice() throws IOException {
+        Path rutaIndice = rutaIndice();
+        if (!Files.exists(rutaIndice)) {
+            return false;
+        }
+        byte[] bytes = Files.readAllBytes(rutaIndice);
+        if (bytes.length < 8) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 8);
+        ByteBuffer datos = ByteBuffer.wrap(bytes);
+        if (crc.getValue() != datos.getLong(bytes.length - 8)) {
+            return false;
+        }
+        datos.limit(bytes.length - 8);
+        try {
+            if (datos.getInt() != MAGIA_INDICE) {
+                return false;
+            }
+            long longitudIndice = datos.getLong();
+            if (longitudIndice != longitudEnArchivo()) {
+                return false;
+            }
+            long registrosIndice = datos.getLong();
+            long primero = datos.getLong();
+            long ultimo = datos.getLong();
+            int entradas = datos.getInt();
+            long[] instantesLeidos = new long[Math.max(16, entradas)];
+            long[] posicionesLeidas = new long[Math.max(16, entradas)];
+            for (int i = 0; i < entradas; i++) {
+                instantesLeidos[i] = datos.getLong();
+                posicionesLeidas[i] = datos.getLong();
+            }
+            long mascara = datos.getLong();
+            long[] palabrasCanales = new long[datos.getInt()];
+            for (int i = 0; i < palabrasCanales.length; i++) {
+                palabrasCanales[i] = datos.getLong();
+            }
+            if (datos.hasRemaining()) {
+                return false;
+            }
+
+            longitud = longitudIndice;
+            registros = registrosIndice;
+            primerInstante = primero;
+            ultimoInstante = ultimo;
+            entradasIndice = entradas;
+            instantesIndice = instantesLeidos;
+            posicionesIndice = posicionesLeidas;
+            mascaraEventos = mascara;
+            canales = BitSet.valueOf(palabrasCanales);
+            return true;
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            // Índice de otro formato: se reconstruye
+            return false;
+        }
+    }
+
+    /**
+     * Longitud del segmento original según el archivo en disco
+     */
+    private long longitudEnArchivo() throws IOException {
+        if (!comprimido) {
+            return Files.size(ruta);
+        }
+        try (SegmentoComprimido datos = SegmentoComprimido.abrir(rutaComprimida())) {
+            return datos.getLongitudOriginal();
+        }
+    }
+
+    /**
+     * Borra el segmento, su versión comprimida y su índice
+     */
+    void eliminar() throws IOException {
+        Files.deleteIfExists(rutaIndice());
+        Files.deleteIfExists(ruta);
+        Files.deleteIfExists(rutaComprimida());
+    }
+
+    /**
+     * Bytes que ocupa el segmento en disco, sin contar el índice
+     */
+    long bytesEnDisco() {
+        return comprimido ? bytesComprimidos : longitud;
+    }
+
+    Path rutaIndice() {
+        return conExtension(".idx");
+    }
+
+    Path rutaComprimida() {
+        return conExtension(".segz");
+    }
+
+    private Path conExtension(String extension) {
+        String nombre = ruta.getFileName().toString();
+        return ruta.resolveSibling(nombre.substring(0, nombre.length() - 4) + extension);
+    }
+
+    /**
+     * Anota que el contenido pasó al archivo comprimido
+     * Se llama con el candado del diario tomado
+     * @param bytes tamaño del archivo comprimido
+     */
+    void marcarComprimido(long bytes) {
+        comprimido = true;
+        bytesComprimidos = bytes;
+    }
+
+    boolean isComprimido() {
+        return comprimido;
+    }
+
+    long getNumero() {
+        return numero;
+    }
+
+    Path getRuta() {
+        return ruta;
+    }
+
+    long getLongitud() {
+        return longitud;
+    }
+
+    long getRegistros() {
+        return registros;
+    }
+
+    long getPrimerInstante() {
+        return primerInstante;
+    }
+
+    long getUltimoInstante() {
+        return ultimoInstante;
+    }
+}
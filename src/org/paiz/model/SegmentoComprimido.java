@@ -0,0 +1,266 @@
+package org.paiz.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Clase SegmentoComprimido
+ * Formato comprimido de un segmento de bitácora sellado ("frío")
+ *
+ * El segmento se corta en bloques de unos 64 KB que terminan en un límite
+ * de registro, y cada bloque se comprime por separado con Deflater; leer
+ * una página solo descomprime los bloques que toca. Los textos libres del
+ * segmento se guardan una vez en la cabecera y sirven de diccionario
+ * inicial, así los mensajes repetidos no se vuelven a almacenar en cada bloque.
+ *
+ * Formato: magia, versión, longitud original (long), cantidad de bloques
+ * (int), longitud del diccionario (int), diccionario, inicio original y
+ * posición comprimida de cada bloque más un final (long, long), CRC de la
+ * cabecera (long) y los bloques comprimidos.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+class SegmentoComprimido implements LectorSegmento {
+    private static final int MAGIA = 0x4147425A; // "AGBZ"
+    private static final int VERSION = 1;
+    private static final int TAMANO_BLOQUE = 1 << 16;
+    // Deflate solo aprovecha los últimos 32 KB del diccionario
+    private static final int TAMANO_DICCIONARIO = 1 << 15;
+
+    private final MappedByteBuffer archivo;
+    private final long longitudOriginal;
+    private final long[] iniciosOriginales;
+    private final long[] posicionesComprimidas;
+    private final byte[] diccionario;
+    private final Inflater inflater;
+
+    // Bloque descomprimido actualmente
+    private final byte[] bufferBloque;
+    private final ByteBuffer datosBloque;
+    private long inicioBloque;
+    private long finBloque;
+
+    private SegmentoComprimido(MappedByteBuffer archivo) throws IOException {
+        this.archivo = archivo;
+        if (archivo.capacity() < 24 || archivo.getInt(0) != MAGIA || archivo.getInt(4) != VERSION) {
+            throw new IOException("Segmento comprimido inválido");
+        }
+        this.longitudOriginal = archivo.getLong(8);
+        int bloques = archivo.getInt(16);
+        int longitudDiccionario = archivo.getInt(20);
+        int finCabecera = 24 + longitudDiccionario + (bloques + 1) * 16;
+        if (bloques < 0 || longitudDiccionario < 0 || finCabecera + 8 > archivo.capacity()) {
+            throw new IOException("Segmento comprimido inválido");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(archivo.slice(0, finCabecera));
+        if (crc.getValue() != archivo.getLong(finCabecera)) {
+            throw new IOException("Cabecera de segmento comprimido corrupta");
+        }
+
+        this.diccionario = new byte[longitudDiccionario];
+        archivo.get(24, diccionario);
+        this.iniciosOriginales = new long[bloques + 1];
+        this.posicionesComprimidas = new long[bloques + 1];
+        int tamanoMaximo = 0;
+        for (int b = 0; b <= bloques; b++) {
+            int base = 24 + longitudDiccionario + b * 16;
+            iniciosOriginales[b] = archivo.getLong(base);
+            posicionesComprimidas[b] = archivo.getLong(base + 8);
+            if (b > 0) {
+                tamanoMaximo = (int) Math.max(tamanoMaximo, iniciosOriginales[b] - iniciosOriginales[b - 1]);
+            }
+        }
+        this.inflater = new Inflater();
+        this.bufferBloque = new byte[tamanoMaximo];
+        this.datosBloque = ByteBuffer.wrap(bufferBloque);
+    }
+
+    /**
+     * Abre un segmento comprimido para leerlo
+     * @param ruta archivo .segz
+     * @return SegmentoComprimido listo para leer; debe cerrarse
+     * @throws IOException si el archivo no es válido
+     */
+    static SegmentoComprimido abrir(Path ruta) throws IOException {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            return new SegmentoComprimido(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        }
+    }
+
+    /**
+     * Comprime un segmento sellado en un archivo nuevo
+     * @param origen segmento sin comprimir
+     * @param longitud bytes válidos del segmento
+     * @param destino archivo comprimido a crear
+     * @throws IOException si falla la lectura o la escritura
+     */
+    static void comprimir(Path origen, long longitud, Path destino) throws IOException {
+        MappedByteBuffer datos;
+        try (FileChannel canal = FileChannel.open(origen, StandardOpenOption.READ)) {
+            datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, longitud);
+        }
+
+        // Cortes en límites de registro y textos para el diccionario
+        List<Long> cortes = new ArrayList<>();
+        cortes.add(0L);
+        Set<String> textos = new LinkedHashSet<>();
+        int tamanoTextos = 0;
+        int posicion = SegmentoBitacora.TAMANO_CABECERA;
+        int inicioBloque = 0;
+        while (posicion < longitud) {
+            int cuerpo = posicion + SegmentoBitacora.CABECERA_REGISTRO;
+            int longitudTexto = datos.getInt(cuerpo + 32);
+            if (longitudTexto > 0 && tamanoTextos < TAMANO_DICCIONARIO) {
+                byte[] bytes = new byte[longitudTexto];
+                datos.get(cuerpo + SegmentoBitacora.CUERPO_MINIMO, bytes);
+                if (textos.add(new String(bytes, StandardCharsets.UTF_8))) {
+                    tamanoTextos += longitudTexto;
+                }
+            }
+            posicion = cuerpo + datos.getInt(posicion);
+            if (posicion - inicioBloque >= TAMANO_BLOQUE) {
+                cortes.add((long) posicion);
+                inicioBloque = posicion;
+            }
+        }
+        if (cortes.get(cortes.size() - 1) < longitud) {
+            cortes.add(longitud);
+        }
+        byte[] diccionario = String.join("", textos).getBytes(StandardCharsets.UTF_8);
+        if (diccionario.length > TAMANO_DICCIONARIO) {
+            diccionario = Arrays.copyOfRange(diccionario, diccionario.length - TAMANO_DICCIONARIO,
+                    diccionario.length);
+        }
+
+        int bloques = cortes.size() - 1;
+        int finCabecera = 24 + diccionario.length + (bloques + 1) * 16;
+        ByteBuffer cabecera = ByteBuffer.allocate(finCabecera + 8);
+        cabecera.putInt(MAGIA).putInt(VERSION).putLong(longitud).putInt(bloques)
+                .putInt(diccionario.length).put(diccionario);
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        ByteBuffer salida = ByteBuffer.allocate(TAMANO_BLOQUE);
+        try (FileChannel canal = FileChannel.open(destino, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long escrito = finCabecera + 8;
+            canal.position(escrito);
+            for (int b = 0; b < bloques; b++) {
+                cabecera.putLong(cortes.get(b)).putLong(escrito);
+                deflater.reset();
+                if (diccionario.length > 0) {
+                    deflater.setDictionary(diccionario);
+                }
+                int desde = cortes.get(b).intValue();
+                deflater.setInput(datos.slice(desde, cortes.get(b + 1).intValue() - desde));
+                deflater.finish();
+                while (!deflater.finished()) {
+                    salida.clear();
+                    deflater.deflate(salida);
+                    salida.flip();
+                    while (salida.hasRemaining()) {
+                        escrito += canal.write(salida);
+                    }
+                }
+            }
+            cabecera.putLong(longitud).putLong(escrito);
+
+            CRC32 crc = new CRC32();
+            crc.update(cabecera.array(), 0, finCabecera);
+            cabecera.putLong(crc.getValue()).flip();
+            long posicionCabecera = 0;
+            while (cabecera.hasRemaining()) {
+                posicionCabecera += canal.write(cabecera, posicionCabecera);
+            }
+            canal.force(true);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    long getLongitudOriginal() {
+        return longitudOriginal;
+    }
+
+    @Override
+    public int getInt(int posicion) {
+        return datosBloque.getInt(ubicar(posicion));
+    }
+
+    @Override
+    public long getLong(int posicion) {
+        return datosBloque.getLong(ubicar(posicion));
+    }
+
+    @Override
+    public double getDouble(int posicion) {
+        return datosBloque.getDouble(ubicar(posicion));
+    }
+
+    @Override
+    public void get(int posicion, byte[] destino) {
+        datosBloque.get(ubicar(posicion), destino);
+    }
+
+    @Override
+    public void close() {
+        inflater.end();
+    }
+
+    /**
+     * Descomprime, si hace falta, el bloque de una posición
+     * Ningún registro cruza un límite de bloque
+     * @return int con la posición dentro del bloque
+     */
+    private int ubicar(int posicion) {
+        if (posicion < inicioBloque || posicion >= finBloque) {
+            int bloque = Arrays.binarySearch(iniciosOriginales, posicion);
+            if (bloque < 0) {
+                bloque = -bloque - 2;
+            }
+            if (bloque < 0 || bloque >= iniciosOriginales.length - 1) {
+                throw new IndexOutOfBoundsException("Posición fuera del segmento: " + posicion);
+            }
+            descomprimir(bloque);
+        }
+        return (int) (posicion - inicioBloque);
+    }
+
+    private void descomprimir(int bloque) {
+        int longitud = (int) (iniciosOriginales[bloque + 1] - iniciosOriginales[bloque]);
+        int desde = (int) posicionesComprimidas[bloque];
+        int hasta = (int) posicionesComprimidas[bloque + 1];
+        inflater.reset();
+        inflater.setInput(archivo.slice(desde, hasta - desde));
+        try {
+            int leidos = 0;
+            while (leidos < longitud && !inflater.finished()) {
+                int n = inflater.inflate(bufferBloque, leidos, longitud - leidos);
+                if (n == 0 && inflater.needsDictionary()) {
+                    inflater.setDictionary(diccionario);
+                } else if (n == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("Bloque truncado");
+                }
+                leidos += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Bloque corrupto en el segmento comprimido", e);
+        }
+        inicioBloque = iniciosOriginales[bloque];
+        finBloque = iniciosOriginales[bloque + 1];
+    }
+}
@@ -0,0 +1,359 @@
+package org.paiz.model;
+
+import java.util.Arrays;
+
+/**
+ * Clase SerieTemporal
+ * Valores de un canal de un equipo comprimidos al estilo Gorilla
+ *
+ * Los puntos se codifican en bloques de bits de tamaño fijo:
+ * - Instante (milisegundos de época): el primero del bloque completo; los
+ *   siguientes como diferencia de la diferencia anterior, con prefijos de
+ *   1 a 4 bits según su tamaño. Con sondeos regulares casi siempre ocupa
+ *   un solo bit.
+ * - Valor: XOR con el anterior; si es igual ocupa un bit, y si no solo se
+ *   guardan los bits significativos del XOR.
+ * El bloque abierto empieza con PALABRAS_INICIALES palabras y se duplica
+ * hasta PALABRAS_BLOQUE, así una serie corta o recién sellada no reserva
+ * 2 KB. Al llenarse, el bloque se sella (recortado a los bits usados) y se
+ * abre otro. Cada bloque guarda su primer y último instante para que un rango
+ * solo decodifique los bloques que se solapan con él.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+class SerieTemporal {
+    // Palabras de 64 bits de un bloque abierto lleno (2 KB)
+    static final int PALABRAS_BLOQUE = 256;
+    // Palabras con que empieza un bloque abierto (unos 45 puntos regulares)
+    static final int PALABRAS_INICIALES = 8;
+    // Peor caso de un punto: 4 + 64 bits de instante y 2 + 5 + 6 + 64 de valor
+    private static final int BITS_PUNTO_MAXIMO = 145;
+
+    // Bloques sellados
+    private long[][] bloques;
+    private long[] primerosInstantes;
+    private long[] ultimosInstantes;
+    private int[] puntosPorBloque;
+    private int[] bitsPorBloque;
+    private int cantidadBloques;
+
+    // Bloque abierto y estado del codificador
+    private long[] abierto;
+    private int posicion;
+    private int puntosAbierto;
+    private long primerInstanteAbierto;
+    private long ultimoInstante;
+    private long ultimaDiferencia;
+    private long ultimosBits;
+    private int ceros;
+    private int significativos;
+
+    SerieTemporal() {
+        this.bloques = new long[4][];
+        this.primerosInstantes = new long[4];
+        this.ultimosInstantes = new long[4];
+        this.puntosPorBloque = new int[4];
+        this.bitsPorBloque = new int[4];
+        this.abierto = new long[PALABRAS_INICIALES];
+        this.ultimoInstante = Long.MIN_VALUE;
+    }
+
+    /**
+     * Agrega un punto al final de la serie
+     * @param instanteMillis instante en milisegundos de época
+     * @param valor valor medido
+     * @return boolean false si el instante es anterior al último (se ignora)
+     */
+    synchronized boolean agregar(long instanteMillis, double valor) {
+        if (instanteMillis < ultimoInstante) {
+            return false;
+        }
+        if (posicion + BITS_PUNTO_MAXIMO > abierto.length * 64) {
+            if (abierto.length < PALABRAS_BLOQUE) {
+                abierto = Arrays.copyOf(abierto, abierto.length * 2);
+            } else {
+                sellar();
+            }
+        }
+        long bits = Double.doubleToRawLongBits(valor);
+        if (puntosAbierto == 0) {
+            escribir(instanteMillis, 64);
+            escribir(bits, 64);
+            primerInstanteAbierto = instanteMillis;
+            ultimaDiferencia = 0;
+            ceros = Integer.MAX_VALUE;
+        } else {
+            long diferencia = instanteMillis - ultimoInstante;
+            escribirInstante(diferencia - ultimaDiferencia);
+            ultimaDiferencia = diferencia;
+            escribirValor(bits ^ ultimosBits);
+        }
+        ultimoInstante = instanteMillis;
+        ultimosBits = bits;
+        puntosAbierto++;
+        return true;
+    }
+
+    /**
+     * Rangos en complemento a dos: n bits van de -2^(n-1) a 2^(n-1) - 1
+     */
+    private void escribirInstante(long dd) {
+        if (dd == 0) {
+            escribir(0, 1);
+        } else if (dd >= -64 && dd <= 63) {
+            escribir(0b10, 2);
+            escribir(dd, 7);
+        } else if (dd >= -256 && dd <= 255) {
+            escribir(0b110, 3);
+            escribir(dd, 9);
+        } else if (dd >= -2048 && dd <= 2047) {
+            escribir(0b1110, 4);
+            escribir(dd, 12);
+        } else {
+            escribir(0b1111, 4);
+            escribir(dd, 64);
+        }
+    }
+
+    private void escribirValor(long xor) {
+        if (xor == 0) {
+            escribir(0, 1);
+            return;
+        }
+        int nuevosCeros = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int finales = Long.numberOfTrailingZeros(xor);
+        if (ceros != Integer.MAX_VALUE && nuevosCeros >= ceros
+                && finales >= 64 - ceros - significativos) {
+            // Cabe en la ventana de bits significativos anterior
+            escribir(0b10, 2);
+            escribir(xor >>> (64 - ceros - significativos), significativos);
+        } else {
+            ceros = nuevosCeros;
+            significativos = 64 - nuevosCeros - finales;
+            escribir(0b11, 2);
+            escribir(ceros, 5);
+            // 64 significativos se guarda como 0
+            escribir(significativos & 63, 6);
+            escribir(xor >>> finales, significativos);
+        }
+    }
+
+    private void escribir(long valor, int bits) {
+        long mascara = bits == 64 ? -1L : (1L << bits) - 1;
+        valor &= mascara;
+        int palabra = posicion >>> 6;
+        int libres = 64 - (posicion & 63);
+        if (bits <= libres) {
+            abierto[palabra] |= valor << (libres - bits);
+        } else {
+            int resto = bits - libres;
+            abierto[palabra] |= valor >>> resto;
+            abierto[palabra + 1] |= valor << (64 - resto);
+        }
+        posicion += bits;
+    }
+
+    private void sellar() {
+        if (cantidadBloques == bloques.length) {
+            int nueva = cantidadBloques * 2;
+            bloques = Arrays.copyOf(bloques, nueva);
+            primerosInstantes = Arrays.copyOf(primerosInstantes, nueva);
+            ultimosInstantes = Arrays.copyOf(ultimosInstantes, nueva);
+            puntosPorBloque = Arrays.copyOf(puntosPorBloque, nueva);
+            bitsPorBloque = Arrays.copyOf(bitsPorBloque, nueva);
+        }
+        int usadas = (posicion + 63) >>> 6;
+        bloques[cantidadBloques] = usadas == abierto.length ? abierto : Arrays.copyOf(abierto, usadas);
+        primerosInstantes[cantidadBloques] = primerInstanteAbierto;
+        ultimosInstantes[cantidadBloques] = ultimoInstante;
+        puntosPorBloque[cantidadBloques] = puntosAbierto;
+        bitsPorBloque[cantidadBloques] = posicion;
+        cantidadBloques++;
+        abierto = new long[PALABRAS_INICIALES];
+        posicion = 0;
+        puntosAbierto = 0;
+    }
+
+    /**
+     * Recorre en orden los puntos con instante dentro del rango
+     * @param desdeMillis instante mínimo (inclusive)
+     * @param hastaMillis instante máximo (inclusive)
+     * @param visitante receptor de los puntos
+     * @return long con la cantidad de puntos visitados
+     */
+    synchronized long recorrer(long desdeMillis, long hastaMillis, VisitantePunto visitante) {
+        // Primer bloque sellado que termina en o después de desde
+        int bajo = 0;
+        int alto = cantidadBloques;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (ultimosInstantes[medio] < desdeMillis) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        long visitados = 0;
+        for (int b = bajo; b < cantidadBloques && primerosInstantes[b] <= hastaMillis; b++) {
+            visitados += decodificar(bloques[b], puntosPorBloque[b], desdeMillis, hastaMillis, visitante);
+        }
+        if (puntosAbierto > 0 && ultimoInstante >= desdeMillis && primerInstanteAbierto <= hastaMillis) {
+            visitados += decodificar(abierto, puntosAbierto, desdeMillis, hastaMillis, visitante);
+        }
+        return visitados;
+    }
+
+    private static long decodificar(long[] datos, int puntos, long desde, long hasta,
+                                    VisitantePunto visitante) {
+        Lector lector = new Lector(datos);
+        long instante = lector.leer(64);
+        long bits = lector.leer(64);
+        long diferencia = 0;
+        int ceros = 0;
+        int significativos = 0;
+        long visitados = 0;
+        for (int p = 0; ; p++) {
+            if (instante > hasta) {
+                break;
+            }
+            if (instante >= desde) {
+                visitante.visitar(instante * 1_000_000L, Double.longBitsToDouble(bits));
+                visitados++;
+            }
+            if (p == puntos - 1) {
+                break;
+            }
+            diferencia += lector.leerDiferencia();
+            instante += diferencia;
+            if (lector.leer(1) != 0) {
+                if (lector.leer(1) != 0) {
+                    ceros = (int) lector.leer(5);
+                    significativos = (int) lector.leer(6);
+                    if (significativos == 0) {
+                        significativos = 64;
+                    }
+                }
+                bits ^= lector.leer(significativos) << (64 - ceros - significativos);
+            }
+        }
+        return visitados;
+    }
+
+    /**
+     * Instante del último punto
+     * @return long en milisegundos de época, o Long.MIN_VALUE si está vacía
+     */
+    synchronized long getUltimoInstante() {
+        return ultimoInstante;
+    }
+
+    /**
+     * Valor del último punto
+     * @return double con el valor, o NaN si está vacía
+     */
+    synchronized double getUltimoValor() {
+        return ultimoInstante == Long.MIN_VALUE ? Double.NaN : Double.longBitsToDouble(ultimosBits);
+    }
+
+    /**
+     * Descarta los bloques sellados que terminan antes del instante
+     * @return int con la cantidad de bloques descartados
+     */
+    synchronized int descartarAnteriores(long instanteMillis) {
+        int descartar = 0;
+        while (descartar < cantidadBloques && ultimosInstantes[descartar] < instanteMillis) {
+            descartar++;
+        }
+        if (descartar > 0) {
+            int quedan = cantidadBloques - descartar;
+            System.arraycopy(bloques, descartar, bloques, 0, quedan);
+            System.arraycopy(primerosInstantes, descartar, primerosInstantes, 0, quedan);
+            System.arraycopy(ultimosInstantes, descartar, ultimosInstantes, 0, quedan);
+            System.arraycopy(puntosPorBloque, descartar, puntosPorBloque, 0, quedan);
+            System.arraycopy(bitsPorBloque, descartar, bitsPorBloque, 0, quedan);
+            Arrays.fill(bloques, quedan, cantidadBloques, null);
+            cantidadBloques = quedan;
+            if (quedan < bloques.length / 4 && bloques.length > 4) {
+                // Devuelve la memoria de los metadatos descartados
+                int nueva = Math.max(4, quedan * 2);
+                bloques = Arrays.copyOf(bloques, nueva);
+                primerosInstantes = Arrays.copyOf(primerosInstantes, nueva);
+                ultimosInstantes = Arrays.copyOf(ultimosInstantes, nueva);
+                puntosPorBloque = Arrays.copyOf(puntosPorBloque, nueva);
+                bitsPorBloque = Arrays.copyOf(bitsPorBloque, nueva);
+            }
+        }
+        return descartar;
+    }
+
+    /**
+     * Cantidad de puntos guardados
+     */
+    synchronized long contarPuntos() {
+        long total = puntosAbierto;
+        for (int b = 0; b < cantidadBloques; b++) {
+            total += puntosPorBloque[b];
+        }
+        return total;
+    }
+
+    /**
+     * Memoria aproximada de la serie: bloques (con su cabecera de arreglo)
+     * y metadatos por bloque
+     */
+    synchronized long estimarBytes() {
+        long total = 16 + (long) abierto.length * 8 + (long) bloques.length * (4 + 8 + 8 + 4 + 4) + 64;
+        for (int b = 0; b < cantidadBloques; b++) {
+            total += 16 + (long) bloques[b].length * 8;
+        }
+        return total;
+    }
+
+    /**
+     * Lectura secuencial de bits de un bloque
+     */
+    private static class Lector {
+        private final long[] datos;
+        private int posicion;
+
+        Lector(long[] datos) {
+            this.datos = datos;
+        }
+
+        long leer(int bits) {
+            int palabra = posicion >>> 6;
+            int desplazamiento = posicion & 63;
+            posicion += bits;
+            long valor;
+            if (desplazamiento + bits <= 64) {
+                valor = datos[palabra] << desplazamiento;
+            } else {
+                valor = datos[palabra] << desplazamiento | datos[palabra + 1] >>> (64 - desplazamiento);
+            }
+            return bits == 64 ? valor : valor >>> (64 - bits);
+        }
+
+        /**
+         * Diferencia de diferencias con signo según su prefijo
+         */
+        long leerDiferencia() {
+            if (leer(1) == 0) {
+                return 0;
+            }
+            if (leer(1) == 0) {
+                return extenderSigno(leer(7), 7);
+            }
+            if (leer(1) == 0) {
+                return extenderSigno(leer(9), 9);
+            }
+            if (leer(1) == 0) {
+                return extenderSigno(leer(12), 12);
+            }
+            return leer(64);
+        }
+
+        private static long extenderSigno(long valor, int bits) {
+            return valor << (64 - bits) >> (64 - bits);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.paiz.model;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Clase SimuladorSensores
+ * Origen de los valores simulados de los equipos medibles
+ *
+ * Cada equipo tiene su propia FuenteSimulada con un SplittableRandom
+ * derivado de la semilla maestra y del código del equipo, así los hilos
+ * que sondean no comparten generador y cada equipo produce la misma
+ * secuencia sin importar el orden en que se sondee la flota.
+ *
+ * En modo de tiempo real los instantes de las lecturas son los del reloj.
+ * En modo de tiempo simulado cada equipo avanza un paso fijo por lectura a
+ * partir de un origen, y la misma semilla da exactamente las mismas
+ * lecturas (valores e instantes) aunque se sondee con varios hilos.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class SimuladorSensores {
+    private static volatile SimuladorSensores global = new SimuladorSensores(System.nanoTime());
+
+    private final long semillaMaestra;
+    // Tiempo simulado: origen y paso por lectura; paso 0 usa el reloj
+    private final long origenNanos;
+    private final long pasoNanos;
+    private final ConcurrentHashMap<String, FuenteSimulada> fuentes;
+
+    /**
+     * Constructor de un simulador en tiempo real
+     * @param semillaMaestra semilla de la que se derivan todos los equipos
+     */
+    public SimuladorSensores(long semillaMaestra) {
+        this(semillaMaestra, 0L, Duration.ZERO);
+    }
+
+    /**
+     * Constructor de un simulador en tiempo simulado, reproducible
+     * @param semillaMaestra semilla de la que se derivan todos los equipos
+     * @param origenNanos instante de la primera lectura de cada equipo en
+     *                    nanosegundos de época
+     * @param paso tiempo simulado entre lecturas de un mismo equipo
+     */
+    public SimuladorSensores(long semillaMaestra, long origenNanos, Duration paso) {
+        if (paso.isNegative()) {
+            throw new IllegalArgumentException("El paso no puede ser negativo");
+        }
+        this.semillaMaestra = semillaMaestra;
+        this.origenNanos = origenNanos;
+        this.pasoNanos = paso.toNanos();
+        this.fuentes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Simulador que usan los equipos
+     * @return SimuladorSensores instalado
+     */
+    public static SimuladorSensores global() {
+        return global;
+    }
+
+    /**
+     * Reemplaza el simulador de todos los equipos; las fuentes se derivan
+     * de nuevo desde la semilla del simulador instalado
+     * @param simulador simulador a instalar
+     */
+    public static void instalar(SimuladorSensores simulador) {
+        global = simulador;
+    }
+
+    /**
+     * Fuente de valores de un equipo, creada la primera vez que se pide
+     * @param codigoEquipo código del equipo
+     * @return FuenteSimulada del equipo
+     */
+    public FuenteSimulada fuente(String codigoEquipo) {
+        String clave = Equipo.normalizarCodigo(codigoEquipo);
+        FuenteSimulada fuente = fuentes.get(clave);
+        if (fuente == null) {
+            fuente = fuentes.computeIfAbsent(clave,
+                    codigo -> new FuenteSimulada(derivarSemilla(codigo), origenNanos, pasoNanos));
+        }
+        return fuente;
+    }
+
+    public long getSemillaMaestra() {
+        return semillaMaestra;
+    }
+
+    /**
+     * Indica si los instantes de las lecturas son simulados
+     */
+    public boolean isTiempoSimulado() {
+        return pasoNanos > 0;
+    }
+
+    /**
+     * Semilla de un equipo: depende solo de la semilla maestra y del código
+     */
+    private long derivarSemilla(String codigo) {
+        long semilla = mezclar(semillaMaestra);
+        for (int i = 0; i < codigo.length(); i++) {
+            semilla = mezclar(semilla ^ codigo.charAt(i));
+        }
+        return semilla;
+    }
+
+    /**
+     * Mezcla de bits de SplitMix
+     */
+    private static long mezclar(long x) {
+        x += 0x9e3779b97f4a7c15L;
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+}
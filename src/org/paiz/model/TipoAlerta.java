@@ -0,0 +1,16 @@
+package org.paiz.model;
+
+/**
+ * Enum TipoAlerta
+ * Condiciones que vigila el detector de anomalías en cada canal
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public enum TipoAlerta {
+    // El valor superó el umbral alto
+    UMBRAL_ALTO,
+    // El valor bajó del umbral bajo
+    UMBRAL_BAJO,
+    // El valor se alejó de la media móvil del propio equipo
+    DESVIO
+}
@@ -0,0 +1,49 @@
+package org.paiz.model;
+
+/**
+ * Enum TipoEquipo
+ * Clases concretas de equipo, con el prefijo de su código y su
+ * participación habitual en una flota
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public enum TipoEquipo {
+    MONITOR_SUELO("MS", 30, 45.0),
+    DETECTOR_HUMEDAD("DH", 12, 35.0),
+    MEDIDOR_TERMICO("MT", 14, 25.0),
+    CENTRAL_CLIMATICA("CC", 2, 120.0),
+    COMPUERTA_HIDRAULICA("CH", 8, 80.0),
+    MODULO_NUTRIENTES("MN", 4, 150.0),
+    ROCIADOR_INTELIGENTE("RI", 18, 95.0),
+    UNIDAD_BOMBEO("UB", 6, 750.0),
+    AERONAVE_HIDRATACION("AH", 3, 200.0),
+    AERONAVE_VIGILANCIA("AV", 3, 180.0);
+
+    private final String prefijo;
+    private final double pesoPorDefecto;
+    private final double consumoTipico;
+
+    TipoEquipo(String prefijo, double pesoPorDefecto, double consumoTipico) {
+        this.prefijo = prefijo;
+        this.pesoPorDefecto = pesoPorDefecto;
+        this.consumoTipico = consumoTipico;
+    }
+
+    public String getPrefijo() {
+        return prefijo;
+    }
+
+    /**
+     * Peso relativo del tipo en una flota típica (los sensores abundan)
+     */
+    public double getPesoPorDefecto() {
+        return pesoPorDefecto;
+    }
+
+    /**
+     * Consumo típico en watts
+     */
+    public double getConsumoTipico() {
+        return consumoTipico;
+    }
+}
@@ -4,10 +4,7 @@ import org.paiz.interfaces.IAuditable;
 import org.paiz.interfaces.IEjecutable;
 import org.paiz.interfaces.IMedible;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Clase UnidadBombeo
@@ -17,20 +14,33 @@ import java.time.format.DateTimeFormatter;
  */
 public class UnidadBombeo extends Equipo
         implements IEjecutable, IMedible, IAuditable {
+    static final String CATEGORIA = "Sistema de Bombeo";
 
     private double potenciaCaballos;
     private double caudalLH;
     private String estadoBombeo;
-    private List<String> bitacora;
+    private final CanalBitacora bitacora;
 
     public UnidadBombeo(String codigo, String denominacion, String marca,
                         double consumo, String zona, double potencia, double caudal) {
+        this(codigo, denominacion, marca, consumo, zona, potencia, caudal, true);
+    }
+
+    /**
+     * Constructor que permite omitir la anotación de inicialización
+     * @param anotarInicio false al reconstruir un equipo que ya se dio de alta
+     */
+    UnidadBombeo(String codigo, String denominacion, String marca,
+                 double consumo, String zona, double potencia, double caudal,
+                 boolean anotarInicio) {
         super(codigo, denominacion, marca, consumo, zona);
         this.potenciaCaballos = potencia;
         this.caudalLH = caudal;
         this.estadoBombeo = "DETENIDA";
-        this.bitacora = new ArrayList<>();
-        agregarRegistro("Unidad de bombeo inicializada");
+        this.bitacora = MotorBitacora.global().abrirCanal(codigo, zona);
+        if (anotarInicio) {
+            bitacora.registrar(EventoBitacora.INICIALIZACION, "Unidad de bombeo inicializada");
+        }
     }
 
     @Override
@@ -39,15 +49,15 @@ public class UnidadBombeo extends Equipo
 
         if (instruccion.equalsIgnoreCase("ENCENDER")) {
             estadoBombeo = "BOMBEANDO";
-            agregarRegistro("Bomba encendida - Caudal: " + caudalLH + " L/h");
+            bitacora.registrar(EventoBitacora.BOMBA_ENCENDIDA, caudalLH);
             exitoso = true;
         } else if (instruccion.equalsIgnoreCase("APAGAR")) {
             estadoBombeo = "DETENIDA";
-            agregarRegistro("Bomba apagada");
+            bitacora.registrar(EventoBitacora.BOMBA_APAGADA);
             exitoso = true;
         } else if (instruccion.startsWith("VELOCIDAD")) {
             estadoBombeo = "AJUSTANDO";
-            agregarRegistro("Ajustando velocidad de bombeo");
+            bitacora.registrar(EventoBitacora.BOMBA_AJUSTADA);
             exitoso = true;
         }
 
@@ -55,29 +65,44 @@ public class UnidadBombeo extends Equipo
     }
 
     @Override
-    public String capturarDatos() {
-        double caudalActual = caudalLH * (0.8 + Math.random() * 0.4);
-        String datos = String.format("Caudal actual: %.2f L/h - Potencia: %.1f HP - Estado: %s",
-                caudalActual, potenciaCaballos, estadoBombeo);
-        agregarRegistro("Lectura de caudal realizada");
-        return datos;
+    public void capturarDatos(LecturaTelemetria lectura) {
+        FuenteSimulada fuente = SimuladorSensores.global().fuente(codigo);
+        lectura.reiniciar(this, fuente.siguienteInstante());
+        lectura.poner(CanalTelemetria.CAUDAL, fuente.flujoBomba(caudalLH));
+        lectura.poner(CanalTelemetria.POTENCIA, potenciaCaballos);
+        bitacora.registrar(EventoBitacora.LECTURA_CAUDAL);
+    }
+
+    @Override
+    public String describirLectura(LecturaTelemetria lectura) {
+        return String.format("Caudal actual: %.2f L/h - Potencia: %.1f HP - Estado: %s",
+                lectura.obtener(CanalTelemetria.CAUDAL), lectura.obtener(CanalTelemetria.POTENCIA),
+                estadoBombeo);
     }
 
     @Override
     public void agregarRegistro(String entrada) {
-        String timestamp = LocalDateTime.now()
-                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        bitacora.add(timestamp + " - " + entrada);
+        bitacora.registrar(entrada);
     }
 
     @Override
     public List<String> consultarBitacora() {
-        return new ArrayList<>(bitacora);
+        return bitacora.consultar();
+    }
+
+    @Override
+    public List<String> consultarUltimosRegistros(int cantidad) {
+        return bitacora.consultarUltimos(cantidad);
+    }
+
+    @Override
+    public int contarRegistros() {
+        return bitacora.contarRegistros();
     }
 
     @Override
     public String obtenerCategoria() {
-        return "Sistema de Bombeo";
+        return CATEGORIA;
     }
 
     @Override
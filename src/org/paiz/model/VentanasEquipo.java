@@ -0,0 +1,217 @@
+package org.paiz.model;
+
+import java.util.Arrays;
+
+/**
+ * Clase VentanasEquipo
+ * Ventanas agregadas de la telemetría de un equipo, por resolución y canal
+ *
+ * Cada par resolución y canal tiene una ventana abierta (cantidad, mínimo,
+ * máximo y suma) que se actualiza en O(1) con cada lectura. Cuando llega
+ * una lectura de una ventana posterior, la abierta se cierra y pasa a las
+ * ventanas cerradas, guardadas por columnas en orden de inicio. Las
+ * lecturas de una ventana ya cerrada se ignoran.
+ * @author Franco Paiz
+ * @version 1.0
+ */
+class VentanasEquipo {
+    private static final CanalTelemetria[] CANALES = CanalTelemetria.values();
+    private static final Resolucion[] RESOLUCIONES = Resolucion.values();
+
+    // Equipo que capturó las lecturas; su zona se lee al consultar
+    private final Equipo equipo;
+
+    // Ventana abierta de la resolución r y el canal c en r * CANALES.length + c
+    private final long[] inicios;
+    private final long[] cantidades;
+    private final double[] minimos;
+    private final double[] maximos;
+    private final double[] sumas;
+    private final Cerradas[] cerradas;
+
+    VentanasEquipo(Equipo equipo) {
+        this.equipo = equipo;
+        int casillas = RESOLUCIONES.length * CANALES.length;
+        this.inicios = new long[casillas];
+        this.cantidades = new long[casillas];
+        this.minimos = new double[casillas];
+        this.maximos = new double[casillas];
+        this.sumas = new double[casillas];
+        this.cerradas = new Cerradas[casillas];
+    }
+
+    Equipo getEquipo() {
+        return equipo;
+    }
+
+    /**
+     * Suma una lectura a las ventanas abiertas de sus canales
+     */
+    synchronized void agregar(LecturaTelemetria lectura) {
+        long instante = lectura.getInstanteNanos();
+        for (CanalTelemetria canal : CANALES) {
+            double valor = lectura.obtener(canal);
+            if (Double.isNaN(valor)) {
+                continue;
+            }
+            for (Resolucion resolucion : RESOLUCIONES) {
+                agregar(casilla(resolucion, canal), resolucion.inicioVentana(instante), valor);
+            }
+        }
+    }
+
+    private void agregar(int i, long inicio, double valor) {
+        if (cantidades[i] > 0 && inicio != inicios[i]) {
+            if (inicio < inicios[i]) {
+                return;
+            }
+            cerrar(i);
+        }
+        if (cantidades[i] == 0) {
+            inicios[i] = inicio;
+            minimos[i] = valor;
+            maximos[i] = valor;
+            sumas[i] = valor;
+            cantidades[i] = 1;
+        } else {
+            minimos[i] = Math.min(minimos[i], valor);
+            maximos[i] = Math.max(maximos[i], valor);
+            sumas[i] += valor;
+            cantidades[i]++;
+        }
+    }
+
+    private void cerrar(int i) {
+        if (cerradas[i] == null) {
+            cerradas[i] = new Cerradas();
+        }
+        cerradas[i].anexar(inicios[i], cantidades[i], minimos[i], maximos[i], sumas[i]);
+        cantidades[i] = 0;
+    }
+
+    /**
+     * Recorre en orden las ventanas (cerradas y la abierta) con inicio en [desde, hasta)
+     * @return long con la cantidad de ventanas visitadas
+     */
+    synchronized long recorrer(Resolucion resolucion, CanalTelemetria canal, long desde, long hasta,
+                               VisitanteVentana visitante) {
+        int i = casilla(resolucion, canal);
+        long visitadas = 0;
+        Cerradas historial = cerradas[i];
+        if (historial != null) {
+            for (int v = historial.buscar(desde); v < historial.cantidad && historial.inicios[v] < hasta; v++) {
+                visitante.visitar(historial.inicios[v], historial.cantidades[v], historial.minimos[v],
+                        historial.maximos[v], historial.sumas[v]);
+                visitadas++;
+            }
+        }
+        if (cantidades[i] > 0 && inicios[i] >= desde && inicios[i] < hasta) {
+            visitante.visitar(inicios[i], cantidades[i], minimos[i], maximos[i], sumas[i]);
+            visitadas++;
+        }
+        return visitadas;
+    }
+
+    /**
+     * Descarta las ventanas cerradas de una resolución que empiezan antes del instante
+     * @return long con la cantidad de ventanas descartadas
+     */
+    synchronized long descartarAnteriores(Resolucion resolucion, long instante) {
+        long descartadas = 0;
+        for (CanalTelemetria canal : CANALES) {
+            Cerradas historial = cerradas[casilla(resolucion, canal)];
+            if (historial != null) {
+                descartadas += historial.descartar(historial.buscar(instante));
+            }
+        }
+        return descartadas;
+    }
+
+    /**
+     * Memoria aproximada de las ventanas del equipo
+     */
+    synchronized long estimarBytes() {
+        long total = 16 + 5 * (16 + 8L * inicios.length) + 16 + 4L * cerradas.length;
+        for (Cerradas historial : cerradas) {
+            if (historial != null) {
+                total += 16 + 5 * (16 + 8L * historial.inicios.length);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Memoria aproximada de las ventanas cerradas de una resolución
+     */
+    synchronized long estimarBytes(Resolucion resolucion) {
+        long total = 0;
+        for (CanalTelemetria canal : CANALES) {
+            Cerradas historial = cerradas[casilla(resolucion, canal)];
+            if (historial != null) {
+                total += 16 + 5 * (16 + 8L * historial.inicios.length);
+            }
+        }
+        return total;
+    }
+
+    private static int casilla(Resolucion resolucion, CanalTelemetria canal) {
+        return resolucion.ordinal() * CANALES.length + canal.ordinal();
+    }
+
+    /**
+     * Ventanas cerradas de una resolución y un canal, por columnas
+     */
+    private static class Cerradas {
+        private long[] inicios = new long[16];
+        private long[] cantidades = new long[16];
+        private double[] minimos = new double[16];
+        private double[] maximos = new double[16];
+        private double[] sumas = new double[16];
+        private int cantidad;
+
+        void anexar(long inicio, long lecturas, double minimo, double maximo, double suma) {
+            if (cantidad == inicios.length) {
+                redimensionar(cantidad * 2);
+            }
+            inicios[cantidad] = inicio;
+            cantidades[cantidad] = lecturas;
+            minimos[cantidad] = minimo;
+            maximos[cantidad] = maximo;
+            sumas[cantidad] = suma;
+            cantidad++;
+        }
+
+        private void redimensionar(int capacidad) {
+            inicios = Arrays.copyOf(inicios, capacidad);
+            cantidades = Arrays.copyOf(cantidades, capacidad);
+            minimos = Arrays.copyOf(minimos, capacidad);
+            maximos = Arrays.copyOf(maximos, capacidad);
+            sumas = Arrays.copyOf(sumas, capacidad);
+        }
+
+        /**
+         * Primera ventana que empieza en o después del instante
+         */
+        int buscar(long instante) {
+            int posicion = Arrays.binarySearch(inicios, 0, cantidad, instante);
+            return posicion >= 0 ? posicion : -posicion - 1;
+        }
+
+        int descartar(int primeras) {
+            if (primeras > 0) {
+                int quedan = cantidad - primeras;
+                System.arraycopy(inicios, primeras, inicios, 0, quedan);
+                System.arraycopy(cantidades, primeras, cantidades, 0, quedan);
+                System.arraycopy(minimos, primeras, minimos, 0, quedan);
+                System.arraycopy(maximos, primeras, maximos, 0, quedan);
+                System.arraycopy(sumas, primeras, sumas, 0, quedan);
+                cantidad = quedan;
+                if (cantidad < inicios.length / 4 && inicios.length > 16) {
+                    // Devuelve la memoria de las ventanas descartadas
+                    redimensionar(Math.max(16, cantidad * 2));
+                }
+            }
+            return primeras;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.paiz.model;
+
+/**
+ * Interfaz VisitanteBitacora
+ * Recibe los registros de la bitácora persistida, uno a la vez
+ * @author Franco Paiz
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface VisitanteBitacora {
+    /**
+     * Procesa un registro
+     * @param instanteNanos nanosegundos desde la época
+     * @param codigoEquipo código del equipo que generó el registro
+     * @param evento tipo de evento
+     * @param primero primer argumento numérico
+     * @param segundo segundo argumento numérico
+     * @param texto argumento de texto, o null si el evento no lo usa
+     */
+    void visitar(long instanteNanos, String codigoEquipo, EventoBitacora evento,
+                 double primero, double segundo, String texto);
+}
@@ -0,0 +1,17 @@
+package org.paiz.model;
+
+/**
+ * Interfaz VisitantePunto
+ * Recibe los puntos de una serie temporal durante un recorrido por rango
+ * @author Franco Paiz
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface VisitantePunto {
+    /**
+     * @param instanteNanos instante del punto en nanosegundos de época
+     *                      (con resolución de milisegundos)
+     * @param valor valor del canal en ese instante
+     */
+    void visitar(long instanteNanos, double valor);
+}
@@ -0,0 +1,19 @@
+package org.paiz.model;
+
+/**
+ * Interfaz VisitanteVentana
+ * Recibe las ventanas agregadas de un canal durante un recorrido por rango
+ * @author Franco Paiz
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface VisitanteVentana {
+    /**
+     * @param inicioNanos inicio de la ventana en nanosegundos de época
+     * @param cantidad lecturas de la ventana
+     * @param minimo menor valor
+     * @param maximo mayor valor
+     * @param suma suma de los valores
+     */
+    void visitar(long inicioNanos, long cantidad, double minimo, double maximo, double suma);
+}
@@ -6,6 +6,7 @@ import org.paiz.interfaces.IEjecutable;
 import org.paiz.interfaces.IMedible;
 import org.paiz.model.*;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Scanner;
 
@@ -50,8 +51,9 @@ public class InterfazConsola {
     /**
      * Inicia el ciclo principal de la interfaz
      * Evita while(true) usando condición explícita
+     * @throws IOException si falla el acceso al catálogo de equipos
      */
-    public void iniciar() {
+    public void iniciar() throws IOException {
         boolean continuar = true;
         int opcion = 0;
 
@@ -63,54 +65,59 @@ public class InterfazConsola {
         System.out.println("Listo! Tenemos " +
                 gestor.enumerarTodosEquipos().size() + " equipos en el sistema.");
 
-        while (opcion != 8) {
-            desplegarMenu();
-
-            if (lector.hasNextInt()) {
-                opcion = lector.nextInt();
-                lector.nextLine(); // Limpiar buffer
-
-                switch (opcion) {
-                    case 1:
-                        enumerarEquipos();
-                        break;
-                    case 2:
-                        localizarPorCodigo();
-                        break;
-                    case 3:
-                        localizarPorNombre();
-                        break;
-                    case 4:
-                        organizarPorConsumo();
-                        break;
-                    case 5:
-                        mostrarEstadisticas();
-                        break;
-                    case 6:
-                        presentarDetalles();
-                        break;
-                    case 7:
-                        probarCapacidades();
-                        break;
-                    case 8:
-                        System.out.println("\nGracias por usar el sistema, que te vaya bien!");
-                        continuar = false;
-                        break;
-                    default:
-                        System.out.println("\nUy! Esa opción no existe, probá de nuevo.");
+        // La plataforma se cierra aunque el ciclo termine por un error, para
+        // no perder los registros de bitácora aún no escritos en disco
+        try {
+            while (opcion != 8) {
+                desplegarMenu();
+
+                if (lector.hasNextInt()) {
+                    opcion = lector.nextInt();
+                    lector.nextLine(); // Limpiar buffer
+
+                    switch (opcion) {
+                        case 1:
+                            enumerarEquipos();
+                            break;
+                        case 2:
+                            localizarPorCodigo();
+                            break;
+                        case 3:
+                            localizarPorNombre();
+                            break;
+                        case 4:
+                            organizarPorConsumo();
+                            break;
+                        case 5:
+                            mostrarEstadisticas();
+                            break;
+                        case 6:
+                            presentarDetalles();
+                            break;
+                        case 7:
+                            probarCapacidades();
+                            break;
+                        case 8:
+                            System.out.println("\nGracias por usar el sistema, que te vaya bien!");
+                            continuar = false;
+                            break;
+                        default:
+                            System.out.println("\nUy! Esa opción no existe, probá de nuevo.");
+                    }
+                } else {
+                    System.out.println("\nEh! Tenés que meter un número, no otra cosa.");
+                    lector.nextLine(); // Limpiar entrada inválida
                 }
-            } else {
-                System.out.println("\nEh! Tenés que meter un número, no otra cosa.");
-                lector.nextLine(); // Limpiar entrada inválida
-            }
 
-            if (continuar) {
-                System.out.print("\nDale Enter para seguir...");
-                lector.nextLine();
+                if (continuar) {
+                    System.out.print("\nDale Enter para seguir...");
+                    lector.nextLine();
+                }
             }
+        } finally {
+            gestor.finalizarPlataforma();
+            lector.close();
         }
-
-        lector.close();
     }
 
     /**
@@ -297,9 +304,8 @@ public class InterfazConsola {
         if (equipo instanceof IMedible) {
             tieneCapacidades = true;
             System.out.println("\n[Puede medir]");
-            IMedible medible = (IMedible) equipo;
-            String datos = medible.capturarDatos();
-            System.out.println(datos);
+            // La lectura también queda en el historial de series del equipo
+            System.out.println(gestor.capturarTelemetria(equipo).renderizar());
         }
 
         if (equipo instanceof IEjecutable) {
@@ -354,14 +360,12 @@ public class InterfazConsola {
             tieneCapacidades = true;
             System.out.println("\n[Tiene bitácora]");
             IAuditable auditable = (IAuditable) equipo;
-            List<String> bitacora = auditable.consultarBitacora();
 
             System.out.println("\nÚltimas movidas en la bitácora:");
-            int limite = Math.min(5, bitacora.size());
-            for (int i = bitacora.size() - limite; i < bitacora.size(); i++) {
-                System.out.println("  " + bitacora.get(i));
+            for (String registro : auditable.consultarUltimosRegistros(5)) {
+                System.out.println("  " + registro);
             }
-            System.out.println("\nTotal de registros: " + bitacora.size());
+            System.out.println("\nTotal de registros: " + auditable.contarRegistros());
         }
 
         if (!tieneCapacidades) {
@@ -0,0 +1,86 @@
+package org.paiz.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Clase AgrupacionParalelaBenchmark
+ * Tiempo de agruparPor sobre una flota generada según la cantidad de hilos,
+ * recorriendo los equipos y recorriendo el espejo columnar
+ * Cada medición corre dentro de un ForkJoinPool del tamaño indicado, así
+ * el flujo paralelo usa exactamente esos hilos
+ * Se ejecuta con: java -Xmx3g org.paiz.model.AgrupacionParalelaBenchmark [equipos] [hilosMaximos] [repeticiones]
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class AgrupacionParalelaBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int hilosMaximos = args.length > 1 ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        int repeticiones = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        GeneradorFlota generador = new GeneradorFlota(42);
+        List<Equipo> equipos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            equipos.add(generador.generar(i, 7));
+        }
+        // Los dos repositorios comparten los equipos; solo cambia el camino de agruparPor
+        RepositorioEquipos objetos = new RepositorioEquipos(false);
+        objetos.incorporarEquipos(equipos);
+        RepositorioEquipos columnar = new RepositorioEquipos(true);
+        columnar.incorporarEquipos(equipos);
+
+        System.out.printf("%d equipos, %d procesadores, mediana de %d repeticiones%n", cantidad,
+                Runtime.getRuntime().availableProcessors(), repeticiones);
+        System.out.println("dimensión  hilos  ms (equipos)  aceleración  ms (columnar)  aceleración");
+        for (Dimension dimension : Dimension.values()) {
+            verificar(objetos.agruparPor(dimension).toString()
+                    .equals(columnar.agruparPor(dimension).toString()), "los dos caminos no coinciden");
+            double baseObjetos = 0;
+            double baseColumnar = 0;
+            for (int hilos = 1; hilos <= hilosMaximos; hilos *= 2) {
+                double msObjetos = medir(objetos, dimension, hilos, repeticiones);
+                double msColumnar = medir(columnar, dimension, hilos, repeticiones);
+                if (hilos == 1) {
+                    baseObjetos = msObjetos;
+                    baseColumnar = msColumnar;
+                }
+                System.out.printf("%-9s  %5d  %12.1f  %10.2fx  %13.1f  %10.2fx%n", dimension, hilos,
+                        msObjetos, baseObjetos / msObjetos, msColumnar, baseColumnar / msColumnar);
+            }
+        }
+    }
+
+    private static double medir(RepositorioEquipos repositorio, Dimension dimension, int hilos,
+                                int repeticiones) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(hilos);
+        try {
+            // Calentamiento para que el JIT compile ambos caminos
+            for (int i = 0; i < 3; i++) {
+                pool.submit(() -> repositorio.agruparPor(dimension)).get();
+            }
+            double[] tiempos = new double[repeticiones];
+            for (int i = 0; i < repeticiones; i++) {
+                long inicio = System.nanoTime();
+                Map<String, ResumenGrupo> grupos = pool.submit(() -> repositorio.agruparPor(dimension)).get();
+                tiempos[i] = (System.nanoTime() - inicio) / 1e6;
+                verificar(!grupos.isEmpty(), "agrupación vacía");
+            }
+            Arrays.sort(tiempos);
+            return tiempos[repeticiones / 2];
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void verificar(boolean condicion, String mensaje) {
+        if (!condicion) {
+            throw new IllegalStateException(mensaje);
+        }
+    }
+}
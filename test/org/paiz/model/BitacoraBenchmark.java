@@ -0,0 +1,147 @@
+package org.paiz.model;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Clase BitacoraBenchmark
+ * Costo de anotar un registro y bytes por registro: texto con fecha armado
+ * al anotar (como hacía cada equipo antes de MotorBitacora), registro
+ * primitivo en MotorBitacora y registro primitivo con DiarioBitacora adjunto
+ * Mide con System.nanoTime y los contadores de asignación de la JVM
+ * Se ejecuta con: java org.paiz.model.BitacoraBenchmark [registros] [repeticiones]
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class BitacoraBenchmark {
+    private static final com.sun.management.ThreadMXBean HILOS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Evita que el JIT descarte el trabajo medido
+    private static long sumidero;
+
+    public static void main(String[] args) throws Exception {
+        int registros = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int repeticiones = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        System.out.printf("%d registros por repetición, mediana de %d repeticiones%n", registros, repeticiones);
+        System.out.println("variante               ns/registro  bytes asignados/registro  bytes retenidos/registro");
+        medir("texto con fecha", registros, repeticiones, BitacoraBenchmark::anotarTexto);
+        medir("motor primitivo", registros, repeticiones, BitacoraBenchmark::anotarMotor);
+
+        Path directorio = Files.createTempDirectory("bitacora-benchmark");
+        try {
+            medir("motor con diario", registros, repeticiones, cantidad -> anotarDiario(directorio, cantidad));
+            System.out.printf("diario en disco: %.1f bytes/registro%n",
+                    (double) tamanoDirectorio(directorio) / registros);
+        } finally {
+            borrar(directorio);
+        }
+    }
+
+    /**
+     * Una variante anota la cantidad de registros pedida y devuelve lo que
+     * los retiene, para medir cuánta memoria queda ocupada
+     */
+    private interface Variante {
+        Object anotar(int cantidad) throws Exception;
+    }
+
+    private static void medir(String nombre, int registros, int repeticiones, Variante variante)
+            throws Exception {
+        // Calentamiento
+        for (int i = 0; i < 2; i++) {
+            variante.anotar(registros);
+        }
+        double[] nanos = new double[repeticiones];
+        double[] asignados = new double[repeticiones];
+        double retenidos = 0;
+        for (int r = 0; r < repeticiones; r++) {
+            long heapAntes = heapUsado();
+            long hilo = Thread.currentThread().getId();
+            long asignadoAntes = HILOS.getThreadAllocatedBytes(hilo);
+            long inicio = System.nanoTime();
+            Object retenido = variante.anotar(registros);
+            nanos[r] = (double) (System.nanoTime() - inicio) / registros;
+            asignados[r] = (double) (HILOS.getThreadAllocatedBytes(hilo) - asignadoAntes) / registros;
+            retenidos = (double) (heapUsado() - heapAntes) / registros;
+            sumidero += retenido.hashCode();
+        }
+        Arrays.sort(nanos);
+        Arrays.sort(asignados);
+        System.out.printf("%-21s  %11.1f  %24.1f  %24.1f%n", nombre, nanos[repeticiones / 2],
+                asignados[repeticiones / 2], retenidos);
+    }
+
+    private static Object anotarTexto(int cantidad) {
+        List<String> bitacora = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            String timestamp = LocalDateTime.now()
+                    .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+            bitacora.add(timestamp + " - " + "Lectura capturada: " + (i * 0.5));
+        }
+        return bitacora;
+    }
+
+    private static Object anotarMotor(int cantidad) {
+        MotorBitacora motor = new MotorBitacora(cantidad, cantidad);
+        CanalBitacora canal = motor.abrirCanal("BENCH-001");
+        for (int i = 0; i < cantidad; i++) {
+            canal.registrar(EventoBitacora.LECTURA_CAPTURADA, i * 0.5);
+        }
+        return motor;
+    }
+
+    private static Object anotarDiario(Path directorio, int cantidad) throws Exception {
+        borrarContenido(directorio);
+        MotorBitacora motor = new MotorBitacora(cantidad, cantidad);
+        try (DiarioBitacora diario = DiarioBitacora.abrir(directorio)) {
+            motor.adjuntarDiario(diario);
+            CanalBitacora canal = motor.abrirCanal("BENCH-001");
+            for (int i = 0; i < cantidad; i++) {
+                canal.registrar(EventoBitacora.LECTURA_CAPTURADA, i * 0.5);
+            }
+            motor.separarDiario();
+        }
+        return motor;
+    }
+
+    private static long heapUsado() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long tamanoDirectorio(Path directorio) throws Exception {
+        long total = 0;
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio)) {
+            for (Path archivo : archivos) {
+                total += Files.size(archivo);
+            }
+        }
+        return total;
+    }
+
+    private static void borrarContenido(Path directorio) throws Exception {
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio)) {
+            for (Path archivo : archivos) {
+                Files.delete(archivo);
+            }
+        }
+    }
+
+    private static void borrar(Path directorio) throws Exception {
+        borrarContenido(directorio);
+        Files.delete(directorio);
+    }
+}
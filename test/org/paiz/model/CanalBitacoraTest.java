@@ -0,0 +1,70 @@
+package org.paiz.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Clase CanalBitacoraTest
+ * Las consultas de cola y de cantidad de un canal coinciden con la consulta
+ * completa, también cuando el búfer global ya sobrescribió registros o
+ * cuando sus columnas crecieron mientras había registros vivos
+ * Se ejecuta con: java org.paiz.model.CanalBitacoraTest
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class CanalBitacoraTest {
+
+    public static void main(String[] args) {
+        // Retención 50 por canal y 64 casillas globales para forzar sobrescrituras
+        MotorBitacora motor = new MotorBitacora(50, 64);
+        CanalBitacora primero = motor.abrirCanal("PRUEBA-001");
+        CanalBitacora segundo = motor.abrirCanal("PRUEBA-002");
+        for (int i = 0; i < 200; i++) {
+            (i % 3 == 0 ? segundo : primero).registrar(EventoBitacora.LECTURA_CAPTURADA, i);
+            for (CanalBitacora canal : new CanalBitacora[] {primero, segundo}) {
+                List<String> completa = canal.consultar();
+                verificar(canal.contarRegistros() == completa.size(),
+                        "cantidad " + canal.contarRegistros() + " y consulta " + completa.size());
+                for (int cantidad : new int[] {0, 1, 5, 60}) {
+                    int desde = Math.max(0, completa.size() - cantidad);
+                    verificar(canal.consultarUltimos(cantidad).equals(completa.subList(desde, completa.size())),
+                            "los últimos " + cantidad + " no coinciden en el registro " + i);
+                }
+            }
+        }
+
+        // Capacidad mayor que las casillas iniciales: las columnas crecen y después se sobrescriben
+        int capacidad = 3 * MotorBitacora.CASILLAS_INICIALES;
+        MotorBitacora creciente = new MotorBitacora(10 * capacidad, capacidad);
+        CanalBitacora canal = creciente.abrirCanal("PRUEBA-003");
+        CanalBitacora referencia = new MotorBitacora(10 * capacidad, 10 * capacidad).abrirCanal("PRUEBA-003");
+        verificar(creciente.estimarBytesEnMemoria() < (long) capacidad * 36, "las columnas se preasignaron");
+        for (int i = 0; i < 2 * capacidad; i++) {
+            canal.registrar(EventoBitacora.LECTURA_CAPTURADA, i);
+            referencia.registrar(EventoBitacora.LECTURA_CAPTURADA, i);
+            if (i % 500 == 0 || i == 2 * capacidad - 1) {
+                List<String> esperada = referencia.consultar();
+                int desde = Math.max(0, esperada.size() - capacidad);
+                verificar(quitarFechas(canal.consultar()).equals(quitarFechas(esperada.subList(desde, esperada.size()))),
+                        "registros perdidos al crecer, en el registro " + i);
+            }
+        }
+        verificar(canal.contarRegistros() == capacidad, "el búfer superó su capacidad");
+        System.out.println("CanalBitacoraTest: OK");
+    }
+
+    // Los dos motores registran en instantes distintos; se compara el resto
+    private static List<String> quitarFechas(List<String> registros) {
+        List<String> resultado = new ArrayList<>();
+        for (String registro : registros) {
+            resultado.add(registro.substring(registro.indexOf(" - ") + 3));
+        }
+        return resultado;
+    }
+
+    private static void verificar(boolean condicion, String mensaje) {
+        if (!condicion) {
+            throw new AssertionError(mensaje);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.paiz.model;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Clase CatalogoEquiposTest
+ * Un repositorio vinculado a un catálogo construye cada equipo al pedirlo,
+ * sin volver a anotar su inicialización, y sus índices y agregados
+ * coinciden con los de un repositorio cargado equipo por equipo
+ * Se ejecuta con: java org.paiz.model.CatalogoEquiposTest
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class CatalogoEquiposTest {
+
+    public static void main(String[] args) throws Exception {
+        Path ruta = Files.createTempFile("catalogo", ".cat");
+        try {
+            RepositorioEquipos cargado = new RepositorioEquipos();
+            cargado.cargarDatosIniciales();
+            List<Equipo> originales = new ArrayList<>(cargado.recuperarEquipos());
+            originales.get(2).setEnFuncionamiento(false);
+            try (CatalogoEquipos catalogo = CatalogoEquipos.abrir(ruta)) {
+                catalogo.anexarTodos(originales);
+            }
+
+            long registrosAntes = MotorBitacora.global().contarRegistros();
+            try (CatalogoEquipos catalogo = CatalogoEquipos.abrir(ruta)) {
+                RepositorioEquipos vinculado = new RepositorioEquipos(true);
+                verificar(vinculado.vincularCatalogo(catalogo) == originales.size(),
+                        "no se vincularon todos los equipos");
+                verificar(MotorBitacora.global().contarRegistros() == registrosAntes,
+                        "vincular el catálogo anotó en la bitácora");
+                comparar(cargado, vinculado);
+
+                Equipo equipo = vinculado.localizarPorCodigo("ms-002");
+                verificar(equipo == vinculado.recuperarEquipos().get(1), "el equipo no es único por ordinal");
+                verificar(MotorBitacora.global().contarRegistros() == registrosAntes,
+                        "construir un equipo anotó su inicialización");
+
+                // Los agregados siguen al equipo una vez construido
+                equipo.setEnFuncionamiento(false);
+                cargado.localizarPorCodigo("MS-002").setEnFuncionamiento(false);
+                comparar(cargado, vinculado);
+
+                // Los códigos del catálogo se rechazan aunque el equipo no se haya construido
+                RepositorioEquiposConcurrente concurrente = new RepositorioEquiposConcurrente();
+                concurrente.vincularCatalogo(catalogo);
+                verificar(!concurrente.incorporarEquipo(new MedidorTermico("mt-001", "Copia", "X",
+                        1.0, "Z", "0-1")), "se aceptó un código del catálogo");
+                Equipo nuevo = new MedidorTermico("MT-900", "Nuevo", "X", 1.0, "Z", "0-1");
+                verificar(concurrente.incorporarEquipo(nuevo) && vinculado.incorporarEquipo(nuevo),
+                        "no se aceptó un código nuevo");
+                verificar(concurrente.localizarPorCodigo("MT-900") == nuevo
+                        && vinculado.localizarPorDenominacion("nuevo").contains(nuevo),
+                        "el equipo nuevo no quedó indexado");
+                verificar(concurrente.obtenerEstadisticas().getOperativos()
+                        == vinculado.obtenerEstadisticas().getOperativos(),
+                        "las copias del repositorio concurrente no coinciden");
+            }
+
+            // El estado cambiado quedó persistido en el catálogo
+            try (CatalogoEquipos catalogo = CatalogoEquipos.abrir(ruta)) {
+                RepositorioEquipos reabierto = new RepositorioEquipos();
+                reabierto.vincularCatalogo(catalogo);
+                verificar(reabierto.obtenerEstadisticas().getOperativos()
+                        == cargado.obtenerEstadisticas().getOperativos(), "no se persistió el estado");
+            }
+        } finally {
+            Files.deleteIfExists(ruta);
+        }
+        System.out.println("CatalogoEquiposTest: OK");
+    }
+
+    private static void comparar(RepositorioEquipos esperado, RepositorioEquipos obtenido) {
+        EstadisticasFlota a = esperado.obtenerEstadisticas();
+        EstadisticasFlota b = obtenido.obtenerEstadisticas();
+        verificar(a.getTotalEquipos() == b.getTotalEquipos() && a.getOperativos() == b.getOperativos()
+                && a.getConsumoTotal() == b.getConsumoTotal(), "agregados distintos");
+        for (Capacidad capacidad : Capacidad.values()) {
+            verificar(a.contarPorCapacidad(capacidad) == b.contarPorCapacidad(capacidad),
+                    "conteo distinto de " + capacidad);
+        }
+        verificar(esperado.agruparPor(Dimension.ZONA).toString()
+                .equals(obtenido.agruparPor(Dimension.ZONA).toString()), "agrupación distinta");
+        verificar(esperado.listarMarcas().equals(obtenido.listarMarcas()), "marcas distintas");
+        verificar(codigos(esperado.organizarPorConsumo()).equals(codigos(obtenido.organizarPorConsumo())),
+                "orden por consumo distinto");
+        verificar(codigos(esperado.filtrarEquipos("Hangar", null, null, Capacidad.EJECUTABLE))
+                .equals(codigos(obtenido.filtrarEquipos("Hangar", null, null, Capacidad.EJECUTABLE))),
+                "filtro distinto");
+        verificar(codigos(esperado.localizarPorDenominacion("dron"))
+                .equals(codigos(obtenido.localizarPorDenominacion("dron"))), "búsqueda distinta");
+    }
+
+    private static List<String> codigos(List<Equipo> equipos) {
+        List<String> codigos = new ArrayList<>();
+        for (Equipo equipo : equipos) {
+            codigos.add(equipo.getCodigo());
+        }
+        return codigos;
+    }
+
+    private static void verificar(boolean condicion, String mensaje) {
+        if (!condicion) {
+            throw new AssertionError(mensaje);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.paiz.model;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Clase DetectorAnomaliasBenchmark
+ * Lecturas por segundo que evalúa DetectorAnomalias según la cantidad de
+ * hilos, con las reglas de humedad de GestorEquipos; cada hilo alimenta
+ * sus propios equipos, como el planificador de sondeo. También informa los
+ * bytes asignados por lectura en los hilos que evalúan
+ * Se ejecuta con: java org.paiz.model.DetectorAnomaliasBenchmark [equipos] [hilosMaximos] [segundos]
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class DetectorAnomaliasBenchmark {
+    private static final com.sun.management.ThreadMXBean HILOS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    // Valores precalculados por lectura, para no medir el generador
+    private static final int MUESTRAS = 1 << 12;
+
+    public static void main(String[] args) throws Exception {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int hilosMaximos = args.length > 1 ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        String[] codigos = new String[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            codigos[i] = String.format("DH-%06d", i);
+        }
+        // Humedad que oscila dentro del rango y a veces lo cruza, para que haya alertas
+        double[] suelo = new double[MUESTRAS];
+        double[] relativa = new double[MUESTRAS];
+        for (int i = 0; i < MUESTRAS; i++) {
+            suelo[i] = 28.0 + 6.0 * Math.sin(i * 0.05) + (i % 500 < 8 ? 15.0 : 0.0);
+            relativa[i] = 60.0 + 20.0 * Math.cos(i * 0.03) + (i % 700 < 8 ? 30.0 : 0.0);
+        }
+
+        System.out.printf("%d equipos, %d procesadores, objetivo 1.000.000 lecturas/s por núcleo%n",
+                cantidad, Runtime.getRuntime().availableProcessors());
+        System.out.println("hilos  lecturas/s  lecturas/s por hilo  alertas  bytes asignados/lectura");
+        for (int hilos = 1; hilos <= hilosMaximos; hilos *= 2) {
+            LongAdder alertas = new LongAdder();
+            DetectorAnomalias detector = new DetectorAnomalias(
+                    (codigo, canal, tipo, activa, valor, instante) -> alertas.increment(),
+                    new ReglaAlerta(CanalTelemetria.HUMEDAD_SUELO, 18.0, 38.0, 1.0, 4.0, 0.05, 30, 3),
+                    new ReglaAlerta(CanalTelemetria.HUMEDAD_RELATIVA, 20.0, 95.0, 2.0, 4.0, 0.05, 30, 3));
+            // Calentamiento: registra los equipos y deja que el JIT compile recibir
+            evaluar(detector, codigos, suelo, relativa, hilos, 1);
+            long[] resultado = evaluar(detector, codigos, suelo, relativa, hilos, segundos);
+            double porSegundo = resultado[0] / (resultado[2] / 1e9);
+            System.out.printf("%5d  %10.0f  %19.0f  %7d  %23.2f%n", hilos, porSegundo, porSegundo / hilos,
+                    alertas.sum(), (double) resultado[1] / resultado[0]);
+        }
+    }
+
+    /**
+     * @return long[] con las lecturas evaluadas, los bytes asignados y los
+     *         nanosegundos transcurridos
+     */
+    private static long[] evaluar(DetectorAnomalias detector, String[] codigos, double[] suelo,
+                                  double[] relativa, int hilos, int segundos) throws Exception {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        AtomicBoolean activo = new AtomicBoolean(true);
+        try {
+            List<Future<long[]>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                int desde = codigos.length * h / hilos;
+                int hasta = codigos.length * (h + 1) / hilos;
+                tareas.add(ejecutor.submit(() -> {
+                    LecturaTelemetria lectura = new LecturaTelemetria();
+                    long hilo = Thread.currentThread().getId();
+                    long asignadoAntes = HILOS.getThreadAllocatedBytes(hilo);
+                    long lecturas = 0;
+                    int muestra = 0;
+                    while (activo.get()) {
+                        for (int i = desde; i < hasta; i++) {
+                            int m = (muestra + i) & (MUESTRAS - 1);
+                            lectura.reiniciar(null, lecturas);
+                            lectura.poner(CanalTelemetria.HUMEDAD_SUELO, suelo[m]);
+                            lectura.poner(CanalTelemetria.HUMEDAD_RELATIVA, relativa[m]);
+                            detector.recibir(codigos[i], lectura);
+                            lecturas++;
+                        }
+                        muestra++;
+                    }
+                    return new long[] {lecturas, HILOS.getThreadAllocatedBytes(hilo) - asignadoAntes};
+                }));
+            }
+            long inicio = System.nanoTime();
+            Thread.sleep(segundos * 1_000L);
+            activo.set(false);
+            long[] total = new long[3];
+            for (Future<long[]> tarea : tareas) {
+                long[] parcial = tarea.get();
+                total[0] += parcial[0];
+                total[1] += parcial[1];
+            }
+            total[2] = System.nanoTime() - inicio;
+            return total;
+        } finally {
+            ejecutor.shutdown();
+        }
+    }
+}
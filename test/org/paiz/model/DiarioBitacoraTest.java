@@ -0,0 +1,65 @@
+package org.paiz.model;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Clase DiarioBitacoraTest
+ * Un registro anexado llega al segmento en disco al vencer el intervalo de
+ * confirmación aunque no lleguen más registros ni se sincronice a mano
+ * Se ejecuta con: java org.paiz.model.DiarioBitacoraTest
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class DiarioBitacoraTest {
+
+    public static void main(String[] args) throws Exception {
+        Path directorio = Files.createTempDirectory("diario");
+        Duration intervalo = Duration.ofMillis(50);
+        try (DiarioBitacora diario = DiarioBitacora.abrir(directorio,
+                DiarioBitacora.TAMANO_SEGMENTO_POR_DEFECTO, DiarioBitacora.DURACION_SEGMENTO_POR_DEFECTO,
+                intervalo)) {
+            CanalBitacora canal = new MotorBitacora(50, 64).abrirCanal("PRUEBA-001");
+            Path segmento = segmentoActivo(directorio);
+            long vacio = Files.size(segmento);
+
+            diario.anexar(canal, MotorBitacora.ahoraEpocaNanos(), EventoBitacora.LECTURA_CAPTURADA,
+                    1.0, 0.0, null);
+
+            long limite = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (Files.size(segmento) == vacio && System.nanoTime() < limite) {
+                Thread.sleep(10);
+            }
+            verificar(Files.size(segmento) > vacio, "el registro no llegó al disco sin otra anexión");
+        } finally {
+            try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio)) {
+                for (Path archivo : archivos) {
+                    Files.delete(archivo);
+                }
+            }
+            Files.delete(directorio);
+        }
+        System.out.println("DiarioBitacoraTest: OK");
+    }
+
+    private static Path segmentoActivo(Path directorio) throws Exception {
+        Path ultimo = null;
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, "bitacora-*.seg")) {
+            for (Path archivo : archivos) {
+                if (ultimo == null || archivo.compareTo(ultimo) > 0) {
+                    ultimo = archivo;
+                }
+            }
+        }
+        verificar(ultimo != null, "no hay segmento activo");
+        return ultimo;
+    }
+
+    private static void verificar(boolean condicion, String mensaje) {
+        if (!condicion) {
+            throw new AssertionError(mensaje);
+        }
+    }
+}
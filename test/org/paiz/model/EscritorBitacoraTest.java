@@ -0,0 +1,111 @@
+package org.paiz.model;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Clase EscritorBitacoraTest
+ * Un productor con DESCARTAR_ANTIGUO que reserva y libera una casilla en
+ * medio de un lote del escritor no debe romper el lote ni la cola
+ * Se ejecuta con: java org.paiz.model.EscritorBitacoraTest
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class EscritorBitacoraTest {
+
+    public static void main(String[] args) throws Exception {
+        descarteEnMedioDeUnLote();
+        System.out.println("EscritorBitacoraTest: OK");
+    }
+
+    private static void descarteEnMedioDeUnLote() throws Exception {
+        Path directorio = Files.createTempDirectory("bitacora-prueba");
+        MotorBitacora motor = new MotorBitacora(100, 1_024);
+        DiarioBitacora diario = DiarioBitacora.abrir(directorio);
+        motor.adjuntarDiario(diario);
+        EscritorIntercalado escritor = new EscritorIntercalado(motor);
+        CanalBitacora canal = motor.abrirCanal("PRUEBA-001");
+        ExecutorService productor = Executors.newSingleThreadExecutor(tarea -> {
+            // Si la cola queda trabada, el productor no debe impedir que termine la prueba
+            Thread hilo = new Thread(tarea, "productor-prueba");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        try {
+            // Con el escritor en pausa los registros solo se encolan
+            escritor.pausado = true;
+            for (int i = 0; i < 5; i++) {
+                escritor.encolar(canal, MotorBitacora.ahoraEpocaNanos(), EventoBitacora.LECTURA_CAPTURADA,
+                        i, 0.0, null);
+            }
+            escritor.robar.set(true);
+            escritor.pausado = false;
+            motor.aplicarLote(escritor, 1_024);
+            verificar(!escritor.robar.get(), "el productor no descartó en medio del lote");
+            escritor.esperarVaciado();
+            verificar(motor.contarRegistros() == 4, "registros en el motor: " + motor.contarRegistros());
+
+            // La cola debe seguir aceptando más registros que su capacidad
+            Future<?> carga = productor.submit(() -> {
+                for (int i = 0; i < 10 * escritor.getCapacidad(); i++) {
+                    escritor.encolar(canal, MotorBitacora.ahoraEpocaNanos(), EventoBitacora.LECTURA_CAPTURADA,
+                            i, 0.0, null);
+                }
+                escritor.esperarVaciado();
+            });
+            carga.get(10, TimeUnit.SECONDS);
+            long[] enDisco = new long[1];
+            diario.recorrerRecientes(Long.MAX_VALUE, (instante, codigo, evento, primero, segundo, texto) -> {
+                verificar(codigo != null && evento == EventoBitacora.LECTURA_CAPTURADA, "registro dañado en disco");
+                enDisco[0]++;
+            });
+            long esperados = motor.contarRegistros();
+            verificar(enDisco[0] == esperados, "en disco " + enDisco[0] + " y en memoria " + esperados);
+        } finally {
+            productor.shutdownNow();
+            escritor.detener();
+            motor.separarDiario();
+            diario.close();
+        }
+    }
+
+    private static void verificar(boolean condicion, String mensaje) {
+        if (!condicion) {
+            throw new AssertionError(mensaje);
+        }
+    }
+
+    /**
+     * Escritor que puede pausarse y que, una sola vez, intercala el
+     * descarte de un productor después de la primera reserva de un lote
+     */
+    private static class EscritorIntercalado extends EscritorBitacora {
+        private volatile boolean pausado;
+        private final AtomicBoolean robar = new AtomicBoolean();
+
+        EscritorIntercalado(MotorBitacora motor) {
+            super(motor, 8, PoliticaPresion.DESCARTAR_ANTIGUO, 1);
+        }
+
+        @Override
+        long reservar() {
+            if (pausado) {
+                return -1;
+            }
+            long posicion = super.reservar();
+            if (posicion >= 0 && robar.compareAndSet(true, false)) {
+                // Lo mismo que hace encolar con DESCARTAR_ANTIGUO y la cola llena
+                long descartada = super.reservar();
+                if (descartada >= 0) {
+                    super.liberar(descartada);
+                }
+            }
+            return posicion;
+        }
+    }
+}
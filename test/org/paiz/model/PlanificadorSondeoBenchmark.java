@@ -0,0 +1,44 @@
+package org.paiz.model;
+
+import java.time.Duration;
+
+/**
+ * Clase PlanificadorSondeoBenchmark
+ * Sondeos por segundo sostenidos con una flota de monitores de suelo
+ * sondeados cada segundo; las lecturas van a un AlmacenSeries como en
+ * GestorEquipos
+ * Se ejecuta con: java org.paiz.model.PlanificadorSondeoBenchmark [equipos] [hilos] [segundos]
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class PlanificadorSondeoBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int equipos = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int hilos = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        AlmacenSeries series = new AlmacenSeries();
+        PlanificadorSondeo planificador = new PlanificadorSondeo(series::registrar, hilos);
+        for (int i = 0; i < equipos; i++) {
+            planificador.programar(new MonitorSuelo(String.format("MS-%06d", i), "Monitor", "Marca",
+                    1.0, "Z" + (i % 16), 30.0, "Capacitivo"), Duration.ofSeconds(1));
+        }
+        planificador.iniciar();
+        // La primera mitad calienta el JIT y las series; se mide la segunda
+        double suma = 0;
+        int medidos = 0;
+        for (int s = 1; s <= segundos; s++) {
+            Thread.sleep(1_000);
+            MetricasSondeo metricas = planificador.obtenerMetricas();
+            System.out.println(s + " s: " + metricas);
+            if (s > segundos / 2) {
+                suma += metricas.getSondeosPorSegundo();
+                medidos++;
+            }
+        }
+        planificador.detener();
+        System.out.printf("%d equipos, %d hilos, %d procesadores: %.0f sondeos/s sostenidos (objetivo %d)%n",
+                equipos, hilos, Runtime.getRuntime().availableProcessors(), suma / medidos, equipos);
+    }
+}
@@ -0,0 +1,73 @@
+package org.paiz.model;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Clase PlanificadorSondeoTest
+ * Un equipo nunca se lee en dos hilos lectores a la vez, aunque su lote
+ * anterior siga leyendo otros equipos más lentos
+ * Se ejecuta con: java org.paiz.model.PlanificadorSondeoTest
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class PlanificadorSondeoTest {
+
+    public static void main(String[] args) throws Exception {
+        sinLecturasSimultaneas();
+        System.out.println("PlanificadorSondeoTest: OK");
+    }
+
+    private static void sinLecturasSimultaneas() throws Exception {
+        PlanificadorSondeo planificador = new PlanificadorSondeo((codigo, lectura) -> { }, 4);
+        List<Vigilado> equipos = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            // El primero es rápido; los demás demoran el resto de su lote
+            Vigilado equipo = new Vigilado("PRUEBA-" + i, i == 0 ? 0 : 3_000_000L);
+            equipos.add(equipo);
+            planificador.programar(equipo, Duration.ofMillis(1));
+        }
+        planificador.iniciar();
+        Thread.sleep(2_000);
+        planificador.detener();
+        for (Vigilado equipo : equipos) {
+            verificar(equipo.lecturas.get() > 0, equipo.getCodigo() + " no se leyó");
+            verificar(equipo.maximo.get() == 1, equipo.getCodigo() + " se leyó en "
+                    + equipo.maximo.get() + " hilos a la vez");
+        }
+    }
+
+    private static void verificar(boolean condicion, String mensaje) {
+        if (!condicion) {
+            throw new AssertionError(mensaje);
+        }
+    }
+
+    /**
+     * Monitor que anota cuántos hilos lo leen a la vez
+     */
+    private static class Vigilado extends MonitorSuelo {
+        private final long demoraNanos;
+        private final AtomicInteger dentro = new AtomicInteger();
+        private final AtomicInteger maximo = new AtomicInteger();
+        private final AtomicInteger lecturas = new AtomicInteger();
+
+        Vigilado(String codigo, long demoraNanos) {
+            super(codigo, "Monitor de prueba", "Prueba", 1.0, "Z1", 30.0, "Prueba");
+            this.demoraNanos = demoraNanos;
+        }
+
+        @Override
+        public void capturarDatos(LecturaTelemetria lectura) {
+            maximo.accumulateAndGet(dentro.incrementAndGet(), Math::max);
+            long fin = System.nanoTime() + demoraNanos;
+            while (System.nanoTime() < fin) {
+                Thread.onSpinWait();
+            }
+            lecturas.incrementAndGet();
+            dentro.decrementAndGet();
+        }
+    }
+}
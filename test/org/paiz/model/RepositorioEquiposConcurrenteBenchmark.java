@@ -0,0 +1,112 @@
+package org.paiz.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Clase RepositorioEquiposConcurrenteBenchmark
+ * Registros y búsquedas por código por segundo según la cantidad de hilos,
+ * comparando RepositorioEquiposConcurrente con un RepositorioEquipos
+ * protegido por su monitor
+ * Se ejecuta con: java org.paiz.model.RepositorioEquiposConcurrenteBenchmark [equipos] [hilosMaximos] [segundos]
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class RepositorioEquiposConcurrenteBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int hilosMaximos = args.length > 1 ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors() * 2;
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+        List<Equipo> equipos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            equipos.add(new MedidorTermico(String.format("MT-%07d", i), "Medidor", "Marca",
+                    10.0 + i % 100, "Z" + (i % 16), "0-50"));
+        }
+        System.out.printf("%d equipos, %d procesadores%n", cantidad,
+                Runtime.getRuntime().availableProcessors());
+        System.out.println("hilos  registros/s (concurrente)  búsquedas/s (concurrente)  búsquedas/s (monitor)");
+        for (int hilos = 1; hilos <= hilosMaximos; hilos *= 2) {
+            RepositorioEquiposConcurrente concurrente = new RepositorioEquiposConcurrente();
+            double registros = registrar(concurrente, equipos, hilos);
+            double lecturas = buscar(concurrente, cantidad, hilos, segundos, false);
+
+            RepositorioEquipos simple = new RepositorioEquipos();
+            simple.incorporarEquipos(equipos);
+            double lecturasMonitor = buscar(simple, cantidad, hilos, segundos, true);
+            System.out.printf("%5d  %26.0f  %25.0f  %21.0f%n", hilos, registros, lecturas, lecturasMonitor);
+        }
+    }
+
+    private static double registrar(RepositorioEquipos destino, List<Equipo> equipos, int hilos)
+            throws Exception {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try {
+            long inicio = System.nanoTime();
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                int desde = equipos.size() * h / hilos;
+                int hasta = equipos.size() * (h + 1) / hilos;
+                tareas.add(ejecutor.submit(() -> {
+                    for (int i = desde; i < hasta; i++) {
+                        destino.incorporarEquipo(equipos.get(i));
+                    }
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+            return equipos.size() / ((System.nanoTime() - inicio) / 1e9);
+        } finally {
+            ejecutor.shutdown();
+        }
+    }
+
+    private static double buscar(RepositorioEquipos origen, int cantidad, int hilos, int segundos,
+                                 boolean conMonitor) throws Exception {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        AtomicBoolean activo = new AtomicBoolean(true);
+        try {
+            List<Future<Long>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                tareas.add(ejecutor.submit(() -> {
+                    ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                    long busquedas = 0;
+                    while (activo.get()) {
+                        String codigo = String.format("MT-%07d", aleatorio.nextInt(cantidad));
+                        Equipo equipo;
+                        if (conMonitor) {
+                            synchronized (origen) {
+                                equipo = origen.localizarPorCodigo(codigo);
+                            }
+                        } else {
+                            equipo = origen.localizarPorCodigo(codigo);
+                        }
+                        if (equipo == null) {
+                            throw new IllegalStateException("No se encontró " + codigo);
+                        }
+                        busquedas++;
+                    }
+                    return busquedas;
+                }));
+            }
+            long inicio = System.nanoTime();
+            Thread.sleep(segundos * 1_000L);
+            activo.set(false);
+            long total = 0;
+            for (Future<Long> tarea : tareas) {
+                total += tarea.get();
+            }
+            return total / ((System.nanoTime() - inicio) / 1e9);
+        } finally {
+            ejecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.paiz.model;
+
+import org.paiz.controller.GestorEquipos;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Clase RepositorioEquiposConcurrenteTest
+ * Prueba de estrés: varios hilos registran los mismos códigos mientras
+ * otros leen. Cada código se registra una sola vez, solo se construye el
+ * equipo del hilo que lo ganó y los lectores nunca ven un estado parcial
+ * Se ejecuta con: java org.paiz.model.RepositorioEquiposConcurrenteTest
+ * @author Franco Paiz
+ * @version 1.0
+ */
+public class RepositorioEquiposConcurrenteTest {
+    private static final int CODIGOS = 2_000;
+    private static final int ESCRITORES = 8;
+    private static final int LECTORES = 2;
+
+    public static void main(String[] args) throws Exception {
+        estresar(new RepositorioEquiposConcurrente(), LECTORES);
+        // El repositorio simple también reserva, con su propio candado; sus
+        // lecturas no admiten escrituras simultáneas, así que va sin lectores
+        estresar(new RepositorioEquipos(), 0);
+        System.out.println("RepositorioEquiposConcurrenteTest: OK");
+    }
+
+    private static void estresar(RepositorioEquipos repositorio, int lectores) throws Exception {
+        GestorEquipos gestor = new GestorEquipos(repositorio);
+        AtomicInteger construidos = new AtomicInteger();
+        AtomicInteger registrados = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(ESCRITORES + lectores);
+        try {
+            List<Future<?>> escritores = new ArrayList<>();
+            for (int h = 0; h < ESCRITORES; h++) {
+                long semilla = h;
+                escritores.add(hilos.submit(() -> {
+                    List<Integer> orden = new ArrayList<>();
+                    for (int i = 0; i < CODIGOS; i++) {
+                        orden.add(i);
+                    }
+                    Collections.shuffle(orden, new Random(semilla));
+                    largada.await();
+                    for (int i : orden) {
+                        String codigo = String.format("MT-%05d", i);
+                        // Algunos hilos usan otras mayúsculas: es el mismo código
+                        String pedido = semilla % 2 == 0 ? codigo : codigo.toLowerCase();
+                        if (gestor.registrarEquipo(pedido, () -> {
+                            construidos.incrementAndGet();
+                            return new MedidorTermico(codigo, "Medidor " + codigo, "Marca", 10.0 + i,
+                                    "Z" + (i % 8), "0-50");
+                        })) {
+                            registrados.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            List<Future<?>> lecturas = new ArrayList<>();
+            for (int h = 0; h < lectores; h++) {
+                lecturas.add(hilos.submit(() -> {
+                    largada.await();
+                    int anterior = 0;
+                    while (escritores.stream().anyMatch(f -> !f.isDone())) {
+                        List<Equipo> vistos = repositorio.recuperarEquipos();
+                        verificar(vistos.size() >= anterior, "la cantidad de equipos retrocedió");
+                        anterior = vistos.size();
+                        Set<String> codigos = new HashSet<>();
+                        for (Equipo equipo : vistos) {
+                            verificar(equipo != null && codigos.add(equipo.getClaveCodigo()),
+                                    "instantánea con equipos nulos o repetidos");
+                        }
+                        if (!vistos.isEmpty()) {
+                            Equipo ultimo = vistos.get(vistos.size() - 1);
+                            verificar(repositorio.localizarPorCodigo(ultimo.getCodigo()) == ultimo,
+                                    "un equipo visible no se encuentra por código");
+                        }
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> tarea : escritores) {
+                tarea.get();
+            }
+            for (Future<?> tarea : lecturas) {
+                tarea.get();
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+
+        String nombre = repositorio.getClass().getSimpleName();
+        verificar(registrados.get() == CODIGOS, nombre + ": registrados " + registrados.get());
+        verificar(construidos.get() == CODIGOS, nombre + ": se construyeron " + construidos.get()
+                + " equipos para " + CODIGOS + " códigos");
+        verificar(repositorio.contarEquipos() == CODIGOS
+                && repositorio.obtenerEstadisticas().getTotalEquipos() == CODIGOS,
+                nombre + ": el repositorio tiene " + repositorio.contarEquipos());
+        verificar(repositorio.localizarPorZona("z3").size() == CODIGOS / 8,
+                nombre + ": índice por zona incompleto");
+        // Un código ya registrado no vuelve a reservarse ni a construirse
+        verificar(!gestor.registrarEquipo("mt-00001", () -> {
+            throw new AssertionError("se construyó un duplicado");
+        }), nombre + ": se aceptó un duplicado");
+    }
+
+    private static void verificar(boolean condicion, String mensaje) {
+        if (!condicion) {
+            throw new AssertionError(mensaje);
+        }
+    }
+}